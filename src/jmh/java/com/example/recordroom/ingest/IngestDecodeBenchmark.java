@@ -0,0 +1,80 @@
+package com.example.recordroom.ingest;
+
+import com.example.recordroom.model.ConsoleEventIngestRequest;
+import com.example.recordroom.model.RrwebBatchIngestRequest;
+import com.example.recordroom.model.RrwebEventEnvelope;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IngestFrameDecoder against the path it replaced: readTree, treeToValue into the DTO, then
+ * writeValueAsString per rrweb payload before storing it.
+ *
+ * Run with ./gradlew jmh (results in build/results/jmh).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestDecodeBenchmark {
+
+    @Param({"10", "100"})
+    public int events;
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final IngestFrameDecoder decoder = new IngestFrameDecoder(16L << 20);
+
+    private String rrwebFrame;
+    private String consoleFrame;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("{\"type\":\"rrweb\",\"events\":[");
+        for (int i = 0; i < events; i++) {
+            if (i > 0) sb.append(',');
+            long ts = 1_700_000_000_000L + i * 16L;
+            sb.append("{\"ts\":").append(ts).append(",\"seq\":").append(i + 1).append(",\"payload\":")
+                    .append("{\"type\":3,\"timestamp\":").append(ts).append(",\"data\":{\"source\":0,\"texts\":[],")
+                    .append("\"attributes\":[{\"id\":").append(100 + i).append(",\"attributes\":{\"class\":\"row row-")
+                    .append(i).append(" is-selected\",\"style\":\"transform: translateY(").append(i * 24).append("px)\"}}],")
+                    .append("\"removes\":[],\"adds\":[{\"parentId\":42,\"nextId\":null,\"node\":{\"type\":2,\"tagName\":\"li\",")
+                    .append("\"attributes\":{\"data-id\":\"item-").append(i).append("\"},\"childNodes\":[],\"id\":")
+                    .append(1000 + i).append("}}]}}}");
+        }
+        rrwebFrame = sb.append("]}").toString();
+        consoleFrame = "{\"type\":\"console\",\"level\":\"error\",\"message\":\"TypeError: Cannot read properties of undefined (reading 'id')\","
+                + "\"stack\":\"TypeError: Cannot read properties of undefined\\n    at render (https://app.example.com/static/js/main.3f9a1c.js:1:20456)\","
+                + "\"ts\":1700000000000,\"seq\":7}";
+    }
+
+    @Benchmark
+    public void rrwebStreaming(Blackhole bh) throws Exception {
+        bh.consume(decoder.decode("r1", rrwebFrame));
+    }
+
+    @Benchmark
+    public void rrwebTree(Blackhole bh) throws Exception {
+        JsonNode node = om.readTree(rrwebFrame);
+        bh.consume(node.get("type").asText());
+        RrwebBatchIngestRequest req = om.treeToValue(node, RrwebBatchIngestRequest.class);
+        for (RrwebEventEnvelope ev : req.getEvents()) bh.consume(om.writeValueAsString(ev.getPayload()));
+    }
+
+    @Benchmark
+    public void consoleStreaming(Blackhole bh) throws Exception {
+        bh.consume(decoder.decode("r1", consoleFrame));
+    }
+
+    @Benchmark
+    public void consoleTree(Blackhole bh) throws Exception {
+        JsonNode node = om.readTree(consoleFrame);
+        bh.consume(node.get("type").asText());
+        bh.consume(om.treeToValue(node, ConsoleEventIngestRequest.class));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.recordroom.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventIdGenerator against the "c_" + UUID.randomUUID() ids it replaced, with 8 threads sharing
+ * one generator (the ingest lanes and request threads all draw from the same bean).
+ *
+ * Run with ./gradlew jmh (results in build/results/jmh).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class EventIdBenchmark {
+
+    private final EventIdGenerator generator = new EventIdGenerator(1);
+
+    @Benchmark
+    public String timeOrdered() {
+        return generator.next("c_");
+    }
+
+    @Benchmark
+    public String randomUuid() {
+        return "c_" + UUID.randomUUID();
+    }
+}
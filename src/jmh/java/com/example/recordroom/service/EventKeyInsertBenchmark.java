@@ -0,0 +1,75 @@
+package com.example.recordroom.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert cost of time-ordered event ids against random UUIDs, on H2 (MySQL mode) with the
+ * (recordId, eventId) index of the event tables. Each operation inserts one batch of events for
+ * one record; the table keeps growing through the iterations, as it does in production.
+ *
+ * Run with ./gradlew jmh (results in build/results/jmh).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventKeyInsertBenchmark {
+
+    private static final int RECORDS = 64;
+
+    @Param({"timeOrdered", "randomUuid"})
+    public String ids;
+
+    @Param({"200"})
+    public int batchSize;
+
+    private final EventIdGenerator generator = new EventIdGenerator(1);
+    private Connection conn;
+    private PreparedStatement insert;
+    private int batches;
+
+    @Setup
+    public void setup() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:event-key-" + ids + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("drop table if exists bench_event");
+            st.execute("create table bench_event (id bigint auto_increment primary key, record_id varchar(64) not null, "
+                    + "event_id varchar(64) not null, ts bigint not null)");
+            st.execute("create index idx_bench_record_eventid on bench_event (record_id, event_id)");
+        }
+        conn.setAutoCommit(false);
+        insert = conn.prepareStatement("insert into bench_event (record_id, event_id, ts) values (?, ?, ?)");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("drop table bench_event");
+        }
+        conn.close();
+    }
+
+    @Benchmark
+    public void insertBatch() throws SQLException {
+        String recordId = "record-" + (batches++ % RECORDS);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < batchSize; i++) {
+            insert.setString(1, recordId);
+            insert.setString(2, "timeOrdered".equals(ids) ? generator.next("c_") : "c_" + UUID.randomUUID());
+            insert.setLong(3, now + i);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        conn.commit();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.RecordRoomApplication;
+import com.example.recordroom.ingest.IngestItem;
+import com.example.recordroom.model.ConsoleEventIngestRequest;
+import com.example.recordroom.model.CreateRecordRequest;
+import com.example.recordroom.model.NetworkEventIngestRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getSessionView for one session of many records, each with console and network events, on an
+ * in-memory H2 database. The view should cost a few indexed lookups plus the counters join,
+ * whatever the number of events per record.
+ *
+ * Run with ./gradlew jmh (results in build/results/jmh).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionViewBenchmark {
+
+    private static final String SESSION_ID = "bench-session";
+
+    @Param({"200", "1000"})
+    public int records;
+
+    @Param({"50"})
+    public int eventsPerRecord;
+
+    private ConfigurableApplicationContext ctx;
+    private RecordroomService service;
+
+    @Setup
+    public void setup() {
+        // as arguments: builder properties are defaults, which application.yml would override
+        ctx = new SpringApplicationBuilder(RecordRoomApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:session-bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.h2.console.enabled=false",
+                        "--recordroom.rrweb.compact-enabled=false");
+        service = ctx.getBean(RecordroomService.class);
+
+        long now = System.currentTimeMillis() - records * 60_000L;
+        String previous = "bench-before"; // a record of an earlier session, so the previous-session lookup runs
+        service.createRecord(new CreateRecordRequest(), previous, "bench-session-before", now - 60_000L);
+        for (int r = 0; r < records; r++) {
+            String recordId = "bench-record-" + r;
+            CreateRecordRequest req = new CreateRecordRequest();
+            req.setPreviousRecordId(previous);
+            req.setPageUrl("https://app.example.com/page/" + r);
+            req.setUserId("user-" + (r % 7));
+            long createdAt = now + r * 60_000L;
+            service.createRecord(req, recordId, SESSION_ID, createdAt);
+
+            List<IngestItem> items = new ArrayList<>(eventsPerRecord);
+            for (int i = 0; i < eventsPerRecord; i++) {
+                long ts = createdAt + i * 100L;
+                if (i % 2 == 0) {
+                    ConsoleEventIngestRequest c = new ConsoleEventIngestRequest();
+                    c.setType("console");
+                    c.setLevel(i % 10 == 0 ? "error" : "log");
+                    c.setMessage("message " + i + " of " + recordId);
+                    c.setTs(ts);
+                    c.setSeq(i + 1);
+                    items.add(IngestItem.console(recordId, c));
+                } else {
+                    NetworkEventIngestRequest n = new NetworkEventIngestRequest();
+                    n.setType("network");
+                    n.setClientRequestId(recordId + "-" + i);
+                    n.setMethod("GET");
+                    n.setUrl("https://api.example.com/items?page=" + i);
+                    n.setStatus(i % 9 == 0 ? 500 : 200);
+                    n.setStartedAtEpochMs(ts);
+                    n.setDurationMs(40);
+                    n.setSeq(i + 1);
+                    items.add(IngestItem.network(recordId, n));
+                }
+            }
+            service.saveBatch(items);
+            previous = recordId;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (ctx != null) ctx.close();
+    }
+
+    @Benchmark
+    public void sessionView(Blackhole bh) {
+        bh.consume(service.getSessionView(SESSION_ID));
+    }
+}
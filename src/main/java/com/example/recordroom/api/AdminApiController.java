@@ -1,25 +1,37 @@
 package com.example.recordroom.api;
 
+import com.example.recordroom.ingest.IngestPipeline;
 import com.example.recordroom.model.AdminOverviewResponse;
+import com.example.recordroom.model.AdminSeriesResponse;
+import com.example.recordroom.model.IngestStatsResponse;
+import com.example.recordroom.model.Issue;
+import com.example.recordroom.model.IssueDetailResponse;
+import com.example.recordroom.service.EventRollups;
 import com.example.recordroom.service.RecordroomService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/admin")
 public class AdminApiController {
 
     private final RecordroomService service;
+    private final IngestPipeline ingestPipeline;
 
-    public AdminApiController(RecordroomService service) {
+    public AdminApiController(RecordroomService service, IngestPipeline ingestPipeline) {
         this.service = service;
+        this.ingestPipeline = ingestPipeline;
     }
 
     /**
      * Monitoring overview (demo-quality, no auth)
      * - q: free text search across recordId/sessionId/pageUrl/userAgent/deviceInfo/userId/userEmail
      * - errorsOnly: if true, only records with consoleErrorCount>0 or networkHttpErrorCount>0
-     * - fromTs/toTs: epoch ms range for global counters/bytes (not for record list)
+     * - fromTs/toTs: epoch ms range for global counters/bytes (not for record list), minute resolution
      * - limit: record rows to return (max 500)
      */
     @GetMapping(value = "/overview", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -32,6 +44,78 @@ public class AdminApiController {
     ) {
         return service.getAdminOverview(q, errorsOnly, fromTs, toTs, limit);
     }
-}
 
+    /**
+     * Event counts and bytes over time, from the minute/hour rollups
+     * - fromTs/toTs: epoch ms; default the last 24 hours
+     * - resolution: minute, hour, or auto (minutes up to 1440 points, else hours)
+     * - at most 1440 points; a longer range keeps its latest buckets
+     */
+    @GetMapping(value = "/series", produces = MediaType.APPLICATION_JSON_VALUE)
+    public AdminSeriesResponse series(
+            @RequestParam(required = false) Long fromTs,
+            @RequestParam(required = false) Long toTs,
+            @RequestParam(required = false, defaultValue = "auto") String resolution
+    ) {
+        Long bucketMs;
+        if ("minute".equals(resolution)) bucketMs = EventRollups.MINUTE_MS;
+        else if ("hour".equals(resolution)) bucketMs = EventRollups.HOUR_MS;
+        else if ("auto".equals(resolution)) bucketMs = null;
+        else throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "resolution must be minute, hour or auto");
+        return service.getAdminSeries(fromTs, toTs, bucketMs);
+    }
+
+    /**
+     * Ingest pipeline metrics, one entry per event kind
+     * - queueDepth/queueCapacity: backlog waiting for the writer
+     * - dropped: items rejected because the queue stayed full
+     * - lastFlushMs/avgFlushMs/maxFlushMs: batch write latency
+     * - maxQueueWaitMs: longest time an item waited before its flush started
+     */
+    @GetMapping(value = "/ingest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public IngestStatsResponse ingest() {
+        return ingestPipeline.stats();
+    }
 
+    /**
+     * Console errors grouped by fingerprint across all records
+     * - q: substring of the normalized message
+     * - level: only issues of this console level
+     * - fromTs/toTs: epoch ms; issues seen at least once in the range
+     * - sort: recent (last seen first) or count (most events first)
+     * - limit: issues to return (max 500)
+     */
+    @GetMapping(value = "/issues", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Issue> issues(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) Long fromTs,
+            @RequestParam(required = false) Long toTs,
+            @RequestParam(required = false, defaultValue = "recent") String sort,
+            @RequestParam(required = false, defaultValue = "100") int limit
+    ) {
+        if (!"recent".equals(sort) && !"count".equals(sort)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be recent or count");
+        }
+        return service.listIssues(q, level, fromTs, toTs, "count".equals(sort), limit);
+    }
+
+    /**
+     * One issue with its sample stack, latest events and affected records
+     * - fromTs/toTs: epoch ms; records that hit the issue in the range
+     * - limit: records to return (max 500)
+     */
+    @GetMapping(value = "/issues/{fingerprint}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public IssueDetailResponse issue(
+            @PathVariable String fingerprint,
+            @RequestParam(required = false) Long fromTs,
+            @RequestParam(required = false) Long toTs,
+            @RequestParam(required = false, defaultValue = "100") int limit
+    ) {
+        IssueDetailResponse issue = service.getIssue(fingerprint, fromTs, toTs, limit);
+        if (issue == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "issue not found: " + fingerprint);
+        }
+        return issue;
+    }
+}
@@ -1,21 +1,30 @@
 package com.example.recordroom.api;
 
+import com.example.recordroom.ingest.NdjsonIngestReader;
+import com.example.recordroom.model.BulkIngestResponse;
 import com.example.recordroom.model.CreateRecordRequest;
 import com.example.recordroom.model.CreateRecordResponse;
 import com.example.recordroom.model.NetworkEvent;
 import com.example.recordroom.model.Record;
+import com.example.recordroom.model.RecordChainResponse;
 import com.example.recordroom.model.RecordStats;
 import com.example.recordroom.model.ReplayNetworkResponse;
+import com.example.recordroom.model.SearchResponse;
 import com.example.recordroom.model.SessionViewResponse;
 import com.example.recordroom.model.TimelineResponse;
-import com.example.recordroom.model.RrwebListResponse;
 import com.example.recordroom.service.RecordroomService;
+import com.example.recordroom.service.RrwebAssetStore;
+import com.example.recordroom.service.RrwebChunkStore;
 import javax.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,9 +33,13 @@ import java.util.stream.Collectors;
 public class RecordApiController {
 
     private final RecordroomService service;
+    private final NdjsonIngestReader ndjsonIngestReader;
+    private final RrwebAssetStore rrwebAssets;
 
-    public RecordApiController(RecordroomService service) {
+    public RecordApiController(RecordroomService service, NdjsonIngestReader ndjsonIngestReader, RrwebAssetStore rrwebAssets) {
         this.service = service;
+        this.ndjsonIngestReader = ndjsonIngestReader;
+        this.rrwebAssets = rrwebAssets;
     }
 
     @PostMapping(value = "/records", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -55,6 +68,32 @@ public class RecordApiController {
         return r;
     }
 
+    /**
+     * Bulk ingest over HTTP (SDK unload beacon / fallback when WebSocket is unavailable)
+     * - body: NDJSON, one ingest frame per line (same shape as /ws/ingest frames), optionally gzip'd
+     * - any Content-Type is accepted (sendBeacon sends text/plain)
+     * - 503 (Retry-After) when the queue stayed full, 413 past max-bulk-bytes; the body's processed
+     *   count says how many leading lines were taken, the client sends the rest again
+     */
+    @PostMapping(value = "/records/{recordId}/ingest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkIngestResponse> ingest(@PathVariable String recordId, HttpServletRequest http) {
+        if (!service.recordExists(recordId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "record not found: " + recordId);
+        }
+        try {
+            BulkIngestResponse res = ndjsonIngestReader.read(recordId, http.getInputStream());
+            if (BulkIngestResponse.STOPPED_QUEUE_FULL.equals(res.getStopped())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(res);
+            }
+            if (BulkIngestResponse.STOPPED_TOO_LARGE.equals(res.getStopped())) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(res);
+            }
+            return ResponseEntity.ok(res);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unreadable ingest body: " + e.getMessage());
+        }
+    }
+
     @GetMapping(value = "/records/{recordId}/timeline", produces = MediaType.APPLICATION_JSON_VALUE)
     public TimelineResponse timeline(
             @PathVariable String recordId,
@@ -70,7 +109,7 @@ public class RecordApiController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "record not found: " + recordId);
         }
 
-        RecordroomService.Cursor cursor = RecordroomService.Cursor.parse(after);
+        RecordroomService.TimelineCursor cursor = RecordroomService.TimelineCursor.parse(after);
         int safeLimit = Math.max(1, Math.min(limit, 500));
 
         Set<String> kinds = new LinkedHashSet<>(Arrays.asList("console", "network", "breadcrumb"));
@@ -106,14 +145,15 @@ public class RecordApiController {
             @PathVariable String recordId,
             @RequestParam(required = false) String after,
             @RequestParam(required = false, defaultValue = "200") int limit,
-            @RequestParam(required = false) Integer statusMin
+            @RequestParam(required = false) Integer statusMin,
+            @RequestParam(required = false, defaultValue = "true") boolean headers
     ) {
         if (!service.recordExists(recordId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "record not found: " + recordId);
         }
         RecordroomService.Cursor cursor = RecordroomService.Cursor.parse(after);
         int safeLimit = Math.max(1, Math.min(limit, 500));
-        return service.listNetwork(recordId, cursor, safeLimit, statusMin);
+        return service.listNetwork(recordId, cursor, safeLimit, statusMin, headers);
     }
 
     @GetMapping(value = "/records/{recordId}/network/{eventId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -128,6 +168,24 @@ public class RecordApiController {
         return e;
     }
 
+    /** Raw request or response body; list endpoints leave bodies out. */
+    @GetMapping(value = "/records/{recordId}/network/{eventId}/body/{part}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String getNetworkBody(@PathVariable String recordId, @PathVariable String eventId, @PathVariable String part) {
+        boolean response;
+        if ("response".equalsIgnoreCase(part)) response = true;
+        else if ("request".equalsIgnoreCase(part)) response = false;
+        else throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "part must be request or response: " + part);
+
+        if (!service.recordExists(recordId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "record not found: " + recordId);
+        }
+        String body = service.getNetworkBody(recordId, eventId, response);
+        if (body == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "network event not found: " + eventId);
+        }
+        return body;
+    }
+
 
     @PostMapping(value = "/records/{recordId}/network/{eventId}/replay", produces = MediaType.APPLICATION_JSON_VALUE)
     public ReplayNetworkResponse replayNetwork(
@@ -153,18 +211,46 @@ public class RecordApiController {
     }
 
 
+    /**
+     * rrweb events in replay order: {"events":[...],"nextAfter":"ts_seq"}.
+     * Stored payloads are streamed out as-is, without being parsed.
+     * With at=<epoch ms> the page starts at the Meta + FullSnapshot in effect at that time
+     * (seek); keep paging with after=nextAfter as usual.
+     * assets=ref keeps "rr-asset://sha256/<hash>" references in place of large inlined strings
+     * (resolve them via /api/rrweb-assets/{hash}); the default inlines them.
+     */
     @GetMapping(value = "/records/{recordId}/rrweb", produces = MediaType.APPLICATION_JSON_VALUE)
-    public RrwebListResponse listRrweb(
+    public ResponseEntity<StreamingResponseBody> listRrweb(
             @PathVariable String recordId,
             @RequestParam(required = false) String after,
-            @RequestParam(required = false, defaultValue = "2000") int limit
+            @RequestParam(required = false) Long at,
+            @RequestParam(required = false, defaultValue = "2000") int limit,
+            @RequestParam(required = false, defaultValue = "inline") String assets
     ) {
         if (!service.recordExists(recordId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "record not found: " + recordId);
         }
-        RecordroomService.Cursor cursor = RecordroomService.Cursor.parse(after);
         int safeLimit = Math.max(1, Math.min(limit, 5000));
-        return service.listRrweb(recordId, cursor, safeLimit);
+        boolean inlineAssets = !"ref".equalsIgnoreCase(assets);
+        RrwebChunkStore.Page page = (at != null)
+                ? service.seekRrweb(recordId, at, safeLimit, inlineAssets)
+                : service.listRrweb(recordId, RecordroomService.Cursor.parse(after), safeLimit, inlineAssets);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(page::writeJson);
+    }
+
+    /** A stored rrweb asset (the original string value). Content never changes for a hash. */
+    @GetMapping(value = "/rrweb-assets/{hash}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getRrwebAsset(@PathVariable String hash) {
+        String content = rrwebAssets.get(hash.toLowerCase(Locale.ROOT));
+        if (content == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "asset not found: " + hash);
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable")
+                .eTag("\"" + hash + "\"")
+                .body(content);
     }
 
 
@@ -191,6 +277,15 @@ public class RecordApiController {
         return service.getRecordStats(recordId);
     }
 
+    @GetMapping(value = "/records/{recordId}/chain", produces = MediaType.APPLICATION_JSON_VALUE)
+    public RecordChainResponse getRecordChain(@PathVariable String recordId) {
+        RecordChainResponse chain = service.getRecordChain(recordId);
+        if (chain == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "record not found: " + recordId);
+        }
+        return chain;
+    }
+
     @GetMapping(value = "/sessions/{sessionId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public SessionViewResponse getSessionView(@PathVariable String sessionId) {
         return service.getSessionView(sessionId);
@@ -200,36 +295,49 @@ public class RecordApiController {
     public Object searchConsole(
             @PathVariable String recordId,
             @RequestParam(required = false, defaultValue = "") String q,
-            @RequestParam(required = false, defaultValue = "100") int limit
+            @RequestParam(required = false, defaultValue = "100") int limit,
+            @RequestParam(required = false, defaultValue = "recent") String order,
+            @RequestParam(required = false, defaultValue = "false") boolean highlight
     ) {
         if (!service.recordExists(recordId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "record not found: " + recordId);
         }
-        return service.searchConsole(recordId, q, limit);
+        boolean relevance = "relevance".equalsIgnoreCase(order);
+        SearchResponse<?> result = service.searchConsole(recordId, q, limit, relevance);
+        return (highlight || relevance) ? result : result.events();
     }
 
     @GetMapping(value = "/records/{recordId}/search/network", produces = MediaType.APPLICATION_JSON_VALUE)
     public Object searchNetwork(
             @PathVariable String recordId,
             @RequestParam(required = false, defaultValue = "") String q,
-            @RequestParam(required = false, defaultValue = "100") int limit
+            @RequestParam(required = false, defaultValue = "100") int limit,
+            @RequestParam(required = false, defaultValue = "true") boolean headers,
+            @RequestParam(required = false, defaultValue = "recent") String order,
+            @RequestParam(required = false, defaultValue = "false") boolean highlight
     ) {
         if (!service.recordExists(recordId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "record not found: " + recordId);
         }
-        return service.searchNetwork(recordId, q, limit);
+        boolean relevance = "relevance".equalsIgnoreCase(order);
+        SearchResponse<?> result = service.searchNetwork(recordId, q, limit, relevance, headers);
+        return (highlight || relevance) ? result : result.events();
     }
 
     @GetMapping(value = "/records/{recordId}/search/breadcrumbs", produces = MediaType.APPLICATION_JSON_VALUE)
     public Object searchBreadcrumbs(
             @PathVariable String recordId,
             @RequestParam(required = false, defaultValue = "") String q,
-            @RequestParam(required = false, defaultValue = "100") int limit
+            @RequestParam(required = false, defaultValue = "100") int limit,
+            @RequestParam(required = false, defaultValue = "recent") String order,
+            @RequestParam(required = false, defaultValue = "false") boolean highlight
     ) {
         if (!service.recordExists(recordId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "record not found: " + recordId);
         }
-        return service.searchBreadcrumbs(recordId, q, limit);
+        boolean relevance = "relevance".equalsIgnoreCase(order);
+        SearchResponse<?> result = service.searchBreadcrumbs(recordId, q, limit, relevance);
+        return (highlight || relevance) ? result : result.events();
     }
 
     private String baseUrl(HttpServletRequest req) {
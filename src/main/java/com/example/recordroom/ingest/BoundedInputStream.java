@@ -0,0 +1,55 @@
+package com.example.recordroom.ingest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails once more than limit bytes have been read. Guards decompression of client input.
+ */
+class BoundedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private final String what;
+    private long count;
+
+    BoundedInputStream(InputStream in, long limit, String what) {
+        super(in);
+        this.limit = limit;
+        this.what = what;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) count(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+        int n = super.read(buf, off, len);
+        if (n > 0) count(n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) count(skipped);
+        return skipped;
+    }
+
+    private void count(long n) throws IOException {
+        count += n;
+        if (count > limit) throw new LimitExceededException(what + " exceeds " + limit + " bytes");
+    }
+
+    static final class LimitExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.recordroom.ingest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers which client seqs were persisted, per record and event kind, so resent frames
+ * (SDK retry, reconnect, beacon + socket overlap) are dropped without a database lookup.
+ *
+ * Each record/kind keeps a sliding bit window over the last window-size seqs below the highest
+ * one seen. Seqs older than the window are let through; the unique (recordId, dedupSeq) index on
+ * the event tables is the backstop for those. Records created by this process start empty;
+ * any other record is seeded once from the database on first sight (e.g. after a restart).
+ * The set of records is an LRU bounded by max-records.
+ */
+@Component
+public class IngestDeduplicator {
+
+    /** Loads persisted seqs for a record/kind: the highest one and everything within window below it. */
+    public interface Seeder {
+        Collection<Long> recentSeqs(String recordId, IngestItem.Kind kind, int window);
+    }
+
+    private final int windowSize;
+    private final int maxRecords;
+    private final LinkedHashMap<String, RecordState> records;
+    private final LongAdder duplicates = new LongAdder();
+
+    public IngestDeduplicator(@Value("${recordroom.ingest.dedup.window-size:4096}") int windowSize,
+                              @Value("${recordroom.ingest.dedup.max-records:5000}") int maxRecords) {
+        this.windowSize = Math.max(64, windowSize);
+        this.maxRecords = Math.max(1, maxRecords);
+        this.records = new LinkedHashMap<String, RecordState>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecordState> eldest) {
+                return size() > IngestDeduplicator.this.maxRecords;
+            }
+        };
+    }
+
+    /** A record created by this process has nothing persisted yet, so it never needs seeding. */
+    public void registerNew(String recordId) {
+        synchronized (records) {
+            records.put(recordId, new RecordState(true));
+        }
+    }
+
+    /**
+     * True when seq was already persisted for this record and kind. Seqs <= 0 (clients that do
+     * not number events) are never treated as duplicates.
+     */
+    public boolean isDuplicate(String recordId, IngestItem.Kind kind, long seq, Seeder seeder) {
+        if (seq <= 0) return false;
+        SeqWindow w = window(recordId, kind, seeder);
+        boolean dup;
+        synchronized (w) {
+            dup = w.contains(seq);
+        }
+        if (dup) duplicates.increment();
+        return dup;
+    }
+
+    /** Call after the insert committed. */
+    public void persisted(String recordId, IngestItem.Kind kind, long seq) {
+        if (seq <= 0) return;
+        SeqWindow w;
+        synchronized (records) {
+            RecordState state = records.get(recordId);
+            w = (state == null) ? null : state.windows.get(kind);
+        }
+        // not tracked (evicted meanwhile): the next isDuplicate seeds it from the database
+        if (w == null) return;
+        synchronized (w) {
+            w.add(seq);
+        }
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    private SeqWindow window(String recordId, IngestItem.Kind kind, Seeder seeder) {
+        boolean fresh;
+        synchronized (records) {
+            RecordState state = records.computeIfAbsent(recordId, id -> new RecordState(false));
+            SeqWindow w = state.windows.get(kind);
+            if (w != null) return w;
+            fresh = state.fresh;
+        }
+
+        // seed outside the lock; the query runs once per record/kind
+        SeqWindow seeded = new SeqWindow(windowSize);
+        if (!fresh && seeder != null) {
+            for (Long s : seeder.recentSeqs(recordId, kind, windowSize)) {
+                if (s != null) seeded.add(s);
+            }
+        }
+
+        synchronized (records) {
+            RecordState state = records.computeIfAbsent(recordId, id -> new RecordState(fresh));
+            return state.windows.computeIfAbsent(kind, k -> seeded);
+        }
+    }
+
+    private static final class RecordState {
+        final boolean fresh;
+        final Map<IngestItem.Kind, SeqWindow> windows = new EnumMap<>(IngestItem.Kind.class);
+
+        RecordState(boolean fresh) {
+            this.fresh = fresh;
+        }
+    }
+
+    /** Bitmap of the seqs in (high - size, high]. */
+    private static final class SeqWindow {
+        private final long[] bits;
+        private final int size;
+        private long high;
+
+        SeqWindow(int size) {
+            this.size = size;
+            this.bits = new long[(size + 63) / 64];
+        }
+
+        boolean contains(long seq) {
+            if (seq > high || seq <= high - size) return false;
+            int i = Math.floorMod(seq, size);
+            return (bits[i >>> 6] & (1L << (i & 63))) != 0;
+        }
+
+        void add(long seq) {
+            if (seq <= high - size) return; // too old to track
+            if (seq > high) {
+                if (seq - high >= size) {
+                    Arrays.fill(bits, 0L);
+                } else {
+                    for (long s = high + 1; s <= seq; s++) {
+                        int i = Math.floorMod(s, size);
+                        bits[i >>> 6] &= ~(1L << (i & 63));
+                    }
+                }
+                high = seq;
+            }
+            int i = Math.floorMod(seq, size);
+            bits[i >>> 6] |= 1L << (i & 63);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.recordroom.ingest;
+
+import com.example.recordroom.model.BreadcrumbEventIngestRequest;
+import com.example.recordroom.model.ConsoleEventIngestRequest;
+import com.example.recordroom.model.NetworkEventIngestRequest;
+import com.example.recordroom.model.RrwebBatchIngestRequest;
+import com.example.recordroom.model.RrwebEventEnvelope;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Single-pass decoder for ingest frames.
+ *
+ * Reads the frame straight off a {@link JsonParser} into the request DTOs, with no intermediate
+ * JsonNode tree. "type" may appear anywhere in the object, so fields are collected first and the
+ * DTO is picked at the end. rrweb payloads are never parsed into objects: the decoder skips over
+ * them and keeps the exact source characters, which are then persisted verbatim.
+ *
+ * Binary frames carry the same object encoded as CBOR, optionally zlib-deflated. There is no
+ * source text to slice there, so rrweb payloads are re-emitted as JSON straight from the token
+ * stream (still without building a tree).
+ *
+ * A "batch" frame carries mixed frames in "items" ({"type":"batch","items":[{"type":"console",...}, ...]}).
+ * They become one BATCH item so the whole envelope lands in a single transaction. Only a top-level
+ * frame may carry items; "items" inside an item is ignored, so nesting cannot run the decoder deep.
+ *
+ * Decoding is lenient the same way the tree path was: unknown fields are ignored, numbers given
+ * as strings are coerced, and nested values in string maps are kept as raw JSON.
+ */
+@Component
+public class IngestFrameDecoder {
+
+    /** zlib header (CMF byte) for the default 32K window. A CBOR frame is a map and never starts with it. */
+    private static final int ZLIB_CMF = 0x78;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+    private final long maxInflatedBytes;
+
+    public IngestFrameDecoder(@Value("${recordroom.ingest.max-inflated-bytes:16777216}") long maxInflatedBytes) {
+        this.maxInflatedBytes = maxInflatedBytes;
+    }
+
+    /**
+     * Decodes one text frame. Returns null when the frame has an unknown or missing type.
+     *
+     * @throws IOException when the frame is not a JSON object
+     */
+    public IngestItem decode(String recordId, String json) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(p, "ingest frame must be a JSON object");
+            }
+            Frame f = readFrame(p, json, true);
+            return f.toItem(recordId);
+        }
+    }
+
+    /**
+     * Decodes one binary frame (CBOR, or CBOR wrapped in a zlib stream).
+     * Returns null when the frame has an unknown or missing type.
+     *
+     * @throws IOException when the frame is not a CBOR map or inflates past max-inflated-bytes
+     */
+    public IngestItem decodeBinary(String recordId, byte[] frame) throws IOException {
+        if (frame == null || frame.length == 0) throw new IOException("empty ingest frame");
+
+        InputStream in = new ByteArrayInputStream(frame);
+        if ((frame[0] & 0xFF) == ZLIB_CMF) {
+            in = new BoundedInputStream(new InflaterInputStream(in), maxInflatedBytes, "ingest frame");
+        }
+        try (JsonParser p = cborFactory.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(p, "ingest frame must be a CBOR map");
+            }
+            Frame f = readFrame(p, null, true);
+            return f.toItem(recordId);
+        }
+    }
+
+    private Frame readFrame(JsonParser p, String source, boolean topLevel) throws IOException {
+        Frame f = new Frame();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            switch (field) {
+                case "type": f.type = text(p, source); break;
+                case "level": f.level = text(p, source); break;
+                case "message": f.message = text(p, source); break;
+                case "stack": f.stack = text(p, source); break;
+                case "ts": f.ts = longValue(p); break;
+                case "seq": f.seq = longValue(p); break;
+
+                case "clientRequestId": f.clientRequestId = text(p, source); break;
+                case "method": f.method = text(p, source); break;
+                case "url": f.url = text(p, source); break;
+                case "status": f.status = intValue(p); break;
+                case "requestHeaders": f.requestHeaders = stringMap(p, source); break;
+                case "requestBody": f.requestBody = text(p, source); break;
+                case "responseHeaders": f.responseHeaders = stringMap(p, source); break;
+                case "responseBody": f.responseBody = text(p, source); break;
+                case "startedAtEpochMs": f.startedAtEpochMs = longValue(p); break;
+                case "durationMs": f.durationMs = longValue(p); break;
+                case "error": f.error = text(p, source); break;
+
+                case "name": f.name = text(p, source); break;
+                case "data": f.data = stringMap(p, source); break;
+
+                case "events": f.events = rrwebEvents(p, source); break;
+                case "items":
+                    if (topLevel) f.items = batchItems(p, source);
+                    else p.skipChildren();
+                    break;
+
+                default: p.skipChildren();
+            }
+        }
+        return f;
+    }
+
+    private List<RrwebEventEnvelope> rrwebEvents(JsonParser p, String source) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        List<RrwebEventEnvelope> out = new ArrayList<>();
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (t != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            RrwebEventEnvelope ev = new RrwebEventEnvelope();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                p.nextToken();
+                switch (field) {
+                    case "ts": ev.setTs(longValue(p)); break;
+                    case "seq": ev.setSeq(longValue(p)); break;
+                    case "payload":
+                        ev.setPayloadJson(p.currentToken() == JsonToken.VALUE_NULL ? null : raw(p, source));
+                        break;
+                    default: p.skipChildren();
+                }
+            }
+            out.add(ev);
+        }
+        return out;
+    }
+
+    private List<Frame> batchItems(JsonParser p, String source) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        List<Frame> out = new ArrayList<>();
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (t != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            out.add(readFrame(p, source, false));
+        }
+        return out;
+    }
+
+    private Map<String, String> stringMap(JsonParser p, String source) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        Map<String, String> out = new LinkedHashMap<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String key = p.getCurrentName();
+            p.nextToken();
+            out.put(key, text(p, source));
+        }
+        return out;
+    }
+
+    private String text(JsonParser p, String source) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) return null;
+        if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) return raw(p, source);
+        return p.getText();
+    }
+
+    private static long longValue(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return 0;
+        }
+        // numbers, numeric strings ("12"), booleans; anything else is 0
+        return p.getValueAsLong();
+    }
+
+    /** longValue, with values outside the int range read as 0. */
+    private static int intValue(JsonParser p) throws IOException {
+        long v = longValue(p);
+        return (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) ? 0 : Math.toIntExact(v);
+    }
+
+    /**
+     * Returns the current value as JSON text, advancing past it.
+     * With a text source this is the exact slice that was sent (offsets are char offsets into it);
+     * binary frames have no source, so the value is copied token by token into a JSON generator.
+     */
+    private String raw(JsonParser p, String source) throws IOException {
+        if (source == null) {
+            StringWriter w = new StringWriter();
+            try (JsonGenerator g = jsonFactory.createGenerator(w)) {
+                g.copyCurrentStructure(p);
+            }
+            return w.toString();
+        }
+
+        int start = Math.toIntExact(p.getTokenLocation().getCharOffset());
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+            p.skipChildren();
+        } else if (t == JsonToken.VALUE_STRING) {
+            p.getText(); // string tokens are lazily consumed; finish it so the location moves past the closing quote
+        }
+        int end = Math.toIntExact(p.getCurrentLocation().getCharOffset());
+        return source.substring(start, end);
+    }
+
+    /** Union of all frame fields; the DTO is chosen once "type" is known. */
+    private static final class Frame {
+        String type;
+        String level;
+        String message;
+        String stack;
+        long ts;
+        long seq;
+
+        String clientRequestId;
+        String method;
+        String url;
+        int status;
+        Map<String, String> requestHeaders;
+        String requestBody;
+        Map<String, String> responseHeaders;
+        String responseBody;
+        long startedAtEpochMs;
+        long durationMs;
+        String error;
+
+        String name;
+        Map<String, String> data;
+
+        List<RrwebEventEnvelope> events;
+
+        List<Frame> items;
+
+        IngestItem toItem(String recordId) {
+            if ("console".equals(type)) {
+                ConsoleEventIngestRequest req = new ConsoleEventIngestRequest();
+                req.setType(type);
+                req.setLevel(level);
+                req.setMessage(message);
+                req.setStack(stack);
+                req.setTs(ts);
+                req.setSeq(seq);
+                return IngestItem.console(recordId, req);
+            }
+            if ("network".equals(type)) {
+                NetworkEventIngestRequest req = new NetworkEventIngestRequest();
+                req.setType(type);
+                req.setClientRequestId(clientRequestId);
+                req.setMethod(method);
+                req.setUrl(url);
+                req.setStatus(status);
+                req.setRequestHeaders(requestHeaders);
+                req.setRequestBody(requestBody);
+                req.setResponseHeaders(responseHeaders);
+                req.setResponseBody(responseBody);
+                req.setStartedAtEpochMs(startedAtEpochMs);
+                req.setDurationMs(durationMs);
+                req.setError(error);
+                req.setSeq(seq);
+                return IngestItem.network(recordId, req);
+            }
+            if ("breadcrumb".equals(type)) {
+                BreadcrumbEventIngestRequest req = new BreadcrumbEventIngestRequest();
+                req.setType(type);
+                req.setName(name);
+                req.setMessage(message);
+                req.setData(data);
+                req.setTs(ts);
+                req.setSeq(seq);
+                return IngestItem.breadcrumb(recordId, req);
+            }
+            if ("rrweb".equals(type)) {
+                RrwebBatchIngestRequest req = new RrwebBatchIngestRequest();
+                req.setType(type);
+                req.setEvents(events);
+                return IngestItem.rrweb(recordId, req);
+            }
+            if ("batch".equals(type)) {
+                List<IngestItem> children = new ArrayList<>();
+                if (items != null) {
+                    for (Frame child : items) {
+                        IngestItem item = child.toItem(recordId);
+                        if (item != null) children.add(item);
+                    }
+                }
+                return children.isEmpty() ? null : IngestItem.batch(recordId, children);
+            }
+            return null;
+        }
+    }
+}
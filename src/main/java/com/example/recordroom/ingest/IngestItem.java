@@ -0,0 +1,104 @@
+package com.example.recordroom.ingest;
+
+import com.example.recordroom.model.BreadcrumbEventIngestRequest;
+import com.example.recordroom.model.ConsoleEventIngestRequest;
+import com.example.recordroom.model.NetworkEventIngestRequest;
+import com.example.recordroom.model.RrwebBatchIngestRequest;
+import com.example.recordroom.model.RrwebEventEnvelope;
+
+import java.util.List;
+
+/**
+ * One decoded ingest frame waiting to be persisted by {@link IngestPipeline}.
+ */
+public final class IngestItem {
+
+    public enum Kind { CONSOLE, NETWORK, BREADCRUMB, RRWEB, BATCH }
+
+    /** Notified by the pipeline once the item is written (true) or given up on (false). Never called for dropped items. */
+    public interface Completion {
+        void completed(boolean persisted);
+    }
+
+    private final Kind kind;
+    private final String recordId;
+    private final Object request;
+    private final long enqueuedAtNanos;
+    private volatile Completion completion;
+
+    private IngestItem(Kind kind, String recordId, Object request) {
+        this.kind = kind;
+        this.recordId = recordId;
+        this.request = request;
+        this.enqueuedAtNanos = System.nanoTime();
+    }
+
+    public static IngestItem console(String recordId, ConsoleEventIngestRequest req) {
+        return new IngestItem(Kind.CONSOLE, recordId, req);
+    }
+
+    public static IngestItem network(String recordId, NetworkEventIngestRequest req) {
+        return new IngestItem(Kind.NETWORK, recordId, req);
+    }
+
+    public static IngestItem breadcrumb(String recordId, BreadcrumbEventIngestRequest req) {
+        return new IngestItem(Kind.BREADCRUMB, recordId, req);
+    }
+
+    public static IngestItem rrweb(String recordId, RrwebBatchIngestRequest req) {
+        return new IngestItem(Kind.RRWEB, recordId, req);
+    }
+
+    /** A client-side batch of mixed items; persisted together in one transaction. */
+    public static IngestItem batch(String recordId, List<IngestItem> items) {
+        return new IngestItem(Kind.BATCH, recordId, items);
+    }
+
+    public Kind getKind() { return kind; }
+    public String getRecordId() { return recordId; }
+    public long getEnqueuedAtNanos() { return enqueuedAtNanos; }
+
+    public ConsoleEventIngestRequest getConsole() { return (ConsoleEventIngestRequest) request; }
+    public NetworkEventIngestRequest getNetwork() { return (NetworkEventIngestRequest) request; }
+    public BreadcrumbEventIngestRequest getBreadcrumb() { return (BreadcrumbEventIngestRequest) request; }
+    public RrwebBatchIngestRequest getRrweb() { return (RrwebBatchIngestRequest) request; }
+    @SuppressWarnings("unchecked")
+    public List<IngestItem> getItems() { return (List<IngestItem>) request; }
+
+    public void setCompletion(Completion completion) { this.completion = completion; }
+
+    void complete(boolean persisted) {
+        Completion c = completion;
+        if (c == null) return;
+        try {
+            c.completed(persisted);
+        } catch (Exception ignored) {
+            // a closed socket must not fail the writer
+        }
+    }
+
+    /**
+     * Client seqs carried by this item: the event seq, the highest envelope seq of an rrweb frame,
+     * or the seqs of a batch's children.
+     */
+    public void collectSeqs(List<Long> out) {
+        switch (kind) {
+            case CONSOLE: out.add(getConsole().getSeq()); break;
+            case NETWORK: out.add(getNetwork().getSeq()); break;
+            case BREADCRUMB: out.add(getBreadcrumb().getSeq()); break;
+            case RRWEB: {
+                RrwebBatchIngestRequest req = getRrweb();
+                if (req.getEvents() == null || req.getEvents().isEmpty()) break;
+                long max = Long.MIN_VALUE;
+                for (RrwebEventEnvelope ev : req.getEvents()) {
+                    if (ev != null) max = Math.max(max, ev.getSeq());
+                }
+                if (max != Long.MIN_VALUE) out.add(max);
+                break;
+            }
+            case BATCH:
+                for (IngestItem child : getItems()) child.collectSeqs(out);
+                break;
+        }
+    }
+}
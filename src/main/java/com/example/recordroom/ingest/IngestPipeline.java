@@ -0,0 +1,302 @@
+package com.example.recordroom.ingest;
+
+import com.example.recordroom.model.IngestStatsResponse;
+import com.example.recordroom.service.RecordroomService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decouples WebSocket threads from the database.
+ *
+ * Every event kind gets a bounded queue and one writer thread. A writer drains its queue into
+ * batches of up to flush-size items (or whatever arrived within flush-latency-ms) and persists
+ * each batch in a single transaction. When a queue is full, submit waits up to offer-timeout-ms
+ * and then drops the item, so a slow database never stalls the Tomcat threads for long.
+ */
+@Component
+public class IngestPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestPipeline.class);
+
+    private final RecordroomService service;
+    private final IngestDeduplicator deduplicator;
+
+    private final boolean async;
+    private final int queueCapacity;
+    private final int flushSize;
+    private final int rrwebFlushSize;
+    private final int batchFlushSize;
+    private final long flushLatencyMs;
+    private final long offerTimeoutMs;
+
+    private final Map<IngestItem.Kind, Lane> lanes = new EnumMap<>(IngestItem.Kind.class);
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    public IngestPipeline(RecordroomService service,
+                          IngestDeduplicator deduplicator,
+                          @Value("${recordroom.ingest.async:true}") boolean async,
+                          @Value("${recordroom.ingest.queue-capacity:10000}") int queueCapacity,
+                          @Value("${recordroom.ingest.flush-size:200}") int flushSize,
+                          @Value("${recordroom.ingest.rrweb-flush-size:20}") int rrwebFlushSize,
+                          @Value("${recordroom.ingest.batch-flush-size:20}") int batchFlushSize,
+                          @Value("${recordroom.ingest.flush-latency-ms:50}") long flushLatencyMs,
+                          @Value("${recordroom.ingest.offer-timeout-ms:100}") long offerTimeoutMs) {
+        this.service = service;
+        this.deduplicator = deduplicator;
+        this.async = async;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.flushSize = Math.max(1, flushSize);
+        this.rrwebFlushSize = Math.max(1, rrwebFlushSize);
+        this.batchFlushSize = Math.max(1, batchFlushSize);
+        this.flushLatencyMs = Math.max(1, flushLatencyMs);
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+
+        for (IngestItem.Kind kind : IngestItem.Kind.values()) {
+            // rrweb and batch frames already carry a client-side batch, so flush fewer of them
+            int size;
+            if (kind == IngestItem.Kind.RRWEB) size = this.rrwebFlushSize;
+            else if (kind == IngestItem.Kind.BATCH) size = this.batchFlushSize;
+            else size = this.flushSize;
+            lanes.put(kind, new Lane(kind, this.queueCapacity, size));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) return;
+        running = true;
+        for (Lane lane : lanes.values()) {
+            Thread t = new Thread(() -> runLane(lane), "ingest-writer-" + lane.kind.name().toLowerCase(Locale.ROOT));
+            t.setDaemon(true);
+            t.start();
+            writers.add(t);
+        }
+        log.info("ingest pipeline started. flushSize={} rrwebFlushSize={} batchFlushSize={} flushLatencyMs={} queueCapacity={}",
+                flushSize, rrwebFlushSize, batchFlushSize, flushLatencyMs, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        // writers exit after draining what is left in their queue
+        for (Thread t : writers) {
+            try { t.join(10_000); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+        writers.clear();
+    }
+
+    /**
+     * Hands an item to its writer. Returns false if the item was dropped because the queue stayed full.
+     */
+    public boolean submit(IngestItem item) {
+        if (item == null) return false;
+        Lane lane = lanes.get(item.getKind());
+        lane.submitted.increment();
+
+        if (!async || !running) {
+            flush(lane, Collections.singletonList(item));
+            return true;
+        }
+
+        boolean accepted;
+        try {
+            accepted = lane.queue.offer(item, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            lane.dropped.increment();
+            log.debug("ingest queue full, dropped item. kind={} recordId={}", item.getKind(), item.getRecordId());
+        }
+        return accepted;
+    }
+
+    /**
+     * True while any queue is more than three quarters full. Ingest sockets stop granting
+     * send credits until it drains.
+     */
+    public boolean isBackedUp() {
+        for (Lane lane : lanes.values()) {
+            if (lane.queue.size() * 4L > queueCapacity * 3L) return true;
+        }
+        return false;
+    }
+
+    public IngestStatsResponse stats() {
+        List<IngestStatsResponse.LaneStats> out = new ArrayList<>();
+        for (Lane lane : lanes.values()) {
+            long flushes = lane.flushes.sum();
+            double avgMs = flushes == 0 ? 0 : nanosToMs(lane.totalFlushNanos.sum()) / flushes;
+            out.add(new IngestStatsResponse.LaneStats(
+                    lane.kind.name().toLowerCase(Locale.ROOT),
+                    lane.queue.size(),
+                    queueCapacity,
+                    lane.flushSize,
+                    lane.submitted.sum(),
+                    lane.dropped.sum(),
+                    lane.written.sum(),
+                    lane.failed.sum(),
+                    flushes,
+                    lane.lastBatchSize,
+                    nanosToMs(lane.lastFlushNanos),
+                    avgMs,
+                    nanosToMs(lane.maxFlushNanos.get()),
+                    nanosToMs(lane.maxQueueWaitNanos.get())
+            ));
+        }
+        return new IngestStatsResponse(async, flushLatencyMs, deduplicator.getDuplicates(), out);
+    }
+
+    private void runLane(Lane lane) {
+        List<IngestItem> batch = new ArrayList<>(lane.flushSize);
+        while (running || !lane.queue.isEmpty()) {
+            try {
+                IngestItem first = lane.queue.poll(flushLatencyMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushLatencyMs);
+                while (batch.size() < lane.flushSize) {
+                    if (lane.queue.drainTo(batch, lane.flushSize - batch.size()) > 0) continue;
+                    long waitNanos = deadline - System.nanoTime();
+                    if (waitNanos <= 0) break;
+                    IngestItem next = lane.queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // keep going: whatever is already in the batch still gets written below
+            }
+
+            if (!batch.isEmpty()) {
+                flush(lane, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(Lane lane, List<IngestItem> batch) {
+        long started = System.nanoTime();
+        for (IngestItem it : batch) {
+            lane.maxQueueWaitNanos.accumulateAndGet(started - it.getEnqueuedAtNanos(), Math::max);
+        }
+
+        try {
+            service.internHeaders(batch);
+            lane.written.add(service.saveBatch(batch));
+            for (IngestItem it : batch) it.complete(true);
+        } catch (Exception e) {
+            // one bad row fails the whole transaction; isolate it so the rest of the batch survives
+            log.warn("ingest flush failed, retrying one by one. kind={} size={} err={}", lane.kind, batch.size(), e.toString());
+            for (IngestItem it : batch) {
+                try {
+                    lane.written.add(writeAlone(it));
+                    it.complete(true);
+                } catch (Exception ex) {
+                    reject(lane, it, ex);
+                }
+            }
+        }
+
+        long took = System.nanoTime() - started;
+        lane.flushes.increment();
+        lane.totalFlushNanos.add(took);
+        lane.lastFlushNanos = took;
+        lane.lastBatchSize = batch.size();
+        lane.maxFlushNanos.accumulateAndGet(took, Math::max);
+    }
+
+    /**
+     * Writes one item in its own transaction. A violation of the (recordId, dedupSeq) index means
+     * the in-memory window missed a resend (e.g. another lane committed the same seq meanwhile).
+     * For a single event that settles it: the event is stored. The rollback also discarded the
+     * other events of a batch, though, so a batch is written again, now that the window holds the
+     * committed seqs, and child by child if the stored seq is older than the window.
+     */
+    private int writeAlone(IngestItem it) {
+        try {
+            return service.saveBatch(Collections.singletonList(it));
+        } catch (DataIntegrityViolationException ex) {
+            if (!isDuplicate(ex)) throw ex;
+            if (it.getKind() != IngestItem.Kind.BATCH) {
+                if (it.getKind() == IngestItem.Kind.RRWEB) throw ex; // many events; none of them stored here
+                log.debug("ingest item already stored. kind={} recordId={}", it.getKind(), it.getRecordId());
+                return 0;
+            }
+        }
+        try {
+            return service.saveBatch(Collections.singletonList(it));
+        } catch (DataIntegrityViolationException ex) {
+            if (!isDuplicate(ex)) throw ex;
+        }
+        int written = 0;
+        for (IngestItem child : it.getItems()) written += writeAlone(child);
+        return written;
+    }
+
+    private static void reject(Lane lane, IngestItem it, Exception ex) {
+        lane.failed.increment();
+        it.complete(false);
+        log.debug("ingest item rejected. kind={} recordId={} err={}", it.getKind(), it.getRecordId(), ex.toString());
+    }
+
+    /**
+     * True only for a violation of one of the uk_*_record_dedup_seq constraints; any other integrity
+     * error (value too long, not null, ...) means the item was not stored.
+     */
+    static boolean isDuplicate(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            String constraint = null;
+            if (t instanceof ConstraintViolationException) {
+                constraint = ((ConstraintViolationException) t).getConstraintName();
+            } else if (t instanceof SQLException && "23505".equals(((SQLException) t).getSQLState())) {
+                constraint = t.getMessage(); // H2 names the violated index in the message
+            }
+            if (constraint != null && constraint.toLowerCase(Locale.ROOT).contains("_record_dedup_seq")) return true;
+        }
+        return false;
+    }
+
+    private static double nanosToMs(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Lane {
+        final IngestItem.Kind kind;
+        final BlockingQueue<IngestItem> queue;
+        final int flushSize;
+
+        final LongAdder submitted = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder written = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder flushes = new LongAdder();
+        final LongAdder totalFlushNanos = new LongAdder();
+        final AtomicLong maxFlushNanos = new AtomicLong();
+        final AtomicLong maxQueueWaitNanos = new AtomicLong();
+        volatile long lastFlushNanos;
+        volatile int lastBatchSize;
+
+        Lane(IngestItem.Kind kind, int capacity, int flushSize) {
+            this.kind = kind;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.flushSize = flushSize;
+        }
+    }
+}
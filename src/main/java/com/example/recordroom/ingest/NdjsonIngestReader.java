@@ -0,0 +1,86 @@
+package com.example.recordroom.ingest;
+
+import com.example.recordroom.model.BulkIngestResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams an NDJSON body (one ingest frame per line, gzip optional) into the ingest pipeline.
+ *
+ * Lines are decoded and submitted as they are read, so a large body is never held in memory.
+ * Reading stops at the first line the queue does not take, or where the body passes
+ * max-bulk-bytes; the response tells the client how many leading lines were processed so it can
+ * send the rest again.
+ * Gzip is detected from the magic bytes rather than Content-Encoding: sendBeacon cannot set
+ * request headers.
+ */
+@Component
+public class NdjsonIngestReader {
+
+    private final IngestFrameDecoder decoder;
+    private final IngestPipeline pipeline;
+    private final long maxBodyBytes;
+
+    public NdjsonIngestReader(IngestFrameDecoder decoder,
+                              IngestPipeline pipeline,
+                              @Value("${recordroom.ingest.max-bulk-bytes:33554432}") long maxBodyBytes) {
+        this.decoder = decoder;
+        this.pipeline = pipeline;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public BulkIngestResponse read(String recordId, InputStream body) throws IOException {
+        InputStream in = new BoundedInputStream(maybeGunzip(body), maxBodyBytes, "ingest body");
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        int lines = 0, accepted = 0, dropped = 0, malformed = 0;
+        String stopped = null;
+        String line;
+        while (stopped == null) {
+            try {
+                line = reader.readLine();
+            } catch (BoundedInputStream.LimitExceededException e) {
+                stopped = BulkIngestResponse.STOPPED_TOO_LARGE;
+                break;
+            }
+            if (line == null) break;
+            if (line.isBlank()) continue;
+            lines++;
+
+            IngestItem item;
+            try {
+                item = decoder.decode(recordId, line);
+            } catch (IOException e) {
+                malformed++;
+                continue;
+            }
+            if (item == null) {
+                malformed++;
+            } else if (pipeline.submit(item)) {
+                accepted++;
+            } else {
+                dropped++;
+                stopped = BulkIngestResponse.STOPPED_QUEUE_FULL;
+            }
+        }
+        return new BulkIngestResponse(recordId, lines, accepted, dropped, malformed, stopped);
+    }
+
+    private static InputStream maybeGunzip(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 2);
+        byte[] magic = new byte[2];
+        int n = in.readNBytes(magic, 0, 2);
+        if (n > 0) in.unread(magic, 0, n);
+
+        boolean gzip = n == 2 && (magic[0] & 0xFF) == 0x1f && (magic[1] & 0xFF) == 0x8b;
+        return gzip ? new GZIPInputStream(in) : in;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.recordroom.model;
+
+import java.util.List;
+
+/** Event counts and bytes per time bucket over all records, oldest first; buckets without events are zero. */
+public class AdminSeriesResponse {
+    private final long bucketMs;
+    private final long fromTs; // start of the first bucket
+    private final long toTs;   // start of the last bucket
+    private final List<Point> points;
+
+    public AdminSeriesResponse(long bucketMs, long fromTs, long toTs, List<Point> points) {
+        this.bucketMs = bucketMs;
+        this.fromTs = fromTs;
+        this.toTs = toTs;
+        this.points = points;
+    }
+
+    public long getBucketMs() { return bucketMs; }
+    public long getFromTs() { return fromTs; }
+    public long getToTs() { return toTs; }
+    public List<Point> getPoints() { return points; }
+
+    public static class Point {
+        private final long ts;
+        private final long consoleCount;
+        private final long consoleErrorCount;
+        private final long consoleWarnCount;
+        private final long networkCount;
+        private final long network4xxCount;
+        private final long network5xxCount;
+        private final long networkSlowCount;
+        private final long breadcrumbCount;
+        private final long rrwebCount;
+        private final long totalBytes;
+
+        public Point(long ts, long consoleCount, long consoleErrorCount, long consoleWarnCount,
+                     long networkCount, long network4xxCount, long network5xxCount, long networkSlowCount,
+                     long breadcrumbCount, long rrwebCount, long totalBytes) {
+            this.ts = ts;
+            this.consoleCount = consoleCount;
+            this.consoleErrorCount = consoleErrorCount;
+            this.consoleWarnCount = consoleWarnCount;
+            this.networkCount = networkCount;
+            this.network4xxCount = network4xxCount;
+            this.network5xxCount = network5xxCount;
+            this.networkSlowCount = networkSlowCount;
+            this.breadcrumbCount = breadcrumbCount;
+            this.rrwebCount = rrwebCount;
+            this.totalBytes = totalBytes;
+        }
+
+        public long getTs() { return ts; }
+        public long getConsoleCount() { return consoleCount; }
+        public long getConsoleErrorCount() { return consoleErrorCount; }
+        public long getConsoleWarnCount() { return consoleWarnCount; }
+        public long getNetworkCount() { return networkCount; }
+        public long getNetwork4xxCount() { return network4xxCount; }
+        public long getNetwork5xxCount() { return network5xxCount; }
+        public long getNetworkSlowCount() { return networkSlowCount; }
+        public long getBreadcrumbCount() { return breadcrumbCount; }
+        public long getRrwebCount() { return rrwebCount; }
+        public long getTotalBytes() { return totalBytes; }
+    }
+}
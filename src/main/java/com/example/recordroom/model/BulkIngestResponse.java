@@ -0,0 +1,37 @@
+package com.example.recordroom.model;
+
+/**
+ * Outcome of a bulk ingest body. Lines are taken in order until the queue stays full or the body
+ * passes max-bulk-bytes (stopped); the first processed lines are done (accepted or malformed) and
+ * every line after them was not taken and should be sent again.
+ */
+public class BulkIngestResponse {
+    public static final String STOPPED_QUEUE_FULL = "queue_full";
+    public static final String STOPPED_TOO_LARGE = "too_large";
+
+    private final String recordId;
+    private final int lines;
+    private final int accepted;
+    private final int dropped;    // queue full; at most 1, reading stops there
+    private final int malformed;  // not a JSON object or unknown type
+    private final int processed;
+    private final String stopped; // null when the whole body was read
+
+    public BulkIngestResponse(String recordId, int lines, int accepted, int dropped, int malformed, String stopped) {
+        this.recordId = recordId;
+        this.lines = lines;
+        this.accepted = accepted;
+        this.dropped = dropped;
+        this.malformed = malformed;
+        this.processed = accepted + malformed;
+        this.stopped = stopped;
+    }
+
+    public String getRecordId() { return recordId; }
+    public int getLines() { return lines; }
+    public int getAccepted() { return accepted; }
+    public int getDropped() { return dropped; }
+    public int getMalformed() { return malformed; }
+    public int getProcessed() { return processed; }
+    public String getStopped() { return stopped; }
+}
@@ -0,0 +1,74 @@
+package com.example.recordroom.model;
+
+import java.util.List;
+
+public class IngestStatsResponse {
+    private final boolean async;
+    private final long flushLatencyMs;
+    private final long duplicatesSkipped; // resent events dropped by seq dedup
+    private final List<LaneStats> lanes;
+
+    public IngestStatsResponse(boolean async, long flushLatencyMs, long duplicatesSkipped, List<LaneStats> lanes) {
+        this.async = async;
+        this.flushLatencyMs = flushLatencyMs;
+        this.duplicatesSkipped = duplicatesSkipped;
+        this.lanes = lanes;
+    }
+
+    public boolean isAsync() { return async; }
+    public long getFlushLatencyMs() { return flushLatencyMs; }
+    public long getDuplicatesSkipped() { return duplicatesSkipped; }
+    public List<LaneStats> getLanes() { return lanes; }
+
+    public static class LaneStats {
+        private final String kind;
+        private final int queueDepth;
+        private final int queueCapacity;
+        private final int flushSize;
+        private final long submitted;
+        private final long dropped;
+        private final long written;   // events (rrweb frames count every event)
+        private final long failed;
+        private final long flushes;
+        private final int lastBatchSize;
+        private final double lastFlushMs;
+        private final double avgFlushMs;
+        private final double maxFlushMs;
+        private final double maxQueueWaitMs;
+
+        public LaneStats(String kind, int queueDepth, int queueCapacity, int flushSize,
+                         long submitted, long dropped, long written, long failed,
+                         long flushes, int lastBatchSize,
+                         double lastFlushMs, double avgFlushMs, double maxFlushMs, double maxQueueWaitMs) {
+            this.kind = kind;
+            this.queueDepth = queueDepth;
+            this.queueCapacity = queueCapacity;
+            this.flushSize = flushSize;
+            this.submitted = submitted;
+            this.dropped = dropped;
+            this.written = written;
+            this.failed = failed;
+            this.flushes = flushes;
+            this.lastBatchSize = lastBatchSize;
+            this.lastFlushMs = lastFlushMs;
+            this.avgFlushMs = avgFlushMs;
+            this.maxFlushMs = maxFlushMs;
+            this.maxQueueWaitMs = maxQueueWaitMs;
+        }
+
+        public String getKind() { return kind; }
+        public int getQueueDepth() { return queueDepth; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public int getFlushSize() { return flushSize; }
+        public long getSubmitted() { return submitted; }
+        public long getDropped() { return dropped; }
+        public long getWritten() { return written; }
+        public long getFailed() { return failed; }
+        public long getFlushes() { return flushes; }
+        public int getLastBatchSize() { return lastBatchSize; }
+        public double getLastFlushMs() { return lastFlushMs; }
+        public double getAvgFlushMs() { return avgFlushMs; }
+        public double getMaxFlushMs() { return maxFlushMs; }
+        public double getMaxQueueWaitMs() { return maxQueueWaitMs; }
+    }
+}
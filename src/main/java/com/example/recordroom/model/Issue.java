@@ -0,0 +1,41 @@
+package com.example.recordroom.model;
+
+/** A group of console errors sharing a fingerprint, aggregated over all records. */
+public class Issue {
+    private final String fingerprint;
+    private final String level;
+    private final String title; // normalized message
+    private final String sampleMessage;
+    private final long eventCount;
+    private final long recordCount;
+    private final long userCount;
+    private final long firstSeenTs;
+    private final long lastSeenTs;
+    private final String lastRecordId;
+
+    public Issue(String fingerprint, String level, String title, String sampleMessage,
+                 long eventCount, long recordCount, long userCount,
+                 long firstSeenTs, long lastSeenTs, String lastRecordId) {
+        this.fingerprint = fingerprint;
+        this.level = level;
+        this.title = title;
+        this.sampleMessage = sampleMessage;
+        this.eventCount = eventCount;
+        this.recordCount = recordCount;
+        this.userCount = userCount;
+        this.firstSeenTs = firstSeenTs;
+        this.lastSeenTs = lastSeenTs;
+        this.lastRecordId = lastRecordId;
+    }
+
+    public String getFingerprint() { return fingerprint; }
+    public String getLevel() { return level; }
+    public String getTitle() { return title; }
+    public String getSampleMessage() { return sampleMessage; }
+    public long getEventCount() { return eventCount; }
+    public long getRecordCount() { return recordCount; }
+    public long getUserCount() { return userCount; }
+    public long getFirstSeenTs() { return firstSeenTs; }
+    public long getLastSeenTs() { return lastSeenTs; }
+    public String getLastRecordId() { return lastRecordId; }
+}
@@ -0,0 +1,48 @@
+package com.example.recordroom.model;
+
+import java.util.List;
+
+/** One issue with its sample stack, the records it was seen in (latest first) and its latest events. */
+public class IssueDetailResponse {
+    private final Issue issue;
+    private final String sampleStack;
+    private final List<AffectedRecord> records;
+    private final List<ConsoleEvent> recentEvents;
+
+    public IssueDetailResponse(Issue issue, String sampleStack, List<AffectedRecord> records, List<ConsoleEvent> recentEvents) {
+        this.issue = issue;
+        this.sampleStack = sampleStack;
+        this.records = records;
+        this.recentEvents = recentEvents;
+    }
+
+    public Issue getIssue() { return issue; }
+    public String getSampleStack() { return sampleStack; }
+    public List<AffectedRecord> getRecords() { return records; }
+    public List<ConsoleEvent> getRecentEvents() { return recentEvents; }
+
+    public static class AffectedRecord {
+        private final String recordId;
+        private final String sessionId;
+        private final String userId;
+        private final long eventCount;
+        private final long firstSeenTs;
+        private final long lastSeenTs;
+
+        public AffectedRecord(String recordId, String sessionId, String userId, long eventCount, long firstSeenTs, long lastSeenTs) {
+            this.recordId = recordId;
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.eventCount = eventCount;
+            this.firstSeenTs = firstSeenTs;
+            this.lastSeenTs = lastSeenTs;
+        }
+
+        public String getRecordId() { return recordId; }
+        public String getSessionId() { return sessionId; }
+        public String getUserId() { return userId; }
+        public long getEventCount() { return eventCount; }
+        public long getFirstSeenTs() { return firstSeenTs; }
+        public long getLastSeenTs() { return lastSeenTs; }
+    }
+}
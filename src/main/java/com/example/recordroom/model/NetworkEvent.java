@@ -18,6 +18,9 @@ public class NetworkEvent {
     private final long durationMs;
     private final String error; // optional
     private final long seq;
+    // body lengths in chars; set even when the bodies themselves are left out (lists)
+    private final Long requestBodySize;
+    private final Long responseBodySize;
 
     public NetworkEvent(
             String eventId,
@@ -34,7 +37,9 @@ public class NetworkEvent {
             long startedAtEpochMs,
             long durationMs,
             String error,
-            long seq
+            long seq,
+            Long requestBodySize,
+            Long responseBodySize
     ) {
         this.eventId = eventId;
         this.recordId = recordId;
@@ -51,6 +56,8 @@ public class NetworkEvent {
         this.durationMs = durationMs;
         this.error = error;
         this.seq = seq;
+        this.requestBodySize = requestBodySize;
+        this.responseBodySize = responseBodySize;
     }
 
     public String getEventId() { return eventId; }
@@ -68,4 +75,6 @@ public class NetworkEvent {
     public long getDurationMs() { return durationMs; }
     public String getError() { return error; }
     public long getSeq() { return seq; }
+    public Long getRequestBodySize() { return requestBodySize; }
+    public Long getResponseBodySize() { return responseBodySize; }
 }
@@ -0,0 +1,62 @@
+package com.example.recordroom.model;
+
+import java.util.List;
+
+/** All records linked by previousRecordId with the given one, oldest first. */
+public class RecordChainResponse {
+    private final String chainId;
+    private final String recordId;
+    private final boolean truncated; // more records than recordroom.record-chain.max-records
+    private final List<ChainRecord> records;
+
+    public RecordChainResponse(String chainId, String recordId, boolean truncated, List<ChainRecord> records) {
+        this.chainId = chainId;
+        this.recordId = recordId;
+        this.truncated = truncated;
+        this.records = records;
+    }
+
+    public String getChainId() { return chainId; }
+    public String getRecordId() { return recordId; }
+    public boolean isTruncated() { return truncated; }
+    public List<ChainRecord> getRecords() { return records; }
+
+    public static class ChainRecord {
+        private final String recordId;
+        private final String sessionId;
+        private final String previousRecordId;
+        private final String pageUrl;
+        private final long createdAtEpochMs;
+        private final Long firstEventTs; // null: no events yet
+        private final Long lastEventTs;
+        private final long consoleErrorCount;
+        private final long network4xx5xxCount;
+        private final long eventCount;
+
+        public ChainRecord(String recordId, String sessionId, String previousRecordId, String pageUrl, long createdAtEpochMs,
+                           Long firstEventTs, Long lastEventTs,
+                           long consoleErrorCount, long network4xx5xxCount, long eventCount) {
+            this.recordId = recordId;
+            this.sessionId = sessionId;
+            this.previousRecordId = previousRecordId;
+            this.pageUrl = pageUrl;
+            this.createdAtEpochMs = createdAtEpochMs;
+            this.firstEventTs = firstEventTs;
+            this.lastEventTs = lastEventTs;
+            this.consoleErrorCount = consoleErrorCount;
+            this.network4xx5xxCount = network4xx5xxCount;
+            this.eventCount = eventCount;
+        }
+
+        public String getRecordId() { return recordId; }
+        public String getSessionId() { return sessionId; }
+        public String getPreviousRecordId() { return previousRecordId; }
+        public String getPageUrl() { return pageUrl; }
+        public long getCreatedAtEpochMs() { return createdAtEpochMs; }
+        public Long getFirstEventTs() { return firstEventTs; }
+        public Long getLastEventTs() { return lastEventTs; }
+        public long getConsoleErrorCount() { return consoleErrorCount; }
+        public long getNetwork4xx5xxCount() { return network4xx5xxCount; }
+        public long getEventCount() { return eventCount; }
+    }
+}
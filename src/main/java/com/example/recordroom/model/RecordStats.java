@@ -1,32 +1,45 @@
 package com.example.recordroom.model;
 
 public class RecordStats {
-    private final int consoleErrorCount;
-    private final int consoleWarnCount;
-    private final int network4xxCount;
-    private final int network5xxCount;
-    private final int networkSlowCount; // durationMs > 2000
+    private final long consoleErrorCount;
+    private final long consoleWarnCount;
+    private final long network4xxCount;
+    private final long network5xxCount;
+    private final long networkSlowCount; // durationMs > 2000
+    // over requests with durationMs > 0; percentiles are histogram estimates (see LatencyHistogram)
     private final long avgDurationMs;
+    private final long p50DurationMs;
+    private final long p90DurationMs;
     private final long p95DurationMs;
+    private final long p99DurationMs;
+    private final long maxDurationMs;
 
-    public RecordStats(int consoleErrorCount, int consoleWarnCount,
-                      int network4xxCount, int network5xxCount, int networkSlowCount,
-                      long avgDurationMs, long p95DurationMs) {
+    public RecordStats(long consoleErrorCount, long consoleWarnCount,
+                      long network4xxCount, long network5xxCount, long networkSlowCount,
+                      long avgDurationMs, long p50DurationMs, long p90DurationMs,
+                      long p95DurationMs, long p99DurationMs, long maxDurationMs) {
         this.consoleErrorCount = consoleErrorCount;
         this.consoleWarnCount = consoleWarnCount;
         this.network4xxCount = network4xxCount;
         this.network5xxCount = network5xxCount;
         this.networkSlowCount = networkSlowCount;
         this.avgDurationMs = avgDurationMs;
+        this.p50DurationMs = p50DurationMs;
+        this.p90DurationMs = p90DurationMs;
         this.p95DurationMs = p95DurationMs;
+        this.p99DurationMs = p99DurationMs;
+        this.maxDurationMs = maxDurationMs;
     }
 
-    public int getConsoleErrorCount() { return consoleErrorCount; }
-    public int getConsoleWarnCount() { return consoleWarnCount; }
-    public int getNetwork4xxCount() { return network4xxCount; }
-    public int getNetwork5xxCount() { return network5xxCount; }
-    public int getNetworkSlowCount() { return networkSlowCount; }
+    public long getConsoleErrorCount() { return consoleErrorCount; }
+    public long getConsoleWarnCount() { return consoleWarnCount; }
+    public long getNetwork4xxCount() { return network4xxCount; }
+    public long getNetwork5xxCount() { return network5xxCount; }
+    public long getNetworkSlowCount() { return networkSlowCount; }
     public long getAvgDurationMs() { return avgDurationMs; }
+    public long getP50DurationMs() { return p50DurationMs; }
+    public long getP90DurationMs() { return p90DurationMs; }
     public long getP95DurationMs() { return p95DurationMs; }
+    public long getP99DurationMs() { return p99DurationMs; }
+    public long getMaxDurationMs() { return maxDurationMs; }
 }
-
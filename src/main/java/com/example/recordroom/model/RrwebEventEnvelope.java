@@ -1,11 +1,13 @@
 package com.example.recordroom.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 
 public class RrwebEventEnvelope {
     private long ts;
     private long seq;
     private JsonNode payload; // rrweb event object
+    private String payloadJson; // raw payload text from IngestFrameDecoder; preferred over payload when set
 
     public RrwebEventEnvelope() {}
 
@@ -17,4 +19,9 @@ public class RrwebEventEnvelope {
 
     public JsonNode getPayload() { return payload; }
     public void setPayload(JsonNode payload) { this.payload = payload; }
+
+    @JsonIgnore
+    public String getPayloadJson() { return payloadJson; }
+    @JsonIgnore
+    public void setPayloadJson(String payloadJson) { this.payloadJson = payloadJson; }
 }
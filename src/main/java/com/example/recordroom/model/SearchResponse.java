@@ -0,0 +1,70 @@
+package com.example.recordroom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search results with relevance score and match positions (returned by the /search/* endpoints
+ * when highlight=true or order=relevance).
+ */
+public class SearchResponse<T> {
+    private final String query;
+    private final String order;      // "recent" or "relevance"
+    private final boolean indexed;   // answered from the trigram index (false: LIKE scan)
+    private final boolean truncated; // more candidates than were checked; older matches may be missing
+    private final List<Hit<T>> hits;
+
+    public SearchResponse(String query, String order, boolean indexed, boolean truncated, List<Hit<T>> hits) {
+        this.query = query;
+        this.order = order;
+        this.indexed = indexed;
+        this.truncated = truncated;
+        this.hits = hits;
+    }
+
+    public String getQuery() { return query; }
+    public String getOrder() { return order; }
+    public boolean isIndexed() { return indexed; }
+    public boolean isTruncated() { return truncated; }
+    public List<Hit<T>> getHits() { return hits; }
+
+    /** The matched events alone, in hit order (the plain list response). */
+    public List<T> events() {
+        List<T> out = new ArrayList<>(hits.size());
+        for (Hit<T> h : hits) out.add(h.getEvent());
+        return out;
+    }
+
+    public static class Hit<T> {
+        private final T event;
+        private final double score;
+        private final List<Highlight> highlights;
+
+        public Hit(T event, double score, List<Highlight> highlights) {
+            this.event = event;
+            this.score = score;
+            this.highlights = highlights;
+        }
+
+        public T getEvent() { return event; }
+        public double getScore() { return score; }
+        public List<Highlight> getHighlights() { return highlights; }
+    }
+
+    /** A match in one field of the event: [start, end) in UTF-16 chars. */
+    public static class Highlight {
+        private final String field;
+        private final int start;
+        private final int end;
+
+        public Highlight(String field, int start, int end) {
+            this.field = field;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getField() { return field; }
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+    }
+}
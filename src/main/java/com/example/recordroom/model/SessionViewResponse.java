@@ -26,11 +26,11 @@ public class SessionViewResponse {
         private final String nextRecordId;     // within-session (nullable)
         private final String pageUrl;
         private final long createdAtEpochMs;
-        private final int consoleErrorCount;
-        private final int network4xx5xxCount;
+        private final long consoleErrorCount;
+        private final long network4xx5xxCount;
 
         public RecordSummary(String recordId, String previousRecordId, String nextRecordId, String pageUrl, long createdAtEpochMs,
-                           int consoleErrorCount, int network4xx5xxCount) {
+                           long consoleErrorCount, long network4xx5xxCount) {
             this.recordId = recordId;
             this.previousRecordId = previousRecordId;
             this.nextRecordId = nextRecordId;
@@ -45,8 +45,8 @@ public class SessionViewResponse {
         public String getNextRecordId() { return nextRecordId; }
         public String getPageUrl() { return pageUrl; }
         public long getCreatedAtEpochMs() { return createdAtEpochMs; }
-        public int getConsoleErrorCount() { return consoleErrorCount; }
-        public int getNetwork4xx5xxCount() { return network4xx5xxCount; }
+        public long getConsoleErrorCount() { return consoleErrorCount; }
+        public long getNetwork4xx5xxCount() { return network4xx5xxCount; }
     }
 }
 
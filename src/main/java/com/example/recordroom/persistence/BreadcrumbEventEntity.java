@@ -5,11 +5,14 @@ import javax.persistence.*;
 @Entity
 @Table(name = "rr_breadcrumb_event", indexes = {
         @Index(name = "idx_breadcrumb_record_ts_seq", columnList = "recordId,ts,seq")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_breadcrumb_record_dedup_seq", columnNames = {"recordId", "dedupSeq"})
 })
 public class BreadcrumbEventEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rr_breadcrumb_event_seq")
+    @SequenceGenerator(name = "rr_breadcrumb_event_seq", sequenceName = "rr_breadcrumb_event_seq", allocationSize = EventIdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 80, nullable = false)
@@ -33,9 +36,12 @@ public class BreadcrumbEventEntity {
 
     private long seq;
 
+    // null for rows written before dedup and for events without a client seq
+    private Long dedupSeq;
+
     protected BreadcrumbEventEntity() {}
 
-    public BreadcrumbEventEntity(String eventId, String recordId, String name, String message, String dataJson, long ts, long seq) {
+    public BreadcrumbEventEntity(String eventId, String recordId, String name, String message, String dataJson, long ts, long seq, Long dedupSeq) {
         this.eventId = eventId;
         this.recordId = recordId;
         this.name = name;
@@ -43,6 +49,7 @@ public class BreadcrumbEventEntity {
         this.dataJson = dataJson;
         this.ts = ts;
         this.seq = seq;
+        this.dedupSeq = dedupSeq;
     }
 
     public Long getId() { return id; }
@@ -53,4 +60,5 @@ public class BreadcrumbEventEntity {
     public String getDataJson() { return dataJson; }
     public long getTs() { return ts; }
     public long getSeq() { return seq; }
+    public Long getDedupSeq() { return dedupSeq; }
 }
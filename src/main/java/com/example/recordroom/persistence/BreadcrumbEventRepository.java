@@ -5,12 +5,21 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface BreadcrumbEventRepository extends Repository<BreadcrumbEventEntity, Long> {
 
     BreadcrumbEventEntity save(BreadcrumbEventEntity e);
 
+    List<BreadcrumbEventEntity> saveAll(Iterable<BreadcrumbEventEntity> entities);
+
+    @Query("select max(e.dedupSeq) from BreadcrumbEventEntity e where e.recordId = :rid")
+    Long findMaxDedupSeq(@Param("rid") String recordId);
+
+    @Query("select e.dedupSeq from BreadcrumbEventEntity e where e.recordId = :rid and e.dedupSeq > :floor order by e.dedupSeq asc")
+    List<Long> findDedupSeqsAbove(@Param("rid") String recordId, @Param("floor") long floor);
+
     @Query("select e from BreadcrumbEventEntity e where e.recordId = :rid and (e.ts > :ts or (e.ts = :ts and e.seq > :seq)) order by e.ts asc, e.seq asc")
     List<BreadcrumbEventEntity> findAfter(@Param("rid") String recordId, @Param("ts") long ts, @Param("seq") long seq, Pageable pageable);
 
@@ -23,12 +32,9 @@ public interface BreadcrumbEventRepository extends Repository<BreadcrumbEventEnt
     @Query("select e from BreadcrumbEventEntity e where e.recordId = :rid and (lower(e.message) like lower(concat('%', :q, '%')) or lower(e.name) like lower(concat('%', :q, '%'))) order by e.ts desc, e.seq desc")
     List<BreadcrumbEventEntity> search(@Param("rid") String recordId, @Param("q") String query, Pageable pageable);
 
+    @Query("select e from BreadcrumbEventEntity e where e.recordId = :rid and e.id in :ids")
+    List<BreadcrumbEventEntity> findByIds(@Param("rid") String recordId, @Param("ids") Collection<Long> ids);
+
     @Query("select coalesce(sum(length(coalesce(e.name,'')) + length(coalesce(e.message,'')) + length(coalesce(e.dataJson,''))), 0) from BreadcrumbEventEntity e where e.recordId = :rid")
     long sumApproxBytesByRecordId(@Param("rid") String recordId);
-
-    @Query("select coalesce(count(e), 0) from BreadcrumbEventEntity e where (:fromTs is null or e.ts >= :fromTs) and (:toTs is null or e.ts <= :toTs)")
-    long countInRange(@Param("fromTs") Long fromTs, @Param("toTs") Long toTs);
-
-    @Query("select coalesce(sum(length(coalesce(e.name,'')) + length(coalesce(e.message,'')) + length(coalesce(e.dataJson,''))), 0) from BreadcrumbEventEntity e where (:fromTs is null or e.ts >= :fromTs) and (:toTs is null or e.ts <= :toTs)")
-    long sumApproxBytesInRange(@Param("fromTs") Long fromTs, @Param("toTs") Long toTs);
 }
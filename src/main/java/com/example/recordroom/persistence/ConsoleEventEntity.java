@@ -4,12 +4,16 @@ import javax.persistence.*;
 
 @Entity
 @Table(name = "rr_console_event", indexes = {
-        @Index(name = "idx_console_record_ts_seq", columnList = "recordId,ts,seq")
+        @Index(name = "idx_console_record_ts_seq", columnList = "recordId,ts,seq"),
+        @Index(name = "idx_console_fingerprint_ts", columnList = "fingerprint,ts")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_console_record_dedup_seq", columnNames = {"recordId", "dedupSeq"})
 })
 public class ConsoleEventEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rr_console_event_seq")
+    @SequenceGenerator(name = "rr_console_event_seq", sequenceName = "rr_console_event_seq", allocationSize = EventIdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 80, nullable = false)
@@ -33,9 +37,16 @@ public class ConsoleEventEntity {
 
     private long seq;
 
+    // null for rows written before dedup and for events without a client seq
+    private Long dedupSeq;
+
+    // ConsoleFingerprint of issue-level events, "" for other levels; null until the issue backfill saw the row
+    @Column(length = 64)
+    private String fingerprint;
+
     protected ConsoleEventEntity() {}
 
-    public ConsoleEventEntity(String eventId, String recordId, String level, String message, String stack, long ts, long seq) {
+    public ConsoleEventEntity(String eventId, String recordId, String level, String message, String stack, long ts, long seq, Long dedupSeq, String fingerprint) {
         this.eventId = eventId;
         this.recordId = recordId;
         this.level = level;
@@ -43,6 +54,8 @@ public class ConsoleEventEntity {
         this.stack = stack;
         this.ts = ts;
         this.seq = seq;
+        this.dedupSeq = dedupSeq;
+        this.fingerprint = fingerprint;
     }
 
     public Long getId() { return id; }
@@ -53,4 +66,6 @@ public class ConsoleEventEntity {
     public String getStack() { return stack; }
     public long getTs() { return ts; }
     public long getSeq() { return seq; }
+    public Long getDedupSeq() { return dedupSeq; }
+    public String getFingerprint() { return fingerprint; }
 }
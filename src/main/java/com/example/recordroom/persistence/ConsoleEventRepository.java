@@ -5,12 +5,24 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ConsoleEventRepository extends Repository<ConsoleEventEntity, Long> {
 
     ConsoleEventEntity save(ConsoleEventEntity e);
 
+    List<ConsoleEventEntity> saveAll(Iterable<ConsoleEventEntity> entities);
+
+    /** Writes every pending insert of the persistence context, not only console rows. */
+    void flush();
+
+    @Query("select max(e.dedupSeq) from ConsoleEventEntity e where e.recordId = :rid")
+    Long findMaxDedupSeq(@Param("rid") String recordId);
+
+    @Query("select e.dedupSeq from ConsoleEventEntity e where e.recordId = :rid and e.dedupSeq > :floor order by e.dedupSeq asc")
+    List<Long> findDedupSeqsAbove(@Param("rid") String recordId, @Param("floor") long floor);
+
     @Query("select e from ConsoleEventEntity e where e.recordId = :rid and (e.ts > :ts or (e.ts = :ts and e.seq > :seq)) order by e.ts asc, e.seq asc")
     List<ConsoleEventEntity> findAfter(@Param("rid") String recordId, @Param("ts") long ts, @Param("seq") long seq, Pageable pageable);
 
@@ -23,6 +35,12 @@ public interface ConsoleEventRepository extends Repository<ConsoleEventEntity, L
     @Query("select e from ConsoleEventEntity e where e.recordId = :rid and (lower(e.message) like lower(concat('%', :q, '%')) or (e.stack is not null and lower(e.stack) like lower(concat('%', :q, '%')))) order by e.ts desc, e.seq desc")
     List<ConsoleEventEntity> search(@Param("rid") String recordId, @Param("q") String query, Pageable pageable);
 
+    @Query("select e from ConsoleEventEntity e where e.recordId = :rid and e.id in :ids")
+    List<ConsoleEventEntity> findByIds(@Param("rid") String recordId, @Param("ids") Collection<Long> ids);
+
+    @Query("select e from ConsoleEventEntity e where e.fingerprint = :fp order by e.ts desc")
+    List<ConsoleEventEntity> findLatestByFingerprint(@Param("fp") String fingerprint, Pageable pageable);
+
     @Query("select count(e) from ConsoleEventEntity e where e.recordId = :rid and lower(e.level) = 'error'")
     long countErrors(@Param("rid") String recordId);
 
@@ -31,10 +49,4 @@ public interface ConsoleEventRepository extends Repository<ConsoleEventEntity, L
 
     @Query("select coalesce(sum(length(coalesce(e.message,'')) + length(coalesce(e.stack,'')) + length(coalesce(e.level,''))), 0) from ConsoleEventEntity e where e.recordId = :rid")
     long sumApproxBytesByRecordId(@Param("rid") String recordId);
-
-    @Query("select coalesce(count(e), 0) from ConsoleEventEntity e where (:fromTs is null or e.ts >= :fromTs) and (:toTs is null or e.ts <= :toTs)")
-    long countInRange(@Param("fromTs") Long fromTs, @Param("toTs") Long toTs);
-
-    @Query("select coalesce(sum(length(coalesce(e.message,'')) + length(coalesce(e.stack,'')) + length(coalesce(e.level,''))), 0) from ConsoleEventEntity e where (:fromTs is null or e.ts >= :fromTs) and (:toTs is null or e.ts <= :toTs)")
-    long sumApproxBytesInRange(@Param("fromTs") Long fromTs, @Param("toTs") Long toTs);
 }
@@ -0,0 +1,57 @@
+package com.example.recordroom.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Event tables take their ids from pooled sequences (allocationSize ids per round-trip) instead of
+ * IDENTITY columns, so Hibernate can batch the inserts.
+ *
+ * Data files created before the switch already hold IDENTITY ids while the sequences that
+ * ddl-auto creates start at 1. On startup each sequence is moved past the highest stored id.
+ * The pooled optimizer hands out (value - ALLOCATION_SIZE, value], hence the extra allocation.
+ * Ids pre-allocated by a previous run but never used are simply skipped.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class EventIdSequences {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    private static final Logger log = LoggerFactory.getLogger(EventIdSequences.class);
+
+    private static final String[] TABLES = {
+            "rr_console_event",
+            "rr_network_event",
+            "rr_breadcrumb_event",
+            "rr_rrweb_event"
+    };
+
+    private final JdbcTemplate jdbc;
+
+    public EventIdSequences(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void alignWithExistingRows() {
+        for (String table : TABLES) {
+            String sequence = table + "_seq";
+            try {
+                Long maxId = jdbc.queryForObject("select max(id) from " + table, Long.class);
+                if (maxId == null) continue;
+
+                long restartWith = maxId + ALLOCATION_SIZE + 1;
+                jdbc.execute("alter sequence " + sequence + " restart with " + restartWith);
+                log.info("event id sequence aligned. sequence={} maxId={} restartWith={}", sequence, maxId, restartWith);
+            } catch (Exception e) {
+                log.warn("event id sequence alignment failed. sequence={} err={}", sequence, e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+
+/**
+ * One entry of the HTTP header dictionary (see HeaderDictionary): a header name, or a whole
+ * name/value pair for values that repeat across requests ("content-type: application/json").
+ * Ids are referenced from the encoded headers of rr_network_event and never change.
+ */
+@Entity
+@Table(name = "rr_header_dict", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_header_dict_entry", columnNames = {"kind", "headerName", "headerValue"})
+})
+public class HeaderDictEntity {
+
+    public static final int KIND_NAME = 0;
+    public static final int KIND_PAIR = 1;
+
+    // dense ids keep the varint references in encoded headers short
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rr_header_dict_seq")
+    @SequenceGenerator(name = "rr_header_dict_seq", sequenceName = "rr_header_dict_seq", allocationSize = 1)
+    private Long id;
+
+    private int kind;
+
+    @Column(length = 256, nullable = false)
+    private String headerName;
+
+    @Column(length = 256, nullable = false)
+    private String headerValue; // "" for KIND_NAME
+
+    protected HeaderDictEntity() {}
+
+    public HeaderDictEntity(int kind, String name, String value) {
+        this.kind = kind;
+        this.headerName = name;
+        this.headerValue = value;
+    }
+
+    public Long getId() { return id; }
+    public int getKind() { return kind; }
+    public String getName() { return headerName; }
+    public String getValue() { return headerValue; }
+}
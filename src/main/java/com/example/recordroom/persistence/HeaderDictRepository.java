@@ -0,0 +1,21 @@
+package com.example.recordroom.persistence;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface HeaderDictRepository extends Repository<HeaderDictEntity, Long> {
+
+    HeaderDictEntity save(HeaderDictEntity entity);
+
+    Optional<HeaderDictEntity> findById(Long id);
+
+    @Query("select d from HeaderDictEntity d order by d.id asc")
+    List<HeaderDictEntity> findAll();
+
+    @Query("select d from HeaderDictEntity d where d.kind = :kind and d.headerName = :name and d.headerValue = :value")
+    HeaderDictEntity findEntry(@Param("kind") int kind, @Param("name") String name, @Param("value") String value);
+}
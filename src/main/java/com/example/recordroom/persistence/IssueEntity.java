@@ -0,0 +1,59 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+
+/**
+ * One group of console errors with the same ConsoleFingerprint, across all records. Counts and
+ * first/last seen are kept up to date at ingest (see IssueTracker); the sample is the first
+ * occurrence.
+ */
+@Entity
+@Table(name = "rr_issue", indexes = {
+        @Index(name = "idx_issue_last_seen", columnList = "lastSeenTs"),
+        @Index(name = "idx_issue_event_count", columnList = "eventCount")
+})
+public class IssueEntity {
+
+    @Id
+    @Column(length = 64)
+    private String fingerprint;
+
+    @Column(length = 16, nullable = false)
+    private String level;
+
+    // normalized message
+    @Column(length = 512, nullable = false)
+    private String title;
+
+    @Lob
+    @Column
+    private String sampleMessage;
+
+    @Lob
+    @Column
+    private String sampleStack;
+
+    private long eventCount;
+    private long recordCount;
+    private long userCount;
+
+    private long firstSeenTs;
+    private long lastSeenTs;
+
+    @Column(length = 64)
+    private String lastRecordId;
+
+    protected IssueEntity() {}
+
+    public String getFingerprint() { return fingerprint; }
+    public String getLevel() { return level; }
+    public String getTitle() { return title; }
+    public String getSampleMessage() { return sampleMessage; }
+    public String getSampleStack() { return sampleStack; }
+    public long getEventCount() { return eventCount; }
+    public long getRecordCount() { return recordCount; }
+    public long getUserCount() { return userCount; }
+    public long getFirstSeenTs() { return firstSeenTs; }
+    public long getLastSeenTs() { return lastSeenTs; }
+    public String getLastRecordId() { return lastRecordId; }
+}
@@ -0,0 +1,63 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/** Occurrences of one issue within one record; the rows of an issue are its affected records. */
+@Entity
+@Table(name = "rr_issue_record", indexes = {
+        @Index(name = "idx_issue_record_last_seen", columnList = "fingerprint,lastSeenTs")
+})
+@IdClass(IssueRecordEntity.Key.class)
+public class IssueRecordEntity {
+
+    @Id
+    @Column(length = 64)
+    private String fingerprint;
+
+    @Id
+    @Column(length = 64)
+    private String recordId;
+
+    // copied from the record so the drill-down needs no join
+    @Column(length = 64)
+    private String sessionId;
+
+    @Column(length = 128)
+    private String userId;
+
+    private long eventCount;
+    private long firstSeenTs;
+    private long lastSeenTs;
+
+    protected IssueRecordEntity() {}
+
+    public String getFingerprint() { return fingerprint; }
+    public String getRecordId() { return recordId; }
+    public String getSessionId() { return sessionId; }
+    public String getUserId() { return userId; }
+    public long getEventCount() { return eventCount; }
+    public long getFirstSeenTs() { return firstSeenTs; }
+    public long getLastSeenTs() { return lastSeenTs; }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String fingerprint;
+        private String recordId;
+
+        public Key() {}
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return Objects.equals(fingerprint, k.fingerprint) && Objects.equals(recordId, k.recordId);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(fingerprint, recordId); }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.recordroom.persistence;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/** Reads only; rows are written by IssueTracker. */
+public interface IssueRecordRepository extends Repository<IssueRecordEntity, IssueRecordEntity.Key> {
+
+    @Query("select r from IssueRecordEntity r where r.fingerprint = :fp and r.lastSeenTs >= :from and r.firstSeenTs <= :to "
+            + "order by r.lastSeenTs desc")
+    List<IssueRecordEntity> findByFingerprint(@Param("fp") String fingerprint, @Param("from") long from, @Param("to") long to, Pageable pageable);
+}
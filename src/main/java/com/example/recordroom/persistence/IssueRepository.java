@@ -0,0 +1,30 @@
+package com.example.recordroom.persistence;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads only; rows are written by IssueTracker. The list queries take issues seen within
+ * [from, to]; level "" and q "" match every issue, q is matched against the lower-cased title.
+ */
+public interface IssueRepository extends Repository<IssueEntity, String> {
+
+    Optional<IssueEntity> findById(String fingerprint);
+
+    @Query("select i from IssueEntity i where i.lastSeenTs >= :from and i.firstSeenTs <= :to "
+            + "and (:level = '' or i.level = :level) and (:q = '' or lower(i.title) like concat('%', :q, '%')) "
+            + "order by i.lastSeenTs desc")
+    List<IssueEntity> findRecent(@Param("from") long from, @Param("to") long to,
+                                 @Param("level") String level, @Param("q") String query, Pageable pageable);
+
+    @Query("select i from IssueEntity i where i.lastSeenTs >= :from and i.firstSeenTs <= :to "
+            + "and (:level = '' or i.level = :level) and (:q = '' or lower(i.title) like concat('%', :q, '%')) "
+            + "order by i.eventCount desc, i.lastSeenTs desc")
+    List<IssueEntity> findMostFrequent(@Param("from") long from, @Param("to") long to,
+                                       @Param("level") String level, @Param("q") String query, Pageable pageable);
+}
@@ -0,0 +1,45 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/** Users an issue was seen for; only inserted into, so that rr_issue.user_count counts each user once. */
+@Entity
+@Table(name = "rr_issue_user")
+@IdClass(IssueUserEntity.Key.class)
+public class IssueUserEntity {
+
+    @Id
+    @Column(length = 64)
+    private String fingerprint;
+
+    @Id
+    @Column(length = 128)
+    private String userId;
+
+    protected IssueUserEntity() {}
+
+    public String getFingerprint() { return fingerprint; }
+    public String getUserId() { return userId; }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String fingerprint;
+        private String userId;
+
+        public Key() {}
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return Objects.equals(fingerprint, k.fingerprint) && Objects.equals(userId, k.userId);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(fingerprint, userId); }
+    }
+}
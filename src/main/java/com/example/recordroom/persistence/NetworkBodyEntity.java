@@ -0,0 +1,35 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+
+/**
+ * A network request/response body stored once under its SHA-256 and referenced from
+ * rr_network_event (requestBodyHash / responseBodyHash). refCount is the number of referencing
+ * event rows, so a retention job can delete a body once nothing points at it.
+ */
+@Entity
+@Table(name = "rr_network_body")
+public class NetworkBodyEntity {
+
+    @Id
+    @Column(length = 64)
+    private String hash; // lowercase hex SHA-256 of the UTF-8 body
+
+    private long sizeBytes;
+
+    private long refCount;
+
+    private long createdAtEpochMs;
+
+    @Lob
+    @Column(nullable = false)
+    private String content;
+
+    protected NetworkBodyEntity() {}
+
+    public String getHash() { return hash; }
+    public long getSizeBytes() { return sizeBytes; }
+    public long getRefCount() { return refCount; }
+    public long getCreatedAtEpochMs() { return createdAtEpochMs; }
+    public String getContent() { return content; }
+}
@@ -0,0 +1,15 @@
+package com.example.recordroom.persistence;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/** Reads only; inserts and refcount updates go through NetworkBodyStore. */
+public interface NetworkBodyRepository extends Repository<NetworkBodyEntity, String> {
+
+    @Query("select b from NetworkBodyEntity b where b.hash in :hashes")
+    List<NetworkBodyEntity> findByHashes(@Param("hashes") Collection<String> hashes);
+}
@@ -6,11 +6,14 @@ import javax.persistence.*;
 @Table(name = "rr_network_event", indexes = {
         @Index(name = "idx_network_record_ts_seq", columnList = "recordId,startedAtEpochMs,seq"),
         @Index(name = "idx_network_record_eventid", columnList = "recordId,eventId")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_network_record_dedup_seq", columnNames = {"recordId", "dedupSeq"})
 })
 public class NetworkEventEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rr_network_event_seq")
+    @SequenceGenerator(name = "rr_network_event_seq", sequenceName = "rr_network_event_seq", allocationSize = EventIdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 80, nullable = false)
@@ -30,21 +33,14 @@ public class NetworkEventEntity {
 
     private int status;
 
-    @Lob
-    @Column
-    private String requestHeadersJson;
+    // headers and bodies live in rr_network_payload (NetworkPayloadEntity, same id); only their
+    // sizes are kept here: body length in chars wherever it is stored, and the encoded size of
+    // request + response headers
+    private Long requestBodySize;
 
-    @Lob
-    @Column
-    private String requestBody;
+    private Long responseBodySize;
 
-    @Lob
-    @Column
-    private String responseHeadersJson;
-
-    @Lob
-    @Column
-    private String responseBody;
+    private Long headersBytes;
 
     private long startedAtEpochMs;
 
@@ -55,26 +51,28 @@ public class NetworkEventEntity {
 
     private long seq;
 
+    // null for rows written before dedup and for events without a client seq
+    private Long dedupSeq;
+
     protected NetworkEventEntity() {}
 
     public NetworkEventEntity(String eventId, String recordId, String clientRequestId, String method, String url, int status,
-                              String requestHeadersJson, String requestBody,
-                              String responseHeadersJson, String responseBody,
-                              long startedAtEpochMs, long durationMs, String error, long seq) {
+                              Long requestBodySize, Long responseBodySize, Long headersBytes,
+                              long startedAtEpochMs, long durationMs, String error, long seq, Long dedupSeq) {
         this.eventId = eventId;
         this.recordId = recordId;
         this.clientRequestId = clientRequestId;
         this.method = method;
         this.url = url;
         this.status = status;
-        this.requestHeadersJson = requestHeadersJson;
-        this.requestBody = requestBody;
-        this.responseHeadersJson = responseHeadersJson;
-        this.responseBody = responseBody;
+        this.requestBodySize = requestBodySize;
+        this.responseBodySize = responseBodySize;
+        this.headersBytes = headersBytes;
         this.startedAtEpochMs = startedAtEpochMs;
         this.durationMs = durationMs;
         this.error = error;
         this.seq = seq;
+        this.dedupSeq = dedupSeq;
     }
 
     public Long getId() { return id; }
@@ -84,12 +82,12 @@ public class NetworkEventEntity {
     public String getMethod() { return method; }
     public String getUrl() { return url; }
     public int getStatus() { return status; }
-    public String getRequestHeadersJson() { return requestHeadersJson; }
-    public String getRequestBody() { return requestBody; }
-    public String getResponseHeadersJson() { return responseHeadersJson; }
-    public String getResponseBody() { return responseBody; }
+    public Long getRequestBodySize() { return requestBodySize; }
+    public Long getResponseBodySize() { return responseBodySize; }
+    public Long getHeadersBytes() { return headersBytes; }
     public long getStartedAtEpochMs() { return startedAtEpochMs; }
     public long getDurationMs() { return durationMs; }
     public String getError() { return error; }
     public long getSeq() { return seq; }
+    public Long getDedupSeq() { return dedupSeq; }
 }
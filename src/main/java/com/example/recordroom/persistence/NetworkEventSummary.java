@@ -0,0 +1,61 @@
+package com.example.recordroom.persistence;
+
+/**
+ * The scalar columns of a network event, read with a constructor projection
+ * (select new ...NetworkEventSummary(...)) for lists, timelines and stats.
+ */
+public class NetworkEventSummary {
+
+    public static final String SELECT = "select new com.example.recordroom.persistence.NetworkEventSummary("
+            + "e.id, e.eventId, e.recordId, e.clientRequestId, e.method, e.url, e.status, "
+            + "e.requestBodySize, e.responseBodySize, e.headersBytes, e.startedAtEpochMs, e.durationMs, e.error, e.seq) ";
+
+    private final Long id;
+    private final String eventId;
+    private final String recordId;
+    private final String clientRequestId;
+    private final String method;
+    private final String url;
+    private final int status;
+    private final Long requestBodySize;
+    private final Long responseBodySize;
+    private final Long headersBytes;
+    private final long startedAtEpochMs;
+    private final long durationMs;
+    private final String error;
+    private final long seq;
+
+    public NetworkEventSummary(Long id, String eventId, String recordId, String clientRequestId, String method, String url,
+                               int status, Long requestBodySize, Long responseBodySize, Long headersBytes,
+                               long startedAtEpochMs, long durationMs, String error, long seq) {
+        this.id = id;
+        this.eventId = eventId;
+        this.recordId = recordId;
+        this.clientRequestId = clientRequestId;
+        this.method = method;
+        this.url = url;
+        this.status = status;
+        this.requestBodySize = requestBodySize;
+        this.responseBodySize = responseBodySize;
+        this.headersBytes = headersBytes;
+        this.startedAtEpochMs = startedAtEpochMs;
+        this.durationMs = durationMs;
+        this.error = error;
+        this.seq = seq;
+    }
+
+    public Long getId() { return id; }
+    public String getEventId() { return eventId; }
+    public String getRecordId() { return recordId; }
+    public String getClientRequestId() { return clientRequestId; }
+    public String getMethod() { return method; }
+    public String getUrl() { return url; }
+    public int getStatus() { return status; }
+    public Long getRequestBodySize() { return requestBodySize; }
+    public Long getResponseBodySize() { return responseBodySize; }
+    public Long getHeadersBytes() { return headersBytes; }
+    public long getStartedAtEpochMs() { return startedAtEpochMs; }
+    public long getDurationMs() { return durationMs; }
+    public String getError() { return error; }
+    public long getSeq() { return seq; }
+}
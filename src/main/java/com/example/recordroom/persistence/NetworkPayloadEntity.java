@@ -0,0 +1,72 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+
+/**
+ * Headers and bodies of a network event, split from rr_network_event so that lists, timelines
+ * and stats never read them. The id is the id of the NetworkEventEntity it belongs to.
+ */
+@Entity
+@Table(name = "rr_network_payload")
+public class NetworkPayloadEntity {
+
+    @Id
+    private Long id;
+
+    // rows from before the header dictionary; newer rows use requestHeadersBin
+    @Lob
+    @Column
+    private String requestHeadersJson;
+
+    // HeaderDictionary encoding; null when there were no headers
+    @Lob
+    @Column
+    private byte[] requestHeadersBin;
+
+    @Lob
+    @Column
+    private String requestBody; // inline only when small; otherwise see requestBodyHash
+
+    // rr_network_body key of the request body, null when stored inline (or absent)
+    @Column(length = 64)
+    private String requestBodyHash;
+
+    @Lob
+    @Column
+    private String responseHeadersJson;
+
+    @Lob
+    @Column
+    private byte[] responseHeadersBin;
+
+    @Lob
+    @Column
+    private String responseBody;
+
+    @Column(length = 64)
+    private String responseBodyHash;
+
+    protected NetworkPayloadEntity() {}
+
+    public NetworkPayloadEntity(Long id,
+                                byte[] requestHeadersBin, String requestBody, String requestBodyHash,
+                                byte[] responseHeadersBin, String responseBody, String responseBodyHash) {
+        this.id = id;
+        this.requestHeadersBin = requestHeadersBin;
+        this.requestBody = requestBody;
+        this.requestBodyHash = requestBodyHash;
+        this.responseHeadersBin = responseHeadersBin;
+        this.responseBody = responseBody;
+        this.responseBodyHash = responseBodyHash;
+    }
+
+    public Long getId() { return id; }
+    public String getRequestHeadersJson() { return requestHeadersJson; }
+    public byte[] getRequestHeadersBin() { return requestHeadersBin; }
+    public String getRequestBody() { return requestBody; }
+    public String getRequestBodyHash() { return requestBodyHash; }
+    public String getResponseHeadersJson() { return responseHeadersJson; }
+    public byte[] getResponseHeadersBin() { return responseHeadersBin; }
+    public String getResponseBody() { return responseBody; }
+    public String getResponseBodyHash() { return responseBodyHash; }
+}
@@ -0,0 +1,26 @@
+package com.example.recordroom.persistence;
+
+/** Header columns of a NetworkPayloadEntity, for lists that show headers but not bodies. */
+public class NetworkPayloadHeaders {
+
+    private final Long id;
+    private final String requestHeadersJson;
+    private final byte[] requestHeadersBin;
+    private final String responseHeadersJson;
+    private final byte[] responseHeadersBin;
+
+    public NetworkPayloadHeaders(Long id, String requestHeadersJson, byte[] requestHeadersBin,
+                                 String responseHeadersJson, byte[] responseHeadersBin) {
+        this.id = id;
+        this.requestHeadersJson = requestHeadersJson;
+        this.requestHeadersBin = requestHeadersBin;
+        this.responseHeadersJson = responseHeadersJson;
+        this.responseHeadersBin = responseHeadersBin;
+    }
+
+    public Long getId() { return id; }
+    public String getRequestHeadersJson() { return requestHeadersJson; }
+    public byte[] getRequestHeadersBin() { return requestHeadersBin; }
+    public String getResponseHeadersJson() { return responseHeadersJson; }
+    public byte[] getResponseHeadersBin() { return responseHeadersBin; }
+}
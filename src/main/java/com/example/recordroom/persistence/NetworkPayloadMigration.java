@@ -0,0 +1,80 @@
+package com.example.recordroom.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Moves headers and bodies of rows written before rr_network_payload out of rr_network_event.
+ *
+ * ddl-auto never drops columns, so on an existing data file rr_network_event still has the old
+ * payload columns. On startup, while they exist: fill the size columns from them, copy them into
+ * rr_network_payload (rows not copied yet), then drop them. Every step can be repeated, so an
+ * interrupted run is finished by the next start. Columns added later than the table (the header
+ * and body-hash columns) may be missing on older files and are copied as null.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class NetworkPayloadMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(NetworkPayloadMigration.class);
+
+    private static final String[] PAYLOAD_COLUMNS = {
+            "request_headers_json", "request_headers_bin", "request_body", "request_body_hash",
+            "response_headers_json", "response_headers_bin", "response_body", "response_body_hash"
+    };
+
+    private final JdbcTemplate jdbc;
+
+    public NetworkPayloadMigration(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void moveLegacyPayloads() {
+        try {
+            Set<String> columns = eventColumns();
+            if (!columns.contains("request_body")) return;
+
+            jdbc.update("update rr_network_event set request_body_size = length(request_body) where request_body_size is null and request_body is not null");
+            jdbc.update("update rr_network_event set response_body_size = length(response_body) where response_body_size is null and response_body is not null");
+            jdbc.update("update rr_network_event set headers_bytes = "
+                    + len(columns, "request_headers_json") + " + " + len(columns, "request_headers_bin") + " + "
+                    + len(columns, "response_headers_json") + " + " + len(columns, "response_headers_bin")
+                    + " where headers_bytes is null");
+
+            StringBuilder select = new StringBuilder("e.id");
+            for (String c : PAYLOAD_COLUMNS) select.append(", ").append(columns.contains(c) ? "e." + c : "null");
+            int copied = jdbc.update("insert into rr_network_payload (id, " + String.join(", ", PAYLOAD_COLUMNS) + ") "
+                    + "select " + select + " from rr_network_event e "
+                    + "where not exists (select 1 from rr_network_payload p where p.id = e.id)");
+
+            for (String c : PAYLOAD_COLUMNS) {
+                if (columns.contains(c)) jdbc.execute("alter table rr_network_event drop column " + c);
+            }
+            log.info("legacy network payloads moved to rr_network_payload. rows={}", copied);
+        } catch (Exception e) {
+            log.warn("network payload migration failed; retried on next start. err={}", e.toString());
+        }
+    }
+
+    private Set<String> eventColumns() {
+        List<String> names = jdbc.queryForList(
+                "select column_name from information_schema.columns where lower(table_name) = 'rr_network_event'", String.class);
+        Set<String> out = new HashSet<>();
+        for (String n : names) out.add(n.toLowerCase(Locale.ROOT));
+        return out;
+    }
+
+    private static String len(Set<String> columns, String column) {
+        return columns.contains(column) ? "coalesce(length(" + column + "), 0)" : "0";
+    }
+}
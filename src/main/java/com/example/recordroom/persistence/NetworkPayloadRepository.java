@@ -0,0 +1,22 @@
+package com.example.recordroom.persistence;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface NetworkPayloadRepository extends Repository<NetworkPayloadEntity, Long> {
+
+    NetworkPayloadEntity save(NetworkPayloadEntity e);
+
+    List<NetworkPayloadEntity> saveAll(Iterable<NetworkPayloadEntity> entities);
+
+    Optional<NetworkPayloadEntity> findById(Long id);
+
+    @Query("select new com.example.recordroom.persistence.NetworkPayloadHeaders(p.id, p.requestHeadersJson, p.requestHeadersBin, p.responseHeadersJson, p.responseHeadersBin) " +
+            "from NetworkPayloadEntity p where p.id in :ids")
+    List<NetworkPayloadHeaders> findHeadersByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,71 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+
+/**
+ * Per-record event counts and byte totals, kept up to date at ingest (see RecordCounters) so the
+ * admin overview does not aggregate the event tables per row. Bytes use the same approximations
+ * as the sumApproxBytes queries of the event repositories.
+ */
+@Entity
+@Table(name = "rr_record_counters")
+public class RecordCountersEntity {
+
+    @Id
+    @Column(length = 64)
+    private String recordId;
+
+    private long consoleCount;
+    private long consoleErrorCount;
+    private long consoleWarnCount;
+    private long consoleBytes;
+
+    private long networkCount;
+    private long network4xxCount;
+    private long network5xxCount;
+    private long networkSlowCount;
+    private long networkBytes;
+    // LatencyHistogram of durations > 0; null until the first timed request
+    @Lob
+    private byte[] networkLatencyHist;
+
+    private long breadcrumbCount;
+    private long breadcrumbBytes;
+
+    private long rrwebCount;
+    private long rrwebBytes;
+
+    // event time range over all kinds; null until the first event
+    private Long firstEventTs;
+    private Long lastEventTs;
+
+    private long updatedAtEpochMs;
+
+    // true when the row counts every event of the record (created with it, or rebuilt on startup);
+    // null/false for a row ingest started for an older record, which the backfill recomputes
+    private Boolean backfilled;
+
+    protected RecordCountersEntity() {}
+
+    public String getRecordId() { return recordId; }
+    public long getConsoleCount() { return consoleCount; }
+    public long getConsoleErrorCount() { return consoleErrorCount; }
+    public long getConsoleWarnCount() { return consoleWarnCount; }
+    public long getConsoleBytes() { return consoleBytes; }
+    public long getNetworkCount() { return networkCount; }
+    public long getNetwork4xxCount() { return network4xxCount; }
+    public long getNetwork5xxCount() { return network5xxCount; }
+    public long getNetworkSlowCount() { return networkSlowCount; }
+    public long getNetworkBytes() { return networkBytes; }
+    public byte[] getNetworkLatencyHist() { return networkLatencyHist; }
+    public long getBreadcrumbCount() { return breadcrumbCount; }
+    public long getBreadcrumbBytes() { return breadcrumbBytes; }
+    public long getRrwebCount() { return rrwebCount; }
+    public long getRrwebBytes() { return rrwebBytes; }
+    public Boolean getBackfilled() { return backfilled; }
+    public Long getFirstEventTs() { return firstEventTs; }
+    public Long getLastEventTs() { return lastEventTs; }
+    public long getUpdatedAtEpochMs() { return updatedAtEpochMs; }
+
+    public long getTotalBytes() { return consoleBytes + networkBytes + breadcrumbBytes + rrwebBytes; }
+}
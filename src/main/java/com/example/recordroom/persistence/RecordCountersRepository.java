@@ -0,0 +1,11 @@
+package com.example.recordroom.persistence;
+
+import org.springframework.data.repository.Repository;
+
+import java.util.Optional;
+
+/** Reads only; rows are written by RecordCounters. */
+public interface RecordCountersRepository extends Repository<RecordCountersEntity, String> {
+
+    Optional<RecordCountersEntity> findById(String recordId);
+}
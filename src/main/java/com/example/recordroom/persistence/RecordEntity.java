@@ -3,7 +3,12 @@ package com.example.recordroom.persistence;
 import javax.persistence.*;
 
 @Entity
-@Table(name = "rr_record")
+@Table(name = "rr_record", indexes = {
+        @Index(name = "idx_record_session_created", columnList = "sessionId,createdAtEpochMs"),
+        @Index(name = "idx_record_previous", columnList = "previousRecordId"),
+        @Index(name = "idx_record_created", columnList = "createdAtEpochMs"),
+        @Index(name = "idx_record_chain_created", columnList = "chainId,createdAtEpochMs")
+})
 public class RecordEntity {
 
     @Id
@@ -16,6 +21,10 @@ public class RecordEntity {
     @Column(length = 64)
     private String previousRecordId;
 
+    // recordId of the first record of the previousRecordId chain (see RecordChains)
+    @Column(length = 64)
+    private String chainId;
+
     @Column(length = 2048)
     private String pageUrl;
 
@@ -39,7 +48,7 @@ public class RecordEntity {
     protected RecordEntity() {}
 
     public RecordEntity(String recordId, String sessionId, String previousRecordId, String pageUrl,
-                        String userAgent, String appVersion, String deviceInfo, String userId, String userEmail, long createdAtEpochMs) {
+                        String userAgent, String appVersion, String deviceInfo, String userId, String userEmail, long createdAtEpochMs, String chainId) {
         this.recordId = recordId;
         this.sessionId = sessionId;
         this.previousRecordId = previousRecordId;
@@ -50,6 +59,7 @@ public class RecordEntity {
         this.userId = userId;
         this.userEmail = userEmail;
         this.createdAtEpochMs = createdAtEpochMs;
+        this.chainId = chainId;
     }
 
     public String getRecordId() { return recordId; }
@@ -62,4 +72,5 @@ public class RecordEntity {
     public String getUserId() { return userId; }
     public String getUserEmail() { return userEmail; }
     public long getCreatedAtEpochMs() { return createdAtEpochMs; }
+    public String getChainId() { return chainId; }
 }
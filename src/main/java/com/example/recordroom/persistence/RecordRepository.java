@@ -12,9 +12,21 @@ public interface RecordRepository extends JpaRepository<RecordEntity, String> {
     @Query("select r from RecordEntity r where r.sessionId = :sid order by r.createdAtEpochMs asc")
     List<RecordEntity> findBySessionId(@Param("sid") String sessionId);
 
+    @Query("select new com.example.recordroom.persistence.RecordWithCounters(r, c) from RecordEntity r " +
+            "left join RecordCountersEntity c on c.recordId = r.recordId where r.sessionId = :sid order by r.createdAtEpochMs asc")
+    List<RecordWithCounters> findBySessionIdWithCounters(@Param("sid") String sessionId);
+
+    @Query("select new com.example.recordroom.persistence.RecordWithCounters(r, c) from RecordEntity r " +
+            "left join RecordCountersEntity c on c.recordId = r.recordId where r.chainId = :cid order by r.createdAtEpochMs asc")
+    List<RecordWithCounters> findByChainIdWithCounters(@Param("cid") String chainId, Pageable pageable);
+
     @Query("select r from RecordEntity r order by r.createdAtEpochMs desc")
     List<RecordEntity> findLatest(Pageable pageable);
 
+    @Query("select new com.example.recordroom.persistence.RecordWithCounters(r, c) from RecordEntity r " +
+            "left join RecordCountersEntity c on c.recordId = r.recordId order by r.createdAtEpochMs desc")
+    List<RecordWithCounters> findLatestWithCounters(Pageable pageable);
+
     @Query("select count(distinct r.sessionId) from RecordEntity r")
     long countDistinctSessionIds();
 
@@ -0,0 +1,16 @@
+package com.example.recordroom.persistence;
+
+/** A record and its counters row (null when the record has no events yet), read in one query. */
+public class RecordWithCounters {
+
+    private final RecordEntity record;
+    private final RecordCountersEntity counters;
+
+    public RecordWithCounters(RecordEntity record, RecordCountersEntity counters) {
+        this.record = record;
+        this.counters = counters;
+    }
+
+    public RecordEntity getRecord() { return record; }
+    public RecordCountersEntity getCounters() { return counters; }
+}
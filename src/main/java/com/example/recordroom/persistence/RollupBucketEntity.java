@@ -0,0 +1,79 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Event counts and byte totals of every record within one time bucket (a minute or an hour,
+ * by event time), kept up to date at ingest (see EventRollups). Columns and byte approximations
+ * are those of RecordCountersEntity.
+ */
+@Entity
+@Table(name = "rr_rollup_bucket")
+@IdClass(RollupBucketEntity.Key.class)
+public class RollupBucketEntity {
+
+    // bucket length in ms; 0 is the backfill marker row
+    @Id
+    private long bucketMs;
+
+    // epoch ms, a multiple of bucketMs
+    @Id
+    private long bucketStart;
+
+    private long consoleCount;
+    private long consoleErrorCount;
+    private long consoleWarnCount;
+    private long consoleBytes;
+
+    private long networkCount;
+    private long network4xxCount;
+    private long network5xxCount;
+    private long networkSlowCount;
+    private long networkBytes;
+
+    private long breadcrumbCount;
+    private long breadcrumbBytes;
+
+    private long rrwebCount;
+    private long rrwebBytes;
+
+    protected RollupBucketEntity() {}
+
+    public long getBucketMs() { return bucketMs; }
+    public long getBucketStart() { return bucketStart; }
+    public long getConsoleCount() { return consoleCount; }
+    public long getConsoleErrorCount() { return consoleErrorCount; }
+    public long getConsoleWarnCount() { return consoleWarnCount; }
+    public long getConsoleBytes() { return consoleBytes; }
+    public long getNetworkCount() { return networkCount; }
+    public long getNetwork4xxCount() { return network4xxCount; }
+    public long getNetwork5xxCount() { return network5xxCount; }
+    public long getNetworkSlowCount() { return networkSlowCount; }
+    public long getNetworkBytes() { return networkBytes; }
+    public long getBreadcrumbCount() { return breadcrumbCount; }
+    public long getBreadcrumbBytes() { return breadcrumbBytes; }
+    public long getRrwebCount() { return rrwebCount; }
+    public long getRrwebBytes() { return rrwebBytes; }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private long bucketMs;
+        private long bucketStart;
+
+        public Key() {}
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return bucketMs == k.bucketMs && bucketStart == k.bucketStart;
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(bucketMs, bucketStart); }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+
+/**
+ * A large string pulled out of rrweb payloads (inlined stylesheet, font, data: image), stored once
+ * under its SHA-256. Payloads reference it as "rr-asset://sha256/<hash>". Rows are never updated.
+ */
+@Entity
+@Table(name = "rr_rrweb_asset")
+public class RrwebAssetEntity {
+
+    @Id
+    @Column(length = 64)
+    private String hash; // lowercase hex SHA-256 of the UTF-8 content
+
+    private long sizeBytes;
+
+    private long createdAtEpochMs;
+
+    @Lob
+    @Column(nullable = false)
+    private String content;
+
+    protected RrwebAssetEntity() {}
+
+    public String getHash() { return hash; }
+    public long getSizeBytes() { return sizeBytes; }
+    public long getCreatedAtEpochMs() { return createdAtEpochMs; }
+    public String getContent() { return content; }
+}
@@ -0,0 +1,13 @@
+package com.example.recordroom.persistence;
+
+import org.springframework.data.repository.Repository;
+
+import java.util.Optional;
+
+/** Reads only; inserts go through RrwebAssetStore (MERGE, so concurrent writers of one hash don't collide). */
+public interface RrwebAssetRepository extends Repository<RrwebAssetEntity, String> {
+
+    Optional<RrwebAssetEntity> findById(String hash);
+
+    boolean existsById(String hash);
+}
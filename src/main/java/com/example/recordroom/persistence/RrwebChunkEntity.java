@@ -0,0 +1,73 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+
+/**
+ * A run of rrweb events stored as one compressed blob (see RrwebChunkStore for the format).
+ * Ingest writes one chunk per SDK batch; the compactor later merges the small ones.
+ */
+@Entity
+@Table(name = "rr_rrweb_chunk", indexes = {
+        @Index(name = "idx_rrweb_chunk_record_min", columnList = "recordId,minTs,minSeq"),
+        @Index(name = "idx_rrweb_chunk_record_max", columnList = "recordId,maxTs")
+})
+public class RrwebChunkEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rr_rrweb_chunk_seq")
+    @SequenceGenerator(name = "rr_rrweb_chunk_seq", sequenceName = "rr_rrweb_chunk_seq", allocationSize = EventIdSequences.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(length = 64, nullable = false)
+    private String recordId;
+
+    private long minTs;
+    private long maxTs;
+    private long minSeq;
+    private long maxSeq;
+
+    private int eventCount;
+
+    // payload bytes before / after compression
+    private long rawBytes;
+    private long storedBytes;
+
+    @Column(length = 16, nullable = false)
+    private String encoding;
+
+    private long createdAtEpochMs;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+
+    protected RrwebChunkEntity() {}
+
+    public RrwebChunkEntity(String recordId, long minTs, long maxTs, long minSeq, long maxSeq, int eventCount,
+                            long rawBytes, String encoding, byte[] data, long createdAtEpochMs) {
+        this.recordId = recordId;
+        this.minTs = minTs;
+        this.maxTs = maxTs;
+        this.minSeq = minSeq;
+        this.maxSeq = maxSeq;
+        this.eventCount = eventCount;
+        this.rawBytes = rawBytes;
+        this.storedBytes = data.length;
+        this.encoding = encoding;
+        this.data = data;
+        this.createdAtEpochMs = createdAtEpochMs;
+    }
+
+    public Long getId() { return id; }
+    public String getRecordId() { return recordId; }
+    public long getMinTs() { return minTs; }
+    public long getMaxTs() { return maxTs; }
+    public long getMinSeq() { return minSeq; }
+    public long getMaxSeq() { return maxSeq; }
+    public int getEventCount() { return eventCount; }
+    public long getRawBytes() { return rawBytes; }
+    public long getStoredBytes() { return storedBytes; }
+    public String getEncoding() { return encoding; }
+    public long getCreatedAtEpochMs() { return createdAtEpochMs; }
+    public byte[] getData() { return data; }
+}
@@ -0,0 +1,42 @@
+package com.example.recordroom.persistence;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface RrwebChunkRepository extends Repository<RrwebChunkEntity, Long> {
+
+    List<RrwebChunkEntity> saveAll(Iterable<RrwebChunkEntity> entities);
+
+    void deleteAll(Iterable<RrwebChunkEntity> entities);
+
+    Optional<RrwebChunkEntity> findById(Long id);
+
+    // chunks that may hold events at or after ts, in replay order
+    @Query("select c from RrwebChunkEntity c where c.recordId = :rid and c.maxTs >= :ts order by c.minTs asc, c.minSeq asc, c.id asc")
+    List<RrwebChunkEntity> findEndingAtOrAfter(@Param("rid") String recordId, @Param("ts") long ts, Pageable pageable);
+
+    @Query("select c from RrwebChunkEntity c where c.recordId = :rid and c.eventCount < :target order by c.minTs asc, c.minSeq asc, c.id asc")
+    List<RrwebChunkEntity> findSmallForRecord(@Param("rid") String recordId, @Param("target") int targetEvents);
+
+    @Query("select max(c.maxSeq) from RrwebChunkEntity c where c.recordId = :rid")
+    Long findMaxSeq(@Param("rid") String recordId);
+
+    @Query("select c from RrwebChunkEntity c where c.recordId = :rid and c.maxSeq > :floor")
+    List<RrwebChunkEntity> findWithSeqAbove(@Param("rid") String recordId, @Param("floor") long floor);
+
+    /**
+     * Records idle since before :before whose chunks under :target events are more than one over
+     * what target-sized chunks would need, i.e. merging them would actually reduce the row count.
+     */
+    @Query("select c.recordId from RrwebChunkEntity c where c.eventCount < :target group by c.recordId " +
+            "having max(c.createdAtEpochMs) < :before and count(c) > sum(c.eventCount) / :target + 1")
+    List<String> findRecordsToCompact(@Param("before") long before, @Param("target") long targetEvents, Pageable pageable);
+
+    @Query("select coalesce(sum(c.rawBytes), 0) from RrwebChunkEntity c where c.recordId = :rid")
+    long sumRawBytesByRecordId(@Param("rid") String recordId);
+}
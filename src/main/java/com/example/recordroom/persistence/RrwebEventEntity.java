@@ -5,11 +5,14 @@ import javax.persistence.*;
 @Entity
 @Table(name = "rr_rrweb_event", indexes = {
         @Index(name = "idx_rrweb_record_ts_seq", columnList = "recordId,tsEpochMs,seq")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rrweb_record_dedup_seq", columnNames = {"recordId", "dedupSeq"})
 })
 public class RrwebEventEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rr_rrweb_event_seq")
+    @SequenceGenerator(name = "rr_rrweb_event_seq", sequenceName = "rr_rrweb_event_seq", allocationSize = EventIdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 80, nullable = false)
@@ -22,17 +25,21 @@ public class RrwebEventEntity {
 
     private long seq;
 
+    // null for rows written before dedup and for events without a client seq
+    private Long dedupSeq;
+
     @Lob
     @Column
     private String payloadJson;
 
     protected RrwebEventEntity() {}
 
-    public RrwebEventEntity(String eventId, String recordId, long tsEpochMs, long seq, String payloadJson) {
+    public RrwebEventEntity(String eventId, String recordId, long tsEpochMs, long seq, String payloadJson, Long dedupSeq) {
         this.eventId = eventId;
         this.recordId = recordId;
         this.tsEpochMs = tsEpochMs;
         this.seq = seq;
+        this.dedupSeq = dedupSeq;
         this.payloadJson = payloadJson;
     }
 
@@ -41,5 +48,6 @@ public class RrwebEventEntity {
     public String getRecordId() { return recordId; }
     public long getTsEpochMs() { return tsEpochMs; }
     public long getSeq() { return seq; }
+    public Long getDedupSeq() { return dedupSeq; }
     public String getPayloadJson() { return payloadJson; }
 }
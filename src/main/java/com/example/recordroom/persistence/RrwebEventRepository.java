@@ -11,18 +11,26 @@ public interface RrwebEventRepository extends Repository<RrwebEventEntity, Long>
 
     RrwebEventEntity save(RrwebEventEntity e);
 
+    List<RrwebEventEntity> saveAll(Iterable<RrwebEventEntity> entities);
+
+    void deleteAll(Iterable<RrwebEventEntity> entities);
+
+    @Query("select max(e.dedupSeq) from RrwebEventEntity e where e.recordId = :rid")
+    Long findMaxDedupSeq(@Param("rid") String recordId);
+
+    @Query("select e.dedupSeq from RrwebEventEntity e where e.recordId = :rid and e.dedupSeq > :floor order by e.dedupSeq asc")
+    List<Long> findDedupSeqsAbove(@Param("rid") String recordId, @Param("floor") long floor);
+
     @Query("select e from RrwebEventEntity e where e.recordId = :rid and (e.tsEpochMs > :ts or (e.tsEpochMs = :ts and e.seq > :seq)) order by e.tsEpochMs asc, e.seq asc")
     List<RrwebEventEntity> findAfter(@Param("rid") String recordId, @Param("ts") long ts, @Param("seq") long seq, Pageable pageable);
 
     @Query("select e from RrwebEventEntity e where e.recordId = :rid order by e.tsEpochMs asc, e.seq asc")
     List<RrwebEventEntity> findAllForRecord(@Param("rid") String recordId, Pageable pageable);
 
+    // rows written before chunked storage, waiting for the compactor to migrate them
+    @Query("select distinct e.recordId from RrwebEventEntity e")
+    List<String> findRecordIds(Pageable pageable);
+
     @Query("select coalesce(sum(length(coalesce(e.payloadJson,''))), 0) from RrwebEventEntity e where e.recordId = :rid")
     long sumApproxBytesByRecordId(@Param("rid") String recordId);
-
-    @Query("select coalesce(count(e), 0) from RrwebEventEntity e where (:fromTs is null or e.tsEpochMs >= :fromTs) and (:toTs is null or e.tsEpochMs <= :toTs)")
-    long countInRange(@Param("fromTs") Long fromTs, @Param("toTs") Long toTs);
-
-    @Query("select coalesce(sum(length(coalesce(e.payloadJson,''))), 0) from RrwebEventEntity e where (:fromTs is null or e.tsEpochMs >= :fromTs) and (:toTs is null or e.tsEpochMs <= :toTs)")
-    long sumApproxBytesInRange(@Param("fromTs") Long fromTs, @Param("toTs") Long toTs);
 }
@@ -0,0 +1,50 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+
+/**
+ * Where a record's rrweb Meta (type 4) and FullSnapshot (type 2) events are, so replay can
+ * start from a snapshot instead of from the first event.
+ */
+@Entity
+@Table(name = "rr_rrweb_keyframe", indexes = {
+        @Index(name = "idx_rrweb_keyframe_record_type_ts", columnList = "recordId,type,ts,seq")
+})
+public class RrwebKeyframeEntity {
+
+    public static final int TYPE_FULL_SNAPSHOT = 2;
+    public static final int TYPE_META = 4;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rr_rrweb_keyframe_seq")
+    @SequenceGenerator(name = "rr_rrweb_keyframe_seq", sequenceName = "rr_rrweb_keyframe_seq", allocationSize = EventIdSequences.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(length = 64, nullable = false)
+    private String recordId;
+
+    private int type;
+
+    private long ts;
+
+    private long seq;
+
+    private long chunkId;
+
+    protected RrwebKeyframeEntity() {}
+
+    public RrwebKeyframeEntity(String recordId, int type, long ts, long seq, long chunkId) {
+        this.recordId = recordId;
+        this.type = type;
+        this.ts = ts;
+        this.seq = seq;
+        this.chunkId = chunkId;
+    }
+
+    public Long getId() { return id; }
+    public String getRecordId() { return recordId; }
+    public int getType() { return type; }
+    public long getTs() { return ts; }
+    public long getSeq() { return seq; }
+    public long getChunkId() { return chunkId; }
+}
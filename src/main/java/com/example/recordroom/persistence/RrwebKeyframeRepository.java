@@ -0,0 +1,23 @@
+package com.example.recordroom.persistence;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RrwebKeyframeRepository extends Repository<RrwebKeyframeEntity, Long> {
+
+    List<RrwebKeyframeEntity> saveAll(Iterable<RrwebKeyframeEntity> entities);
+
+    @Query("select k from RrwebKeyframeEntity k where k.recordId = :rid and k.type = :type and (k.ts < :ts or (k.ts = :ts and k.seq <= :seq)) order by k.ts desc, k.seq desc")
+    List<RrwebKeyframeEntity> findLatestAtOrBefore(@Param("rid") String recordId, @Param("type") int type,
+                                                   @Param("ts") long ts, @Param("seq") long seq, Pageable pageable);
+
+    @Modifying
+    @Query("delete from RrwebKeyframeEntity k where k.recordId = :rid and k.chunkId in :chunkIds")
+    int deleteByChunkIds(@Param("rid") String recordId, @Param("chunkIds") Collection<Long> chunkIds);
+}
@@ -0,0 +1,57 @@
+package com.example.recordroom.persistence;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Posting list of one trigram within one record and event kind: the ids of the events whose
+ * search text contains it (see SearchIndex for the encoding). ids is null once the list grew
+ * past the configured size; such a gram is too common to narrow a search and is skipped.
+ */
+@Entity
+@Table(name = "rr_search_posting")
+@IdClass(SearchPostingEntity.Key.class)
+public class SearchPostingEntity {
+
+    @Id
+    @Column(length = 64)
+    private String recordId;
+
+    @Id
+    private int kind;
+
+    @Id
+    private long gram;
+
+    @Column(length = 1048576)
+    private byte[] ids;
+
+    protected SearchPostingEntity() {}
+
+    public String getRecordId() { return recordId; }
+    public int getKind() { return kind; }
+    public long getGram() { return gram; }
+    public byte[] getIds() { return ids; }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String recordId;
+        private int kind;
+        private long gram;
+
+        public Key() {}
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return kind == k.kind && gram == k.gram && Objects.equals(recordId, k.recordId);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(recordId, kind, gram); }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.recordroom.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Groups console errors that are the same problem: level, message and top stack frames with the
+ * per-occurrence noise removed (URLs, ids, numbers, line/column positions, bundle hashes), hashed.
+ */
+public final class ConsoleFingerprint {
+
+    private static final int MAX_TITLE_CHARS = 300;
+    private static final int MAX_FRAMES = 5;
+
+    private static final Pattern URL = Pattern.compile("\\b[a-zA-Z][a-zA-Z0-9+.-]*://[^\\s'\"()<>]+");
+    private static final Pattern UUID = Pattern.compile("\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern HEX = Pattern.compile("\\b(0x[0-9a-fA-F]+|(?=[0-9a-fA-F]*[0-9])[0-9a-fA-F]{8,})\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(\\.\\d+)?");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    // stack frame noise
+    private static final Pattern ORIGIN = Pattern.compile("[a-zA-Z][a-zA-Z0-9+.-]*://[^/\\s)]*");
+    private static final Pattern QUERY = Pattern.compile("[?#][^\\s):]*");
+    private static final Pattern LINE_COL = Pattern.compile(":\\d+(:\\d+)?");
+    private static final Pattern BUNDLE_HASH = Pattern.compile("[.-][0-9a-fA-F]{6,}(?=\\.m?js\\b)");
+
+    private ConsoleFingerprint() {}
+
+    /** Message with URLs, ids and numbers replaced by placeholders, whitespace collapsed. */
+    public static String normalizeMessage(String message) {
+        if (message == null) return "";
+        String s = URL.matcher(message).replaceAll("<url>");
+        s = UUID.matcher(s).replaceAll("<uuid>");
+        s = HEX.matcher(s).replaceAll("<hex>");
+        s = NUMBER.matcher(s).replaceAll("<n>");
+        s = SPACES.matcher(s).replaceAll(" ").trim();
+        return s.length() > MAX_TITLE_CHARS ? s.substring(0, MAX_TITLE_CHARS) : s;
+    }
+
+    /** The first frames of a stack ("at fn (file:l:c)" or "fn@file:l:c") without origin, query, position or bundle hash. */
+    static List<String> normalizeFrames(String stack) {
+        List<String> out = new ArrayList<>();
+        if (stack == null) return out;
+        for (String line : stack.split("\\r?\\n")) {
+            String t = line.trim();
+            boolean frame = t.startsWith("at ") || (t.contains("@") && t.contains(":"));
+            if (!frame) continue;
+            t = ORIGIN.matcher(t).replaceAll("");
+            t = QUERY.matcher(t).replaceAll("");
+            t = LINE_COL.matcher(t).replaceAll("");
+            t = BUNDLE_HASH.matcher(t).replaceAll("");
+            out.add(SPACES.matcher(t).replaceAll(" "));
+            if (out.size() == MAX_FRAMES) break;
+        }
+        return out;
+    }
+
+    /** SHA-256 (hex) of level, normalized message and normalized frames. */
+    public static String of(String level, String message, String stack) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(level == null ? "" : level.toLowerCase(Locale.ROOT)).append('\n');
+        sb.append(normalizeMessage(message)).append('\n');
+        for (String f : normalizeFrames(stack)) sb.append(f).append('\n');
+        return RrwebAssetStore.sha256(sb.toString());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.recordroom.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU of immutable content by hash, bounded by total size (2 bytes per char).
+ * A single entry larger than a quarter of the budget is not cached.
+ */
+final class ContentCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, String> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    ContentCache(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    synchronized String get(String hash) {
+        return entries.get(hash);
+    }
+
+    synchronized boolean contains(String hash) {
+        return entries.containsKey(hash);
+    }
+
+    synchronized void put(String hash, String content) {
+        long size = content.length() * 2L;
+        if (size > maxBytes / 4) return;
+        String previous = entries.put(hash, content);
+        if (previous == null) bytes += size;
+
+        Iterator<Map.Entry<String, String>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().length() * 2L;
+            it.remove();
+        }
+    }
+}
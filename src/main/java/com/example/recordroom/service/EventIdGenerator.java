@@ -0,0 +1,81 @@
+package com.example.recordroom.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered event ids (snowflake layout, Crockford base32 text).
+ *
+ * 63 bits: 41 bits of milliseconds since 2024-01-01, a 10-bit node id, a 12-bit per-ms sequence.
+ * The text form is always 13 chars, so ids sort as strings in creation order and new rows land
+ * at the right edge of the (recordId, eventId) indexes instead of at random pages.
+ *
+ * Lock-free: the last (ms, sequence) pair is packed in one AtomicLong and advanced with CAS.
+ * When a millisecond runs out of sequence numbers, or the clock steps back, ids keep counting
+ * from the last issued value, so they stay unique and monotonic per node.
+ *
+ * node-id should be unique per running instance; when unset it is derived from host name and pid.
+ */
+@Component
+public class EventIdGenerator {
+
+    private static final long EPOCH_MS = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQ_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQ_MASK = (1L << SEQ_BITS) - 1;
+
+    private static final char[] CROCKFORD = "0123456789abcdefghjkmnpqrstvwxyz".toCharArray();
+    private static final int ID_CHARS = 13; // ceil(63 / 5)
+
+    private final long node;
+    private final AtomicLong last = new AtomicLong(); // (ms since EPOCH_MS) << SEQ_BITS | seq
+
+    public EventIdGenerator(@Value("${recordroom.event-id.node-id:-1}") long nodeId) {
+        this.node = (nodeId >= 0) ? (nodeId & MAX_NODE) : derivedNodeId();
+    }
+
+    /** A new id with the given prefix, e.g. "c_" + 13 chars. */
+    public String next(String prefix) {
+        return prefix + encode(nextLong());
+    }
+
+    public long nextLong() {
+        long now = System.currentTimeMillis() - EPOCH_MS;
+        long prev;
+        long candidate;
+        do {
+            prev = last.get();
+            candidate = ((prev >>> SEQ_BITS) < now) ? (now << SEQ_BITS) : prev + 1;
+        } while (!last.compareAndSet(prev, candidate));
+
+        long ms = candidate >>> SEQ_BITS;
+        return (ms << (NODE_BITS + SEQ_BITS)) | (node << SEQ_BITS) | (candidate & SEQ_MASK);
+    }
+
+    private static String encode(long id) {
+        char[] out = new char[ID_CHARS];
+        for (int i = ID_CHARS - 1; i >= 0; i--) {
+            out[i] = CROCKFORD[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+
+    private static long derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        // RuntimeMXBean name is "pid@host"
+        String seed = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        return (seed.hashCode() & 0x7fffffff) & MAX_NODE;
+    }
+}
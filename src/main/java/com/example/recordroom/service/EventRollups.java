@@ -0,0 +1,197 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.BreadcrumbEventEntity;
+import com.example.recordroom.persistence.ConsoleEventEntity;
+import com.example.recordroom.persistence.NetworkEventEntity;
+import com.example.recordroom.persistence.RrwebChunkEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Maintains rr_record_counters' columns per minute and per hour of event time
+ * (rr_rollup_bucket), so admin range totals and charts sum a few buckets instead of scanning the
+ * event tables.
+ *
+ * Ingest adds each batch to its buckets in the same transaction as the events. A range sums the
+ * hours it fully covers and the minutes at its edges; both bounds are rounded down to the
+ * minute. Event time is ts (startedAtEpochMs for network, minTs for rrweb chunks), as in the
+ * per-record counters.
+ */
+@Component
+@DependsOn("networkPayloadMigration") // the backfill reads the network size columns
+public class EventRollups {
+
+    private static final Logger log = LoggerFactory.getLogger(EventRollups.class);
+
+    public static final long MINUTE_MS = 60_000L;
+    public static final long HOUR_MS = 3_600_000L;
+    private static final long[] RESOLUTIONS = {MINUTE_MS, HOUR_MS};
+
+    private static final String UPDATE_SQL;
+    private static final String INSERT_SQL;
+    static {
+        StringBuilder set = new StringBuilder();
+        for (String c : RecordCounters.COLUMNS) set.append(set.length() == 0 ? "" : ", ").append(c).append(" = ").append(c).append(" + ?");
+        UPDATE_SQL = "update rr_rollup_bucket set " + set + " where bucket_ms = ? and bucket_start = ?";
+        INSERT_SQL = "insert into rr_rollup_bucket (" + String.join(", ", RecordCounters.COLUMNS)
+                + ", bucket_ms, bucket_start) values (?" + ", ?".repeat(RecordCounters.COLUMNS.length + 1) + ")";
+    }
+
+    private final JdbcTemplate jdbc;
+    private final RecordCounters recordCounters;
+    private final TransactionTemplate tx;
+
+    public EventRollups(JdbcTemplate jdbc, RecordCounters recordCounters, PlatformTransactionManager txManager) {
+        this.jdbc = jdbc;
+        this.recordCounters = recordCounters;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** Deltas of one ingest batch, per resolution and bucket start. */
+    public static final class Batch {
+        private final List<TreeMap<Long, RecordCounters.Delta>> buckets = new ArrayList<>();
+        private final RecordCounters recordCounters;
+
+        private Batch(RecordCounters recordCounters) {
+            this.recordCounters = recordCounters;
+            for (int i = 0; i < RESOLUTIONS.length; i++) buckets.add(new TreeMap<>());
+        }
+
+        public void console(ConsoleEventEntity e) { for (RecordCounters.Delta d : deltas(e.getTs())) d.console(e); }
+        public void network(NetworkEventEntity e) { for (RecordCounters.Delta d : deltas(e.getStartedAtEpochMs())) d.network(e); }
+        public void breadcrumb(BreadcrumbEventEntity e) { for (RecordCounters.Delta d : deltas(e.getTs())) d.breadcrumb(e); }
+        public void rrweb(RrwebChunkEntity c) { for (RecordCounters.Delta d : deltas(c.getMinTs())) d.rrweb(c); }
+
+        private RecordCounters.Delta[] deltas(long ts) {
+            RecordCounters.Delta[] out = new RecordCounters.Delta[RESOLUTIONS.length];
+            for (int i = 0; i < RESOLUTIONS.length; i++) {
+                out[i] = buckets.get(i).computeIfAbsent(bucketStart(ts, RESOLUTIONS[i]), k -> recordCounters.newDelta());
+            }
+            return out;
+        }
+    }
+
+    public Batch newBatch() {
+        return new Batch(recordCounters);
+    }
+
+    /**
+     * Adds the batch to its buckets (in bucket order); call inside the transaction that wrote its
+     * events, as its last statement: concurrent writers wait on the same buckets until it commits.
+     */
+    public void apply(Batch batch) {
+        for (int i = 0; i < RESOLUTIONS.length; i++) {
+            for (Map.Entry<Long, RecordCounters.Delta> kv : batch.buckets.get(i).entrySet()) {
+                Object[] args = args(kv.getValue(), RESOLUTIONS[i], kv.getKey());
+                if (jdbc.update(UPDATE_SQL, args) > 0) continue;
+                try {
+                    jdbc.update(INSERT_SQL, args);
+                } catch (DataIntegrityViolationException e) {
+                    jdbc.update(UPDATE_SQL, args); // bucket created concurrently
+                }
+            }
+        }
+    }
+
+    private static Object[] args(RecordCounters.Delta d, long bucketMs, long bucketStart) {
+        List<Object> args = new ArrayList<>(Arrays.asList(d.values()));
+        args.add(bucketMs);
+        args.add(bucketStart);
+        return args.toArray();
+    }
+
+    static long bucketStart(long ts, long bucketMs) {
+        return Math.floorDiv(ts, bucketMs) * bucketMs;
+    }
+
+    // ---------- reads ----------
+
+    /** Sums over events in [fromTs, toTs] at minute resolution; a null bound is open. */
+    public RecordCounters.Delta sum(Long fromTs, Long toTs) {
+        RecordCounters.Delta out = recordCounters.newDelta();
+        for (long[] r : ranges(fromTs, toTs)) addBuckets(out, r[0], r[1], r[2]);
+        return out;
+    }
+
+    /**
+     * The bucket ranges sum reads for [fromTs, toTs], as {bucketMs, firstStart, lastStart}: the
+     * whole hours inside it, then the minutes before and after them. Together they cover every
+     * minute from the one holding fromTs to the one holding toTs exactly once.
+     */
+    static List<long[]> ranges(Long fromTs, Long toTs) {
+        List<long[]> out = new ArrayList<>(3);
+        long fromM = fromTs == null ? Long.MIN_VALUE : bucketStart(fromTs, MINUTE_MS);
+        long toM = toTs == null ? Long.MAX_VALUE : bucketStart(toTs, MINUTE_MS);
+        if (fromM > toM) return out;
+
+        // whole hours inside the range: [hourFrom, hourTo)
+        long hourFrom = fromTs == null ? Long.MIN_VALUE : -Math.floorDiv(-fromM, HOUR_MS) * HOUR_MS;
+        long hourTo = toTs == null ? Long.MAX_VALUE : bucketStart(toM + MINUTE_MS, HOUR_MS);
+        if (hourFrom >= hourTo) {
+            out.add(new long[]{MINUTE_MS, fromM, toM});
+            return out;
+        }
+        out.add(new long[]{HOUR_MS, hourFrom, toTs == null ? Long.MAX_VALUE : hourTo - 1});
+        if (fromTs != null && fromM < hourFrom) out.add(new long[]{MINUTE_MS, fromM, hourFrom - 1});
+        if (toTs != null && hourTo <= toM) out.add(new long[]{MINUTE_MS, hourTo, toM});
+        return out;
+    }
+
+    private void addBuckets(RecordCounters.Delta into, long bucketMs, long firstStart, long lastStart) {
+        RecordCounters.Delta d = jdbc.queryForObject("select " + RecordCounters.SUM_COLUMNS + " from rr_rollup_bucket "
+                + "where bucket_ms = ? and bucket_start >= ? and bucket_start <= ?", (rs, n) -> recordCounters.read(rs, 1),
+                bucketMs, firstStart, lastStart);
+        if (d != null) into.add(d);
+    }
+
+    /** Buckets of the resolution starting within [firstStart, lastStart], by start; missing buckets had no events. */
+    public SortedMap<Long, RecordCounters.Delta> buckets(long bucketMs, long firstStart, long lastStart) {
+        SortedMap<Long, RecordCounters.Delta> out = new TreeMap<>();
+        jdbc.query("select bucket_start, " + String.join(", ", RecordCounters.COLUMNS) + " from rr_rollup_bucket "
+                + "where bucket_ms = ? and bucket_start >= ? and bucket_start <= ? order by bucket_start", rs -> {
+            out.put(rs.getLong(1), recordCounters.read(rs, 2));
+        }, bucketMs, firstStart, lastStart);
+        return out;
+    }
+
+    // ---------- backfill ----------
+
+    /**
+     * Builds every bucket from the event tables once, in one transaction, then writes the marker
+     * row. Buckets written by ingest after an unfinished backfill are rebuilt with the rest.
+     */
+    @PostConstruct
+    public void backfill() {
+        try {
+            Integer marked = jdbc.queryForObject("select count(*) from rr_rollup_bucket where bucket_ms = 0", Integer.class);
+            if (marked != null && marked > 0) return;
+            Integer buckets = tx.execute(status -> {
+                jdbc.update("delete from rr_rollup_bucket");
+                int n = 0;
+                for (long bucketMs : RESOLUTIONS) {
+                    Map<Long, RecordCounters.Delta> byStart = new TreeMap<>();
+                    recordCounters.aggregate(ts -> "(" + ts + " - mod(" + ts + ", " + bucketMs + "))", "1 = 1", new Object[0],
+                            rs -> byStart.computeIfAbsent(rs.getLong(1), k -> recordCounters.newDelta()));
+                    List<Object[]> rows = new ArrayList<>();
+                    for (Map.Entry<Long, RecordCounters.Delta> kv : byStart.entrySet()) rows.add(args(kv.getValue(), bucketMs, kv.getKey()));
+                    if (!rows.isEmpty()) jdbc.batchUpdate(INSERT_SQL, rows);
+                    n += rows.size();
+                }
+                jdbc.update(INSERT_SQL, args(recordCounters.newDelta(), 0, 0));
+                return n;
+            });
+            if (buckets != null && buckets > 0) log.info("event rollups backfilled. buckets={}", buckets);
+        } catch (Exception e) {
+            log.warn("event rollup backfill failed; retried on next start. err={}", e.toString());
+        }
+    }
+}
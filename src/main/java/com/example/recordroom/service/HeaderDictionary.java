@@ -0,0 +1,238 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.HeaderDictEntity;
+import com.example.recordroom.persistence.HeaderDictRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary encoding of network event headers against a per-deployment dictionary (rr_header_dict).
+ *
+ * Header names, and many values (content-type, accept, cache-control, server, ...), come from a
+ * small vocabulary, so instead of a JSON object per event the headers are stored as:
+ *
+ *   version byte (1), varint entry count, then per entry a varint tag:
+ *     tag & 3 == 0  name/value pair id (tag >>> 2)
+ *     tag & 3 == 1  name id (tag >>> 2), followed by the value
+ *     tag & 3 == 2  name and value both literal
+ *   where a literal string is a varint UTF-8 length and the bytes.
+ *
+ * Names are always interned (up to max-names). A pair is interned only when the value is short
+ * and the header is not one that carries per-request values (dates, lengths, ids, cookies); the
+ * number of pairs is capped as well, after which values are written literally.
+ *
+ * New entries are added by {@link #intern}, which ingest calls before it opens the batch
+ * transaction; encode only uses entries that already exist, so it never needs a second connection
+ * or a lock while the batch holds its own. Each entry is inserted in its own transaction, so an id
+ * that made it into an encoded row is never lost to a rolled-back ingest batch. The whole table is
+ * loaded on startup; ids written by another instance are looked up on first use.
+ */
+@Component
+public class HeaderDictionary {
+
+    private static final int VERSION = 1;
+
+    private static final int TAG_PAIR = 0;
+    private static final int TAG_NAME = 1;
+    private static final int TAG_LITERAL = 2;
+
+    private static final int MAX_ENTRY_CHARS = 256; // column length
+
+    // headers whose values differ per request or per user; never worth a pair entry
+    private static final Set<String> VOLATILE = new HashSet<>(Arrays.asList(
+            "date", "expires", "last-modified", "age", "etag", "if-none-match", "if-modified-since",
+            "content-length", "content-range", "range", "content-md5", "content-disposition",
+            "cookie", "set-cookie", "authorization", "proxy-authorization", "location", "referer",
+            "x-request-id", "x-correlation-id", "x-trace-id", "traceparent", "tracestate",
+            "x-amzn-trace-id", "x-amz-cf-id", "cf-ray", "x-csrf-token", "x-xsrf-token"));
+
+    private final HeaderDictRepository dictRepo;
+    private final TransactionTemplate requiresNew;
+    private final int maxPairValueChars;
+    private final int maxNames;
+    private final int maxPairs;
+
+    private final Map<String, Integer> nameIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> pairIds = new ConcurrentHashMap<>(); // name + '\n' + value
+    private final Map<Integer, HeaderDictEntity> byId = new ConcurrentHashMap<>();
+
+    public HeaderDictionary(HeaderDictRepository dictRepo,
+                            PlatformTransactionManager txManager,
+                            @Value("${recordroom.network-headers.max-pair-value-chars:64}") int maxPairValueChars,
+                            @Value("${recordroom.network-headers.max-names:4096}") int maxNames,
+                            @Value("${recordroom.network-headers.max-pairs:20000}") int maxPairs) {
+        this.dictRepo = dictRepo;
+        this.requiresNew = new TransactionTemplate(txManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxPairValueChars = Math.min(MAX_ENTRY_CHARS, Math.max(0, maxPairValueChars));
+        this.maxNames = Math.max(0, maxNames);
+        this.maxPairs = Math.max(0, maxPairs);
+    }
+
+    @PostConstruct
+    public void load() {
+        for (HeaderDictEntity d : dictRepo.findAll()) remember(d);
+    }
+
+    /**
+     * Adds the dictionary entries encode would use for these headers. Call outside any
+     * transaction; concurrent callers racing on the same entry resolve through the unique key.
+     */
+    public void intern(Map<String, String> headers) {
+        if (headers == null) return;
+        for (Map.Entry<String, String> kv : headers.entrySet()) {
+            String name = kv.getKey() == null ? "" : kv.getKey();
+            String value = kv.getValue() == null ? "" : kv.getValue();
+            if (pairId(name, value, true) == null) nameId(name, true);
+        }
+    }
+
+    /** Encoded headers, or null for null/empty maps. Entries not interned yet are written literally. */
+    public byte[] encode(Map<String, String> headers) {
+        if (headers == null || headers.isEmpty()) return null;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + headers.size() * 4);
+        out.write(VERSION);
+        writeVarint(out, headers.size());
+        for (Map.Entry<String, String> kv : headers.entrySet()) {
+            String name = kv.getKey() == null ? "" : kv.getKey();
+            String value = kv.getValue() == null ? "" : kv.getValue();
+
+            Integer pairId = pairId(name, value, false);
+            if (pairId != null) {
+                writeVarint(out, ((long) pairId << 2) | TAG_PAIR);
+                continue;
+            }
+            Integer nameId = nameId(name, false);
+            if (nameId != null) {
+                writeVarint(out, ((long) nameId << 2) | TAG_NAME);
+            } else {
+                writeVarint(out, TAG_LITERAL);
+                writeString(out, name);
+            }
+            writeString(out, value);
+        }
+        return out.toByteArray();
+    }
+
+    /** Headers in their original order; empty for null input. Unreadable data decodes as far as it goes. */
+    public Map<String, String> decode(byte[] data) {
+        Map<String, String> out = new LinkedHashMap<>();
+        if (data == null || data.length == 0 || data[0] != VERSION) return out;
+
+        int[] pos = {1};
+        try {
+            long count = readVarint(data, pos);
+            for (long i = 0; i < count; i++) {
+                long tag = readVarint(data, pos);
+                int id = (int) (tag >>> 2);
+                switch ((int) (tag & 3)) {
+                    case TAG_PAIR: {
+                        HeaderDictEntity d = entry(id);
+                        if (d != null) out.put(d.getName(), d.getValue());
+                        break;
+                    }
+                    case TAG_NAME: {
+                        HeaderDictEntity d = entry(id);
+                        String value = readString(data, pos);
+                        if (d != null) out.put(d.getName(), value);
+                        break;
+                    }
+                    default: {
+                        String name = readString(data, pos);
+                        out.put(name, readString(data, pos));
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // truncated; keep what was read
+        }
+        return out;
+    }
+
+    private Integer nameId(String name, boolean create) {
+        Integer id = nameIds.get(name);
+        if (id != null || !create || name.isEmpty() || name.length() > MAX_ENTRY_CHARS || nameIds.size() >= maxNames) return id;
+        return insert(HeaderDictEntity.KIND_NAME, name, "");
+    }
+
+    private Integer pairId(String name, String value, boolean create) {
+        Integer id = pairIds.get(pairKey(name, value));
+        if (id != null || !create) return id;
+        if (name.isEmpty() || name.length() > MAX_ENTRY_CHARS || value.length() > maxPairValueChars) return null;
+        if (pairIds.size() >= maxPairs || VOLATILE.contains(name.toLowerCase(Locale.ROOT))) return null;
+        return insert(HeaderDictEntity.KIND_PAIR, name, value);
+    }
+
+    private Integer insert(int kind, String name, String value) {
+        HeaderDictEntity d;
+        try {
+            d = requiresNew.execute(status -> dictRepo.save(new HeaderDictEntity(kind, name, value)));
+        } catch (DataIntegrityViolationException e) {
+            d = dictRepo.findEntry(kind, name, value); // inserted by another writer or instance
+        }
+        if (d == null) return null;
+        remember(d);
+        return d.getId().intValue();
+    }
+
+    private HeaderDictEntity entry(int id) {
+        HeaderDictEntity d = byId.get(id);
+        if (d != null) return d;
+        d = dictRepo.findById((long) id).orElse(null);
+        if (d != null) remember(d);
+        return d;
+    }
+
+    private void remember(HeaderDictEntity d) {
+        int id = d.getId().intValue();
+        byId.put(id, d);
+        if (d.getKind() == HeaderDictEntity.KIND_NAME) nameIds.put(d.getName(), id);
+        else pairIds.put(pairKey(d.getName(), d.getValue()), id);
+    }
+
+    private static String pairKey(String name, String value) {
+        return name + '\n' + value;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos[0]++];
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(byte[] data, int[] pos) {
+        int len = (int) readVarint(data, pos);
+        if (len < 0 || pos[0] + len > data.length) throw new IndexOutOfBoundsException();
+        String s = new String(data, pos[0], len, StandardCharsets.UTF_8);
+        pos[0] += len;
+        return s;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.ConsoleEventEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Maintains rr_issue, rr_issue_record and rr_issue_user: console events of the tracked levels
+ * grouped by ConsoleFingerprint across all records.
+ *
+ * Ingest fingerprints each event when it is built and adds the batch's occurrences in the same
+ * transaction as the events, so listing issues reads rr_issue only, however many console events
+ * there are. Records and users are counted when their (issue, record) or (issue, user) row is
+ * first inserted. Rows from before the column are fingerprinted on startup, a page per
+ * transaction.
+ */
+@Component
+public class IssueTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(IssueTracker.class);
+
+    private static final int BACKFILL_PAGE = 500;
+
+    private static final String ISSUE_UPDATE_SQL = "update rr_issue set event_count = event_count + ?, "
+            + "record_count = record_count + ?, user_count = user_count + ?, first_seen_ts = least(first_seen_ts, ?), "
+            + "last_record_id = case when last_seen_ts <= ? then ? else last_record_id end, "
+            + "last_seen_ts = greatest(last_seen_ts, ?) where fingerprint = ?";
+    private static final String ISSUE_INSERT_SQL = "insert into rr_issue (fingerprint, level, title, sample_message, sample_stack, "
+            + "event_count, record_count, user_count, first_seen_ts, last_seen_ts, last_record_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String RECORD_UPDATE_SQL = "update rr_issue_record set event_count = event_count + ?, "
+            + "first_seen_ts = least(first_seen_ts, ?), last_seen_ts = greatest(last_seen_ts, ?) where fingerprint = ? and record_id = ?";
+    private static final String RECORD_INSERT_SQL = "insert into rr_issue_record (fingerprint, record_id, session_id, user_id, "
+            + "event_count, first_seen_ts, last_seen_ts) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final Set<String> levels = new HashSet<>();
+
+    public IssueTracker(JdbcTemplate jdbc,
+                        PlatformTransactionManager txManager,
+                        @Value("${recordroom.issues.levels:error}") String levels) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        for (String l : levels.split(",")) {
+            if (!l.isBlank()) this.levels.add(l.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /** Value for ConsoleEventEntity.fingerprint: the ConsoleFingerprint for tracked levels, "" otherwise. */
+    public String fingerprint(String level, String message, String stack) {
+        if (level == null || !levels.contains(level.toLowerCase(Locale.ROOT))) return "";
+        return ConsoleFingerprint.of(level, message, stack);
+    }
+
+    /** Occurrences of one issue, either overall or within one record. */
+    private static final class Occurrences {
+        final String fingerprint;
+        String level, message, stack; // earliest occurrence
+        String recordId, sessionId, userId; // record rows; for issues the record of the latest occurrence
+        long count, firstTs = Long.MAX_VALUE, lastTs = Long.MIN_VALUE;
+        long newRecords, newUsers;
+
+        Occurrences(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        void add(String level, String message, String stack, String recordId, long ts) {
+            count++;
+            if (ts < firstTs) {
+                firstTs = ts;
+                this.level = level.toLowerCase(Locale.ROOT);
+                this.message = message;
+                this.stack = stack;
+            }
+            if (ts >= lastTs) {
+                lastTs = ts;
+                this.recordId = recordId;
+            }
+        }
+    }
+
+    /** Occurrences of the events of one ingest batch, sorted so every writer locks rows in the same order. */
+    public static final class Batch {
+        private final SortedMap<String, Occurrences> issues = new TreeMap<>();
+        private final SortedMap<String, Occurrences> records = new TreeMap<>(); // fingerprint (fixed length) + recordId
+
+        /** sessionId and userId are the record's; events without fingerprint are skipped. */
+        public void console(ConsoleEventEntity e, String sessionId, String userId) {
+            add(e.getFingerprint(), e.getLevel(), e.getMessage(), e.getStack(), e.getRecordId(), e.getTs(), sessionId, userId);
+        }
+
+        private void add(String fingerprint, String level, String message, String stack, String recordId, long ts,
+                         String sessionId, String userId) {
+            if (fingerprint == null || fingerprint.isEmpty()) return;
+            issues.computeIfAbsent(fingerprint, Occurrences::new).add(level, message, stack, recordId, ts);
+            Occurrences r = records.computeIfAbsent(fingerprint + recordId, k -> new Occurrences(fingerprint));
+            r.add(level, message, stack, recordId, ts);
+            r.sessionId = sessionId;
+            r.userId = (userId == null || userId.isBlank()) ? null : userId;
+        }
+    }
+
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * Adds the batch to the issue tables, record rows by (fingerprint, recordId), then user rows by
+     * (fingerprint, userId), then issue rows by fingerprint; call inside the transaction that wrote
+     * its events.
+     */
+    public void flush(Batch batch) {
+        SortedMap<String, Occurrences> newUsers = new TreeMap<>(); // fingerprint + userId
+        for (Occurrences r : batch.records.values()) {
+            if (updateRecord(r) > 0) continue;
+            try {
+                jdbc.update(RECORD_INSERT_SQL, r.fingerprint, r.recordId, r.sessionId, r.userId, r.count, r.firstTs, r.lastTs);
+            } catch (DataIntegrityViolationException e) {
+                updateRecord(r); // row created concurrently
+                continue;
+            }
+            Occurrences issue = batch.issues.get(r.fingerprint);
+            issue.newRecords++;
+            if (r.userId != null) newUsers.put(r.fingerprint + r.userId, r);
+        }
+        for (Occurrences r : newUsers.values()) {
+            try {
+                jdbc.update("insert into rr_issue_user (fingerprint, user_id) values (?, ?)", r.fingerprint, r.userId);
+                batch.issues.get(r.fingerprint).newUsers++;
+            } catch (DataIntegrityViolationException e) {
+                // user already counted for this issue
+            }
+        }
+        for (Occurrences i : batch.issues.values()) {
+            if (updateIssue(i) > 0) continue;
+            try {
+                String title = ConsoleFingerprint.normalizeMessage(i.message);
+                jdbc.update(ISSUE_INSERT_SQL, i.fingerprint, i.level, title.isEmpty() ? "(no message)" : title,
+                        i.message, i.stack, i.count, i.newRecords, i.newUsers, i.firstTs, i.lastTs, i.recordId);
+            } catch (DataIntegrityViolationException e) {
+                updateIssue(i);
+            }
+        }
+    }
+
+    private int updateRecord(Occurrences r) {
+        return jdbc.update(RECORD_UPDATE_SQL, r.count, r.firstTs, r.lastTs, r.fingerprint, r.recordId);
+    }
+
+    private int updateIssue(Occurrences i) {
+        return jdbc.update(ISSUE_UPDATE_SQL, i.count, i.newRecords, i.newUsers, i.firstTs, i.lastTs, i.recordId, i.lastTs, i.fingerprint);
+    }
+
+    // ---------- backfill ----------
+
+    /**
+     * Fingerprints rows with a null fingerprint (found through idx_console_fingerprint_ts). Each
+     * page's marks and counts commit together, so an interrupted backfill neither loses nor
+     * repeats occurrences. Rows are judged by the levels configured when they are seen.
+     */
+    @PostConstruct
+    public void backfill() {
+        try {
+            long total = 0;
+            while (true) {
+                Integer rows = tx.execute(status -> backfillPage());
+                if (rows == null || rows == 0) break;
+                total += rows;
+                if (rows < BACKFILL_PAGE) break;
+            }
+            if (total > 0) log.info("console issue fingerprints backfilled. events={}", total);
+        } catch (Exception e) {
+            log.warn("console issue backfill failed; retried on next start. err={}", e.toString());
+        }
+    }
+
+    private int backfillPage() {
+        Batch batch = newBatch();
+        List<Object[]> marks = new ArrayList<>();
+        jdbc.query("select e.id, e.level, e.message, e.stack, e.ts, e.record_id, r.session_id, r.user_id "
+                + "from rr_console_event e left join rr_record r on r.record_id = e.record_id "
+                + "where e.fingerprint is null limit " + BACKFILL_PAGE, rs -> {
+            String level = rs.getString(2);
+            String message = rs.getString(3);
+            String stack = rs.getString(4);
+            String fp = fingerprint(level, message, stack);
+            batch.add(fp, level, message, stack, rs.getString(6), rs.getLong(5), rs.getString(7), rs.getString(8));
+            marks.add(new Object[]{fp, rs.getLong(1)});
+        });
+        flush(batch);
+        if (!marks.isEmpty()) jdbc.batchUpdate("update rr_console_event set fingerprint = ? where id = ?", marks);
+        return marks.size();
+    }
+}
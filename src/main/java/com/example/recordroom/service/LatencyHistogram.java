@@ -0,0 +1,178 @@
+package com.example.recordroom.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable histogram of non-negative longs (network durations in ms) with bounded relative error,
+ * laid out like an HDR histogram: values below 2^bits are counted exactly; above that each power
+ * of two is split into 2^bits equal buckets, so a bucket is at most 1/2^bits of its values wide.
+ * Percentiles report the bucket midpoint (clamped to the recorded min/max), i.e. they are exact
+ * to within half that width.
+ *
+ * Only non-empty buckets are stored, so a record's histogram stays a few hundred bytes no matter
+ * how many requests it has. A histogram written with a different precision (the setting was
+ * changed) is merged by re-bucketing its bucket midpoints.
+ */
+public final class LatencyHistogram {
+
+    private static final int VERSION = 1;
+
+    private final int bits;
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public LatencyHistogram(int precisionBits) {
+        this.bits = Math.max(1, Math.min(precisionBits, 16));
+    }
+
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    private void record(long value, long times) {
+        if (value < 0 || times <= 0) return;
+        buckets.merge(index(value), times, Long::sum);
+        count += times;
+        sum += value * times;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /** Adds all of other's values to this histogram. */
+    public void add(LatencyHistogram other) {
+        if (other == null || other.count == 0) return;
+        if (other.bits == bits) {
+            for (Map.Entry<Integer, Long> b : other.buckets.entrySet()) buckets.merge(b.getKey(), b.getValue(), Long::sum);
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            return;
+        }
+        // different precision: re-bucket other's representative values
+        long otherSum = other.sum;
+        for (Map.Entry<Integer, Long> b : other.buckets.entrySet()) {
+            long v = other.clamp(other.midpoint(b.getKey()));
+            buckets.merge(index(v), b.getValue(), Long::sum);
+            count += b.getValue();
+        }
+        sum += otherSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() { return count; }
+    public long getMin() { return count == 0 ? 0 : min; }
+    public long getMax() { return count == 0 ? 0 : max; }
+    public long getMean() { return count == 0 ? 0 : sum / count; }
+
+    /** Nearest-rank percentile, q in (0, 1]; 0 when empty. */
+    public long percentile(double q) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * q));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> b : buckets.entrySet()) {
+            seen += b.getValue();
+            if (seen >= rank) return clamp(midpoint(b.getKey()));
+        }
+        return max;
+    }
+
+    private int index(long v) {
+        long subCount = 1L << bits;
+        if (v < subCount) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v); // >= bits
+        int shift = exp - bits;
+        long sub = (v >>> shift) - subCount;         // [0, subCount)
+        return (int) (subCount + (long) shift * subCount + sub);
+    }
+
+    private long lowest(int index) {
+        long subCount = 1L << bits;
+        if (index < subCount) return index;
+        int shift = (int) ((index - subCount) / subCount);
+        long sub = (index - subCount) % subCount;
+        return (subCount + sub) << shift;
+    }
+
+    private long midpoint(int index) {
+        long subCount = 1L << bits;
+        if (index < subCount) return index;
+        int shift = (int) ((index - subCount) / subCount);
+        return lowest(index) + ((1L << shift) >>> 1);
+    }
+
+    private long clamp(long v) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    // ---------- encoding ----------
+    // version, bits, count, sum, min, max, bucket count, then (index delta, bucket count) pairs; all varints
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + buckets.size() * 3);
+        writeVarint(out, VERSION);
+        writeVarint(out, bits);
+        writeVarint(out, count);
+        writeVarint(out, sum);
+        writeVarint(out, getMin());
+        writeVarint(out, getMax());
+        writeVarint(out, buckets.size());
+        int prev = 0;
+        for (Map.Entry<Integer, Long> b : buckets.entrySet()) {
+            writeVarint(out, b.getKey() - prev);
+            writeVarint(out, b.getValue());
+            prev = b.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    /** Decodes encode() output; null, empty or unreadable data gives an empty histogram of the given precision. */
+    public static LatencyHistogram decode(byte[] data, int defaultBits) {
+        if (data == null || data.length == 0) return new LatencyHistogram(defaultBits);
+        try {
+            int[] pos = {0};
+            if (readVarint(data, pos) != VERSION) return new LatencyHistogram(defaultBits);
+            LatencyHistogram h = new LatencyHistogram((int) readVarint(data, pos));
+            h.count = readVarint(data, pos);
+            h.sum = readVarint(data, pos);
+            h.min = readVarint(data, pos);
+            h.max = readVarint(data, pos);
+            long n = readVarint(data, pos);
+            int index = 0;
+            for (long i = 0; i < n; i++) {
+                index += (int) readVarint(data, pos);
+                h.buckets.put(index, readVarint(data, pos));
+            }
+            if (h.count == 0) {
+                h.min = Long.MAX_VALUE;
+                h.max = Long.MIN_VALUE;
+            }
+            return h;
+        } catch (IndexOutOfBoundsException e) {
+            return new LatencyHistogram(defaultBits);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos[0]++];
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.NetworkBodyEntity;
+import com.example.recordroom.persistence.NetworkBodyRepository;
+import com.example.recordroom.persistence.NetworkPayloadEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Content-addressed store for network request/response bodies.
+ *
+ * The same JSON responses (config, feature flags, list endpoints polled every few seconds) are
+ * captured over and over. Bodies of at least min-chars are stored once in rr_network_body under
+ * their SHA-256 and the event row keeps only the hash; refCount counts the referencing rows.
+ * Smaller bodies stay inline, where a separate row would cost more than it saves.
+ *
+ * Writes are collected per ingest batch ({@link Batch}) and flushed once, so a body repeated
+ * within a batch is hashed and counted in a single statement.
+ */
+@Component
+public class NetworkBodyStore {
+
+    private static final int HASH_CHARS = 64;
+
+    private final NetworkBodyRepository bodyRepo;
+    private final JdbcTemplate jdbc;
+    private final boolean enabled;
+    private final int minChars;
+    private final ContentCache cache;
+
+    public NetworkBodyStore(NetworkBodyRepository bodyRepo,
+                            JdbcTemplate jdbc,
+                            @Value("${recordroom.network-body.enabled:true}") boolean enabled,
+                            @Value("${recordroom.network-body.min-chars:256}") int minChars,
+                            @Value("${recordroom.network-body.cache-max-bytes:16777216}") long cacheMaxBytes) {
+        this.bodyRepo = bodyRepo;
+        this.jdbc = jdbc;
+        this.enabled = enabled;
+        this.minChars = Math.max(HASH_CHARS + 1, minChars);
+        this.cache = new ContentCache(cacheMaxBytes);
+    }
+
+    /** Bodies referenced by the events of one write, with the number of references each. */
+    public static final class Batch {
+        private final Map<String, String> contents = new HashMap<>();
+        private final SortedMap<String, Integer> refs = new TreeMap<>(); // by hash: writers lock bodies in the same order
+
+        public boolean isEmpty() { return refs.isEmpty(); }
+    }
+
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * Hash under which the body will be stored, counting one reference in the batch; null when
+     * the body should be kept inline.
+     */
+    public String add(Batch batch, String body) {
+        if (!enabled || body == null || body.length() < minChars) return null;
+        String hash = RrwebAssetStore.sha256(body);
+        batch.contents.putIfAbsent(hash, body);
+        batch.refs.merge(hash, 1, Integer::sum);
+        return hash;
+    }
+
+    /**
+     * Inserts new bodies and adds the batch's references to existing ones. Must run in the same
+     * transaction as the event rows, so counts never include rolled-back events.
+     */
+    public void flush(Batch batch) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Integer> kv : batch.refs.entrySet()) {
+            String hash = kv.getKey();
+            int refs = kv.getValue();
+            if (addRefs(hash, refs) > 0) continue;
+
+            String content = batch.contents.get(hash);
+            try {
+                jdbc.update("insert into rr_network_body (hash, size_bytes, ref_count, created_at_epoch_ms, content) values (?, ?, ?, ?, ?)",
+                        hash, (long) content.getBytes(StandardCharsets.UTF_8).length, (long) refs, now, content);
+            } catch (DataIntegrityViolationException e) {
+                addRefs(hash, refs); // another batch inserted the same body first
+            }
+        }
+    }
+
+    private int addRefs(String hash, int refs) {
+        return jdbc.update("update rr_network_body set ref_count = ref_count + ? where hash = ?", (long) refs, hash);
+    }
+
+    /**
+     * Contents of every body referenced by the given payloads, keyed by hash. Hashes not in the
+     * cache are read with one query.
+     */
+    public Map<String, String> load(Collection<NetworkPayloadEntity> payloads) {
+        Map<String, String> out = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (NetworkPayloadEntity p : payloads) {
+            collect(p.getRequestBodyHash(), out, missing);
+            collect(p.getResponseBodyHash(), out, missing);
+        }
+        if (missing.isEmpty()) return out;
+
+        for (NetworkBodyEntity b : bodyRepo.findByHashes(missing)) {
+            out.put(b.getHash(), b.getContent());
+            cache.put(b.getHash(), b.getContent());
+        }
+        return out;
+    }
+
+    private void collect(String hash, Map<String, String> found, Set<String> missing) {
+        if (hash == null || found.containsKey(hash)) return;
+        String hit = cache.get(hash);
+        if (hit != null) found.put(hash, hit);
+        else missing.add(hash);
+    }
+
+    /** The body of an event field: the inline value, or the stored content for its hash. */
+    public static String resolve(String inline, String hash, Map<String, String> loaded) {
+        if (hash == null) return inline;
+        return loaded.get(hash);
+    }
+}
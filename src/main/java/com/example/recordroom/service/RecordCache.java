@@ -0,0 +1,107 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.model.Record;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU of record metadata in front of rr_record. Each entry also carries the
+ * {@link RecordMeta} derived from the record, which the ingest path uses for enrichment.
+ *
+ * Records never change after creation, so hits are served until ttl-ms expires. Unknown ids are
+ * cached too (negative-ttl-ms, kept short) so a client hammering a bad recordId costs one lookup
+ * per window instead of one per request. createRecord puts the new record straight in, which also
+ * overrides any negative entry for that id.
+ */
+@Component
+public class RecordCache {
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final long negativeTtlMs;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    public RecordCache(@Value("${recordroom.record-cache.max-size:10000}") int maxSize,
+                       @Value("${recordroom.record-cache.ttl-ms:600000}") long ttlMs,
+                       @Value("${recordroom.record-cache.negative-ttl-ms:5000}") long negativeTtlMs) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMs = Math.max(0, ttlMs);
+        this.negativeTtlMs = Math.max(0, negativeTtlMs);
+        this.entries = new LinkedHashMap<String, Entry>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > RecordCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached record, loading it on a miss. Returns null for unknown ids.
+     * The loader runs outside the lock; two concurrent misses may both load, which is harmless.
+     */
+    public Record get(String recordId, Function<String, Record> loader) {
+        Entry e = entry(recordId, loader);
+        return (e == null) ? null : e.record;
+    }
+
+    /** Same lookup as {@link #get}, returning the attributes derived when the record was cached. */
+    public RecordMeta getMeta(String recordId, Function<String, Record> loader) {
+        Entry e = entry(recordId, loader);
+        return (e == null) ? null : e.meta;
+    }
+
+    private Entry entry(String recordId, Function<String, Record> loader) {
+        if (recordId == null || recordId.isBlank()) return null;
+
+        long now = System.currentTimeMillis();
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(recordId);
+        }
+        if (cached != null && cached.expiresAtEpochMs > now) return cached;
+
+        Record loaded = loader.apply(recordId);
+        long ttl = (loaded == null) ? negativeTtlMs : ttlMs;
+        Entry fresh = new Entry(loaded, now + ttl);
+        synchronized (entries) {
+            entries.put(recordId, fresh);
+        }
+        return fresh;
+    }
+
+    public void put(Record record) {
+        if (record == null) return;
+        synchronized (entries) {
+            entries.put(record.getRecordId(), new Entry(record, System.currentTimeMillis() + ttlMs));
+        }
+    }
+
+    public void invalidate(String recordId) {
+        synchronized (entries) {
+            entries.remove(recordId);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        final Record record; // null = known missing
+        final RecordMeta meta;
+        final long expiresAtEpochMs;
+
+        Entry(Record record, long expiresAtEpochMs) {
+            this.record = record;
+            this.meta = (record == null) ? null : RecordMeta.of(record);
+            this.expiresAtEpochMs = expiresAtEpochMs;
+        }
+    }
+}
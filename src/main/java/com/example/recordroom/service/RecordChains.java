@@ -0,0 +1,119 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.RecordEntity;
+import com.example.recordroom.persistence.RecordRepository;
+import com.example.recordroom.persistence.RecordWithCounters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Chains of records linked by previousRecordId (one user's journey across pages and sessions).
+ *
+ * Every record stores the recordId of the first record of its chain (rr_record.chain_id), taken
+ * from the previous record when it is created, so a whole chain is one indexed query instead of a
+ * lookup per hop. Records from before the column are assigned on startup.
+ */
+@Component
+public class RecordChains {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordChains.class);
+
+    // bounds the walk for a previous record without chain id (backfill not done yet)
+    private static final int MAX_HOPS = 10000;
+
+    private final RecordRepository recordRepository;
+    private final JdbcTemplate jdbc;
+    private final int maxRecords;
+
+    public RecordChains(RecordRepository recordRepository,
+                        JdbcTemplate jdbc,
+                        @Value("${recordroom.record-chain.max-records:1000}") int maxRecords) {
+        this.recordRepository = recordRepository;
+        this.jdbc = jdbc;
+        this.maxRecords = Math.max(1, maxRecords);
+    }
+
+    /**
+     * Chain id for a new record: its previous record's chain, or recordId when it starts one. A
+     * previous record without chain id (backfill still pending) is resolved by walking up.
+     */
+    public String chainIdFor(String recordId, String previousRecordId) {
+        String start = recordId;
+        String id = previousRecordId;
+        Set<String> seen = new HashSet<>();
+        for (int hop = 0; id != null && !id.isBlank() && hop < MAX_HOPS && seen.add(id); hop++) {
+            RecordEntity prev = recordRepository.findById(id).orElse(null);
+            if (prev == null) break;
+            if (prev.getChainId() != null) return prev.getChainId();
+            start = prev.getRecordId();
+            id = prev.getPreviousRecordId();
+        }
+        return start;
+    }
+
+    public int getMaxRecords() { return maxRecords; }
+
+    /** The chain containing the record, oldest first with counters (at most max-records); empty for unknown records. */
+    public List<RecordWithCounters> chainOf(String recordId) {
+        RecordEntity r = recordRepository.findById(recordId).orElse(null);
+        if (r == null) return Collections.emptyList();
+        if (r.getChainId() == null) return Collections.singletonList(new RecordWithCounters(r, null));
+        return recordRepository.findByChainIdWithCounters(r.getChainId(), PageRequest.of(0, maxRecords));
+    }
+
+    // ---------- backfill ----------
+
+    @PostConstruct
+    public void backfill() {
+        try {
+            Integer pending = jdbc.queryForObject("select count(*) from rr_record where chain_id is null", Integer.class);
+            if (pending == null || pending == 0) return;
+
+            Map<String, String> previous = new HashMap<>(); // every record, value may be null
+            Map<String, String> chain = new HashMap<>();
+            jdbc.query("select record_id, previous_record_id, chain_id from rr_record", rs -> {
+                String id = rs.getString(1);
+                String prev = rs.getString(2);
+                previous.put(id, (prev == null || prev.isBlank()) ? null : prev);
+                if (rs.getString(3) != null) chain.put(id, rs.getString(3));
+            });
+
+            List<Object[]> updates = new ArrayList<>();
+            for (String id : previous.keySet()) {
+                if (!chain.containsKey(id)) resolve(id, previous, chain, updates);
+            }
+            jdbc.batchUpdate("update rr_record set chain_id = ? where record_id = ? and chain_id is null", updates);
+            log.info("record chain ids assigned. records={}", updates.size());
+        } catch (Exception e) {
+            log.warn("record chain backfill failed; retried on next start. err={}", e.toString());
+        }
+    }
+
+    /**
+     * Walks previous links up to a record with a chain id and labels the path with it. Without one,
+     * the chain starts at the last record reached: no previous, a previous that does not exist, or
+     * the point where a cycle closes. Same rule as chainIdFor.
+     */
+    private static void resolve(String id, Map<String, String> previous, Map<String, String> chain, List<Object[]> updates) {
+        List<String> path = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        String found = null;
+        for (String cur = id; cur != null && previous.containsKey(cur) && seen.add(cur); cur = previous.get(cur)) {
+            found = chain.get(cur);
+            if (found != null) break;
+            path.add(cur);
+        }
+        if (found == null) found = path.get(path.size() - 1);
+        for (String p : path) {
+            chain.put(p, found);
+            updates.add(new Object[]{found, p});
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.BreadcrumbEventEntity;
+import com.example.recordroom.persistence.ConsoleEventEntity;
+import com.example.recordroom.persistence.NetworkEventEntity;
+import com.example.recordroom.persistence.RecordCountersEntity;
+import com.example.recordroom.persistence.RecordCountersRepository;
+import com.example.recordroom.persistence.RrwebChunkEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Maintains rr_record_counters (RecordCountersEntity).
+ *
+ * Each ingest batch adds its per-record deltas in the same transaction as the events, so the
+ * counters move exactly with what was committed; rows are locked in recordId order so that
+ * concurrent batches cannot deadlock. A record gets a complete (backfilled) row when it is
+ * created. On startup, records without a complete row (data from before this table, possibly
+ * with a partial row started by ingest since) are recomputed from the event tables.
+ *
+ * Request durations go into a per-record {@link LatencyHistogram}: the batch's histogram is merged
+ * into the stored one right after the counters update, which holds the row lock, so concurrent
+ * batches for the same record cannot lose each other's merge.
+ */
+@Component
+@DependsOn("networkPayloadMigration") // the backfill reads the network size columns
+public class RecordCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordCounters.class);
+
+    // same thresholds as the per-record count queries
+    static final long SLOW_MS = 2000;
+
+    static final String[] COLUMNS = {
+            "console_count", "console_error_count", "console_warn_count", "console_bytes",
+            "network_count", "network4xx_count", "network5xx_count", "network_slow_count", "network_bytes",
+            "breadcrumb_count", "breadcrumb_bytes",
+            "rrweb_count", "rrweb_bytes"
+    };
+
+    private static final String UPDATE_SQL;
+    private static final String INSERT_SQL;
+    // select list summing every column, in COLUMNS order (see read)
+    static final String SUM_COLUMNS;
+    static {
+        StringBuilder sums = new StringBuilder();
+        for (String c : COLUMNS) sums.append(sums.length() == 0 ? "" : ", ").append("coalesce(sum(").append(c).append("), 0)");
+        SUM_COLUMNS = sums.toString();
+        StringBuilder set = new StringBuilder();
+        for (String c : COLUMNS) set.append(c).append(" = ").append(c).append(" + ?, ");
+        UPDATE_SQL = "update rr_record_counters set " + set
+                + "first_event_ts = case when first_event_ts is null or first_event_ts > ? then ? else first_event_ts end, "
+                + "last_event_ts = case when last_event_ts is null or last_event_ts < ? then ? else last_event_ts end, "
+                + "updated_at_epoch_ms = ? where record_id = ?";
+        INSERT_SQL = "insert into rr_record_counters (record_id, " + String.join(", ", COLUMNS)
+                + ", first_event_ts, last_event_ts, updated_at_epoch_ms, backfilled) values (?" + ", ?".repeat(COLUMNS.length + 4) + ")";
+    }
+
+    private final JdbcTemplate jdbc;
+    private final RecordCountersRepository countersRepo;
+    private final int backfillBatch;
+    private final int latencyBits;
+
+    public RecordCounters(JdbcTemplate jdbc,
+                          RecordCountersRepository countersRepo,
+                          @Value("${recordroom.record-counters.backfill-batch:200}") int backfillBatch,
+                          @Value("${recordroom.record-counters.latency-precision-bits:7}") int latencyBits) {
+        this.jdbc = jdbc;
+        this.countersRepo = countersRepo;
+        this.backfillBatch = Math.max(1, backfillBatch);
+        this.latencyBits = latencyBits;
+    }
+
+    /** Counter increments for one record; field order follows COLUMNS. */
+    public static final class Delta {
+        long consoleCount, consoleErrorCount, consoleWarnCount, consoleBytes;
+        long networkCount, network4xxCount, network5xxCount, networkSlowCount, networkBytes;
+        long breadcrumbCount, breadcrumbBytes;
+        long rrwebCount, rrwebBytes;
+        Long firstEventTs, lastEventTs;
+        LatencyHistogram latency; // durations > 0, created on first use
+
+        private final int latencyBits;
+
+        Delta(int latencyBits) {
+            this.latencyBits = latencyBits;
+        }
+
+        void console(ConsoleEventEntity e) {
+            consoleCount++;
+            if ("error".equalsIgnoreCase(e.getLevel())) consoleErrorCount++;
+            else if ("warn".equalsIgnoreCase(e.getLevel())) consoleWarnCount++;
+            consoleBytes += len(e.getMessage()) + len(e.getStack()) + len(e.getLevel());
+            seen(e.getTs(), e.getTs());
+        }
+
+        void network(NetworkEventEntity e) {
+            networkCount++;
+            if (e.getStatus() >= 500) network5xxCount++;
+            else if (e.getStatus() >= 400) network4xxCount++;
+            if (e.getDurationMs() > SLOW_MS) networkSlowCount++;
+            if (e.getDurationMs() > 0) latency().record(e.getDurationMs());
+            networkBytes += len(e.getMethod()) + len(e.getUrl()) + len(e.getClientRequestId()) + len(e.getError())
+                    + orZero(e.getHeadersBytes()) + orZero(e.getRequestBodySize()) + orZero(e.getResponseBodySize());
+            seen(e.getStartedAtEpochMs(), e.getStartedAtEpochMs());
+        }
+
+        void breadcrumb(BreadcrumbEventEntity e) {
+            breadcrumbCount++;
+            breadcrumbBytes += len(e.getName()) + len(e.getMessage()) + len(e.getDataJson());
+            seen(e.getTs(), e.getTs());
+        }
+
+        void rrweb(RrwebChunkEntity c) {
+            rrwebCount += c.getEventCount();
+            rrwebBytes += c.getRawBytes();
+            seen(c.getMinTs(), c.getMaxTs());
+        }
+
+        /** Adds o's counts and bytes; time range and latency are not carried over. */
+        void add(Delta o) {
+            consoleCount += o.consoleCount;
+            consoleErrorCount += o.consoleErrorCount;
+            consoleWarnCount += o.consoleWarnCount;
+            consoleBytes += o.consoleBytes;
+            networkCount += o.networkCount;
+            network4xxCount += o.network4xxCount;
+            network5xxCount += o.network5xxCount;
+            networkSlowCount += o.networkSlowCount;
+            networkBytes += o.networkBytes;
+            breadcrumbCount += o.breadcrumbCount;
+            breadcrumbBytes += o.breadcrumbBytes;
+            rrwebCount += o.rrwebCount;
+            rrwebBytes += o.rrwebBytes;
+        }
+
+        private LatencyHistogram latency() {
+            if (latency == null) latency = new LatencyHistogram(latencyBits);
+            return latency;
+        }
+
+        private void seen(long minTs, long maxTs) {
+            if (firstEventTs == null || minTs < firstEventTs) firstEventTs = minTs;
+            if (lastEventTs == null || maxTs > lastEventTs) lastEventTs = maxTs;
+        }
+
+        Object[] values() {
+            return new Object[]{consoleCount, consoleErrorCount, consoleWarnCount, consoleBytes,
+                    networkCount, network4xxCount, network5xxCount, networkSlowCount, networkBytes,
+                    breadcrumbCount, breadcrumbBytes, rrwebCount, rrwebBytes};
+        }
+
+        public long getConsoleCount() { return consoleCount; }
+        public long getConsoleErrorCount() { return consoleErrorCount; }
+        public long getConsoleWarnCount() { return consoleWarnCount; }
+        public long getNetworkCount() { return networkCount; }
+        public long getNetwork4xxCount() { return network4xxCount; }
+        public long getNetwork5xxCount() { return network5xxCount; }
+        public long getNetworkSlowCount() { return networkSlowCount; }
+        public long getBreadcrumbCount() { return breadcrumbCount; }
+        public long getRrwebCount() { return rrwebCount; }
+        public long getConsoleBytes() { return consoleBytes; }
+        public long getNetworkBytes() { return networkBytes; }
+        public long getBreadcrumbBytes() { return breadcrumbBytes; }
+        public long getRrwebBytes() { return rrwebBytes; }
+
+        private static long len(String s) { return s == null ? 0 : s.length(); }
+        private static long orZero(Long v) { return v == null ? 0 : v; }
+    }
+
+    /** Deltas of one ingest batch, by record. */
+    public static final class Batch {
+        private final Map<String, Delta> byRecord = new TreeMap<>(); // lock order
+        private final int latencyBits;
+
+        private Batch(int latencyBits) {
+            this.latencyBits = latencyBits;
+        }
+
+        public void console(ConsoleEventEntity e) { delta(e.getRecordId()).console(e); }
+        public void network(NetworkEventEntity e) { delta(e.getRecordId()).network(e); }
+        public void breadcrumb(BreadcrumbEventEntity e) { delta(e.getRecordId()).breadcrumb(e); }
+        public void rrweb(RrwebChunkEntity c) { delta(c.getRecordId()).rrweb(c); }
+
+        private Delta delta(String recordId) {
+            return byRecord.computeIfAbsent(recordId, k -> new Delta(latencyBits));
+        }
+    }
+
+    public Batch newBatch() {
+        return new Batch(latencyBits);
+    }
+
+    /** Adds the batch to the counters; call inside the transaction that wrote its events. */
+    public void apply(Batch batch) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Delta> kv : batch.byRecord.entrySet()) {
+            Delta d = kv.getValue();
+            if (d.firstEventTs == null) continue;
+            if (update(kv.getKey(), d, now) == 0) {
+                try {
+                    insert(kv.getKey(), d, now, false); // events from before the row may be missing
+                } catch (DataIntegrityViolationException e) {
+                    update(kv.getKey(), d, now); // row created concurrently
+                }
+            }
+            if (d.latency != null) mergeLatency(kv.getKey(), d.latency);
+        }
+    }
+
+    /** Adds h to the record's stored histogram; the row must exist and be locked by this transaction. */
+    private void mergeLatency(String recordId, LatencyHistogram h) {
+        List<byte[]> stored = jdbc.queryForList(
+                "select network_latency_hist from rr_record_counters where record_id = ?", byte[].class, recordId);
+        LatencyHistogram merged = LatencyHistogram.decode(stored.isEmpty() ? null : stored.get(0), latencyBits);
+        merged.add(h);
+        jdbc.update("update rr_record_counters set network_latency_hist = ? where record_id = ?", merged.encode(), recordId);
+    }
+
+    /** The record's counters row; null when nothing was ingested for it. */
+    public RecordCountersEntity find(String recordId) {
+        return countersRepo.findById(recordId).orElse(null);
+    }
+
+    /** Request durations of the row; empty for rows without a histogram. */
+    public LatencyHistogram latency(RecordCountersEntity counters) {
+        return LatencyHistogram.decode(counters == null ? null : counters.getNetworkLatencyHist(), latencyBits);
+    }
+
+    private int update(String recordId, Delta d, long now) {
+        List<Object> args = new ArrayList<>(Arrays.asList(d.values()));
+        args.add(d.firstEventTs);
+        args.add(d.firstEventTs);
+        args.add(d.lastEventTs);
+        args.add(d.lastEventTs);
+        args.add(now);
+        args.add(recordId);
+        return jdbc.update(UPDATE_SQL, args.toArray());
+    }
+
+    private void insert(String recordId, Delta d, long now, boolean backfilled) {
+        List<Object> args = new ArrayList<>();
+        args.add(recordId);
+        args.addAll(Arrays.asList(d.values()));
+        args.add(d.firstEventTs);
+        args.add(d.lastEventTs);
+        args.add(now);
+        args.add(backfilled);
+        jdbc.update(INSERT_SQL, args.toArray());
+    }
+
+    /** Empty complete row for a new record; call in the transaction that creates it. */
+    public void created(String recordId, long now) {
+        insert(recordId, new Delta(latencyBits), now, true);
+    }
+
+    /** Counts and bytes summed over all records. */
+    public Delta totals() {
+        return jdbc.queryForObject("select " + SUM_COLUMNS + " from rr_record_counters", (rs, n) -> read(rs, 1));
+    }
+
+    /** Delta of COLUMNS read from consecutive result columns, starting at first. */
+    Delta read(ResultSet rs, int first) throws SQLException {
+        Delta d = new Delta(latencyBits);
+        d.consoleCount = rs.getLong(first);
+        d.consoleErrorCount = rs.getLong(first + 1);
+        d.consoleWarnCount = rs.getLong(first + 2);
+        d.consoleBytes = rs.getLong(first + 3);
+        d.networkCount = rs.getLong(first + 4);
+        d.network4xxCount = rs.getLong(first + 5);
+        d.network5xxCount = rs.getLong(first + 6);
+        d.networkSlowCount = rs.getLong(first + 7);
+        d.networkBytes = rs.getLong(first + 8);
+        d.breadcrumbCount = rs.getLong(first + 9);
+        d.breadcrumbBytes = rs.getLong(first + 10);
+        d.rrwebCount = rs.getLong(first + 11);
+        d.rrwebBytes = rs.getLong(first + 12);
+        return d;
+    }
+
+    // ---------- backfill ----------
+
+    @PostConstruct
+    public void backfill() {
+        try {
+            List<String> pending = jdbc.queryForList("select r.record_id from rr_record r left join rr_record_counters c "
+                    + "on c.record_id = r.record_id where c.backfilled is null or c.backfilled = false", String.class);
+            long now = System.currentTimeMillis();
+            for (int from = 0; from < pending.size(); from += backfillBatch) {
+                List<String> ids = pending.subList(from, Math.min(pending.size(), from + backfillBatch));
+                for (Map.Entry<String, Delta> kv : aggregate(ids).entrySet()) {
+                    // runs before ingest starts: the event tables are the whole truth, replace partial rows
+                    jdbc.update("delete from rr_record_counters where record_id = ?", kv.getKey());
+                    insert(kv.getKey(), kv.getValue(), now, true);
+                    storeLatency(kv.getKey(), kv.getValue());
+                }
+            }
+            if (!pending.isEmpty()) log.info("record counters backfilled. records={}", pending.size());
+        } catch (Exception e) {
+            log.warn("record counters backfill failed; retried on next start. err={}", e.toString());
+        }
+    }
+
+    // an empty histogram is stored as well, so records without timed requests are not rescanned
+    private void storeLatency(String recordId, Delta d) {
+        if (d.networkCount == 0 && d.latency == null) return;
+        jdbc.update("update rr_record_counters set network_latency_hist = ? where record_id = ?",
+                d.latency().encode(), recordId);
+    }
+
+    /** Counters computed from the event tables; every given record gets an entry. */
+    private Map<String, Delta> aggregate(List<String> recordIds) {
+        Map<String, Delta> out = new LinkedHashMap<>();
+        for (String id : recordIds) out.put(id, new Delta(latencyBits));
+        aggregate(ts -> "record_id", "record_id in " + in(recordIds.size()), recordIds.toArray(), rs -> out.get(rs.getString(1)));
+        aggregateLatency(out);
+        return out;
+    }
+
+    /** Picks the delta a grouped row of aggregate adds to; its first column is the group key. */
+    interface DeltaOf {
+        Delta of(ResultSet rs) throws SQLException;
+    }
+
+    Delta newDelta() {
+        return new Delta(latencyBits);
+    }
+
+    /**
+     * Adds counts and bytes of the event rows matching where into deltas. Rows are grouped by
+     * key(time column of the table), so callers can group by record or by time bucket.
+     */
+    void aggregate(Function<String, String> key, String where, Object[] args, DeltaOf deltaOf) {
+        String k = key.apply("ts");
+        jdbc.query("select " + k + ", count(*), "
+                + "sum(case when lower(level) = 'error' then 1 else 0 end), sum(case when lower(level) = 'warn' then 1 else 0 end), "
+                + "coalesce(sum(length(coalesce(message,'')) + length(coalesce(stack,'')) + length(coalesce(level,''))), 0), min(ts), max(ts) "
+                + "from rr_console_event where " + where + " group by " + k, rs -> {
+            Delta d = deltaOf.of(rs);
+            d.consoleCount += rs.getLong(2);
+            d.consoleErrorCount += rs.getLong(3);
+            d.consoleWarnCount += rs.getLong(4);
+            d.consoleBytes += rs.getLong(5);
+            seen(d, rs, 6);
+        }, args);
+
+        k = key.apply("started_at_epoch_ms");
+        jdbc.query("select " + k + ", count(*), "
+                + "sum(case when status >= 400 and status < 500 then 1 else 0 end), sum(case when status >= 500 then 1 else 0 end), "
+                + "sum(case when duration_ms > " + SLOW_MS + " then 1 else 0 end), "
+                + "coalesce(sum(length(coalesce(method,'')) + length(coalesce(url,'')) + length(coalesce(client_request_id,'')) + length(coalesce(error,'')) "
+                + "+ coalesce(headers_bytes, 0) + coalesce(request_body_size, 0) + coalesce(response_body_size, 0)), 0), "
+                + "min(started_at_epoch_ms), max(started_at_epoch_ms) "
+                + "from rr_network_event where " + where + " group by " + k, rs -> {
+            Delta d = deltaOf.of(rs);
+            d.networkCount += rs.getLong(2);
+            d.network4xxCount += rs.getLong(3);
+            d.network5xxCount += rs.getLong(4);
+            d.networkSlowCount += rs.getLong(5);
+            d.networkBytes += rs.getLong(6);
+            seen(d, rs, 7);
+        }, args);
+
+        k = key.apply("ts");
+        jdbc.query("select " + k + ", count(*), "
+                + "coalesce(sum(length(coalesce(name,'')) + length(coalesce(message,'')) + length(coalesce(data_json,''))), 0), min(ts), max(ts) "
+                + "from rr_breadcrumb_event where " + where + " group by " + k, rs -> {
+            Delta d = deltaOf.of(rs);
+            d.breadcrumbCount += rs.getLong(2);
+            d.breadcrumbBytes += rs.getLong(3);
+            seen(d, rs, 4);
+        }, args);
+
+        // rrweb: rows not yet moved to chunks, plus chunks
+        k = key.apply("ts_epoch_ms");
+        jdbc.query("select " + k + ", count(*), coalesce(sum(length(coalesce(payload_json,''))), 0), min(ts_epoch_ms), max(ts_epoch_ms) "
+                + "from rr_rrweb_event where " + where + " group by " + k, rs -> {
+            Delta d = deltaOf.of(rs);
+            d.rrwebCount += rs.getLong(2);
+            d.rrwebBytes += rs.getLong(3);
+            seen(d, rs, 4);
+        }, args);
+
+        k = key.apply("min_ts");
+        jdbc.query("select " + k + ", coalesce(sum(event_count), 0), coalesce(sum(raw_bytes), 0), min(min_ts), max(max_ts) "
+                + "from rr_rrweb_chunk where " + where + " group by " + k, rs -> {
+            Delta d = deltaOf.of(rs);
+            d.rrwebCount += rs.getLong(2);
+            d.rrwebBytes += rs.getLong(3);
+            seen(d, rs, 4);
+        }, args);
+    }
+
+    /** Records every duration > 0 of the given records into their deltas' histograms. */
+    private void aggregateLatency(Map<String, Delta> byRecord) {
+        jdbc.query("select record_id, duration_ms from rr_network_event where record_id in " + in(byRecord.size())
+                + " and duration_ms > 0", rs -> {
+            byRecord.get(rs.getString(1)).latency().record(rs.getLong(2));
+        }, byRecord.keySet().toArray());
+    }
+
+    private static String in(int n) {
+        return "(?" + ", ?".repeat(n - 1) + ")";
+    }
+
+    private static void seen(Delta d, ResultSet rs, int minColumn) throws SQLException {
+        long min = rs.getLong(minColumn);
+        if (rs.wasNull()) return;
+        d.seen(min, rs.getLong(minColumn + 1));
+    }
+}
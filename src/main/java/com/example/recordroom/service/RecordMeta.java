@@ -0,0 +1,82 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.model.Record;
+
+/**
+ * Immutable record attributes used to enrich ingest-side output (admin live events).
+ * Derived once from a {@link Record} when it enters {@link RecordCache}, so the ingest path
+ * never re-parses the user agent or deviceInfo per event.
+ */
+public final class RecordMeta {
+    private final String recordId;
+    private final String sessionId;
+    private final String pageUrl;
+    private final String userId;
+    private final String browser;
+    private final String os;
+    private final String platform;
+    private final String lang;
+
+    private RecordMeta(String recordId, String sessionId, String pageUrl, String userId,
+                       String browser, String os, String platform, String lang) {
+        this.recordId = recordId;
+        this.sessionId = sessionId;
+        this.pageUrl = pageUrl;
+        this.userId = userId;
+        this.browser = browser;
+        this.os = os;
+        this.platform = platform;
+        this.lang = lang;
+    }
+
+    public static RecordMeta of(Record r) {
+        String ua = r.getUserAgent();
+        String di = r.getDeviceInfo();
+        return new RecordMeta(r.getRecordId(), r.getSessionId(), r.getPageUrl(), r.getUserId(),
+                guessBrowser(ua), guessOs(ua),
+                extractDeviceInfoField(di, "platform"), extractDeviceInfoField(di, "lang"));
+    }
+
+    public String getRecordId() { return recordId; }
+    public String getSessionId() { return sessionId; }
+    public String getPageUrl() { return pageUrl; }
+    public String getUserId() { return userId; }
+    public String getBrowser() { return browser; }
+    public String getOs() { return os; }
+    public String getPlatform() { return platform; }
+    public String getLang() { return lang; }
+
+    static String extractDeviceInfoField(String deviceInfo, String key) {
+        if (deviceInfo == null || deviceInfo.isBlank() || key == null) return "";
+        // format: "platform=... | lang=... | screen=... | dpr=..."
+        String[] parts = deviceInfo.split("\\s*\\|\\s*");
+        for (String p : parts) {
+            int idx = p.indexOf('=');
+            if (idx <= 0) continue;
+            String k = p.substring(0, idx).trim();
+            if (!key.equalsIgnoreCase(k)) continue;
+            return p.substring(idx + 1).trim();
+        }
+        return "";
+    }
+
+    static String guessBrowser(String ua) {
+        if (ua == null) return "unknown";
+        if (ua.contains("Edg/")) return "Edge";
+        if (ua.contains("OPR/") || ua.contains("Opera")) return "Opera";
+        if (ua.contains("Firefox/")) return "Firefox";
+        if (ua.contains("Chrome/")) return "Chrome";
+        if (ua.contains("Safari/")) return "Safari";
+        return "unknown";
+    }
+
+    static String guessOs(String ua) {
+        if (ua == null) return "unknown";
+        if (ua.contains("Android")) return "Android";
+        if (ua.contains("iPhone") || ua.contains("iPad") || ua.contains("iPod")) return "iOS";
+        if (ua.contains("Windows")) return "Windows";
+        if (ua.contains("Mac OS X") || ua.contains("Macintosh")) return "macOS";
+        if (ua.contains("Linux")) return "Linux";
+        return "unknown";
+    }
+}
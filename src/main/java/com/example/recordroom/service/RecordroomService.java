@@ -1,18 +1,24 @@
 package com.example.recordroom.service;
 
+import com.example.recordroom.ingest.IngestDeduplicator;
+import com.example.recordroom.ingest.IngestItem;
 import com.example.recordroom.model.BreadcrumbEvent;
 import com.example.recordroom.model.BreadcrumbEventIngestRequest;
 import com.example.recordroom.model.ConsoleEvent;
 import com.example.recordroom.model.ConsoleEventIngestRequest;
 import com.example.recordroom.model.CreateRecordRequest;
+import com.example.recordroom.model.Issue;
+import com.example.recordroom.model.IssueDetailResponse;
 import com.example.recordroom.model.NetworkEvent;
 import com.example.recordroom.model.NetworkEventIngestRequest;
 import com.example.recordroom.model.Record;
 import com.example.recordroom.model.RrwebBatchIngestRequest;
 import com.example.recordroom.model.RrwebEventEnvelope;
 import com.example.recordroom.model.RecordStats;
+import com.example.recordroom.model.RecordChainResponse;
 import com.example.recordroom.model.AdminOverviewResponse;
-import com.example.recordroom.model.RrwebListResponse;
+import com.example.recordroom.model.AdminSeriesResponse;
+import com.example.recordroom.model.SearchResponse;
 import com.example.recordroom.model.SessionViewResponse;
 import com.example.recordroom.model.TimelineResponse;
 import com.example.recordroom.persistence.*;
@@ -20,42 +26,92 @@ import com.example.recordroom.ws.AdminLiveHub;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
-import com.example.recordroom.persistence.RrwebEventEntity;
-import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 @Service
+@DependsOn("eventIdSequences") // no event insert before the id sequences are aligned
 public class RecordroomService {
 
     private final RecordRepository recordRepository;
     private final ConsoleEventRepository consoleRepo;
     private final NetworkEventRepository networkRepo;
+    private final NetworkPayloadRepository networkPayloadRepo;
     private final BreadcrumbEventRepository breadcrumbRepo;
     private final RrwebEventRepository rrwebRepo;
+    private final RrwebChunkRepository rrwebChunkRepo;
+    private final RrwebChunkStore rrwebChunks;
+    private final NetworkBodyStore networkBodies;
+    private final HeaderDictionary headerDict;
     private final AdminLiveHub adminLiveHub;
+    private final RecordCache recordCache;
+    private final IngestDeduplicator deduplicator;
+    private final RecordCounters recordCounters;
+    private final EventRollups eventRollups;
+    private final RecordChains recordChains;
+    private final SearchIndex searchIndex;
+    private final IssueTracker issueTracker;
+    private final IssueRepository issueRepo;
+    private final IssueRecordRepository issueRecordRepo;
+    private final EventIdGenerator eventIds;
 
     private final ObjectMapper om = new ObjectMapper();
 
     public RecordroomService(RecordRepository recordRepository,
                              ConsoleEventRepository consoleRepo,
                              NetworkEventRepository networkRepo,
+                             NetworkPayloadRepository networkPayloadRepo,
                              BreadcrumbEventRepository breadcrumbRepo,
                              RrwebEventRepository rrwebRepo,
-                             AdminLiveHub adminLiveHub) {
+                             RrwebChunkRepository rrwebChunkRepo,
+                             RrwebChunkStore rrwebChunks,
+                             NetworkBodyStore networkBodies,
+                             HeaderDictionary headerDict,
+                             AdminLiveHub adminLiveHub,
+                             RecordCache recordCache,
+                             IngestDeduplicator deduplicator,
+                             RecordCounters recordCounters,
+                             EventRollups eventRollups,
+                             RecordChains recordChains,
+                             SearchIndex searchIndex,
+                             IssueTracker issueTracker,
+                             IssueRepository issueRepo,
+                             IssueRecordRepository issueRecordRepo,
+                             EventIdGenerator eventIds) {
         this.recordRepository = recordRepository;
         this.consoleRepo = consoleRepo;
         this.networkRepo = networkRepo;
+        this.networkPayloadRepo = networkPayloadRepo;
         this.breadcrumbRepo = breadcrumbRepo;
         this.rrwebRepo = rrwebRepo;
+        this.rrwebChunkRepo = rrwebChunkRepo;
+        this.rrwebChunks = rrwebChunks;
+        this.networkBodies = networkBodies;
+        this.headerDict = headerDict;
         this.adminLiveHub = adminLiveHub;
+        this.recordCache = recordCache;
+        this.deduplicator = deduplicator;
+        this.recordCounters = recordCounters;
+        this.eventRollups = eventRollups;
+        this.recordChains = recordChains;
+        this.searchIndex = searchIndex;
+        this.issueTracker = issueTracker;
+        this.issueRepo = issueRepo;
+        this.issueRecordRepo = issueRecordRepo;
+        this.eventIds = eventIds;
     }
 
     public boolean recordExists(String recordId) {
-        return recordRepository.existsById(recordId);
+        return getRecord(recordId) != null;
     }
 
     @Transactional
@@ -68,8 +124,11 @@ public class RecordroomService {
         String userId = req.getUserId() == null ? "" : req.getUserId();
         String userEmail = req.getUserEmail() == null ? "" : req.getUserEmail();
 
-        RecordEntity entity = new RecordEntity(recordId, sessionId, previous, pageUrl, userAgent, appVersion, deviceInfo, userId, userEmail, nowEpochMs);
+        RecordEntity entity = new RecordEntity(recordId, sessionId, previous, pageUrl, userAgent, appVersion, deviceInfo, userId, userEmail, nowEpochMs,
+                recordChains.chainIdFor(recordId, previous));
         recordRepository.save(entity);
+        recordCounters.created(recordId, nowEpochMs);
+        searchIndex.markIndexed(recordId);
 
         // realtime: new record (QA)
         try {
@@ -85,12 +144,32 @@ public class RecordroomService {
             adminLiveHub.emit(p);
         } catch (Exception ignored) {}
 
-        return new Record(entity.getRecordId(), entity.getSessionId(), entity.getPreviousRecordId(),
+        Record record = new Record(entity.getRecordId(), entity.getSessionId(), entity.getPreviousRecordId(),
                 entity.getPageUrl(), entity.getUserAgent(), entity.getAppVersion(), entity.getDeviceInfo(),
                 entity.getUserId(), entity.getUserEmail(), entity.getCreatedAtEpochMs());
+        // a rolled-back record must not stay cached as existing
+        afterCommit(() -> {
+            recordCache.put(record);
+            deduplicator.registerNew(recordId);
+        });
+        return record;
     }
 
+    /**
+     * Cached lookup (see RecordCache). Returns null for unknown ids.
+     */
     public Record getRecord(String recordId) {
+        return recordCache.get(recordId, this::loadRecord);
+    }
+
+    /**
+     * Cached immutable attributes for ingest-side enrichment. Returns null for unknown ids.
+     */
+    public RecordMeta getRecordMeta(String recordId) {
+        return recordCache.getMeta(recordId, this::loadRecord);
+    }
+
+    private Record loadRecord(String recordId) {
         RecordEntity e = recordRepository.findById(recordId).orElse(null);
         if (e == null) return null;
         return new Record(e.getRecordId(), e.getSessionId(), e.getPreviousRecordId(),
@@ -99,139 +178,367 @@ public class RecordroomService {
     }
 
     // ---------- ingest ----------
+    /**
+     * Adds the header dictionary entries of the items' network events. Call before saveBatch,
+     * outside its transaction: saveBatch only encodes against entries that exist (see
+     * HeaderDictionary).
+     */
+    public void internHeaders(List<IngestItem> items) {
+        for (IngestItem it : items) {
+            if (it.getKind() == IngestItem.Kind.BATCH) {
+                internHeaders(it.getItems());
+            } else if (it.getKind() == IngestItem.Kind.NETWORK) {
+                headerDict.intern(it.getNetwork().getRequestHeaders());
+                headerDict.intern(it.getNetwork().getResponseHeaders());
+            }
+        }
+    }
+
+    /**
+     * Persists a drained ingest batch (any mix of kinds and records, including client-side
+     * "batch" envelopes) in one transaction.
+     * Rows are handed to saveAll per table so Hibernate can group the inserts.
+     * Events whose client seq was already stored for the record (resends) are skipped; see
+     * IngestDeduplicator. Returns the number of events written (every rrweb event counts).
+     */
     @Transactional
-    public ConsoleEvent saveConsole(String recordId, ConsoleEventIngestRequest req) {
-        String eventId = "c_" + UUID.randomUUID();
-        String level = (req.getLevel() == null || req.getLevel().isBlank()) ? "log" : req.getLevel();
-        String message = req.getMessage() == null ? "" : req.getMessage();
-        String stack = req.getStack();
+    public int saveBatch(List<IngestItem> items) {
+        if (items == null || items.isEmpty()) return 0;
 
-        ConsoleEventEntity e = new ConsoleEventEntity(eventId, recordId, level, message, stack, req.getTs(), req.getSeq());
-        consoleRepo.save(e);
+        IngestRows rows = new IngestRows(networkBodies.newBatch());
+        for (IngestItem it : items) {
+            collectEntities(it, rows);
+        }
 
-        // realtime: console error/warn (QA)
-        try {
-            if ("error".equalsIgnoreCase(level) || "warn".equalsIgnoreCase(level)) {
-                RecordEntity r = recordRepository.findById(recordId).orElse(null);
-                String sid = (r == null) ? null : r.getSessionId();
-                Map<String, Object> p = new LinkedHashMap<>();
-                p.put("type", "console_" + level.toLowerCase());
-                p.put("ts", req.getTs());
-                p.put("recordId", recordId);
-                p.put("sessionId", sid);
-                p.put("eventId", eventId);
-                p.put("message", message.length() > 500 ? message.substring(0, 500) : message);
-                p.put("stack", (stack != null && stack.length() > 2000) ? stack.substring(0, 2000) : stack);
-                adminLiveHub.emit(p);
-            }
-        } catch (Exception ignored) {}
+        if (!rows.consoles.isEmpty()) consoleRepo.saveAll(rows.consoles);
+        if (!rows.networks.isEmpty()) {
+            networkRepo.saveAll(rows.networkEvents());
+            List<NetworkPayloadEntity> payloads = new ArrayList<>(rows.networks.size());
+            for (NetworkRow n : rows.networks) payloads.add(n.payload());
+            networkPayloadRepo.saveAll(payloads);
+        }
+        networkBodies.flush(rows.networkBodies);
+        if (!rows.breadcrumbs.isEmpty()) breadcrumbRepo.saveAll(rows.breadcrumbs);
+        List<RrwebChunkEntity> chunks = rrwebChunks.write(rows.rrwebs);
+
+        RecordCounters.Batch counters = recordCounters.newBatch();
+        for (ConsoleEventEntity e : rows.consoles) counters.console(e);
+        for (NetworkRow n : rows.networks) counters.network(n.event);
+        for (BreadcrumbEventEntity e : rows.breadcrumbs) counters.breadcrumb(e);
+        for (RrwebChunkEntity c : chunks) counters.rrweb(c);
+        recordCounters.apply(counters);
+
+        SearchIndex.Batch search = searchIndex.newBatch();
+        for (ConsoleEventEntity e : rows.consoles) search.console(e);
+        for (NetworkRow n : rows.networks) search.network(n.event);
+        for (BreadcrumbEventEntity e : rows.breadcrumbs) search.breadcrumb(e);
+        searchIndex.flush(search);
+
+        IssueTracker.Batch issues = issueTracker.newBatch();
+        for (ConsoleEventEntity e : rows.consoles) trackIssue(issues, e);
+        issueTracker.flush(issues);
+
+        // every writer shares the current minute/hour rows: lock them last, once the pending
+        // inserts are written, so they are held only until the commit
+        consoleRepo.flush();
+        EventRollups.Batch rollups = eventRollups.newBatch();
+        for (ConsoleEventEntity e : rows.consoles) rollups.console(e);
+        for (NetworkRow n : rows.networks) rollups.network(n.event);
+        for (BreadcrumbEventEntity e : rows.breadcrumbs) rollups.breadcrumb(e);
+        for (RrwebChunkEntity c : chunks) rollups.rrweb(c);
+        eventRollups.apply(rollups);
+
+        afterCommit(() -> markPersisted(rows));
+
+        for (ConsoleEventEntity e : rows.consoles) emitConsoleLive(e);
+        for (NetworkRow n : rows.networks) emitNetworkLive(n.event);
+
+        return rows.consoles.size() + rows.networks.size() + rows.breadcrumbs.size() + rows.rrwebEventCount();
+    }
 
-        return new ConsoleEvent(eventId, recordId, "console", level, message, stack, req.getTs(), req.getSeq());
+    private void collectEntities(IngestItem it, IngestRows rows) {
+        String recordId = it.getRecordId();
+        switch (it.getKind()) {
+            case CONSOLE:
+                if (isNew(rows, recordId, IngestItem.Kind.CONSOLE, it.getConsole().getSeq())) {
+                    rows.consoles.add(newConsoleEntity(recordId, it.getConsole()));
+                }
+                break;
+            case NETWORK:
+                if (isNew(rows, recordId, IngestItem.Kind.NETWORK, it.getNetwork().getSeq())) {
+                    rows.networks.add(newNetworkRow(recordId, it.getNetwork(), rows.networkBodies));
+                }
+                break;
+            case BREADCRUMB:
+                if (isNew(rows, recordId, IngestItem.Kind.BREADCRUMB, it.getBreadcrumb().getSeq())) {
+                    rows.breadcrumbs.add(newBreadcrumbEntity(recordId, it.getBreadcrumb()));
+                }
+                break;
+            case RRWEB:
+                addRrwebEntities(recordId, it.getRrweb(), rows);
+                break;
+            case BATCH:
+                for (IngestItem child : it.getItems()) {
+                    collectEntities(child, rows);
+                }
+                break;
+        }
     }
 
-    @Transactional
-    public NetworkEvent saveNetwork(String recordId, NetworkEventIngestRequest req) {
-        String eventId = "n_" + UUID.randomUUID();
-        String method = (req.getMethod() == null || req.getMethod().isBlank()) ? "GET" : req.getMethod();
-        String url = (req.getUrl() == null) ? "" : req.getUrl();
+    // false for a seq already persisted, or already taken by an earlier event in this batch
+    private boolean isNew(IngestRows rows, String recordId, IngestItem.Kind kind, long seq) {
+        if (seq <= 0) return true;
+        if (!rows.seen.add(recordId + '|' + kind + '|' + seq)) return false;
+        return !deduplicator.isDuplicate(recordId, kind, seq, this::recentDedupSeqs);
+    }
 
-        String reqHeadersJson = toJson(req.getRequestHeaders());
-        String resHeadersJson = toJson(req.getResponseHeaders());
+    /** Seeds IngestDeduplicator: the highest stored seq for the record/kind and everything within window below it. */
+    private Collection<Long> recentDedupSeqs(String recordId, IngestItem.Kind kind, int window) {
+        Long max;
+        switch (kind) {
+            case CONSOLE: max = consoleRepo.findMaxDedupSeq(recordId); break;
+            case NETWORK: max = networkRepo.findMaxDedupSeq(recordId); break;
+            case BREADCRUMB: max = breadcrumbRepo.findMaxDedupSeq(recordId); break;
+            case RRWEB: return rrwebChunks.recentSeqs(recordId, window);
+            default: return Collections.emptyList();
+        }
+        if (max == null) return Collections.emptyList();
 
-        NetworkEventEntity e = new NetworkEventEntity(
-                eventId,
-                recordId,
-                req.getClientRequestId(),
-                method,
-                url,
-                req.getStatus(),
-                reqHeadersJson,
-                req.getRequestBody(),
-                resHeadersJson,
-                req.getResponseBody(),
-                req.getStartedAtEpochMs(),
-                req.getDurationMs(),
-                req.getError(),
-                req.getSeq()
-        );
-        networkRepo.save(e);
+        long floor = max - window;
+        switch (kind) {
+            case CONSOLE: return consoleRepo.findDedupSeqsAbove(recordId, floor);
+            case NETWORK: return networkRepo.findDedupSeqsAbove(recordId, floor);
+            default: return breadcrumbRepo.findDedupSeqsAbove(recordId, floor);
+        }
+    }
 
-        // realtime: 4xx/5xx/slow (QA)
-        try {
-            int status = req.getStatus();
-            long dur = req.getDurationMs();
-            boolean httpErr = status >= 400;
-            boolean slow = dur > 2000;
-            if (httpErr || slow) {
-                RecordEntity r = recordRepository.findById(recordId).orElse(null);
-                String sid = (r == null) ? null : r.getSessionId();
-                Map<String, Object> p = new LinkedHashMap<>();
-                p.put("type", httpErr ? "network_http_error" : "network_slow");
-                p.put("ts", req.getStartedAtEpochMs());
-                p.put("recordId", recordId);
-                p.put("sessionId", sid);
-                p.put("eventId", eventId);
-                p.put("method", method);
-                p.put("url", url.length() > 800 ? url.substring(0, 800) : url);
-                p.put("status", status);
-                p.put("durationMs", dur);
-                adminLiveHub.emit(p);
+    private void markPersisted(IngestRows rows) {
+        for (ConsoleEventEntity e : rows.consoles) markPersisted(e.getRecordId(), IngestItem.Kind.CONSOLE, e.getDedupSeq());
+        for (NetworkRow n : rows.networks) markPersisted(n.event.getRecordId(), IngestItem.Kind.NETWORK, n.event.getDedupSeq());
+        for (BreadcrumbEventEntity e : rows.breadcrumbs) markPersisted(e.getRecordId(), IngestItem.Kind.BREADCRUMB, e.getDedupSeq());
+        for (RrwebChunkStore.Run run : rows.rrwebs) {
+            for (RrwebChunkStore.Event e : run.getEvents()) markPersisted(run.getRecordId(), IngestItem.Kind.RRWEB, dedupSeq(e.getSeq()));
+        }
+    }
+
+    private void markPersisted(String recordId, IngestItem.Kind kind, Long dedupSeq) {
+        if (dedupSeq != null) deduplicator.persisted(recordId, kind, dedupSeq);
+    }
+
+    // a rolled-back batch must not mark its seqs as stored, or the client's resend would be skipped
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
             }
-        } catch (Exception ignored) {}
+        });
+    }
 
-        return new NetworkEvent(
+    private static Long dedupSeq(long seq) {
+        return seq > 0 ? seq : null;
+    }
+
+    private ConsoleEventEntity newConsoleEntity(String recordId, ConsoleEventIngestRequest req) {
+        String eventId = eventIds.next("c_");
+        String level = (req.getLevel() == null || req.getLevel().isBlank()) ? "log" : clip(req.getLevel(), 16);
+        String message = req.getMessage() == null ? "" : req.getMessage();
+        return new ConsoleEventEntity(eventId, recordId, level, message, req.getStack(), req.getTs(), req.getSeq(), dedupSeq(req.getSeq()),
+                issueTracker.fingerprint(level, message, req.getStack()));
+    }
+
+    private void trackIssue(IssueTracker.Batch issues, ConsoleEventEntity e) {
+        if (e.getFingerprint() == null || e.getFingerprint().isEmpty()) return;
+        RecordMeta meta = getRecordMeta(e.getRecordId());
+        issues.console(e, meta == null ? null : meta.getSessionId(), meta == null ? null : meta.getUserId());
+    }
+
+    // bodies at or above the store's threshold are kept as a hash; sizes are recorded either way
+    private NetworkRow newNetworkRow(String recordId, NetworkEventIngestRequest req, NetworkBodyStore.Batch bodies) {
+        String eventId = eventIds.next("n_");
+        String method = (req.getMethod() == null || req.getMethod().isBlank()) ? "GET" : clip(req.getMethod(), 16);
+        String url = (req.getUrl() == null) ? "" : clip(req.getUrl(), 4096);
+
+        byte[] reqHeaders = headerDict.encode(req.getRequestHeaders());
+        byte[] resHeaders = headerDict.encode(req.getResponseHeaders());
+
+        String reqBody = req.getRequestBody();
+        String reqBodyHash = networkBodies.add(bodies, reqBody);
+        String resBody = req.getResponseBody();
+        String resBodyHash = networkBodies.add(bodies, resBody);
+
+        NetworkEventEntity event = new NetworkEventEntity(
                 eventId,
                 recordId,
-                "network",
-                req.getClientRequestId(),
+                clip(req.getClientRequestId(), 80),
                 method,
                 url,
                 req.getStatus(),
-                safeMap(req.getRequestHeaders()),
-                req.getRequestBody(),
-                safeMap(req.getResponseHeaders()),
-                req.getResponseBody(),
+                bodySize(reqBody),
+                bodySize(resBody),
+                (long) (binLen(reqHeaders) + binLen(resHeaders)),
                 req.getStartedAtEpochMs(),
                 req.getDurationMs(),
-                req.getError(),
-                req.getSeq()
+                clip(req.getError(), 1024),
+                req.getSeq(),
+                dedupSeq(req.getSeq())
         );
+        return new NetworkRow(event,
+                reqHeaders, reqBodyHash == null ? reqBody : null, reqBodyHash,
+                resHeaders, resBodyHash == null ? resBody : null, resBodyHash);
     }
 
-    @Transactional
-    public BreadcrumbEvent saveBreadcrumb(String recordId, BreadcrumbEventIngestRequest req) {
-        String eventId = "b_" + UUID.randomUUID();
-        String name = req.getName() == null ? "" : req.getName();
+    // client strings are cut to their column length; an over-long value must not fail the whole batch
+    private static String clip(String s, int max) {
+        return (s == null || s.length() <= max) ? s : s.substring(0, max);
+    }
+
+    private static Long bodySize(String body) {
+        return body == null ? null : (long) body.length();
+    }
+
+    private BreadcrumbEventEntity newBreadcrumbEntity(String recordId, BreadcrumbEventIngestRequest req) {
+        String eventId = eventIds.next("b_");
+        String name = req.getName() == null ? "" : clip(req.getName(), 64);
         String message = req.getMessage() == null ? "" : req.getMessage();
         String dataJson = toJson(req.getData());
+        return new BreadcrumbEventEntity(eventId, recordId, name, message, dataJson, req.getTs(), req.getSeq(), dedupSeq(req.getSeq()));
+    }
+
+    // one SDK batch becomes one chunk
+    private void addRrwebEntities(String recordId, RrwebBatchIngestRequest req, IngestRows rows) {
+        if (req == null || req.getEvents() == null || req.getEvents().isEmpty()) return;
 
-        BreadcrumbEventEntity e = new BreadcrumbEventEntity(eventId, recordId, name, message, dataJson, req.getTs(), req.getSeq());
-        breadcrumbRepo.save(e);
+        List<RrwebChunkStore.Event> events = new ArrayList<>();
+        for (RrwebEventEnvelope ev : req.getEvents()) {
+            if (ev == null) continue;
+            if (!isNew(rows, recordId, IngestItem.Kind.RRWEB, ev.getSeq())) continue;
+
+            String payloadJson = ev.getPayloadJson();
+            if (payloadJson == null) {
+                payloadJson = "{}";
+                try {
+                    if (ev.getPayload() != null) payloadJson = om.writeValueAsString(ev.getPayload());
+                } catch (Exception ignored) {}
+            }
 
-        return new BreadcrumbEvent(eventId, recordId, "breadcrumb", name, message, safeMap(req.getData()), req.getTs(), req.getSeq());
+            events.add(new RrwebChunkStore.Event(ev.getTs(), ev.getSeq(), payloadJson));
+        }
+        if (!events.isEmpty()) rows.rrwebs.add(new RrwebChunkStore.Run(recordId, events));
     }
 
+    /** A new network event and its payload row, which takes the event's id once the event is saved. */
+    private static final class NetworkRow {
+        final NetworkEventEntity event;
+        final byte[] requestHeaders;
+        final String requestBody;
+        final String requestBodyHash;
+        final byte[] responseHeaders;
+        final String responseBody;
+        final String responseBodyHash;
+
+        NetworkRow(NetworkEventEntity event,
+                   byte[] requestHeaders, String requestBody, String requestBodyHash,
+                   byte[] responseHeaders, String responseBody, String responseBodyHash) {
+            this.event = event;
+            this.requestHeaders = requestHeaders;
+            this.requestBody = requestBody;
+            this.requestBodyHash = requestBodyHash;
+            this.responseHeaders = responseHeaders;
+            this.responseBody = responseBody;
+            this.responseBodyHash = responseBodyHash;
+        }
 
-    @Transactional
-    public int saveRrwebBatch(String recordId, RrwebBatchIngestRequest req) {
-        if (req == null || req.getEvents() == null || req.getEvents().isEmpty()) return 0;
+        NetworkPayloadEntity payload() {
+            return new NetworkPayloadEntity(event.getId(),
+                    requestHeaders, requestBody, requestBodyHash,
+                    responseHeaders, responseBody, responseBodyHash);
+        }
+    }
 
-        int saved = 0;
-        for (RrwebEventEnvelope ev : req.getEvents()) {
-            if (ev == null) continue;
-            String eventId = "r_" + UUID.randomUUID();
-            long ts = ev.getTs();
-            long seq = ev.getSeq();
+    /** Entities collected for one saveBatch call. */
+    private static final class IngestRows {
+        final List<ConsoleEventEntity> consoles = new ArrayList<>();
+        final List<NetworkRow> networks = new ArrayList<>();
+        final List<BreadcrumbEventEntity> breadcrumbs = new ArrayList<>();
+        final List<RrwebChunkStore.Run> rrwebs = new ArrayList<>();
+        final NetworkBodyStore.Batch networkBodies;
+        final Set<String> seen = new HashSet<>(); // recordId|kind|seq
+
+        IngestRows(NetworkBodyStore.Batch networkBodies) {
+            this.networkBodies = networkBodies;
+        }
 
-            String payloadJson = "{}";
-            try {
-                if (ev.getPayload() != null) payloadJson = om.writeValueAsString(ev.getPayload());
-            } catch (Exception ignored) {}
+        List<NetworkEventEntity> networkEvents() {
+            List<NetworkEventEntity> out = new ArrayList<>(networks.size());
+            for (NetworkRow n : networks) out.add(n.event);
+            return out;
+        }
 
-            rrwebRepo.save(new RrwebEventEntity(eventId, recordId, ts, seq, payloadJson));
-            saved += 1;
+        int rrwebEventCount() {
+            int n = 0;
+            for (RrwebChunkStore.Run run : rrwebs) n += run.getEvents().size();
+            return n;
         }
-        return saved;
+    }
+
+    // enrichment shared by the live ingest events; fields are null when the record is unknown
+    private static void putRecordMeta(Map<String, Object> p, RecordMeta meta) {
+        p.put("sessionId", meta == null ? null : meta.getSessionId());
+        p.put("pageUrl", meta == null ? null : meta.getPageUrl());
+        p.put("userId", meta == null ? null : meta.getUserId());
+        p.put("browser", meta == null ? null : meta.getBrowser());
+        p.put("os", meta == null ? null : meta.getOs());
+    }
+
+    // realtime: console error/warn (QA)
+    private void emitConsoleLive(ConsoleEventEntity e) {
+        try {
+            String level = e.getLevel();
+            if ("error".equalsIgnoreCase(level) || "warn".equalsIgnoreCase(level)) {
+                RecordMeta meta = getRecordMeta(e.getRecordId());
+                String message = e.getMessage();
+                String stack = e.getStack();
+                Map<String, Object> p = new LinkedHashMap<>();
+                p.put("type", "console_" + level.toLowerCase());
+                p.put("ts", e.getTs());
+                p.put("recordId", e.getRecordId());
+                putRecordMeta(p, meta);
+                p.put("eventId", e.getEventId());
+                p.put("message", message.length() > 500 ? message.substring(0, 500) : message);
+                p.put("stack", (stack != null && stack.length() > 2000) ? stack.substring(0, 2000) : stack);
+                adminLiveHub.emit(p);
+            }
+        } catch (Exception ignored) {}
+    }
+
+    // realtime: 4xx/5xx/slow (QA)
+    private void emitNetworkLive(NetworkEventEntity e) {
+        try {
+            int status = e.getStatus();
+            long dur = e.getDurationMs();
+            boolean httpErr = status >= 400;
+            boolean slow = dur > 2000;
+            if (httpErr || slow) {
+                RecordMeta meta = getRecordMeta(e.getRecordId());
+                String url = e.getUrl();
+                Map<String, Object> p = new LinkedHashMap<>();
+                p.put("type", httpErr ? "network_http_error" : "network_slow");
+                p.put("ts", e.getStartedAtEpochMs());
+                p.put("recordId", e.getRecordId());
+                putRecordMeta(p, meta);
+                p.put("eventId", e.getEventId());
+                p.put("method", e.getMethod());
+                p.put("url", url.length() > 800 ? url.substring(0, 800) : url);
+                p.put("status", status);
+                p.put("durationMs", dur);
+                adminLiveHub.emit(p);
+            }
+        } catch (Exception ignored) {}
     }
 
     // ---------- list with cursor ----------
@@ -250,23 +557,56 @@ public class RecordroomService {
         return out;
     }
 
-    public List<NetworkEvent> listNetwork(String recordId, Cursor cursor, int limit, Integer statusMin) {
+    /**
+     * Summaries only: bodies are left null (see getNetworkDetail / getNetworkBody).
+     * withHeaders=false also leaves the header maps null, so the payload table is not read at all.
+     */
+    public List<NetworkEvent> listNetwork(String recordId, Cursor cursor, int limit, Integer statusMin, boolean withHeaders) {
         PageRequest pr = PageRequest.of(0, limit);
-        List<NetworkEventEntity> rows;
+        List<NetworkEventSummary> rows;
         if (statusMin != null) rows = networkRepo.findAfterWithStatusMin(recordId, statusMin, cursor.ts, cursor.seq, pr);
         else rows = networkRepo.findAfter(recordId, cursor.ts, cursor.seq, pr);
 
-        List<NetworkEvent> out = new ArrayList<>();
-        for (NetworkEventEntity e : rows) {
-            out.add(toModel(e));
-        }
-        return out;
+        return toModels(rows, withHeaders);
     }
 
     public NetworkEvent getNetworkDetail(String recordId, String eventId) {
         NetworkEventEntity e = networkRepo.findByRecordIdAndEventId(recordId, eventId);
         if (e == null) return null;
-        return toModel(e);
+        NetworkPayloadEntity p = networkPayloadRepo.findById(e.getId()).orElse(null);
+        Map<String, String> bodies = (p == null) ? Collections.emptyMap() : networkBodies.load(Collections.singletonList(p));
+        return new NetworkEvent(
+                e.getEventId(),
+                e.getRecordId(),
+                "network",
+                e.getClientRequestId(),
+                e.getMethod(),
+                e.getUrl(),
+                e.getStatus(),
+                (p == null) ? new LinkedHashMap<>() : decodeHeaders(p.getRequestHeadersBin(), p.getRequestHeadersJson()),
+                (p == null) ? null : NetworkBodyStore.resolve(p.getRequestBody(), p.getRequestBodyHash(), bodies),
+                (p == null) ? new LinkedHashMap<>() : decodeHeaders(p.getResponseHeadersBin(), p.getResponseHeadersJson()),
+                (p == null) ? null : NetworkBodyStore.resolve(p.getResponseBody(), p.getResponseBodyHash(), bodies),
+                e.getStartedAtEpochMs(),
+                e.getDurationMs(),
+                e.getError(),
+                e.getSeq(),
+                e.getRequestBodySize(),
+                e.getResponseBodySize()
+        );
+    }
+
+    /** One body of a network event ("" when it had none), or null for an unknown event. */
+    public String getNetworkBody(String recordId, String eventId, boolean response) {
+        NetworkEventEntity e = networkRepo.findByRecordIdAndEventId(recordId, eventId);
+        if (e == null) return null;
+        NetworkPayloadEntity p = networkPayloadRepo.findById(e.getId()).orElse(null);
+        if (p == null) return "";
+        Map<String, String> bodies = networkBodies.load(Collections.singletonList(p));
+        String body = response
+                ? NetworkBodyStore.resolve(p.getResponseBody(), p.getResponseBodyHash(), bodies)
+                : NetworkBodyStore.resolve(p.getRequestBody(), p.getRequestBodyHash(), bodies);
+        return body == null ? "" : body;
     }
 
     public List<BreadcrumbEvent> listBreadcrumbs(String recordId, Cursor cursor, int limit, String name) {
@@ -285,82 +625,145 @@ public class RecordroomService {
         return out;
     }
 
-    public RrwebListResponse listRrweb(String recordId, Cursor cursor, int limit) {
+    /** inlineAssets=false leaves "rr-asset://sha256/.." references for the client to resolve. */
+    public RrwebChunkStore.Page listRrweb(String recordId, Cursor cursor, int limit, boolean inlineAssets) {
         int safeLimit = Math.max(1, Math.min(limit, 5000));
-        PageRequest pr = PageRequest.of(0, safeLimit);
-
-        List<RrwebEventEntity> rows = rrwebRepo.findAfter(recordId, cursor.ts, cursor.seq, pr);
-
-        List<JsonNode> events = new ArrayList<>();
-        long lastTs = cursor.ts;
-        long lastSeq = cursor.seq;
+        RrwebChunkStore.Page page = rrwebChunks.read(recordId, cursor.ts, cursor.seq, safeLimit);
+        return inlineAssets ? rrwebChunks.inlineAssets(page) : page;
+    }
 
-        for (RrwebEventEntity e : rows) {
-            lastTs = e.getTsEpochMs();
-            lastSeq = e.getSeq();
+    /** Replay from ts: the snapshot in effect at ts and the events after it (see RrwebChunkStore.readAt). */
+    public RrwebChunkStore.Page seekRrweb(String recordId, long ts, int limit, boolean inlineAssets) {
+        int safeLimit = Math.max(1, Math.min(limit, 5000));
+        RrwebChunkStore.Page page = rrwebChunks.readAt(recordId, ts, safeLimit);
+        return inlineAssets ? rrwebChunks.inlineAssets(page) : page;
+    }
 
-            try {
-                JsonNode n = om.readTree(e.getPayloadJson() == null ? "{}" : e.getPayloadJson());
-                events.add(n);
-            } catch (Exception ignored) {
-                // skip malformed json
-            }
+    private static final String[] TIMELINE_KINDS = {"console", "network", "breadcrumb"};
+
+    /**
+     * Console, network and breadcrumb events merged in (ts, seq, kind) order.
+     *
+     * Each kind is read in small pages after its own position and the kinds are merged lazily, so
+     * a page reads about limit rows. nextAfter keeps one position per kind (TimelineCursor): seq
+     * values of different kinds are unrelated, and a single shared position skips or repeats
+     * events that tie at a page boundary.
+     */
+    public TimelineResponse listTimeline(String recordId, TimelineCursor cursor, int limit, Set<String> kinds, String consoleLevel, Integer statusMin, Long tsFrom, Long tsTo) {
+        int active = 0;
+        for (String k : TIMELINE_KINDS) if (kinds.contains(k)) active++;
+        int firstPage = Math.min(limit, Math.max(16, (limit + active - 1) / Math.max(1, active)));
+
+        PriorityQueue<TimelineSource> heads = new PriorityQueue<>(TimelineSource.ORDER);
+        List<TimelineSource> sources = new ArrayList<>();
+        for (int k = 0; k < TIMELINE_KINDS.length; k++) {
+            if (!kinds.contains(TIMELINE_KINDS[k])) continue;
+            Cursor start = cursor.get(k);
+            if (tsFrom != null && start.ts < tsFrom) start = new Cursor(tsFrom - 1, Long.MAX_VALUE);
+            TimelineSource src = new TimelineSource(k, start, firstPage, limit, timelineFetch(recordId, k, consoleLevel, statusMin));
+            sources.add(src);
+            if (src.fill()) heads.add(src);
         }
 
-        String nextAfter = cursor.toString();
-        if (!rows.isEmpty()) {
-            nextAfter = lastTs + "_" + lastSeq;
+        List<TimelineResponse.TimelineItem> items = new ArrayList<>();
+        while (items.size() < limit && !heads.isEmpty()) {
+            TimelineSource src = heads.poll();
+            TimelineResponse.TimelineItem item = src.peek();
+            if (tsTo != null && item.getTs() > tsTo) break; // every other head is at or after it
+            items.add(src.take());
+            if (src.fill()) heads.add(src);
         }
-        return new RrwebListResponse(events, nextAfter);
-    }
-
-    public TimelineResponse listTimeline(String recordId, Cursor cursor, int limit, Set<String> kinds, String consoleLevel, Integer statusMin, Long tsFrom, Long tsTo) {
-        int per = Math.max(limit, 1);
 
-        List<TimelineResponse.TimelineItem> items = new ArrayList<>();
+        TimelineCursor next = cursor;
+        for (TimelineSource src : sources) next = next.with(src.kind, src.position);
+        return new TimelineResponse(items, next.toString());
+    }
 
-        if (kinds.contains("console")) {
-            for (ConsoleEvent c : listConsole(recordId, cursor, per, consoleLevel)) {
-                if (tsFrom != null && c.getTs() < tsFrom) continue;
-                if (tsTo != null && c.getTs() > tsTo) continue;
-                items.add(new TimelineResponse.TimelineItem("console", c.getEventId(), c.getTs(), c.getSeq(),
-                        c.getLevel(), c.getMessage(), c.getStack(),
-                        null, null, 0, null));
-            }
+    private BiFunction<Cursor, Integer, List<TimelineResponse.TimelineItem>> timelineFetch(String recordId, int kind, String consoleLevel, Integer statusMin) {
+        switch (kind) {
+            case 0:
+                return (after, n) -> {
+                    List<TimelineResponse.TimelineItem> out = new ArrayList<>();
+                    for (ConsoleEvent c : listConsole(recordId, after, n, consoleLevel)) {
+                        out.add(new TimelineResponse.TimelineItem("console", c.getEventId(), c.getTs(), c.getSeq(),
+                                c.getLevel(), c.getMessage(), c.getStack(),
+                                null, null, 0, null));
+                    }
+                    return out;
+                };
+            case 1:
+                return (after, n) -> {
+                    List<TimelineResponse.TimelineItem> out = new ArrayList<>();
+                    for (NetworkEvent e : listNetwork(recordId, after, n, statusMin, false)) {
+                        out.add(new TimelineResponse.TimelineItem("network", e.getEventId(), e.getStartedAtEpochMs(), e.getSeq(),
+                                null, null, null,
+                                e.getMethod(), e.getUrl(), e.getStatus(), null));
+                    }
+                    return out;
+                };
+            default:
+                return (after, n) -> {
+                    List<TimelineResponse.TimelineItem> out = new ArrayList<>();
+                    for (BreadcrumbEvent b : listBreadcrumbs(recordId, after, n, null)) {
+                        out.add(new TimelineResponse.TimelineItem("breadcrumb", b.getEventId(), b.getTs(), b.getSeq(),
+                                null, b.getMessage(), null,
+                                null, null, 0, b.getName()));
+                    }
+                    return out;
+                };
         }
+    }
 
-        if (kinds.contains("network")) {
-            for (NetworkEvent n : listNetwork(recordId, cursor, per, statusMin)) {
-                if (tsFrom != null && n.getStartedAtEpochMs() < tsFrom) continue;
-                if (tsTo != null && n.getStartedAtEpochMs() > tsTo) continue;
-                items.add(new TimelineResponse.TimelineItem("network", n.getEventId(), n.getStartedAtEpochMs(), n.getSeq(),
-                        null, null, null,
-                        n.getMethod(), n.getUrl(), n.getStatus(), null));
-            }
+    /** One kind of the timeline: a buffer of fetched rows, refilled with growing pages. */
+    private static final class TimelineSource {
+        static final Comparator<TimelineSource> ORDER = Comparator
+                .comparingLong((TimelineSource s) -> s.peek().getTs())
+                .thenComparingLong(s -> s.peek().getSeq())
+                .thenComparingInt(s -> s.kind);
+
+        final int kind;
+        Cursor position; // after the last taken item
+
+        private final BiFunction<Cursor, Integer, List<TimelineResponse.TimelineItem>> fetch;
+        private final ArrayDeque<TimelineResponse.TimelineItem> buffer = new ArrayDeque<>();
+        private final int maxPage;
+        private int page;
+        private Cursor fetched; // after the last buffered item
+        private boolean exhausted;
+
+        TimelineSource(int kind, Cursor start, int firstPage, int maxPage,
+                       BiFunction<Cursor, Integer, List<TimelineResponse.TimelineItem>> fetch) {
+            this.kind = kind;
+            this.position = start;
+            this.fetched = start;
+            this.page = Math.max(1, firstPage);
+            this.maxPage = Math.max(this.page, maxPage);
+            this.fetch = fetch;
         }
 
-        if (kinds.contains("breadcrumb")) {
-            for (BreadcrumbEvent b : listBreadcrumbs(recordId, cursor, per, null)) {
-                if (tsFrom != null && b.getTs() < tsFrom) continue;
-                if (tsTo != null && b.getTs() > tsTo) continue;
-                items.add(new TimelineResponse.TimelineItem("breadcrumb", b.getEventId(), b.getTs(), b.getSeq(),
-                        null, b.getMessage(), null,
-                        null, null, 0, b.getName()));
-            }
+        /** Fetches the next page if the buffer is empty; false when the kind has no more rows. */
+        boolean fill() {
+            if (!buffer.isEmpty()) return true;
+            if (exhausted) return false;
+            List<TimelineResponse.TimelineItem> rows = fetch.apply(fetched, page);
+            if (rows.size() < page) exhausted = true;
+            if (rows.isEmpty()) return false;
+            buffer.addAll(rows);
+            TimelineResponse.TimelineItem last = rows.get(rows.size() - 1);
+            fetched = new Cursor(last.getTs(), last.getSeq());
+            page = Math.min(maxPage, page * 2);
+            return true;
         }
 
-        items.sort(Comparator.comparingLong(TimelineResponse.TimelineItem::getTs)
-                .thenComparingLong(TimelineResponse.TimelineItem::getSeq));
-
-        if (items.size() > limit) items = items.subList(0, limit);
-
-        String nextAfter = cursor.toString();
-        if (!items.isEmpty()) {
-            TimelineResponse.TimelineItem last = items.get(items.size() - 1);
-            nextAfter = last.getTs() + "_" + last.getSeq();
+        TimelineResponse.TimelineItem peek() {
+            return buffer.peekFirst();
         }
 
-        return new TimelineResponse(items, nextAfter);
+        TimelineResponse.TimelineItem take() {
+            TimelineResponse.TimelineItem item = buffer.pollFirst();
+            position = new Cursor(item.getTs(), item.getSeq());
+            return item;
+        }
     }
 
     // ---------- cursor ----------
@@ -390,6 +793,54 @@ public class RecordroomService {
         public String toString() { return ts + "_" + seq; }
     }
 
+    /**
+     * Timeline position, one Cursor per kind: "c{ts}_{seq}.n{ts}_{seq}.b{ts}_{seq}".
+     * A plain "ts_seq" (what nextAfter was before per-kind positions) applies to every kind.
+     */
+    public static class TimelineCursor {
+        private static final char[] KEYS = {'c', 'n', 'b'};
+
+        private final Cursor[] positions;
+
+        private TimelineCursor(Cursor[] positions) {
+            this.positions = positions;
+        }
+
+        public static TimelineCursor parse(String s) {
+            Cursor[] positions = new Cursor[KEYS.length];
+            if (s == null || s.isBlank() || Character.isDigit(s.trim().charAt(0)) || s.trim().charAt(0) == '-') {
+                Arrays.fill(positions, Cursor.parse(s));
+                return new TimelineCursor(positions);
+            }
+            Arrays.fill(positions, new Cursor(0, 0));
+            for (String part : s.trim().split("\\.")) {
+                if (part.isEmpty()) continue;
+                for (int k = 0; k < KEYS.length; k++) {
+                    if (part.charAt(0) == KEYS[k]) positions[k] = Cursor.parse(part.substring(1));
+                }
+            }
+            return new TimelineCursor(positions);
+        }
+
+        public Cursor get(int kind) { return positions[kind]; }
+
+        public TimelineCursor with(int kind, Cursor c) {
+            Cursor[] copy = positions.clone();
+            copy[kind] = c;
+            return new TimelineCursor(copy);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int k = 0; k < KEYS.length; k++) {
+                if (k > 0) sb.append('.');
+                sb.append(KEYS[k]).append(positions[k]);
+            }
+            return sb.toString();
+        }
+    }
+
     // ---------- helpers ----------
     private String toJson(Map<String, String> m) {
         if (m == null) return "{}";
@@ -438,7 +889,9 @@ public class RecordroomService {
         org.springframework.web.client.RestTemplate rt = new org.springframework.web.client.RestTemplate();
 
         org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-        java.util.Map<String, String> reqHeaders = fromJsonMap(e.getRequestHeadersJson());
+        NetworkPayloadEntity payload = networkPayloadRepo.findById(e.getId()).orElse(null);
+        java.util.Map<String, String> reqHeaders = (payload == null) ? new LinkedHashMap<>()
+                : decodeHeaders(payload.getRequestHeadersBin(), payload.getRequestHeadersJson());
         for (java.util.Map.Entry<String, String> kv : reqHeaders.entrySet()) {
             String k = kv.getKey();
             if (k == null) continue;
@@ -449,7 +902,8 @@ public class RecordroomService {
             headers.add(k, kv.getValue());
         }
 
-        String body = e.getRequestBody();
+        String body = (payload == null) ? null : NetworkBodyStore.resolve(payload.getRequestBody(), payload.getRequestBodyHash(),
+                networkBodies.load(Collections.singletonList(payload)));
         org.springframework.http.HttpEntity<String> entity;
         if (body != null && !body.isBlank() && !(method.equals("GET") || method.equals("HEAD"))) {
             // if content-type is missing but body looks like json, set a default
@@ -508,72 +962,71 @@ public class RecordroomService {
         return s.substring(0, max) + "\n...[truncated]";
     }
 
-
-    private Map<String, String> safeMap(Map<String, String> m) {
-        if (m == null) return new LinkedHashMap<>();
-        return new LinkedHashMap<>(m);
-    }
-
-    private NetworkEvent toModel(NetworkEventEntity e) {
-        return new NetworkEvent(
-                e.getEventId(),
-                e.getRecordId(),
-                "network",
-                e.getClientRequestId(),
-                e.getMethod(),
-                e.getUrl(),
-                e.getStatus(),
-                fromJsonMap(e.getRequestHeadersJson()),
-                e.getRequestBody(),
-                fromJsonMap(e.getResponseHeadersJson()),
-                e.getResponseBody(),
-                e.getStartedAtEpochMs(),
-                e.getDurationMs(),
-                e.getError(),
-                e.getSeq()
-        );
+    private Map<String, String> decodeHeaders(byte[] bin, String legacyJson) {
+        if (bin != null) return headerDict.decode(bin);
+        return fromJsonMap(legacyJson);
     }
 
-    // ---------- stats ----------
-    public RecordStats getRecordStats(String recordId) {
-        List<ConsoleEventEntity> allConsole = consoleRepo.findLatest(recordId, PageRequest.of(0, 10000));
-        int consoleErrorCount = 0;
-        int consoleWarnCount = 0;
-        for (ConsoleEventEntity e : allConsole) {
-            if ("error".equalsIgnoreCase(e.getLevel())) consoleErrorCount++;
-            else if ("warn".equalsIgnoreCase(e.getLevel())) consoleWarnCount++;
-        }
-
-        List<NetworkEventEntity> allNetwork = networkRepo.findLatest(recordId, PageRequest.of(0, 10000));
-        int network4xxCount = 0;
-        int network5xxCount = 0;
-        int networkSlowCount = 0;
-        List<Long> durations = new ArrayList<>();
-        for (NetworkEventEntity e : allNetwork) {
-            int status = e.getStatus();
-            if (status >= 400 && status < 500) network4xxCount++;
-            else if (status >= 500) network5xxCount++;
-            if (e.getDurationMs() > 2000) networkSlowCount++;
-            if (e.getDurationMs() > 0) durations.add(e.getDurationMs());
+    // headers, when wanted, are read for the whole page with one query
+    private List<NetworkEvent> toModels(List<NetworkEventSummary> rows, boolean withHeaders) {
+        Map<Long, NetworkPayloadHeaders> headers = new HashMap<>();
+        if (withHeaders && !rows.isEmpty()) {
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (NetworkEventSummary e : rows) ids.add(e.getId());
+            for (NetworkPayloadHeaders h : networkPayloadRepo.findHeadersByIds(ids)) headers.put(h.getId(), h);
         }
 
-        long avgDurationMs = 0;
-        long p95DurationMs = 0;
-        if (!durations.isEmpty()) {
-            durations.sort(Long::compareTo);
-            long sum = durations.stream().mapToLong(Long::longValue).sum();
-            avgDurationMs = sum / durations.size();
-            int p95Index = (int) Math.ceil(durations.size() * 0.95) - 1;
-            p95DurationMs = durations.get(Math.max(0, p95Index));
+        List<NetworkEvent> out = new ArrayList<>(rows.size());
+        for (NetworkEventSummary e : rows) {
+            NetworkPayloadHeaders h = headers.get(e.getId());
+            Map<String, String> reqHeaders = null;
+            Map<String, String> resHeaders = null;
+            if (withHeaders) {
+                reqHeaders = (h == null) ? new LinkedHashMap<>() : decodeHeaders(h.getRequestHeadersBin(), h.getRequestHeadersJson());
+                resHeaders = (h == null) ? new LinkedHashMap<>() : decodeHeaders(h.getResponseHeadersBin(), h.getResponseHeadersJson());
+            }
+            out.add(new NetworkEvent(
+                    e.getEventId(),
+                    e.getRecordId(),
+                    "network",
+                    e.getClientRequestId(),
+                    e.getMethod(),
+                    e.getUrl(),
+                    e.getStatus(),
+                    reqHeaders,
+                    null,
+                    resHeaders,
+                    null,
+                    e.getStartedAtEpochMs(),
+                    e.getDurationMs(),
+                    e.getError(),
+                    e.getSeq(),
+                    e.getRequestBodySize(),
+                    e.getResponseBodySize()
+            ));
         }
+        return out;
+    }
 
-        return new RecordStats(consoleErrorCount, consoleWarnCount, network4xxCount, network5xxCount,
-                networkSlowCount, avgDurationMs, p95DurationMs);
+    // ---------- stats ----------
+    /** Read from the record's counters row, so the cost does not grow with the record. */
+    public RecordStats getRecordStats(String recordId) {
+        RecordCountersEntity c = recordCounters.find(recordId);
+        if (c == null) return new RecordStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+        LatencyHistogram latency = recordCounters.latency(c);
+        return new RecordStats(c.getConsoleErrorCount(), c.getConsoleWarnCount(),
+                c.getNetwork4xxCount(), c.getNetwork5xxCount(), c.getNetworkSlowCount(),
+                latency.getMean(), latency.percentile(0.50), latency.percentile(0.90),
+                latency.percentile(0.95), latency.percentile(0.99), latency.getMax());
     }
 
     // ---------- session view ----------
+    /** Three indexed lookups whatever the session size; error counts come from the counters rows. */
     public SessionViewResponse getSessionView(String sessionId) {
-        List<RecordEntity> records = recordRepository.findBySessionId(sessionId);
+        List<RecordWithCounters> rows = recordRepository.findBySessionIdWithCounters(sessionId);
+        List<RecordEntity> records = new ArrayList<>(rows.size());
+        for (RecordWithCounters row : rows) records.add(row.getRecord());
         List<SessionViewResponse.RecordSummary> summaries = new ArrayList<>();
 
         // compute previous / next session based on record linkage
@@ -616,19 +1069,11 @@ public class RecordroomService {
             }
         }
 
-        for (RecordEntity r : records) {
-            List<ConsoleEventEntity> consoleErrors = consoleRepo.findLatest(r.getRecordId(), PageRequest.of(0, 1000));
-            int consoleErrorCount = 0;
-            for (ConsoleEventEntity e : consoleErrors) {
-                if ("error".equalsIgnoreCase(e.getLevel())) consoleErrorCount++;
-            }
-
-            List<NetworkEventEntity> networks = networkRepo.findLatest(r.getRecordId(), PageRequest.of(0, 1000));
-            int network4xx5xxCount = 0;
-            for (NetworkEventEntity e : networks) {
-                int status = e.getStatus();
-                if (status >= 400) network4xx5xxCount++;
-            }
+        for (RecordWithCounters row : rows) {
+            RecordEntity r = row.getRecord();
+            RecordCountersEntity c = row.getCounters();
+            long consoleErrorCount = (c == null) ? 0 : c.getConsoleErrorCount();
+            long network4xx5xxCount = (c == null) ? 0 : c.getNetwork4xxCount() + c.getNetwork5xxCount();
 
             summaries.add(new SessionViewResponse.RecordSummary(
                     r.getRecordId(),
@@ -642,50 +1087,195 @@ public class RecordroomService {
         return new SessionViewResponse(sessionId, previousSessionId, nextSessionId, summaries);
     }
 
-    // ---------- search ----------
-    public List<ConsoleEvent> searchConsole(String recordId, String query, int limit) {
-        if (query == null || query.isBlank()) return new ArrayList<>();
-        PageRequest pr = PageRequest.of(0, Math.min(limit, 500));
-        List<ConsoleEventEntity> rows = consoleRepo.search(recordId, query, pr);
-        List<ConsoleEvent> out = new ArrayList<>();
-        for (ConsoleEventEntity e : rows) {
-            out.add(new ConsoleEvent(e.getEventId(), e.getRecordId(), "console", e.getLevel(), e.getMessage(), e.getStack(), e.getTs(), e.getSeq()));
+    // ---------- record chain ----------
+    /** The record's whole previousRecordId chain with per-record counters; null for unknown records. */
+    public RecordChainResponse getRecordChain(String recordId) {
+        List<RecordWithCounters> rows = recordChains.chainOf(recordId);
+        if (rows.isEmpty()) return null;
+
+        List<RecordChainResponse.ChainRecord> out = new ArrayList<>(rows.size());
+        for (RecordWithCounters row : rows) {
+            RecordEntity r = row.getRecord();
+            RecordCountersEntity c = row.getCounters();
+            out.add(new RecordChainResponse.ChainRecord(
+                    r.getRecordId(), r.getSessionId(), r.getPreviousRecordId(), r.getPageUrl(), r.getCreatedAtEpochMs(),
+                    c == null ? null : c.getFirstEventTs(),
+                    c == null ? null : c.getLastEventTs(),
+                    c == null ? 0 : c.getConsoleErrorCount(),
+                    c == null ? 0 : c.getNetwork4xxCount() + c.getNetwork5xxCount(),
+                    c == null ? 0 : c.getConsoleCount() + c.getNetworkCount() + c.getBreadcrumbCount() + c.getRrwebCount()));
         }
+        String chainId = rows.get(0).getRecord().getChainId();
+        return new RecordChainResponse(chainId == null ? recordId : chainId, recordId,
+                rows.size() >= recordChains.getMaxRecords(), out);
+    }
+
+    // ---------- issues ----------
+    private static final int ISSUE_RECENT_EVENTS = 20;
+
+    /**
+     * Issues seen within [fromTs, toTs] (either bound optional), latest first or, with byCount,
+     * most frequent first. Reads rr_issue only.
+     */
+    public List<Issue> listIssues(String query, String level, Long fromTs, Long toTs, boolean byCount, int limit) {
+        int safeLimit = Math.max(1, Math.min(limit, 500));
+        long from = fromTs == null ? Long.MIN_VALUE : fromTs;
+        long to = toTs == null ? Long.MAX_VALUE : toTs;
+        String q = query == null ? "" : query.trim().toLowerCase();
+        String lv = level == null ? "" : level.trim().toLowerCase();
+        PageRequest pr = PageRequest.of(0, safeLimit);
+        List<IssueEntity> rows = byCount
+                ? issueRepo.findMostFrequent(from, to, lv, q, pr)
+                : issueRepo.findRecent(from, to, lv, q, pr);
+        List<Issue> out = new ArrayList<>(rows.size());
+        for (IssueEntity i : rows) out.add(toIssue(i));
         return out;
     }
 
-    public List<NetworkEvent> searchNetwork(String recordId, String query, int limit) {
-        if (query == null || query.isBlank()) return new ArrayList<>();
-        PageRequest pr = PageRequest.of(0, Math.min(limit, 500));
-        List<NetworkEventEntity> rows = networkRepo.search(recordId, query, pr);
-        List<NetworkEvent> out = new ArrayList<>();
-        for (NetworkEventEntity e : rows) {
-            out.add(toModel(e));
+    /** The issue with its affected records seen within [fromTs, toTs]; null for unknown fingerprints. */
+    public IssueDetailResponse getIssue(String fingerprint, Long fromTs, Long toTs, int limit) {
+        IssueEntity i = issueRepo.findById(fingerprint).orElse(null);
+        if (i == null) return null;
+        int safeLimit = Math.max(1, Math.min(limit, 500));
+        long from = fromTs == null ? Long.MIN_VALUE : fromTs;
+        long to = toTs == null ? Long.MAX_VALUE : toTs;
+
+        List<IssueDetailResponse.AffectedRecord> records = new ArrayList<>();
+        for (IssueRecordEntity r : issueRecordRepo.findByFingerprint(fingerprint, from, to, PageRequest.of(0, safeLimit))) {
+            records.add(new IssueDetailResponse.AffectedRecord(r.getRecordId(), r.getSessionId(), r.getUserId(),
+                    r.getEventCount(), r.getFirstSeenTs(), r.getLastSeenTs()));
         }
-        return out;
+        List<ConsoleEvent> events = new ArrayList<>();
+        for (ConsoleEventEntity e : consoleRepo.findLatestByFingerprint(fingerprint, PageRequest.of(0, ISSUE_RECENT_EVENTS))) {
+            events.add(new ConsoleEvent(e.getEventId(), e.getRecordId(), "console", e.getLevel(), e.getMessage(), e.getStack(), e.getTs(), e.getSeq()));
+        }
+        return new IssueDetailResponse(toIssue(i), i.getSampleStack(), records, events);
     }
 
-    public List<BreadcrumbEvent> searchBreadcrumbs(String recordId, String query, int limit) {
-        if (query == null || query.isBlank()) return new ArrayList<>();
-        PageRequest pr = PageRequest.of(0, Math.min(limit, 500));
-        List<BreadcrumbEventEntity> rows = breadcrumbRepo.search(recordId, query, pr);
-        List<BreadcrumbEvent> out = new ArrayList<>();
-        for (BreadcrumbEventEntity e : rows) {
-            out.add(new BreadcrumbEvent(e.getEventId(), e.getRecordId(), "breadcrumb",
-                    e.getName(), e.getMessage(), fromJsonMap(e.getDataJson()), e.getTs(), e.getSeq()));
+    private static Issue toIssue(IssueEntity i) {
+        return new Issue(i.getFingerprint(), i.getLevel(), i.getTitle(), i.getSampleMessage(),
+                i.getEventCount(), i.getRecordCount(), i.getUserCount(),
+                i.getFirstSeenTs(), i.getLastSeenTs(), i.getLastRecordId());
+    }
+
+    // ---------- search ----------
+    private static final String[] CONSOLE_SEARCH_FIELDS = {"message", "stack"};
+    private static final String[] NETWORK_SEARCH_FIELDS = {"url", "method"};
+    private static final String[] BREADCRUMB_SEARCH_FIELDS = {"message", "name"};
+    private static final double[] SEARCH_FIELD_WEIGHTS = {2.0, 1.0};
+    private static final int SEARCH_LOAD_CHUNK = 200;
+
+    public SearchResponse<ConsoleEvent> searchConsole(String recordId, String query, int limit, boolean byRelevance) {
+        return search(recordId, SearchIndex.KIND_CONSOLE, query, limit, byRelevance, CONSOLE_SEARCH_FIELDS,
+                ids -> consoleRepo.findByIds(recordId, ids),
+                pr -> consoleRepo.search(recordId, query, pr),
+                e -> new String[]{e.getMessage(), e.getStack()},
+                ConsoleEventEntity::getTs, ConsoleEventEntity::getSeq,
+                rows -> {
+                    List<ConsoleEvent> out = new ArrayList<>();
+                    for (ConsoleEventEntity e : rows) {
+                        out.add(new ConsoleEvent(e.getEventId(), e.getRecordId(), "console", e.getLevel(), e.getMessage(), e.getStack(), e.getTs(), e.getSeq()));
+                    }
+                    return out;
+                });
+    }
+
+    public SearchResponse<NetworkEvent> searchNetwork(String recordId, String query, int limit, boolean byRelevance, boolean withHeaders) {
+        return search(recordId, SearchIndex.KIND_NETWORK, query, limit, byRelevance, NETWORK_SEARCH_FIELDS,
+                ids -> networkRepo.findByIds(recordId, ids),
+                pr -> networkRepo.search(recordId, query, pr),
+                e -> new String[]{e.getUrl(), e.getMethod()},
+                NetworkEventSummary::getStartedAtEpochMs, NetworkEventSummary::getSeq,
+                rows -> toModels(rows, withHeaders));
+    }
+
+    public SearchResponse<BreadcrumbEvent> searchBreadcrumbs(String recordId, String query, int limit, boolean byRelevance) {
+        return search(recordId, SearchIndex.KIND_BREADCRUMB, query, limit, byRelevance, BREADCRUMB_SEARCH_FIELDS,
+                ids -> breadcrumbRepo.findByIds(recordId, ids),
+                pr -> breadcrumbRepo.search(recordId, query, pr),
+                e -> new String[]{e.getMessage(), e.getName()},
+                BreadcrumbEventEntity::getTs, BreadcrumbEventEntity::getSeq,
+                rows -> {
+                    List<BreadcrumbEvent> out = new ArrayList<>();
+                    for (BreadcrumbEventEntity e : rows) {
+                        out.add(new BreadcrumbEvent(e.getEventId(), e.getRecordId(), "breadcrumb",
+                                e.getName(), e.getMessage(), fromJsonMap(e.getDataJson()), e.getTs(), e.getSeq()));
+                    }
+                    return out;
+                });
+    }
+
+    /**
+     * Search flow shared by the event kinds. Candidates come from the trigram index and are all
+     * checked against the text (ingest order is not event time, so order=recent cannot stop
+     * early). When the index cannot answer (short or very common query, record not indexed), the
+     * LIKE scan is used instead. Hits are then scored, ordered and cut to limit.
+     */
+    private <R, M> SearchResponse<M> search(String recordId, int kind, String query, int limit, boolean byRelevance,
+                                           String[] fieldNames,
+                                           Function<List<Long>, List<R>> byIds,
+                                           Function<PageRequest, List<R>> scan,
+                                           Function<R, String[]> fields,
+                                           ToLongFunction<R> ts, ToLongFunction<R> seq,
+                                           Function<List<R>, List<M>> toModels) {
+        String order = byRelevance ? "relevance" : "recent";
+        if (query == null || query.isBlank()) return new SearchResponse<>(query, order, false, false, new ArrayList<>());
+        int safeLimit = Math.max(1, Math.min(limit, 500));
+
+        List<R> matched = new ArrayList<>();
+        Map<R, SearchIndex.Match> matches = new IdentityHashMap<>();
+        SearchIndex.Candidates candidates = searchIndex.candidates(recordId, kind, query);
+        boolean truncated;
+        if (candidates != null) {
+            List<Long> ids = candidates.getIds();
+            for (int from = 0; from < ids.size(); from += SEARCH_LOAD_CHUNK) {
+                for (R r : byIds.apply(ids.subList(from, Math.min(ids.size(), from + SEARCH_LOAD_CHUNK)))) {
+                    SearchIndex.Match m = SearchIndex.match(query, fieldNames, fields.apply(r), SEARCH_FIELD_WEIGHTS);
+                    if (m == null) continue;
+                    matched.add(r);
+                    matches.put(r, m);
+                }
+            }
+            truncated = candidates.isTruncated();
+        } else {
+            int scanLimit = byRelevance ? searchIndex.getMaxCandidates() : safeLimit;
+            for (R r : scan.apply(PageRequest.of(0, scanLimit))) {
+                matched.add(r);
+                // null when only the LIKE wildcards (% _) made it match
+                matches.put(r, SearchIndex.match(query, fieldNames, fields.apply(r), SEARCH_FIELD_WEIGHTS));
+            }
+            truncated = byRelevance && matched.size() >= scanLimit;
         }
-        return out;
+
+        Comparator<R> recent = Comparator.comparingLong(ts).thenComparingLong(seq).reversed();
+        if (byRelevance) {
+            Comparator<R> byScore = Comparator.comparingDouble(r -> matches.get(r) == null ? 0 : matches.get(r).getScore());
+            matched.sort(byScore.reversed().thenComparing(recent));
+        } else {
+            matched.sort(recent);
+        }
+        if (matched.size() > safeLimit) matched = matched.subList(0, safeLimit);
+
+        List<M> models = toModels.apply(matched);
+        List<SearchResponse.Hit<M>> hits = new ArrayList<>(models.size());
+        for (int i = 0; i < models.size(); i++) {
+            SearchIndex.Match m = matches.get(matched.get(i));
+            hits.add(new SearchResponse.Hit<>(models.get(i), m == null ? 0 : m.getScore(),
+                    m == null ? new ArrayList<>() : m.getHighlights()));
+        }
+        return new SearchResponse<>(query, order, candidates != null, truncated, hits);
     }
 
     // ---------- admin overview ----------
     public AdminOverviewResponse getAdminOverview(String query, boolean errorsOnly, Long fromTs, Long toTs, int limit) {
         int safeLimit = Math.max(1, Math.min(limit, 500));
-        List<RecordEntity> recent = recordRepository.findLatest(PageRequest.of(0, safeLimit));
+        List<RecordWithCounters> recent = recordRepository.findLatestWithCounters(PageRequest.of(0, safeLimit));
 
         String q = (query == null) ? "" : query.trim().toLowerCase();
         if (!q.isBlank()) {
-            List<RecordEntity> filtered = new ArrayList<>();
-            for (RecordEntity r : recent) {
+            List<RecordWithCounters> filtered = new ArrayList<>();
+            for (RecordWithCounters rc : recent) {
+                RecordEntity r = rc.getRecord();
                 if (containsAny(r.getRecordId(), q) ||
                         containsAny(r.getSessionId(), q) ||
                         containsAny(r.getPageUrl(), q) ||
@@ -693,25 +1283,23 @@ public class RecordroomService {
                         containsAny(r.getDeviceInfo(), q) ||
                         containsAny(r.getUserId(), q) ||
                         containsAny(r.getUserEmail(), q)) {
-                    filtered.add(r);
+                    filtered.add(rc);
                 }
             }
             recent = filtered;
         }
 
         List<AdminOverviewResponse.RecordRow> rows = new ArrayList<>();
-        for (RecordEntity r : recent) {
-            long consoleErr = consoleRepo.countErrors(r.getRecordId());
-            long netErr = networkRepo.countHttpErrors(r.getRecordId());
-            long netSlow = networkRepo.countSlow(r.getRecordId());
+        for (RecordWithCounters rc : recent) {
+            RecordEntity r = rc.getRecord();
+            RecordCountersEntity c = rc.getCounters(); // null: no events yet
+            long consoleErr = (c == null) ? 0 : c.getConsoleErrorCount();
+            long netErr = (c == null) ? 0 : c.getNetwork4xxCount() + c.getNetwork5xxCount();
+            long netSlow = (c == null) ? 0 : c.getNetworkSlowCount();
 
             if (errorsOnly && (consoleErr + netErr) <= 0) continue;
 
-            long bytes = 0;
-            bytes += consoleRepo.sumApproxBytesByRecordId(r.getRecordId());
-            bytes += networkRepo.sumApproxBytesByRecordId(r.getRecordId());
-            bytes += breadcrumbRepo.sumApproxBytesByRecordId(r.getRecordId());
-            bytes += rrwebRepo.sumApproxBytesByRecordId(r.getRecordId());
+            long bytes = (c == null) ? 0 : c.getTotalBytes();
 
             rows.add(new AdminOverviewResponse.RecordRow(
                     r.getRecordId(),
@@ -733,15 +1321,16 @@ public class RecordroomService {
 
         long recordCount = recordRepository.count();
         long sessionCount = recordRepository.countDistinctSessionIds();
-        long consoleCount = consoleRepo.countInRange(fromTs, toTs);
-        long networkCount = networkRepo.countInRange(fromTs, toTs);
-        long breadcrumbCount = breadcrumbRepo.countInRange(fromTs, toTs);
-        long rrwebCount = rrwebRepo.countInRange(fromTs, toTs);
-
-        long consoleBytes = consoleRepo.sumApproxBytesInRange(fromTs, toTs);
-        long networkBytes = networkRepo.sumApproxBytesInRange(fromTs, toTs);
-        long breadcrumbBytes = breadcrumbRepo.sumApproxBytesInRange(fromTs, toTs);
-        long rrwebBytes = rrwebRepo.sumApproxBytesInRange(fromTs, toTs);
+        // whole history: the counters already hold the sums; a range sums minute/hour rollup buckets
+        RecordCounters.Delta all = (fromTs == null && toTs == null) ? recordCounters.totals() : eventRollups.sum(fromTs, toTs);
+        long consoleCount = all.getConsoleCount();
+        long networkCount = all.getNetworkCount();
+        long breadcrumbCount = all.getBreadcrumbCount();
+        long rrwebCount = all.getRrwebCount();
+        long consoleBytes = all.getConsoleBytes();
+        long networkBytes = all.getNetworkBytes();
+        long breadcrumbBytes = all.getBreadcrumbBytes();
+        long rrwebBytes = all.getRrwebBytes();
 
         AdminOverviewResponse.Totals totals = new AdminOverviewResponse.Totals(
                 recordCount, sessionCount, consoleCount, networkCount, breadcrumbCount, rrwebCount
@@ -752,8 +1341,8 @@ public class RecordroomService {
 
         // domain stats from recent network events (bounded)
         Map<String, long[]> domainAgg = new HashMap<>(); // [0]=count, [1]=bytes
-        List<NetworkEventEntity> netRecent = networkRepo.findRecentInRange(fromTs, toTs, PageRequest.of(0, 5000));
-        for (NetworkEventEntity e : netRecent) {
+        List<NetworkEventSummary> netRecent = networkRepo.findRecentInRange(fromTs, toTs, PageRequest.of(0, 5000));
+        for (NetworkEventSummary e : netRecent) {
             String host = extractHost(e.getUrl());
             if (host == null || host.isBlank()) host = "(unknown)";
             long approx = approxNetworkEventBytes(e);
@@ -774,6 +1363,41 @@ public class RecordroomService {
         return new AdminOverviewResponse(totals, storage, domainStats, segments, rows);
     }
 
+    // ---------- admin series ----------
+    private static final int SERIES_MAX_POINTS = 1440;
+    private static final long SERIES_DEFAULT_SPAN_MS = 24 * EventRollups.HOUR_MS;
+
+    /**
+     * Per-bucket counts for charts. toTs defaults to now and fromTs to a day before it; bucketMs
+     * null picks minutes when they fit in SERIES_MAX_POINTS, else hours. Longer ranges keep their
+     * latest SERIES_MAX_POINTS buckets.
+     */
+    public AdminSeriesResponse getAdminSeries(Long fromTs, Long toTs, Long bucketMs) {
+        long to = toTs == null ? System.currentTimeMillis() : toTs;
+        long from = Math.min(to, fromTs == null ? to - SERIES_DEFAULT_SPAN_MS : fromTs);
+        long size = bucketMs != null ? bucketMs
+                : (to - from) / EventRollups.MINUTE_MS < SERIES_MAX_POINTS ? EventRollups.MINUTE_MS : EventRollups.HOUR_MS;
+
+        long last = EventRollups.bucketStart(to, size);
+        long first = Math.max(EventRollups.bucketStart(from, size), last - (SERIES_MAX_POINTS - 1) * size);
+        SortedMap<Long, RecordCounters.Delta> buckets = eventRollups.buckets(size, first, last);
+
+        List<AdminSeriesResponse.Point> points = new ArrayList<>();
+        for (long start = first; start <= last; start += size) {
+            RecordCounters.Delta d = buckets.get(start);
+            if (d == null) {
+                points.add(new AdminSeriesResponse.Point(start, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+                continue;
+            }
+            points.add(new AdminSeriesResponse.Point(start,
+                    d.getConsoleCount(), d.getConsoleErrorCount(), d.getConsoleWarnCount(),
+                    d.getNetworkCount(), d.getNetwork4xxCount(), d.getNetwork5xxCount(), d.getNetworkSlowCount(),
+                    d.getBreadcrumbCount(), d.getRrwebCount(),
+                    d.getConsoleBytes() + d.getNetworkBytes() + d.getBreadcrumbBytes() + d.getRrwebBytes()));
+        }
+        return new AdminSeriesResponse(size, first, last, points);
+    }
+
     private boolean containsAny(String hay, String needleLower) {
         if (needleLower == null || needleLower.isBlank()) return true;
         if (hay == null) return false;
@@ -791,15 +1415,14 @@ public class RecordroomService {
         return "";
     }
 
-    private long approxNetworkEventBytes(NetworkEventEntity e) {
+    private long approxNetworkEventBytes(NetworkEventSummary e) {
         long v = 0;
         v += safeLen(e.getMethod());
         v += safeLen(e.getUrl());
         v += safeLen(e.getClientRequestId());
-        v += safeLen(e.getRequestHeadersJson());
-        v += safeLen(e.getRequestBody());
-        v += safeLen(e.getResponseHeadersJson());
-        v += safeLen(e.getResponseBody());
+        v += sizeOrZero(e.getHeadersBytes());
+        v += sizeOrZero(e.getRequestBodySize());
+        v += sizeOrZero(e.getResponseBodySize());
         v += safeLen(e.getError());
         return v;
     }
@@ -808,6 +1431,14 @@ public class RecordroomService {
         return (s == null) ? 0 : s.length();
     }
 
+    private static int binLen(byte[] b) {
+        return (b == null) ? 0 : b.length;
+    }
+
+    private static long sizeOrZero(Long size) {
+        return (size == null) ? 0 : size;
+    }
+
     // ---------- segments (QA) ----------
     private AdminOverviewResponse.Segments buildSegments(List<AdminOverviewResponse.RecordRow> rows) {
         Map<String, Long> browsers = new HashMap<>();
@@ -819,10 +1450,10 @@ public class RecordroomService {
             String ua = r.getUserAgent() == null ? "" : r.getUserAgent();
             String di = r.getDeviceInfo() == null ? "" : r.getDeviceInfo();
 
-            inc(browsers, guessBrowser(ua));
-            inc(oses, guessOs(ua));
-            inc(platforms, extractDeviceInfoField(di, "platform"));
-            inc(langs, extractDeviceInfoField(di, "lang"));
+            inc(browsers, RecordMeta.guessBrowser(ua));
+            inc(oses, RecordMeta.guessOs(ua));
+            inc(platforms, RecordMeta.extractDeviceInfoField(di, "platform"));
+            inc(langs, RecordMeta.extractDeviceInfoField(di, "lang"));
         }
 
         return new AdminOverviewResponse.Segments(
@@ -848,38 +1479,4 @@ public class RecordroomService {
         }
         return out;
     }
-
-    private String extractDeviceInfoField(String deviceInfo, String key) {
-        if (deviceInfo == null || deviceInfo.isBlank() || key == null) return "";
-        // format: "platform=... | lang=... | screen=... | dpr=..."
-        String[] parts = deviceInfo.split("\\s*\\|\\s*");
-        for (String p : parts) {
-            int idx = p.indexOf('=');
-            if (idx <= 0) continue;
-            String k = p.substring(0, idx).trim();
-            if (!key.equalsIgnoreCase(k)) continue;
-            return p.substring(idx + 1).trim();
-        }
-        return "";
-    }
-
-    private String guessBrowser(String ua) {
-        if (ua == null) return "unknown";
-        if (ua.contains("Edg/")) return "Edge";
-        if (ua.contains("OPR/") || ua.contains("Opera")) return "Opera";
-        if (ua.contains("Firefox/")) return "Firefox";
-        if (ua.contains("Chrome/")) return "Chrome";
-        if (ua.contains("Safari/")) return "Safari";
-        return "unknown";
-    }
-
-    private String guessOs(String ua) {
-        if (ua == null) return "unknown";
-        if (ua.contains("Android")) return "Android";
-        if (ua.contains("iPhone") || ua.contains("iPad") || ua.contains("iPod")) return "iOS";
-        if (ua.contains("Windows")) return "Windows";
-        if (ua.contains("Mac OS X") || ua.contains("Macintosh")) return "macOS";
-        if (ua.contains("Linux")) return "Linux";
-        return "unknown";
-    }
-}
\ No newline at end of file
+}
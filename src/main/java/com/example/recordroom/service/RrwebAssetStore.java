@@ -0,0 +1,143 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.RrwebAssetEntity;
+import com.example.recordroom.persistence.RrwebAssetRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content-addressed store for the large strings inside rrweb payloads.
+ *
+ * Full snapshots (and mutations adding nodes) inline whole stylesheets, fonts and base64 images,
+ * and the same ones come back in every snapshot of every record of an app. On write, any JSON
+ * string value of at least min-bytes is replaced by "rr-asset://sha256/<hash>" and the value is
+ * stored once in rr_rrweb_asset. On read the references are put back ({@link #rehydrate}), or
+ * left for the client to fetch from the immutable asset endpoint.
+ *
+ * Recently used contents are kept in a byte-bounded LRU, so a popular stylesheet is read from
+ * the database once rather than per replay.
+ */
+@Component
+public class RrwebAssetStore {
+
+    public static final String REF_PREFIX = "rr-asset://sha256/";
+    private static final int HASH_CHARS = 64;
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final RrwebAssetRepository assetRepo;
+    private final JdbcTemplate jdbc;
+    private final boolean enabled;
+    private final int minBytes;
+    private final ContentCache cache;
+
+    public RrwebAssetStore(RrwebAssetRepository assetRepo,
+                           JdbcTemplate jdbc,
+                           @Value("${recordroom.rrweb.assets.enabled:true}") boolean enabled,
+                           @Value("${recordroom.rrweb.assets.min-bytes:2048}") int minBytes,
+                           @Value("${recordroom.rrweb.assets.cache-max-bytes:33554432}") long cacheMaxBytes) {
+        this.assetRepo = assetRepo;
+        this.jdbc = jdbc;
+        this.enabled = enabled;
+        this.minBytes = Math.max(REF_PREFIX.length() + HASH_CHARS + 1, minBytes);
+        this.cache = new ContentCache(cacheMaxBytes);
+    }
+
+    /**
+     * Stores every string value of at least min-bytes and returns the payload with references
+     * in their place. Runs inside the caller's transaction, so assets roll back with the events.
+     * Payloads that cannot hold such a string are returned as they are without being parsed.
+     */
+    public String extract(String payloadJson) {
+        if (!enabled || payloadJson == null || payloadJson.length() < minBytes) return payloadJson;
+
+        StringWriter w = new StringWriter(payloadJson.length() / 2);
+        boolean replaced = false;
+        try (JsonParser p = jsonFactory.createParser(payloadJson);
+             JsonGenerator g = jsonFactory.createGenerator(w)) {
+            while (p.nextToken() != null) {
+                if (p.currentToken() == JsonToken.VALUE_STRING && p.getTextLength() >= minBytes) {
+                    String value = p.getText();
+                    String hash = sha256(value);
+                    save(hash, value);
+                    g.writeString(REF_PREFIX + hash);
+                    replaced = true;
+                } else {
+                    g.copyCurrentEvent(p);
+                }
+            }
+        } catch (IOException e) {
+            return payloadJson; // not JSON we can walk; keep it inline
+        }
+        return replaced ? w.toString() : payloadJson;
+    }
+
+    /** Puts referenced contents back. Unknown references are left as they are. */
+    public String rehydrate(String payloadJson) {
+        if (payloadJson == null || !payloadJson.contains(REF_PREFIX)) return payloadJson;
+
+        StringWriter w = new StringWriter(payloadJson.length() * 4);
+        try (JsonParser p = jsonFactory.createParser(payloadJson);
+             JsonGenerator g = jsonFactory.createGenerator(w)) {
+            while (p.nextToken() != null) {
+                String content = null;
+                if (p.currentToken() == JsonToken.VALUE_STRING && p.getTextLength() == REF_PREFIX.length() + HASH_CHARS) {
+                    String text = p.getText();
+                    if (text.startsWith(REF_PREFIX)) content = get(text.substring(REF_PREFIX.length()));
+                }
+                if (content != null) g.writeString(content);
+                else g.copyCurrentEvent(p);
+            }
+        } catch (IOException e) {
+            return payloadJson;
+        }
+        return w.toString();
+    }
+
+    /** Asset content by hash, or null. */
+    public String get(String hash) {
+        if (hash == null || hash.length() != HASH_CHARS) return null;
+        String hit = cache.get(hash);
+        if (hit != null) return hit;
+        String content = assetRepo.findById(hash).map(RrwebAssetEntity::getContent).orElse(null);
+        if (content != null) cache.put(hash, content);
+        return content;
+    }
+
+    private void save(String hash, String content) {
+        if (cache.contains(hash)) return;
+        if (assetRepo.existsById(hash)) return;
+        // MERGE ... KEY: a concurrent insert of the same hash (same content) is a no-op instead of a key violation
+        jdbc.update("merge into rr_rrweb_asset (hash, size_bytes, created_at_epoch_ms, content) key (hash) values (?, ?, ?, ?)",
+                hash, (long) content.getBytes(StandardCharsets.UTF_8).length, System.currentTimeMillis(), content);
+        // not cached here: the transaction may still roll back
+    }
+
+    static String sha256(String value) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JRE ships SHA-256
+        }
+        byte[] digest = md.digest(value.getBytes(StandardCharsets.UTF_8));
+        char[] out = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            out[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+            out[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.recordroom.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+/**
+ * Background pass over rrweb storage, every compact-interval-ms:
+ * - records with no new chunk for compact-idle-ms get their small per-batch chunks merged
+ *   into chunk-target-events sized ones
+ * - rr_rrweb_event rows from before chunked storage are moved into chunks
+ * Each record is handled in its own transaction; a failure is logged and retried next pass.
+ */
+@Component
+public class RrwebChunkCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(RrwebChunkCompactor.class);
+
+    private final RrwebChunkStore store;
+    private final boolean enabled;
+    private final long intervalMs;
+    private final long idleMs;
+    private final int recordsPerPass;
+    private final int legacyRowsPerRecord;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    public RrwebChunkCompactor(RrwebChunkStore store,
+                               @Value("${recordroom.rrweb.compact-enabled:true}") boolean enabled,
+                               @Value("${recordroom.rrweb.compact-interval-ms:60000}") long intervalMs,
+                               @Value("${recordroom.rrweb.compact-idle-ms:300000}") long idleMs,
+                               @Value("${recordroom.rrweb.compact-records-per-pass:20}") int recordsPerPass,
+                               @Value("${recordroom.rrweb.legacy-rows-per-record:5000}") int legacyRowsPerRecord) {
+        this.store = store;
+        this.enabled = enabled;
+        this.intervalMs = Math.max(1000, intervalMs);
+        this.idleMs = Math.max(0, idleMs);
+        this.recordsPerPass = Math.max(1, recordsPerPass);
+        this.legacyRowsPerRecord = Math.max(1, legacyRowsPerRecord);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        worker = new Thread(this::run, "rrweb-compactor");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker == null) return;
+        worker.interrupt();
+        try { worker.join(10_000); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                continue; // stop() clears running
+            }
+            try {
+                runOnce();
+            } catch (Exception e) {
+                log.warn("rrweb compaction pass failed. err={}", e.toString());
+            }
+        }
+    }
+
+    void runOnce() {
+        List<String> toCompact = store.findRecordsToCompact(System.currentTimeMillis() - idleMs, recordsPerPass);
+        for (String recordId : toCompact) {
+            if (!running) return;
+            try {
+                int removed = store.compactRecord(recordId);
+                log.debug("rrweb chunks compacted. recordId={} chunksRemoved={}", recordId, removed);
+            } catch (Exception e) {
+                log.warn("rrweb compaction failed. recordId={} err={}", recordId, e.toString());
+            }
+        }
+
+        List<String> legacy = store.findRecordsWithLegacyRows(recordsPerPass);
+        for (String recordId : legacy) {
+            if (!running) return;
+            try {
+                int moved = store.migrateLegacy(recordId, legacyRowsPerRecord);
+                log.info("legacy rrweb rows moved to chunks. recordId={} rows={}", recordId, moved);
+            } catch (Exception e) {
+                log.warn("legacy rrweb migration failed. recordId={} err={}", recordId, e.toString());
+            }
+        }
+    }
+}
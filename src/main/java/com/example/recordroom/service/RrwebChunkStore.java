@@ -0,0 +1,392 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.RrwebChunkEntity;
+import com.example.recordroom.persistence.RrwebChunkRepository;
+import com.example.recordroom.persistence.RrwebEventEntity;
+import com.example.recordroom.persistence.RrwebEventRepository;
+import com.example.recordroom.persistence.RrwebKeyframeEntity;
+import com.example.recordroom.persistence.RrwebKeyframeRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * rrweb storage: events are kept in rr_rrweb_chunk rows, one compressed blob per SDK batch,
+ * instead of one rr_rrweb_event row (and Lob) per event.
+ *
+ * Blob format ("deflate-v1"): a zlib stream of records {long ts, long seq, int length, byte[length] payload},
+ * the payload being the event JSON as UTF-8, in the order the events were received.
+ *
+ * Rows in rr_rrweb_event written before chunking are still read (merged by ts/seq) until the
+ * compactor has migrated them.
+ *
+ * Every chunk write also indexes its Meta and FullSnapshot events in rr_rrweb_keyframe, which
+ * lets {@link #readAt} start a replay at a snapshot without reading anything before it.
+ *
+ * Large inline strings are moved to {@link RrwebAssetStore} before a chunk is built, so chunks
+ * hold references; pages put them back on output unless the caller asks for references.
+ */
+@Component
+public class RrwebChunkStore {
+
+    static final String ENCODING = "deflate-v1";
+
+    private static final int CHUNK_PAGE = 32;
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final RrwebChunkRepository chunkRepo;
+    private final RrwebEventRepository legacyRepo;
+    private final RrwebKeyframeRepository keyframeRepo;
+    private final RrwebAssetStore assets;
+    private final int targetChunkEvents;
+
+    public RrwebChunkStore(RrwebChunkRepository chunkRepo,
+                           RrwebEventRepository legacyRepo,
+                           RrwebKeyframeRepository keyframeRepo,
+                           RrwebAssetStore assets,
+                           @Value("${recordroom.rrweb.chunk-target-events:1000}") int targetChunkEvents) {
+        this.chunkRepo = chunkRepo;
+        this.legacyRepo = legacyRepo;
+        this.keyframeRepo = keyframeRepo;
+        this.assets = assets;
+        this.targetChunkEvents = Math.max(1, targetChunkEvents);
+    }
+
+    /** One stored rrweb event. payloadJson is the event exactly as received. */
+    public static final class Event {
+        final long ts;
+        final long seq;
+        final String payloadJson;
+
+        public Event(long ts, long seq, String payloadJson) {
+            this.ts = ts;
+            this.seq = seq;
+            this.payloadJson = payloadJson;
+        }
+
+        public long getTs() { return ts; }
+        public long getSeq() { return seq; }
+        public String getPayloadJson() { return payloadJson; }
+
+        boolean isAfter(long afterTs, long afterSeq) {
+            return ts > afterTs || (ts == afterTs && seq > afterSeq);
+        }
+    }
+
+    /** Events of one record that go into one chunk (an SDK batch on ingest). */
+    public static final class Run {
+        final String recordId;
+        final List<Event> events;
+
+        public Run(String recordId, List<Event> events) {
+            this.recordId = recordId;
+            this.events = events;
+        }
+
+        public String getRecordId() { return recordId; }
+        public List<Event> getEvents() { return events; }
+    }
+
+    private static final Comparator<Event> REPLAY_ORDER =
+            Comparator.comparingLong(Event::getTs).thenComparingLong(Event::getSeq);
+
+    /** A page of events in replay order and the cursor for the next page. */
+    public static final class Page {
+        private final List<Event> events;
+        private final String nextAfter;
+        private final UnaryOperator<String> payloadMapper; // applied on output; null = as stored
+
+        Page(List<Event> events, String nextAfter) {
+            this(events, nextAfter, null);
+        }
+
+        private Page(List<Event> events, String nextAfter, UnaryOperator<String> payloadMapper) {
+            this.events = events;
+            this.nextAfter = nextAfter;
+            this.payloadMapper = payloadMapper;
+        }
+
+        public List<Event> getEvents() { return events; }
+        public String getNextAfter() { return nextAfter; }
+
+        /** Writes {"events":[...],"nextAfter":".."} with the stored payloads copied verbatim (no re-parse). */
+        public void writeJson(OutputStream out) throws IOException {
+            try (JsonGenerator g = jsonFactory.createGenerator(out)) {
+                g.writeStartObject();
+                g.writeArrayFieldStart("events");
+                for (Event e : events) {
+                    String payload = (payloadMapper == null) ? e.payloadJson : payloadMapper.apply(e.payloadJson);
+                    g.writeRawValue(payload == null ? "{}" : payload);
+                }
+                g.writeEndArray();
+                g.writeStringField("nextAfter", nextAfter);
+                g.writeEndObject();
+            }
+        }
+    }
+
+    /** Saves one chunk per run, plus its keyframe entries, and returns the chunks. Runs must not be empty. */
+    public List<RrwebChunkEntity> write(List<Run> runs) {
+        if (runs.isEmpty()) return Collections.emptyList();
+        List<List<Event>> contents = new ArrayList<>(runs.size());
+        List<RrwebChunkEntity> chunks = new ArrayList<>(runs.size());
+        for (Run run : runs) {
+            List<Event> events = new ArrayList<>(run.events.size());
+            for (Event e : run.events) events.add(new Event(e.ts, e.seq, assets.extract(e.payloadJson)));
+            contents.add(events);
+            chunks.add(newChunk(run.recordId, events));
+        }
+        chunkRepo.saveAll(chunks);
+
+        // chunk ids come from the sequence, so they are assigned by now
+        List<RrwebKeyframeEntity> keyframes = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i++) {
+            RrwebChunkEntity c = chunks.get(i);
+            for (Event e : contents.get(i)) {
+                int type = eventType(e.payloadJson);
+                if (type == RrwebKeyframeEntity.TYPE_FULL_SNAPSHOT || type == RrwebKeyframeEntity.TYPE_META) {
+                    keyframes.add(new RrwebKeyframeEntity(c.getRecordId(), type, e.ts, e.seq, c.getId()));
+                }
+            }
+        }
+        if (!keyframes.isEmpty()) keyframeRepo.saveAll(keyframes);
+        return chunks;
+    }
+
+    private RrwebChunkEntity newChunk(String recordId, List<Event> events) {
+        long minTs = Long.MAX_VALUE, maxTs = Long.MIN_VALUE;
+        long minSeq = Long.MAX_VALUE, maxSeq = Long.MIN_VALUE;
+        long rawBytes = 0;
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(buf, deflater))) {
+            for (Event e : events) {
+                byte[] payload = (e.payloadJson == null ? "{}" : e.payloadJson).getBytes(StandardCharsets.UTF_8);
+                out.writeLong(e.ts);
+                out.writeLong(e.seq);
+                out.writeInt(payload.length);
+                out.write(payload);
+
+                minTs = Math.min(minTs, e.ts);
+                maxTs = Math.max(maxTs, e.ts);
+                minSeq = Math.min(minSeq, e.seq);
+                maxSeq = Math.max(maxSeq, e.seq);
+                rawBytes += payload.length;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // in-memory stream
+        } finally {
+            deflater.end();
+        }
+
+        return new RrwebChunkEntity(recordId, minTs, maxTs, minSeq, maxSeq, events.size(),
+                rawBytes, ENCODING, buf.toByteArray(), System.currentTimeMillis());
+    }
+
+    public List<Event> decode(RrwebChunkEntity c) {
+        if (!ENCODING.equals(c.getEncoding())) {
+            throw new IllegalStateException("unknown rrweb chunk encoding: " + c.getEncoding());
+        }
+        List<Event> out = new ArrayList<>(c.getEventCount());
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(c.getData())))) {
+            for (int i = 0; i < c.getEventCount(); i++) {
+                long ts = in.readLong();
+                long seq = in.readLong();
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                out.add(new Event(ts, seq, new String(payload, StandardCharsets.UTF_8)));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("corrupt rrweb chunk " + c.getId(), ex);
+        }
+        return out;
+    }
+
+    /**
+     * Up to limit events after (afterTs, afterSeq) in (ts, seq) order.
+     *
+     * Chunks come in minTs order and may overlap (resends, merged batches), so events are collected
+     * until limit is reached and the next chunk starts after the last event that made the cut.
+     */
+    public Page read(String recordId, long afterTs, long afterSeq, int limit) {
+        List<Event> out = new ArrayList<>();
+        for (RrwebEventEntity e : legacyRepo.findAfter(recordId, afterTs, afterSeq, PageRequest.of(0, limit))) {
+            out.add(new Event(e.getTsEpochMs(), e.getSeq(), e.getPayloadJson()));
+        }
+        long cutoffTs = trim(out, limit);
+
+        int page = 0;
+        scan:
+        while (true) {
+            List<RrwebChunkEntity> chunks = chunkRepo.findEndingAtOrAfter(recordId, afterTs, PageRequest.of(page++, CHUNK_PAGE));
+            for (RrwebChunkEntity c : chunks) {
+                if (out.size() >= limit && c.getMinTs() > cutoffTs) break scan;
+                for (Event e : decode(c)) {
+                    if (e.isAfter(afterTs, afterSeq)) out.add(e);
+                }
+                cutoffTs = trim(out, limit);
+            }
+            if (chunks.size() < CHUNK_PAGE) break;
+        }
+
+        out.sort(REPLAY_ORDER);
+        String nextAfter = out.isEmpty()
+                ? afterTs + "_" + afterSeq
+                : out.get(out.size() - 1).ts + "_" + out.get(out.size() - 1).seq;
+        return new Page(out, nextAfter);
+    }
+
+    /** The same page with asset references replaced by their content when written out. */
+    public Page inlineAssets(Page page) {
+        return new Page(page.events, page.nextAfter, assets::rehydrate);
+    }
+
+    /**
+     * Seek: the Meta and FullSnapshot in effect at ts, followed by up to limit events from that
+     * snapshot on. Continue with {@link #read} from nextAfter. Without a snapshot at or before ts
+     * this is a read from the start.
+     */
+    public Page readAt(String recordId, long ts, int limit) {
+        RrwebKeyframeEntity snapshot = latest(recordId, RrwebKeyframeEntity.TYPE_FULL_SNAPSHOT, ts, Long.MAX_VALUE);
+        if (snapshot == null) return read(recordId, 0, 0, limit);
+
+        // the snapshot itself is the first event of the page
+        Page page = read(recordId, snapshot.getTs(), snapshot.getSeq() - 1, limit);
+
+        RrwebKeyframeEntity meta = latest(recordId, RrwebKeyframeEntity.TYPE_META, snapshot.getTs(), snapshot.getSeq());
+        Event metaEvent = (meta == null) ? null : findEvent(meta);
+        if (metaEvent == null) return page;
+
+        List<Event> events = new ArrayList<>(page.events.size() + 1);
+        events.add(metaEvent);
+        events.addAll(page.events);
+        return new Page(events, page.nextAfter);
+    }
+
+    private RrwebKeyframeEntity latest(String recordId, int type, long ts, long seq) {
+        List<RrwebKeyframeEntity> found = keyframeRepo.findLatestAtOrBefore(recordId, type, ts, seq, PageRequest.of(0, 1));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private Event findEvent(RrwebKeyframeEntity k) {
+        RrwebChunkEntity c = chunkRepo.findById(k.getChunkId()).orElse(null);
+        if (c == null) return null; // chunk rewritten since the lookup
+        for (Event e : decode(c)) {
+            if (e.ts == k.getTs() && e.seq == k.getSeq()) return e;
+        }
+        return null;
+    }
+
+    /** The top-level "type" of an rrweb event, or -1. rrweb writes it first, so this rarely scans further. */
+    static int eventType(String payloadJson) {
+        if (payloadJson == null) return -1;
+        try (JsonParser p = jsonFactory.createParser(payloadJson)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return -1;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                if ("type".equals(field)) return (t == JsonToken.VALUE_NUMBER_INT) ? p.getIntValue() : -1;
+                p.skipChildren();
+            }
+        } catch (IOException ignored) {
+            // not JSON; not a keyframe
+        }
+        return -1;
+    }
+
+    // keeps the first limit events in replay order; returns the ts of the last one kept once full
+    private static long trim(List<Event> events, int limit) {
+        if (events.size() < limit) return Long.MAX_VALUE;
+        events.sort(REPLAY_ORDER);
+        events.subList(limit, events.size()).clear();
+        return events.get(limit - 1).ts;
+    }
+
+    /** Seeds ingest dedup: stored seqs of the record above (highest - window), chunked and legacy. */
+    public List<Long> recentSeqs(String recordId, int window) {
+        Long chunkMax = chunkRepo.findMaxSeq(recordId);
+        Long legacyMax = legacyRepo.findMaxDedupSeq(recordId);
+        if (chunkMax == null && legacyMax == null) return Collections.emptyList();
+
+        long max = Math.max(chunkMax == null ? 0 : chunkMax, legacyMax == null ? 0 : legacyMax);
+        long floor = max - window;
+        List<Long> out = new ArrayList<>(legacyRepo.findDedupSeqsAbove(recordId, floor));
+        for (RrwebChunkEntity c : chunkRepo.findWithSeqAbove(recordId, floor)) {
+            for (Event e : decode(c)) {
+                if (e.seq > floor) out.add(e.seq);
+            }
+        }
+        return out;
+    }
+
+    // ---------- compaction ----------
+
+    public List<String> findRecordsToCompact(long idleBeforeEpochMs, int maxRecords) {
+        return chunkRepo.findRecordsToCompact(idleBeforeEpochMs, targetChunkEvents, PageRequest.of(0, maxRecords));
+    }
+
+    public List<String> findRecordsWithLegacyRows(int maxRecords) {
+        return legacyRepo.findRecordIds(PageRequest.of(0, maxRecords));
+    }
+
+    /**
+     * Rewrites the record's chunks under the target size as target-sized chunks in replay order;
+     * full chunks are left alone. Returns the chunk count removed.
+     */
+    @Transactional
+    public int compactRecord(String recordId) {
+        List<RrwebChunkEntity> chunks = chunkRepo.findSmallForRecord(recordId, targetChunkEvents);
+        if (chunks.size() < 2) return 0;
+
+        List<Event> events = new ArrayList<>();
+        for (RrwebChunkEntity c : chunks) events.addAll(decode(c));
+        events.sort(REPLAY_ORDER);
+
+        List<Run> merged = split(recordId, events);
+        List<Long> chunkIds = new ArrayList<>(chunks.size());
+        for (RrwebChunkEntity c : chunks) chunkIds.add(c.getId());
+        chunkRepo.deleteAll(chunks);
+        // only the merged chunks' entries: chunks committed meanwhile keep theirs
+        keyframeRepo.deleteByChunkIds(recordId, chunkIds);
+        write(merged);
+        return chunks.size() - merged.size();
+    }
+
+    /** Moves up to maxRows of a record's rr_rrweb_event rows into chunks. Returns the rows moved. */
+    @Transactional
+    public int migrateLegacy(String recordId, int maxRows) {
+        List<RrwebEventEntity> rows = legacyRepo.findAllForRecord(recordId, PageRequest.of(0, maxRows));
+        if (rows.isEmpty()) return 0;
+
+        List<Event> events = new ArrayList<>(rows.size());
+        for (RrwebEventEntity e : rows) {
+            events.add(new Event(e.getTsEpochMs(), e.getSeq(), e.getPayloadJson()));
+        }
+        write(split(recordId, events));
+        legacyRepo.deleteAll(rows);
+        return rows.size();
+    }
+
+    private List<Run> split(String recordId, List<Event> events) {
+        List<Run> out = new ArrayList<>();
+        for (int from = 0; from < events.size(); from += targetChunkEvents) {
+            int to = Math.min(events.size(), from + targetChunkEvents);
+            out.add(new Run(recordId, events.subList(from, to)));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,433 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.model.SearchResponse;
+import com.example.recordroom.persistence.BreadcrumbEventEntity;
+import com.example.recordroom.persistence.ConsoleEventEntity;
+import com.example.recordroom.persistence.NetworkEventEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * Trigram index over the searchable text of console, network and breadcrumb events
+ * (rr_search_posting, one posting list per record, kind and trigram).
+ *
+ * Text is case-folded per char; every run of three chars is a gram. An event containing the
+ * query contains all of the query's grams, so intersecting their posting lists gives a superset
+ * of the matches, which the caller then checks against the real text. Queries shorter than three
+ * chars, and queries whose every gram is too common (its list was dropped at max-posting-bytes),
+ * are not answered here; callers fall back to the LIKE scan.
+ *
+ * Each ingest batch appends one chunk per posting (varint id count, first id, deltas) with a
+ * single batched update. Text past max-indexed-chars is not indexed; such events are listed
+ * under a separate overflow gram and always checked.
+ *
+ * A record is searchable through the index once its marker row exists: written when the record
+ * is created, or by the startup backfill after indexing the events of an older record.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    public static final int KIND_CONSOLE = 1;
+    public static final int KIND_NETWORK = 2;
+    public static final int KIND_BREADCRUMB = 3;
+
+    private static final int KIND_RECORD = 0;
+    private static final long GRAM_OVERFLOW = -1; // events with text cut at max-indexed-chars
+    private static final long GRAM_INDEXED = -2;  // KIND_RECORD marker
+
+    private static final int MAX_POSTING_COLUMN = 1048576;
+    private static final int BACKFILL_PAGE = 500;
+
+    private static final String APPEND_SQL = "update rr_search_posting set ids = "
+            + "case when ids is null or length(ids) + ? > ? then null else ids || ? end "
+            + "where record_id = ? and kind = ? and gram = ?";
+    private static final String INSERT_SQL = "insert into rr_search_posting (record_id, kind, gram, ids) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final boolean enabled;
+    private final int maxIndexedChars;
+    private final int maxPostingBytes;
+    private final int maxCandidates;
+
+    public SearchIndex(JdbcTemplate jdbc,
+                       @Value("${recordroom.search-index.enabled:true}") boolean enabled,
+                       @Value("${recordroom.search-index.max-indexed-chars:4096}") int maxIndexedChars,
+                       @Value("${recordroom.search-index.max-posting-bytes:262144}") int maxPostingBytes,
+                       @Value("${recordroom.search-index.max-candidates:5000}") int maxCandidates) {
+        this.jdbc = jdbc;
+        this.enabled = enabled;
+        this.maxIndexedChars = Math.max(3, maxIndexedChars);
+        this.maxPostingBytes = Math.max(16, Math.min(MAX_POSTING_COLUMN, maxPostingBytes));
+        this.maxCandidates = Math.max(1, maxCandidates);
+    }
+
+    public int getMaxCandidates() { return maxCandidates; }
+
+    // ---------- ingest ----------
+
+    /**
+     * Postings of one ingest batch. Event ids must be assigned (rows saved) before adding. Sorted
+     * by key so every writer locks posting rows in the same order.
+     */
+    public static final class Batch {
+        private final SortedMap<Key, List<Long>> postings = new TreeMap<>();
+        private final int maxChars;
+
+        private Batch(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        public void console(ConsoleEventEntity e) { add(e.getRecordId(), KIND_CONSOLE, e.getId(), e.getMessage(), e.getStack()); }
+        public void network(NetworkEventEntity e) { add(e.getRecordId(), KIND_NETWORK, e.getId(), e.getUrl(), e.getMethod()); }
+        public void breadcrumb(BreadcrumbEventEntity e) { add(e.getRecordId(), KIND_BREADCRUMB, e.getId(), e.getMessage(), e.getName()); }
+
+        void add(String recordId, int kind, Long id, String... texts) {
+            if (id == null) return;
+            Set<Long> grams = new HashSet<>();
+            boolean cut = false;
+            for (String t : texts) cut |= grams(t, maxChars, grams);
+            if (cut) grams.add(GRAM_OVERFLOW);
+            for (Long g : grams) postings.computeIfAbsent(new Key(recordId, kind, g), k -> new ArrayList<>()).add(id);
+        }
+    }
+
+    public Batch newBatch() {
+        return new Batch(maxIndexedChars);
+    }
+
+    /** Appends the batch to the posting lists; call inside the transaction that wrote its events. */
+    public void flush(Batch batch) {
+        if (!enabled || batch.postings.isEmpty()) return;
+
+        List<Key> keys = new ArrayList<>(batch.postings.keySet());
+        List<byte[]> chunks = new ArrayList<>(keys.size());
+        List<Object[]> appends = new ArrayList<>(keys.size());
+        for (Key k : keys) {
+            byte[] chunk = encodeChunk(batch.postings.get(k));
+            chunks.add(chunk);
+            appends.add(new Object[]{chunk.length, maxPostingBytes, chunk, k.recordId, k.kind, k.gram});
+        }
+        int[] updated = jdbc.batchUpdate(APPEND_SQL, appends);
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Integer> inserted = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (updated[i] > 0) continue;
+            Key k = keys.get(i);
+            byte[] chunk = chunks.get(i);
+            inserts.add(new Object[]{k.recordId, k.kind, k.gram, chunk.length > maxPostingBytes ? null : chunk});
+            inserted.add(i);
+        }
+        if (inserts.isEmpty()) return;
+        try {
+            jdbc.batchUpdate(INSERT_SQL, inserts);
+        } catch (DataIntegrityViolationException e) {
+            // another batch created some of these postings first; go row by row (a repeated id is harmless)
+            for (int i = 0; i < inserts.size(); i++) {
+                try {
+                    jdbc.update(INSERT_SQL, inserts.get(i));
+                } catch (DataIntegrityViolationException dup) {
+                    jdbc.update(APPEND_SQL, appends.get(inserted.get(i)));
+                }
+            }
+        }
+    }
+
+    /** Marks a record whose every event goes through flush (new records) as searchable by index. */
+    public void markIndexed(String recordId) {
+        if (!enabled) return;
+        try {
+            jdbc.update(INSERT_SQL, recordId, KIND_RECORD, GRAM_INDEXED, new byte[0]);
+        } catch (DataIntegrityViolationException e) {
+            // already marked
+        }
+    }
+
+    // ---------- query ----------
+
+    /** Candidate event ids, newest (highest id) first and at most max-candidates. */
+    public static final class Candidates {
+        private final List<Long> ids;
+        private final boolean truncated;
+
+        Candidates(List<Long> ids, boolean truncated) {
+            this.ids = ids;
+            this.truncated = truncated;
+        }
+
+        public List<Long> getIds() { return ids; }
+        public boolean isTruncated() { return truncated; }
+    }
+
+    /** Events of the record and kind that may contain query; null when the index cannot narrow it down. */
+    public Candidates candidates(String recordId, int kind, String query) {
+        if (!enabled || query == null || query.length() < 3) return null;
+
+        Set<Long> grams = new LinkedHashSet<>();
+        grams(query, Integer.MAX_VALUE, grams);
+        List<Object> args = new ArrayList<>();
+        args.add(recordId);
+        args.add(kind);
+        args.addAll(grams);
+        args.add(GRAM_OVERFLOW);
+        args.add(KIND_RECORD);
+        args.add(GRAM_INDEXED);
+
+        Map<Long, byte[]> postings = new HashMap<>(); // value null: dropped as too common
+        boolean[] indexed = {false};
+        jdbc.query("select kind, gram, ids from rr_search_posting where record_id = ? and ((kind = ? and gram in (?"
+                + ", ?".repeat(grams.size()) + ")) or (kind = ? and gram = ?))", rs -> {
+            if (rs.getInt(1) == KIND_RECORD) indexed[0] = true;
+            else postings.put(rs.getLong(2), rs.getBytes(3));
+        }, args.toArray());
+        if (!indexed[0]) return null;
+
+        List<long[]> lists = new ArrayList<>();
+        for (Long g : grams) {
+            if (!postings.containsKey(g)) {
+                lists.clear(); // no event has this gram
+                lists.add(new long[0]);
+                break;
+            }
+            byte[] ids = postings.get(g);
+            if (ids != null) lists.add(decode(ids));
+        }
+        if (lists.isEmpty()) return null;
+
+        lists.sort(Comparator.comparingInt(l -> l.length));
+        long[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) result = intersect(result, lists.get(i));
+        if (postings.containsKey(GRAM_OVERFLOW)) {
+            byte[] cut = postings.get(GRAM_OVERFLOW);
+            if (cut == null) return null; // too many partially indexed events to list
+            result = union(result, decode(cut));
+        }
+
+        int n = Math.min(result.length, maxCandidates);
+        List<Long> newestFirst = new ArrayList<>(n);
+        for (int i = result.length - 1; i >= result.length - n; i--) newestFirst.add(result[i]);
+        return new Candidates(newestFirst, result.length > n);
+    }
+
+    // ---------- matching ----------
+
+    /** How well an event's fields match the query, with the match positions. */
+    public static final class Match {
+        private final double score;
+        private final List<SearchResponse.Highlight> highlights;
+
+        Match(double score, List<SearchResponse.Highlight> highlights) {
+            this.score = score;
+            this.highlights = highlights;
+        }
+
+        public double getScore() { return score; }
+        public List<SearchResponse.Highlight> getHighlights() { return highlights; }
+    }
+
+    private static final int MAX_HIGHLIGHTS_PER_FIELD = 20;
+
+    /**
+     * Case-insensitive substring match of query over the fields (same folding as the index);
+     * null when no field contains it. The score adds, per field, weight * a BM25-style saturating
+     * term frequency normalized by field length, plus a bonus when a match starts a word or the
+     * field is exactly the query.
+     */
+    public static Match match(String query, String[] names, String[] texts, double[] weights) {
+        int q = query.length();
+        double score = 0;
+        List<SearchResponse.Highlight> highlights = new ArrayList<>();
+        for (int f = 0; f < texts.length; f++) {
+            String t = texts[f];
+            if (t == null || t.length() < q) continue;
+            int tf = 0;
+            boolean boundary = false;
+            for (int i = 0; i + q <= t.length(); ) {
+                if (!t.regionMatches(true, i, query, 0, q)) {
+                    i++;
+                    continue;
+                }
+                if (tf < MAX_HIGHLIGHTS_PER_FIELD) highlights.add(new SearchResponse.Highlight(names[f], i, i + q));
+                if (i == 0 || !Character.isLetterOrDigit(t.charAt(i - 1))) boundary = true;
+                tf++;
+                i += Math.max(1, q);
+            }
+            if (tf == 0) continue;
+            double norm = 0.25 + 0.75 * Math.min(t.length(), 4096) / 200.0;
+            score += weights[f] * (tf * 2.2) / (tf + 1.2 * norm);
+            if (boundary) score += 0.3 * weights[f];
+            if (t.length() == q) score += weights[f];
+        }
+        return highlights.isEmpty() ? null : new Match(score, highlights);
+    }
+
+    // ---------- backfill ----------
+
+    @PostConstruct
+    public void backfill() {
+        try {
+            if (!enabled) {
+                // events ingested now are not indexed: drop the markers so that enabling again re-indexes
+                jdbc.update("delete from rr_search_posting where kind = " + KIND_RECORD);
+                return;
+            }
+            List<String> pending = jdbc.queryForList("select r.record_id from rr_record r where not exists "
+                    + "(select 1 from rr_search_posting p where p.record_id = r.record_id and p.kind = " + KIND_RECORD
+                    + " and p.gram = " + GRAM_INDEXED + ")", String.class);
+            for (String recordId : pending) {
+                indexExisting(recordId, KIND_CONSOLE, "select id, message, stack from rr_console_event");
+                indexExisting(recordId, KIND_NETWORK, "select id, url, method from rr_network_event");
+                indexExisting(recordId, KIND_BREADCRUMB, "select id, message, name from rr_breadcrumb_event");
+                markIndexed(recordId);
+            }
+            if (!pending.isEmpty()) log.info("search index backfilled. records={}", pending.size());
+        } catch (Exception e) {
+            log.warn("search index backfill failed; retried on next start. err={}", e.toString());
+        }
+    }
+
+    // select must yield id and the two text columns in the order Batch uses for the kind
+    private void indexExisting(String recordId, int kind, String select) {
+        long after = Long.MIN_VALUE;
+        while (true) {
+            Batch batch = newBatch();
+            long[] last = {after};
+            int[] rows = {0};
+            jdbc.query(select + " where record_id = ? and id > ? order by id limit " + BACKFILL_PAGE, rs -> {
+                last[0] = rs.getLong(1);
+                rows[0]++;
+                batch.add(recordId, kind, last[0], rs.getString(2), rs.getString(3));
+            }, recordId, after);
+            flush(batch);
+            if (rows[0] < BACKFILL_PAGE) return;
+            after = last[0];
+        }
+    }
+
+    // ---------- encoding ----------
+
+    /** Adds the grams of text (up to max chars) to out; true when text was longer than max. */
+    static boolean grams(String text, int max, Set<Long> out) {
+        if (text == null) return false;
+        int n = Math.min(text.length(), max);
+        for (int i = 0; i + 3 <= n; i++) {
+            out.add(((long) fold(text.charAt(i)) << 32) | ((long) fold(text.charAt(i + 1)) << 16) | fold(text.charAt(i + 2)));
+        }
+        return text.length() > max;
+    }
+
+    // the folding String.regionMatches(ignoreCase) applies
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static byte[] encodeChunk(List<Long> ids) {
+        long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 + sorted.length * 2);
+        writeVarint(out, sorted.length);
+        writeVarint(out, sorted[0]);
+        for (int i = 1; i < sorted.length; i++) writeVarint(out, sorted[i] - sorted[i - 1]);
+        return out.toByteArray();
+    }
+
+    /** All ids of a posting list (concatenated chunks), ascending and distinct. */
+    static long[] decode(byte[] data) {
+        long[] out = new long[16];
+        int n = 0;
+        int[] pos = {0};
+        try {
+            while (pos[0] < data.length) {
+                long count = readVarint(data, pos);
+                long id = readVarint(data, pos);
+                for (long i = 0; i < count; i++) {
+                    if (i > 0) id += readVarint(data, pos);
+                    if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                    out[n++] = id;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // truncated chunk; keep what was read
+        }
+        return Arrays.stream(out, 0, n).sorted().distinct().toArray();
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] out = new long[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int n = 0, i = 0, j = 0;
+        while (i < a.length || j < b.length) {
+            long v = (j >= b.length || (i < a.length && a[i] <= b[j])) ? a[i++] : b[j++];
+            if (n == 0 || out[n - 1] != v) out[n++] = v;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos[0]++];
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        final String recordId;
+        final int kind;
+        final long gram;
+
+        Key(String recordId, int kind, long gram) {
+            this.recordId = recordId;
+            this.kind = kind;
+            this.gram = gram;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return kind == k.kind && gram == k.gram && recordId.equals(k.recordId);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(recordId, kind, gram); }
+
+        @Override
+        public int compareTo(Key k) {
+            int c = recordId.compareTo(k.recordId);
+            if (c != 0) return c;
+            c = Integer.compare(kind, k.kind);
+            return c != 0 ? c : Long.compare(gram, k.gram);
+        }
+    }
+}
@@ -89,7 +89,9 @@ public class InMemoryStores {
                     startedAtEpochMs,
                     durationMs,
                     error,
-                    seqFromClient
+                    seqFromClient,
+                    requestBody == null ? null : (long) requestBody.length(),
+                    responseBody == null ? null : (long) responseBody.length()
             );
 
             networkEvents.computeIfAbsent(recordId, k -> Collections.synchronizedList(new ArrayList<>())).add(e);
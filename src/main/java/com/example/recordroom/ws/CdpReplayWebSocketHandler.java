@@ -189,8 +189,10 @@ public class CdpReplayWebSocketHandler extends TextWebSocketHandler {
                 String requestId = params != null && params.has("requestId") ? params.get("requestId").asText() : null;
                 ensureLoaded(st);
 
-                NetworkEvent ne = requestId != null ? st.networkByRequestId.get(requestId) : null;
-                String body = (ne != null && ne.getResponseBody() != null) ? ne.getResponseBody() : "";
+                // bodies are not part of the loaded summaries; read the one asked for
+                String body = requestId != null && st.networkByRequestId.containsKey(requestId)
+                        ? service.getNetworkBody(st.recordId, requestId, true) : null;
+                if (body == null) body = "";
                 Map<String, Object> result = new LinkedHashMap<>();
                 result.put("body", body);
                 result.put("base64Encoded", false);
@@ -202,8 +204,9 @@ public class CdpReplayWebSocketHandler extends TextWebSocketHandler {
                 String requestId = params != null && params.has("requestId") ? params.get("requestId").asText() : null;
                 ensureLoaded(st);
 
-                NetworkEvent ne = requestId != null ? st.networkByRequestId.get(requestId) : null;
-                String postData = (ne != null && ne.getRequestBody() != null) ? ne.getRequestBody() : "";
+                String postData = requestId != null && st.networkByRequestId.containsKey(requestId)
+                        ? service.getNetworkBody(st.recordId, requestId, false) : null;
+                if (postData == null) postData = "";
                 Map<String, Object> result = new LinkedHashMap<>();
                 result.put("postData", postData);
                 reply.accept(result);
@@ -240,11 +243,11 @@ public class CdpReplayWebSocketHandler extends TextWebSocketHandler {
     private void ensureLoaded(State st) {
         if (st.loaded) return;
 
-        // Load all events (paginated) so we can answer getResponseBody and send ordered events.
+        // Load all events (paginated, with headers but without bodies) so we can send ordered events.
         List<NetworkEvent> networks = new ArrayList<>();
         RecordroomService.Cursor nc = new RecordroomService.Cursor(0, 0);
         while (true) {
-            List<NetworkEvent> batch = service.listNetwork(st.recordId, nc, 500, null);
+            List<NetworkEvent> batch = service.listNetwork(st.recordId, nc, 500, null, true);
             if (batch.isEmpty()) break;
             networks.addAll(batch);
             NetworkEvent last = batch.get(batch.size() - 1);
@@ -336,7 +339,7 @@ public class CdpReplayWebSocketHandler extends TextWebSocketHandler {
             resp.put("mimeType", guessMimeType(e.getResponseHeaders()));
             resp.put("connectionReused", false);
             resp.put("connectionId", 0);
-            resp.put("encodedDataLength", e.getResponseBody() != null ? e.getResponseBody().length() : 0);
+            resp.put("encodedDataLength", e.getResponseBodySize() != null ? e.getResponseBodySize() : 0);
 
             Map<String, Object> received = new LinkedHashMap<>();
             received.put("requestId", requestId);
@@ -350,7 +353,7 @@ public class CdpReplayWebSocketHandler extends TextWebSocketHandler {
             Map<String, Object> finished = new LinkedHashMap<>();
             finished.put("requestId", requestId);
             finished.put("timestamp", respTs);
-            finished.put("encodedDataLength", e.getResponseBody() != null ? e.getResponseBody().length() : 0);
+            finished.put("encodedDataLength", e.getResponseBodySize() != null ? e.getResponseBodySize() : 0);
 
             sendJson(session, Map.of("method", "Network.loadingFinished", "params", finished));
         }
@@ -0,0 +1,142 @@
+package com.example.recordroom.ws;
+
+import com.example.recordroom.ingest.IngestItem;
+import com.example.recordroom.ingest.IngestPipeline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-connection ack/credit state for the ingest sockets.
+ *
+ * Frames are numbered in arrival order. Once a frame and every frame before it are settled
+ * (persisted, failed, dropped or malformed) the server sends
+ * {"type":"ack","seq":..,"frames":..,"credits":..,"received":..}:
+ * - frames: how many frames are settled; the client may forget them
+ * - seq: highest client seq persisted so far
+ * - credits: the client may send while its sent-frame count is below frames + credits
+ * - received: frames received on this connection
+ *
+ * A frame that was not persisted gets a {"type":"nack","frame":n,"reason":..,"retry":..,"seqs":[..]}
+ * before the ack that covers it. retry=true (queue full) means resend; otherwise the data was bad.
+ * While the pipeline is backed up, credits only cover frames already in flight, so a client
+ * cannot push more than the window into server memory.
+ */
+final class IngestAckTracker {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    private final WebSocketSession out;
+    private final IngestPipeline pipeline;
+    private final int window;
+
+    private final ArrayDeque<Frame> pending = new ArrayDeque<>();
+    private long received;
+    private long settled;
+    private long highestSeq;
+
+    IngestAckTracker(WebSocketSession out, IngestPipeline pipeline, int window) {
+        this.out = out;
+        this.pipeline = pipeline;
+        this.window = Math.max(1, window);
+    }
+
+    /** Initial grant; also tells the client this server speaks the protocol. */
+    synchronized void hello() {
+        sendAck();
+    }
+
+    synchronized Frame received() {
+        Frame f = new Frame(++received);
+        pending.addLast(f);
+        return f;
+    }
+
+    void submitted(Frame f, IngestItem item) {
+        f.item = item;
+        item.setCompletion(persisted -> settle(f, persisted ? null : "failed", false));
+    }
+
+    void dropped(Frame f) {
+        settle(f, "overloaded", true);
+    }
+
+    void malformed(Frame f) {
+        settle(f, "malformed", false);
+    }
+
+    private synchronized void settle(Frame f, String reason, boolean retry) {
+        if (f.settled) return;
+        f.settled = true;
+        f.reason = reason;
+        f.retry = retry;
+
+        boolean progressed = false;
+        while (!pending.isEmpty() && pending.peekFirst().settled) {
+            Frame head = pending.pollFirst();
+            settled = head.n;
+            progressed = true;
+
+            List<Long> seqs = new ArrayList<>();
+            if (head.item != null) head.item.collectSeqs(seqs);
+            if (head.reason == null) {
+                for (Long s : seqs) highestSeq = Math.max(highestSeq, s);
+            } else {
+                sendNack(head, seqs);
+            }
+            head.item = null;
+        }
+        if (progressed) sendAck();
+    }
+
+    private void sendAck() {
+        int inFlight = pending.size();
+        int credits = pipeline.isBackedUp() ? Math.max(1, inFlight) : window;
+
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("type", "ack");
+        m.put("seq", highestSeq);
+        m.put("frames", settled);
+        m.put("credits", credits);
+        m.put("received", received);
+        send(m);
+    }
+
+    private void sendNack(Frame f, List<Long> seqs) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("type", "nack");
+        m.put("frame", f.n);
+        m.put("reason", f.reason);
+        m.put("retry", f.retry);
+        m.put("seqs", seqs);
+        send(m);
+    }
+
+    // called under the lock so acks and nacks leave in order; the concurrent decorator bounds a slow reader
+    private void send(Map<String, Object> m) {
+        if (!out.isOpen()) return;
+        try {
+            out.sendMessage(new TextMessage(om.writeValueAsString(m)));
+        } catch (Exception ignored) {
+            // socket closing; the client resends unacked frames on reconnect
+        }
+    }
+
+    static final class Frame {
+        final long n;
+        IngestItem item;
+        boolean settled;
+        String reason; // null = persisted
+        boolean retry;
+
+        Frame(long n) {
+            this.n = n;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.recordroom.ws;
+
+import com.example.recordroom.ingest.IngestFrameDecoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.nio.ByteBuffer;
+
+/**
+ * /ws/ingest-bin: same frames as /ws/ingest, encoded as CBOR and optionally zlib-deflated.
+ * Used by the SDK when ingestProtocol is "cbor".
+ */
+@Component
+public class IngestBinaryWebSocketHandler extends BinaryWebSocketHandler {
+
+    private final IngestSessions sessions;
+    private final IngestFrameDecoder decoder;
+
+    public IngestBinaryWebSocketHandler(IngestSessions sessions, IngestFrameDecoder decoder) {
+        this.sessions = sessions;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        sessions.bind(session);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        ByteBuffer buf = message.getPayload();
+        byte[] frame = new byte[buf.remaining()];
+        buf.get(frame);
+
+        // acks go back as text frames, same as on /ws/ingest
+        sessions.accept(session, recordId -> decoder.decodeBinary(recordId, frame));
+    }
+}
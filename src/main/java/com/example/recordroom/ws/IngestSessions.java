@@ -0,0 +1,114 @@
+package com.example.recordroom.ws;
+
+import com.example.recordroom.ingest.IngestItem;
+import com.example.recordroom.ingest.IngestPipeline;
+import com.example.recordroom.service.RecordroomService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection handling shared by the text and binary ingest endpoints.
+ * The recordId is checked once at connect and bound to the session attributes together with
+ * the connection's {@link IngestAckTracker}; every frame is then acked or nacked through it.
+ */
+@Component
+public class IngestSessions {
+
+    static final String ATTR_RECORD_ID = "recordroom.recordId";
+    static final String ATTR_ACKS = "recordroom.acks";
+
+    /** Decodes one frame for the bound recordId; null means an unknown frame type. */
+    interface FrameReader {
+        IngestItem read(String recordId) throws Exception;
+    }
+
+    private final RecordroomService service;
+    private final IngestPipeline pipeline;
+    private final int ackWindow;
+    private final int sendTimeLimitMs;
+    private final int sendBufferLimit;
+
+    public IngestSessions(RecordroomService service,
+                          IngestPipeline pipeline,
+                          @Value("${recordroom.ingest.ack-window:64}") int ackWindow,
+                          @Value("${recordroom.ingest.ack-send-time-limit-ms:5000}") int sendTimeLimitMs,
+                          @Value("${recordroom.ingest.ack-send-buffer-limit:65536}") int sendBufferLimit) {
+        this.service = service;
+        this.pipeline = pipeline;
+        this.ackWindow = ackWindow;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendBufferLimit = sendBufferLimit;
+    }
+
+    /**
+     * Validates the recordId query parameter, binds it to the session and sends the initial credit grant.
+     * Closes the session and returns false when the record is unknown.
+     */
+    public boolean bind(WebSocketSession session) throws IOException {
+        String recordId = extractQueryParam(session.getUri(), "recordId");
+        if (recordId == null || recordId.isBlank() || !service.recordExists(recordId)) {
+            session.close(CloseStatus.BAD_DATA);
+            return false;
+        }
+        session.getAttributes().put(ATTR_RECORD_ID, recordId);
+
+        // acks are sent from the ingest writer threads, so sends must be serialized
+        WebSocketSession out = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferLimit);
+        IngestAckTracker acks = new IngestAckTracker(out, pipeline, ackWindow);
+        session.getAttributes().put(ATTR_ACKS, acks);
+        acks.hello();
+        return true;
+    }
+
+    /**
+     * Decodes a frame and hands it to the pipeline. Every frame is settled exactly once:
+     * by the writer after persisting, or here when it is malformed or the queue is full.
+     */
+    public void accept(WebSocketSession session, FrameReader reader) throws IOException {
+        String recordId = (String) session.getAttributes().get(ATTR_RECORD_ID);
+        IngestAckTracker acks = (IngestAckTracker) session.getAttributes().get(ATTR_ACKS);
+        if (recordId == null || acks == null) {
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+
+        IngestAckTracker.Frame frame = acks.received();
+        IngestItem item;
+        try {
+            item = reader.read(recordId);
+        } catch (Exception e) {
+            item = null;
+        }
+        if (item == null) {
+            acks.malformed(frame);
+            return;
+        }
+
+        acks.submitted(frame, item);
+        if (!pipeline.submit(item)) {
+            acks.dropped(frame);
+        }
+    }
+
+    static String extractQueryParam(URI uri, String name) {
+        if (uri == null) return null;
+        String query = uri.getQuery();
+        if (query == null) return null;
+        Map<String, String> map = new HashMap<>();
+        for (String part : query.split("&")) {
+            int idx = part.indexOf('=');
+            if (idx > 0) {
+                map.put(part.substring(0, idx), part.substring(idx + 1));
+            }
+        }
+        return map.get(name);
+    }
+}
@@ -9,16 +9,19 @@ import org.springframework.web.socket.config.annotation.*;
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final IngestWebSocketHandler ingestWebSocketHandler;
+    private final IngestBinaryWebSocketHandler ingestBinaryWebSocketHandler;
     private final CdpReplayWebSocketHandler cdpReplayWebSocketHandler;
     private final ClockWebSocketHandler clockWebSocketHandler;
     private final AdminWebSocketHandler adminWebSocketHandler;
 
     public WebSocketConfig(IngestWebSocketHandler ingestWebSocketHandler,
+                           IngestBinaryWebSocketHandler ingestBinaryWebSocketHandler,
                            CdpReplayWebSocketHandler cdpReplayWebSocketHandler,
                            ClockWebSocketHandler clockWebSocketHandler,
                            AdminWebSocketHandler adminWebSocketHandler) {
 
         this.ingestWebSocketHandler = ingestWebSocketHandler;
+        this.ingestBinaryWebSocketHandler = ingestBinaryWebSocketHandler;
         this.cdpReplayWebSocketHandler = cdpReplayWebSocketHandler;
         this.clockWebSocketHandler = clockWebSocketHandler;
         this.adminWebSocketHandler = adminWebSocketHandler;
@@ -44,6 +47,10 @@ public class WebSocketConfig implements WebSocketConfigurer {
         registry.addHandler(ingestWebSocketHandler, "/ws/ingest")
                 .setAllowedOriginPatterns("*");
 
+        // same frames as /ws/ingest, CBOR-encoded (optionally deflated)
+        registry.addHandler(ingestBinaryWebSocketHandler, "/ws/ingest-bin")
+                .setAllowedOriginPatterns("*");
+
         registry.addHandler(cdpReplayWebSocketHandler, "/ws/cdp")
                 .setAllowedOriginPatterns("*");
 
@@ -46,6 +46,114 @@
     return baseUrl.replace(/^http/, "ws") + "/ws/ingest?recordId=" + encodeURIComponent(recordId);
   }
 
+  // "cbor" switches the ingest socket to the binary endpoint (same frames, CBOR-encoded)
+  function ingestUrlForProtocol(wsUrl, protocol) {
+    if (protocol !== "cbor") return wsUrl;
+    return String(wsUrl).replace("/ws/ingest?", "/ws/ingest-bin?");
+  }
+
+  /**
+   * Minimal CBOR (RFC 8949) encoder for ingest frames: maps, arrays, text, numbers, booleans, null.
+   * Mirrors JSON.stringify (toJSON, undefined/function members dropped, NaN -> null)
+   * so both protocols carry the same data.
+   */
+  function cborEncode(value) {
+    var buf = new Uint8Array(512), view = new DataView(buf.buffer), len = 0;
+    var utf8 = new global.TextEncoder();
+
+    function ensure(n) {
+      if (len + n <= buf.length) return;
+      var size = buf.length * 2;
+      while (size < len + n) size *= 2;
+      var next = new Uint8Array(size);
+      next.set(buf.subarray(0, len));
+      buf = next;
+      view = new DataView(buf.buffer);
+    }
+
+    function head(major, n) {
+      ensure(9);
+      var m = major << 5;
+      if (n < 24) { buf[len++] = m | n; }
+      else if (n < 0x100) { buf[len++] = m | 24; buf[len++] = n; }
+      else if (n < 0x10000) { buf[len++] = m | 25; view.setUint16(len, n); len += 2; }
+      else if (n < 0x100000000) { buf[len++] = m | 26; view.setUint32(len, n); len += 4; }
+      else { buf[len++] = m | 27; view.setUint32(len, Math.floor(n / 0x100000000)); view.setUint32(len + 4, n >>> 0); len += 8; }
+    }
+
+    function skippable(x) {
+      return x === undefined || typeof x === "function" || typeof x === "symbol";
+    }
+
+    function write(v) {
+      if (v != null && typeof v.toJSON === "function") v = v.toJSON();
+      if (v === null || v === undefined) { ensure(1); buf[len++] = 0xf6; return; }
+      switch (typeof v) {
+        case "boolean":
+          ensure(1); buf[len++] = v ? 0xf5 : 0xf4;
+          return;
+        case "number":
+          if (Number.isSafeInteger(v)) {
+            if (v >= 0) head(0, v); else head(1, -1 - v);
+          } else if (!isFinite(v)) {
+            ensure(1); buf[len++] = 0xf6;
+          } else {
+            ensure(9); buf[len++] = 0xfb; view.setFloat64(len, v); len += 8;
+          }
+          return;
+        case "string":
+          var b = utf8.encode(v);
+          head(3, b.length);
+          ensure(b.length);
+          buf.set(b, len);
+          len += b.length;
+          return;
+        case "object":
+          var i;
+          if (Array.isArray(v)) {
+            head(4, v.length);
+            for (i = 0; i < v.length; i++) write(skippable(v[i]) ? null : v[i]);
+            return;
+          }
+          var keys = Object.keys(v).filter(function (k) { return !skippable(v[k]); });
+          head(5, keys.length);
+          for (i = 0; i < keys.length; i++) { write(keys[i]); write(v[keys[i]]); }
+          return;
+        default:
+          write(String(v));
+      }
+    }
+
+    write(value);
+    return buf.subarray(0, len);
+  }
+
+  // zlib-wrapped deflate ("deflate" format of CompressionStream); the server sniffs the 0x78 header
+  function deflateBytes(bytes) {
+    var stream = new global.Blob([bytes]).stream().pipeThrough(new global.CompressionStream("deflate"));
+    return new global.Response(stream).arrayBuffer();
+  }
+
+  function ingestHttpUrlFromBase(baseUrl, recordId) {
+    return baseUrl + "/api/records/" + encodeURIComponent(recordId) + "/ingest";
+  }
+
+  function toNdjson(events) {
+    var out = "";
+    for (var i = 0; i < events.length; i++) out += JSON.stringify(events[i]) + "\n";
+    return out;
+  }
+
+  // the server sniffs the gzip magic bytes, so no Content-Encoding header is needed
+  function gzipText(text) {
+    if (typeof global.CompressionStream !== "function") return Promise.resolve(text);
+    var stream = new global.Blob([text]).stream().pipeThrough(new global.CompressionStream("gzip"));
+    return new global.Response(stream).blob();
+  }
+
+  // sendBeacon / keepalive fetch share a ~64KB in-flight budget per page
+  var BEACON_MAX_BYTES = 60000;
+
   function shareUrlFromBase(baseUrl, recordId) {
     return baseUrl + "/r/" + encodeURIComponent(recordId) + "/timeline";
   }
@@ -95,6 +203,10 @@
     // session storage keys
     sessionIdKey: "rr_sessionId",
     recordIdKey: "rr_currentRecordId",
+    // event seqs survive a reload so resent events are recognized as duplicates by the server;
+    // seqs are reserved in blocks so storage is written once per seqReserveBlock events
+    seqKeyPrefix: "rr_seq:",
+    seqReserveBlock: 1000,
 
     // if recordId exists in sessionStorage, attach instead of creating a new record
     reuseRecordInSession: true,
@@ -125,6 +237,29 @@
     // mask input types
     maskPassword: true,
 
+    // ingest transport
+    // "json": text frames on /ws/ingest | "cbor": binary frames on /ws/ingest-bin (smaller, cheaper to decode)
+    ingestProtocol: "json",
+    // cbor only: deflate frames of at least ingestCompressMinBytes (needs CompressionStream)
+    ingestCompress: true,
+    ingestCompressMinBytes: 1024,
+    // coalesce events into {type:"batch", items:[...]} frames: sent when ingestBatchMaxEvents
+    // are queued or ingestBatchWindowMs after the first one, whichever comes first
+    ingestBatch: true,
+    ingestBatchWindowMs: 100,
+    ingestBatchMaxEvents: 50,
+    // memory bounds: queued events (oldest dropped first) and sent-but-unacked frames kept for resend
+    ingestMaxQueue: 5000,
+    ingestMaxUnacked: 256,
+
+    // HTTP transport (POST /api/records/{id}/ingest, NDJSON)
+    // on pagehide the queue goes out with sendBeacon (fetch keepalive if the beacon is refused)
+    httpOnUnload: true,
+    // when the socket has been down for httpFallbackAfterMs, post queued events instead
+    httpFallback: true,
+    httpFallbackAfterMs: 5000,
+    httpFallbackMaxEvents: 500,
+
     // user identification
     userId: null,
     userEmail: null,
@@ -147,9 +282,26 @@
     this.shareUrl = null;
     this.ingestWsUrl = null;
 
+    this.opts = null;
     this.ws = null;
     this.queue = [];
     this.seq = 0;
+    this._seqReserved = 0;
+    this._sendChain = null;
+    this._flushTimer = null;
+    this.dropped = 0;
+
+    // ack/credit state of the current socket (credit mode starts with the server's first ack)
+    this._creditMode = false;
+    this._creditLimit = 0;
+    this._sentFrames = 0;
+    this._queuedFrames = 0;
+    this._unacked = [];
+    this.ackedSeq = 0;
+    this._baseUrl = null;
+    this._wsDownSince = null;
+    this._httpTimer = null;
+    this._httpInFlight = false;
 
     this._overlayEl = null;
     this._overlayTimer = null;
@@ -182,20 +334,150 @@
 
   RecordRoomSDK.prototype._enqueue = function (evt) {
     this.queue.push(evt);
-    this._flush();
+    this._trimQueue();
+    var opts = this.opts || DEFAULTS;
+    if (!opts.ingestBatch || this.queue.length >= (opts.ingestBatchMaxEvents || 1)) {
+      this._flush();
+      return;
+    }
+    this._scheduleFlush(opts.ingestBatchWindowMs || 0);
+  };
+
+  RecordRoomSDK.prototype._trimQueue = function () {
+    var max = (this.opts || DEFAULTS).ingestMaxQueue;
+    if (!max || this.queue.length <= max) return;
+    var over = this.queue.length - max;
+    this.queue.splice(0, over);
+    this.dropped += over;
+  };
+
+  RecordRoomSDK.prototype._scheduleFlush = function (ms) {
+    var self = this;
+    if (self._flushTimer) return;
+    self._flushTimer = setTimeout(function () {
+      self._flushTimer = null;
+      self._flush();
+    }, ms);
   };
 
   RecordRoomSDK.prototype._flush = function () {
-    if (!this.ws || this.ws.readyState !== global.WebSocket.OPEN) return;
+    if (this._flushTimer) {
+      clearTimeout(this._flushTimer);
+      this._flushTimer = null;
+    }
+    if (!this.ws || this.ws.readyState !== global.WebSocket.OPEN) {
+      this._scheduleHttpFallback();
+      return;
+    }
+    var opts = this.opts || DEFAULTS;
+    var binary = opts.ingestProtocol === "cbor";
+    var maxEvents = opts.ingestBatch ? Math.max(1, opts.ingestBatchMaxEvents || 1) : 1;
+    var maxUnacked = Math.max(1, opts.ingestMaxUnacked || 1);
     while (this.queue.length > 0) {
-      var evt = this.queue.shift();
+      // out of credits: wait for the next ack
+      if (this._creditMode && this._queuedFrames >= this._creditLimit) break;
+      // resend buffer full: wait for acks rather than forget a frame
+      if (this._unacked.length >= maxUnacked) break;
+
+      var chunk = this.queue.splice(0, maxEvents);
+      var frame = (chunk.length === 1) ? chunk[0] : { type: "batch", items: chunk };
+      // kept until acked for resend; n stays 0 until ws.send has actually run
+      var entry = { n: 0, items: chunk };
       try {
-        this.ws.send(JSON.stringify(evt));
+        if (binary) {
+          this._sendBinary(cborEncode(frame), entry);
+        } else {
+          this.ws.send(JSON.stringify(frame));
+          this._markSent(entry);
+        }
       } catch (e) {
-        this.queue.unshift(evt);
+        Array.prototype.unshift.apply(this.queue, chunk);
+        break;
+      }
+      this._queuedFrames += 1;
+      this._unacked.push(entry);
+    }
+  };
+
+  // the server numbers frames in arrival order, so only a frame that really left gets a number
+  RecordRoomSDK.prototype._markSent = function (entry) {
+    this._sentFrames += 1;
+    entry.n = this._sentFrames;
+  };
+
+  // {"type":"ack",frames,credits,seq} / {"type":"nack",frame,retry} from the ingest socket
+  RecordRoomSDK.prototype._onIngestReply = function (msg) {
+    if (!msg) return;
+    if (msg.type === "nack") {
+      for (var i = 0; i < this._unacked.length; i++) {
+        if (this._unacked[i].n === 0 || this._unacked[i].n !== msg.frame) continue;
+        var nacked = this._unacked.splice(i, 1)[0];
+        // retry = server queue was full; otherwise the frame was bad and resending will not help
+        if (msg.retry) {
+          Array.prototype.unshift.apply(this.queue, nacked.items);
+          this._trimQueue();
+        }
         break;
       }
+      return;
     }
+    if (msg.type !== "ack") return;
+
+    var frames = msg.frames || 0;
+    this._creditMode = true;
+    this._creditLimit = frames + (msg.credits || 0);
+    if (typeof msg.seq === "number") this.ackedSeq = Math.max(this.ackedSeq, msg.seq);
+    while (this._unacked.length > 0 && this._unacked[0].n > 0 && this._unacked[0].n <= frames) this._unacked.shift();
+    if (this.queue.length > 0) this._flush();
+  };
+
+  // frames that never left (still waiting in the send chain) are always put back
+  RecordRoomSDK.prototype._resetSocketState = function (requeueUnacked) {
+    var items = [];
+    for (var i = 0; i < this._unacked.length; i++) {
+      if (requeueUnacked || this._unacked[i].n === 0) Array.prototype.push.apply(items, this._unacked[i].items);
+    }
+    if (items.length > 0) {
+      Array.prototype.unshift.apply(this.queue, items);
+      this._trimQueue();
+    }
+    this._creditMode = false;
+    this._creditLimit = 0;
+    this._sentFrames = 0;
+    this._queuedFrames = 0;
+    this._unacked = [];
+  };
+
+  RecordRoomSDK.prototype._sendBinary = function (bytes, entry) {
+    var self = this;
+    var opts = self.opts || DEFAULTS;
+    var canCompress = opts.ingestCompress && typeof global.CompressionStream === "function";
+    if (!canCompress) {
+      self.ws.send(bytes);
+      self._markSent(entry);
+      return;
+    }
+
+    // compression is async; chain every frame so they still leave in order
+    var ws = self.ws;
+    var compress = bytes.length >= (opts.ingestCompressMinBytes || 0);
+    self._sendChain = (self._sendChain || Promise.resolve())
+      .then(function () { return compress ? deflateBytes(bytes) : bytes; })
+      .then(function (out) {
+        // socket gone: the close handler's reset requeues the unsent frame
+        if (ws !== self.ws || ws.readyState !== global.WebSocket.OPEN) return;
+        ws.send(out);
+        self._markSent(entry);
+      })
+      .catch(function () {
+        // compression or send failed: the frame did not leave, give its events back
+        var i = self._unacked.indexOf(entry);
+        if (i < 0 || entry.n !== 0) return;
+        self._unacked.splice(i, 1);
+        self._queuedFrames -= 1;
+        Array.prototype.unshift.apply(self.queue, entry.items);
+        self._trimQueue();
+      });
   };
 
   RecordRoomSDK.prototype._openWs = function (wsUrl) {
@@ -204,13 +486,27 @@
       if (self.ws && (self.ws.readyState === global.WebSocket.OPEN || self.ws.readyState === global.WebSocket.CONNECTING)) return;
     } catch (e) {}
 
-    self.ws = new global.WebSocket(wsUrl);
+    var ws = new global.WebSocket(wsUrl);
+    self.ws = ws;
 
-    self.ws.addEventListener("open", function () {
+    ws.addEventListener("open", function () {
+      self._wsDownSince = null;
+      self._resetSocketState(false);
       self._flush();
     });
 
-    self.ws.addEventListener("close", function () {
+    ws.addEventListener("message", function (e) {
+      if (ws !== self.ws || typeof e.data !== "string") return;
+      var msg = null;
+      try { msg = JSON.parse(e.data); } catch (err) { return; }
+      self._onIngestReply(msg);
+    });
+
+    ws.addEventListener("close", function () {
+      if (!self._wsDownSince) self._wsDownSince = now();
+      // frames the server never acked go out again (next socket or HTTP fallback);
+      // without acks (old server) there is no way to tell, so they are dropped as before
+      if (ws === self.ws) self._resetSocketState(self._creditMode);
       // reconnect loop
       setTimeout(function () {
         if (!self.ingestWsUrl) return;
@@ -219,6 +515,111 @@
     });
   };
 
+  RecordRoomSDK.prototype._ingestHttpUrl = function () {
+    if (!this._baseUrl || !this.recordId) return null;
+    return ingestHttpUrlFromBase(this._baseUrl, this.recordId);
+  };
+
+  RecordRoomSDK.prototype._scheduleHttpFallback = function () {
+    var self = this;
+    var opts = self.opts || DEFAULTS;
+    if (!opts.httpFallback || self._httpTimer || self.queue.length === 0) return;
+    self._httpTimer = setTimeout(function () {
+      self._httpTimer = null;
+      self._flushViaHttp();
+    }, opts.httpFallbackAfterMs || 0);
+  };
+
+  // socket has been down for a while (e.g. a proxy kills WS): post the queue as gzip'd NDJSON
+  RecordRoomSDK.prototype._flushViaHttp = function () {
+    var self = this;
+    var opts = self.opts || DEFAULTS;
+    var url = self._ingestHttpUrl();
+    if (!url || self._httpInFlight || self.queue.length === 0) return;
+
+    if (self.ws && self.ws.readyState === global.WebSocket.OPEN) {
+      self._flush();
+      return;
+    }
+    var downFor = self._wsDownSince ? now() - self._wsDownSince : 0;
+    if (downFor < (opts.httpFallbackAfterMs || 0)) {
+      self._scheduleHttpFallback();
+      return;
+    }
+
+    var chunk = self.queue.splice(0, opts.httpFallbackMaxEvents || 500);
+    self._httpInFlight = true;
+    gzipText(toNdjson(chunk))
+      .then(function (body) {
+        return fetch(url, { method: "POST", headers: { "Content-Type": "text/plain" }, body: body });
+      })
+      .then(function (res) {
+        // queue full (503) or body too large (413): the server took the first `processed` lines
+        if (res.status === 503 || res.status === 413) {
+          return res.json().then(function (r) {
+            var taken = r && r.processed > 0 ? r.processed : 0;
+            // a single line over the limit will never fit; drop it instead of retrying forever
+            if (res.status === 413 && taken === 0) taken = 1;
+            Array.prototype.unshift.apply(self.queue, chunk.slice(taken));
+          });
+        }
+        // other 4xx will not get better on retry; drop the chunk
+        if (res.status >= 500) throw new Error("ingest failed: " + res.status);
+      })
+      .catch(function () {
+        Array.prototype.unshift.apply(self.queue, chunk);
+      })
+      .then(function () {
+        self._httpInFlight = false;
+        self._scheduleHttpFallback();
+      });
+  };
+
+  // page is going away: hand the queue to the browser, which delivers beacons after unload
+  RecordRoomSDK.prototype._flushOnUnload = function () {
+    var opts = this.opts || DEFAULTS;
+    try { this._flushRrweb(opts); } catch (e) {}
+    if (this._flushTimer) {
+      clearTimeout(this._flushTimer);
+      this._flushTimer = null;
+    }
+
+    var url = this._ingestHttpUrl();
+    var nav = global.navigator;
+    if (opts.httpOnUnload && url && nav && typeof nav.sendBeacon === "function" && global.TextEncoder) {
+      var utf8 = new global.TextEncoder();
+      while (this.queue.length > 0) {
+        var chunk = [], body = "", bytes = 0;
+        while (this.queue.length > 0) {
+          var line = JSON.stringify(this.queue[0]) + "\n";
+          var n = utf8.encode(line).length;
+          if (chunk.length > 0 && bytes + n > BEACON_MAX_BYTES) break;
+          chunk.push(this.queue.shift());
+          body += line;
+          bytes += n;
+        }
+
+        var sent = false;
+        if (bytes <= BEACON_MAX_BYTES) {
+          try { sent = nav.sendBeacon(url, new global.Blob([body], { type: "text/plain" })); } catch (e) {}
+          if (!sent) {
+            try {
+              fetch(url, { method: "POST", headers: { "Content-Type": "text/plain" }, body: body, keepalive: true });
+              sent = true;
+            } catch (e) {}
+          }
+        }
+        if (!sent) {
+          // too large for a beacon (e.g. a full snapshot); leave it to the socket below
+          Array.prototype.unshift.apply(this.queue, chunk);
+          break;
+        }
+      }
+    }
+
+    try { this._flush(); } catch (e) {}
+  };
+
   RecordRoomSDK.prototype._isInternalUrl = function (url) {
     try {
       var u = new URL(url, global.location.href);
@@ -245,7 +646,7 @@
 
     function send(level, args) {
       var msg = Array.prototype.slice.call(args).map(safeStringify).join(" ");
-      self.seq += 1;
+      self._nextSeq();
       self._enqueue({
         type: "console",
         level: level,
@@ -270,7 +671,7 @@
     };
 
     global.addEventListener("error", function (e) {
-      self.seq += 1;
+      self._nextSeq();
       self._enqueue({
         type: "console",
         level: "error",
@@ -282,7 +683,7 @@
     });
 
     global.addEventListener("unhandledrejection", function (e) {
-      self.seq += 1;
+      self._nextSeq();
       self._enqueue({
         type: "console",
         level: "error",
@@ -395,7 +796,7 @@
               }
             });
             
-            self.seq += 1;
+            self._nextSeq();
             self._enqueue({
               type: "network",
               clientRequestId: clientRequestId,
@@ -492,7 +893,7 @@
                 }
               });
               
-              self.seq += 1;
+              self._nextSeq();
               self._enqueue({
                 type: "network",
                 clientRequestId: _clientRequestId,
@@ -593,7 +994,7 @@
   };
 
   RecordRoomSDK.prototype.breadcrumb = function (name, message, data) {
-    this.seq += 1;
+    this._nextSeq();
     this._enqueue({
       type: "breadcrumb",
       name: name,
@@ -639,7 +1040,7 @@
               }
 
               var ts = (event.timestamp != null) ? event.timestamp : Date.now();
-              self.seq += 1;
+              self._nextSeq();
               var env = { ts: ts, seq: self.seq, payload: event };
               self._rrwebBuffer.push(env);
               self._rrwebTotal += 1;
@@ -688,10 +1089,15 @@
     self._unloadHooked = true;
 
     if (!global.addEventListener) return;
-    global.addEventListener("beforeunload", function () {
-      try { self._flushRrweb(self.opts || DEFAULTS); } catch (e) {}
-      try { self._flush(); } catch (e) {}
+    // pagehide fires where beforeunload does not (mobile, bfcache); hidden covers tab close on mobile
+    global.addEventListener("pagehide", function () {
+      self._flushOnUnload();
     });
+    if (global.document) {
+      global.document.addEventListener("visibilitychange", function () {
+        if (global.document.visibilityState === "hidden") self._flushOnUnload();
+      });
+    }
   };
 
   RecordRoomSDK.prototype._createRecord = async function (opts, previousRecordId) {
@@ -766,16 +1172,36 @@
     }
   };
 
+  // continue above the last reserved block after a reload; skipping a few unused seqs is harmless
+  RecordRoomSDK.prototype._restoreSeq = function () {
+    var stored = 0;
+    try { stored = parseInt(global.sessionStorage.getItem(this.opts.seqKeyPrefix + this.recordId), 10) || 0; } catch (e) {}
+    if (stored > this.seq) this.seq = stored;
+    this._seqReserved = this.seq; // next event reserves a block for this record
+  };
+
+  RecordRoomSDK.prototype._nextSeq = function () {
+    this.seq += 1;
+    if (this.seq > this._seqReserved && this.recordId && this.opts) {
+      this._seqReserved = this.seq + Math.max(1, this.opts.seqReserveBlock || 1) - 1;
+      try { global.sessionStorage.setItem(this.opts.seqKeyPrefix + this.recordId, String(this._seqReserved)); } catch (e) {}
+    }
+    return this.seq;
+  };
+
   RecordRoomSDK.prototype._applyRecord = function (opts, recordData) {
     var baseUrl = baseUrlFromApiBase(opts.apiBase);
 
+    this.opts = opts;
+    this._baseUrl = baseUrl;
     this.recordId = recordData.recordId;
     this.shareUrl = recordData.shareUrl || shareUrlFromBase(baseUrl, recordData.recordId);
-    this.ingestWsUrl = recordData.ingestWsUrl || wsUrlFromBase(baseUrl, recordData.recordId);
+    this.ingestWsUrl = ingestUrlForProtocol(recordData.ingestWsUrl || wsUrlFromBase(baseUrl, recordData.recordId), opts.ingestProtocol);
     this.previousRecordId = recordData.previousRecordId || null;
 
     // persist current recordId in session
     try { global.sessionStorage.setItem(opts.recordIdKey, this.recordId); } catch (e) {}
+    this._restoreSeq();
 
     // open ws and ensure patches
     this._openWs(this.ingestWsUrl);
@@ -0,0 +1,118 @@
+package com.example.recordroom.api;
+
+import com.example.recordroom.ingest.NdjsonIngestReader;
+import com.example.recordroom.model.BulkIngestResponse;
+import com.example.recordroom.model.CreateRecordRequest;
+import com.example.recordroom.service.RecordroomService;
+import com.example.recordroom.service.RrwebAssetStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * How the bulk ingest endpoint maps where the reader stopped to a status; the reader itself is
+ * covered by NdjsonIngestReaderTest.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:recordroom-test;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.h2.console.enabled=false",
+        "recordroom.ingest.async=false",
+        "recordroom.rrweb.compact-enabled=false"
+})
+class RecordApiControllerTest {
+
+    @Autowired
+    private RecordroomService service;
+
+    @Autowired
+    private RrwebAssetStore rrwebAssets;
+
+    @Test
+    void fullyReadBodyIsOk() {
+        String recordId = newRecord();
+        ResponseEntity<BulkIngestResponse> res = ingest(recordId, new BulkIngestResponse(recordId, 3, 3, 0, 0, null));
+
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals(3, res.getBody().getProcessed());
+    }
+
+    @Test
+    void fullQueueIsRetryableWithTheProcessedCount() {
+        String recordId = newRecord();
+        ResponseEntity<BulkIngestResponse> res = ingest(recordId,
+                new BulkIngestResponse(recordId, 5, 4, 0, 1, BulkIngestResponse.STOPPED_QUEUE_FULL));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, res.getStatusCode());
+        assertEquals("1", res.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(BulkIngestResponse.STOPPED_QUEUE_FULL, res.getBody().getStopped());
+        assertEquals(5, res.getBody().getProcessed());
+    }
+
+    @Test
+    void oversizedBodyIsTooLargeWithTheProcessedCount() {
+        String recordId = newRecord();
+        ResponseEntity<BulkIngestResponse> res = ingest(recordId,
+                new BulkIngestResponse(recordId, 2, 2, 0, 0, BulkIngestResponse.STOPPED_TOO_LARGE));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, res.getStatusCode());
+        assertNull(res.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(2, res.getBody().getProcessed());
+    }
+
+    @Test
+    void unknownRecordIsNotFound() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> ingest("missing-" + UUID.randomUUID(), new BulkIngestResponse("x", 0, 0, 0, 0, null)));
+
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatus());
+    }
+
+    @Test
+    void unreadableBodyIsBadRequest() {
+        String recordId = newRecord();
+        RecordApiController controller = new RecordApiController(service, new NdjsonIngestReader(null, null, 0) {
+            @Override
+            public BulkIngestResponse read(String recordId, InputStream body) throws IOException {
+                throw new IOException("Not in GZIP format");
+            }
+        }, rrwebAssets);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> controller.ingest(recordId, request()));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+
+    private ResponseEntity<BulkIngestResponse> ingest(String recordId, BulkIngestResponse readerResult) {
+        RecordApiController controller = new RecordApiController(service, new NdjsonIngestReader(null, null, 0) {
+            @Override
+            public BulkIngestResponse read(String recordId, InputStream body) {
+                return readerResult;
+            }
+        }, rrwebAssets);
+        return controller.ingest(recordId, request());
+    }
+
+    private String newRecord() {
+        String recordId = "api-test-" + UUID.randomUUID();
+        service.createRecord(new CreateRecordRequest(), recordId, "session-" + recordId, 1000);
+        return recordId;
+    }
+
+    /** Only getInputStream is called, and the canned readers ignore it. */
+    private HttpServletRequest request() {
+        return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> null);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.recordroom.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestDeduplicatorTest {
+
+    private static final IngestItem.Kind CONSOLE = IngestItem.Kind.CONSOLE;
+
+    private final List<String> seeded = new ArrayList<>();
+    private final IngestDeduplicator.Seeder noSeqs = (recordId, kind, window) -> {
+        seeded.add(recordId + "/" + kind);
+        return Collections.emptyList();
+    };
+
+    @Test
+    void persistedSeqIsDuplicate() {
+        IngestDeduplicator d = new IngestDeduplicator(64, 10);
+        d.registerNew("r1");
+        assertFalse(d.isDuplicate("r1", CONSOLE, 5, noSeqs));
+        d.persisted("r1", CONSOLE, 5);
+
+        assertTrue(d.isDuplicate("r1", CONSOLE, 5, noSeqs));
+        assertFalse(d.isDuplicate("r1", IngestItem.Kind.NETWORK, 5, noSeqs));
+        assertFalse(d.isDuplicate("r2", CONSOLE, 5, noSeqs));
+        assertEquals(1, d.getDuplicates());
+    }
+
+    @Test
+    void unnumberedSeqsAreNeverDuplicates() {
+        IngestDeduplicator d = new IngestDeduplicator(64, 10);
+        d.registerNew("r1");
+        d.persisted("r1", CONSOLE, 0);
+
+        assertFalse(d.isDuplicate("r1", CONSOLE, 0, noSeqs));
+        assertFalse(d.isDuplicate("r1", CONSOLE, -1, noSeqs));
+    }
+
+    @Test
+    void windowSlidesAndClearsReusedSlots() {
+        IngestDeduplicator d = new IngestDeduplicator(64, 10);
+        d.registerNew("r1");
+        d.isDuplicate("r1", CONSOLE, 1, noSeqs);
+        for (long s = 1; s <= 64; s++) d.persisted("r1", CONSOLE, s);
+
+        // the window moves to (36, 100]; 65..100 take over the slots of 1..36, which are cleared
+        d.persisted("r1", CONSOLE, 100);
+        assertTrue(d.isDuplicate("r1", CONSOLE, 100, noSeqs));
+        assertTrue(d.isDuplicate("r1", CONSOLE, 37, noSeqs));
+        assertTrue(d.isDuplicate("r1", CONSOLE, 64, noSeqs));
+        assertFalse(d.isDuplicate("r1", CONSOLE, 65, noSeqs), "slot of 1 was cleared when 65 came into the window");
+        assertFalse(d.isDuplicate("r1", CONSOLE, 99, noSeqs));
+        assertFalse(d.isDuplicate("r1", CONSOLE, 36, noSeqs), "below the window: left to the unique index");
+        assertFalse(d.isDuplicate("r1", CONSOLE, 101, noSeqs));
+    }
+
+    @Test
+    void jumpPastTheWholeWindowForgetsEverything() {
+        IngestDeduplicator d = new IngestDeduplicator(64, 10);
+        d.registerNew("r1");
+        d.isDuplicate("r1", CONSOLE, 1, noSeqs);
+        for (long s = 1; s <= 64; s++) d.persisted("r1", CONSOLE, s);
+
+        d.persisted("r1", CONSOLE, 64 + 64 + 1);
+        for (long s = 66; s <= 128; s++) {
+            assertFalse(d.isDuplicate("r1", CONSOLE, s, noSeqs), "seq " + s);
+        }
+        assertTrue(d.isDuplicate("r1", CONSOLE, 129, noSeqs));
+    }
+
+    @Test
+    void lateSeqInsideTheWindowIsRemembered() {
+        IngestDeduplicator d = new IngestDeduplicator(64, 10);
+        d.registerNew("r1");
+        d.isDuplicate("r1", CONSOLE, 1, noSeqs);
+        d.persisted("r1", CONSOLE, 50);
+        d.persisted("r1", CONSOLE, 20);
+        d.persisted("r1", CONSOLE, 200);
+        d.persisted("r1", CONSOLE, 150);
+
+        assertTrue(d.isDuplicate("r1", CONSOLE, 150, noSeqs));
+        assertFalse(d.isDuplicate("r1", CONSOLE, 50, noSeqs));
+        assertFalse(d.isDuplicate("r1", CONSOLE, 20, noSeqs));
+    }
+
+    @Test
+    void unknownRecordIsSeededOncePerKind() {
+        IngestDeduplicator d = new IngestDeduplicator(64, 10);
+        IngestDeduplicator.Seeder fromDb = (recordId, kind, window) -> {
+            seeded.add(recordId + "/" + kind);
+            return Arrays.asList(3L, 9L, null);
+        };
+
+        assertTrue(d.isDuplicate("old", CONSOLE, 9, fromDb));
+        assertTrue(d.isDuplicate("old", CONSOLE, 3, fromDb));
+        assertFalse(d.isDuplicate("old", CONSOLE, 4, fromDb));
+        assertFalse(d.isDuplicate("old", IngestItem.Kind.NETWORK, 3, noSeqs));
+        assertEquals(Arrays.asList("old/CONSOLE", "old/NETWORK"), seeded);
+    }
+
+    @Test
+    void newRecordIsNotSeeded() {
+        IngestDeduplicator d = new IngestDeduplicator(64, 10);
+        d.registerNew("r1");
+        d.isDuplicate("r1", CONSOLE, 1, noSeqs);
+
+        assertTrue(seeded.isEmpty());
+    }
+
+    @Test
+    void evictedRecordIsSeededAgain() {
+        IngestDeduplicator d = new IngestDeduplicator(64, 1);
+        d.registerNew("r1");
+        d.isDuplicate("r1", CONSOLE, 1, noSeqs);
+        d.persisted("r1", CONSOLE, 1);
+        d.registerNew("r2");
+
+        d.persisted("r1", CONSOLE, 2); // not tracked any more: ignored
+        assertFalse(d.isDuplicate("r1", CONSOLE, 1, noSeqs));
+        assertEquals(Collections.singletonList("r1/CONSOLE"), seeded);
+    }
+}
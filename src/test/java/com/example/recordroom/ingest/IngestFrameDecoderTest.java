@@ -0,0 +1,147 @@
+package com.example.recordroom.ingest;
+
+import com.example.recordroom.model.ConsoleEventIngestRequest;
+import com.example.recordroom.model.NetworkEventIngestRequest;
+import com.example.recordroom.model.RrwebEventEnvelope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestFrameDecoderTest {
+
+    private final IngestFrameDecoder decoder = new IngestFrameDecoder(1 << 20);
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    @Test
+    void decodesConsoleWithTypeAfterOtherFields() throws IOException {
+        IngestItem item = decoder.decode("r1",
+                "{\"level\":\"error\",\"message\":\"boom\",\"ts\":\"1700000000000\",\"seq\":7,\"extra\":{\"a\":[1]},\"type\":\"console\"}");
+
+        assertEquals(IngestItem.Kind.CONSOLE, item.getKind());
+        assertEquals("r1", item.getRecordId());
+        ConsoleEventIngestRequest c = item.getConsole();
+        assertEquals("error", c.getLevel());
+        assertEquals("boom", c.getMessage());
+        assertEquals(1700000000000L, c.getTs());
+        assertEquals(7L, c.getSeq());
+    }
+
+    @Test
+    void keepsNestedHeaderValuesAsRawJson() throws IOException {
+        IngestItem item = decoder.decode("r1",
+                "{\"type\":\"network\",\"status\":503,\"requestHeaders\":{\"accept\":\"*/*\",\"x-trace\":{\"id\": 1}}}");
+
+        NetworkEventIngestRequest n = item.getNetwork();
+        assertEquals(503, n.getStatus());
+        assertEquals("*/*", n.getRequestHeaders().get("accept"));
+        assertEquals("{\"id\": 1}", n.getRequestHeaders().get("x-trace"));
+    }
+
+    @Test
+    void outOfRangeStatusReadsAsZero() throws IOException {
+        IngestItem item = decoder.decode("r1", "{\"type\":\"network\",\"status\":4294967296}");
+        assertEquals(0, item.getNetwork().getStatus());
+    }
+
+    @Test
+    void keepsRrwebPayloadsVerbatim() throws IOException {
+        String payload = "{\"type\":3, \"data\":{\"text\":\"a \\\"quoted\\\" \\u00e9\",\"n\":[1,2.50]}}";
+        IngestItem item = decoder.decode("r1",
+                "{\"type\":\"rrweb\",\"events\":[{\"ts\":10,\"seq\":1,\"payload\":" + payload + "},{\"ts\":11,\"seq\":2,\"payload\":\"str\"}]}");
+
+        List<RrwebEventEnvelope> events = item.getRrweb().getEvents();
+        assertEquals(2, events.size());
+        assertEquals(payload, events.get(0).getPayloadJson());
+        assertEquals("\"str\"", events.get(1).getPayloadJson());
+        assertEquals(11L, events.get(1).getTs());
+    }
+
+    @Test
+    void unknownTypeDecodesToNull() throws IOException {
+        assertNull(decoder.decode("r1", "{\"type\":\"mystery\",\"ts\":1}"));
+        assertNull(decoder.decode("r1", "{\"ts\":1}"));
+    }
+
+    @Test
+    void rejectsNonObjectFrames() {
+        assertThrows(IOException.class, () -> decoder.decode("r1", "[1,2]"));
+        assertThrows(IOException.class, () -> decoder.decodeBinary("r1", new byte[0]));
+    }
+
+    @Test
+    void batchCarriesTopLevelItemsOnly() throws IOException {
+        IngestItem item = decoder.decode("r1", "{\"type\":\"batch\",\"items\":["
+                + "{\"type\":\"console\",\"message\":\"a\",\"seq\":1},"
+                + "{\"type\":\"batch\",\"items\":[{\"type\":\"console\",\"message\":\"nested\",\"seq\":2}]},"
+                + "{\"type\":\"breadcrumb\",\"name\":\"click\",\"seq\":3},"
+                + "{\"type\":\"nope\"}]}");
+
+        assertEquals(IngestItem.Kind.BATCH, item.getKind());
+        List<IngestItem> children = item.getItems();
+        assertEquals(2, children.size());
+        assertEquals("a", children.get(0).getConsole().getMessage());
+        assertEquals("click", children.get(1).getBreadcrumb().getName());
+    }
+
+    @Test
+    void emptyBatchDecodesToNull() throws IOException {
+        assertNull(decoder.decode("r1", "{\"type\":\"batch\",\"items\":[]}"));
+        assertNull(decoder.decode("r1", "{\"type\":\"batch\",\"items\":[{\"type\":\"batch\",\"items\":[{\"type\":\"console\"}]}]}"));
+    }
+
+    @Test
+    void deeplyNestedBatchDoesNotRecurse() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int depth = 5_000;
+        for (int i = 0; i < depth; i++) sb.append("{\"type\":\"batch\",\"items\":[");
+        sb.append("{\"type\":\"console\"}");
+        for (int i = 0; i < depth; i++) sb.append("]}");
+
+        assertNull(decoder.decode("r1", sb.toString()));
+    }
+
+    @Test
+    void decodesCborFrame() throws IOException {
+        String frame = "{\"type\":\"rrweb\",\"events\":[{\"ts\":5,\"seq\":1,\"payload\":{\"type\":2,\"data\":{\"node\":{\"id\":1}}}}]}";
+        IngestItem item = decoder.decodeBinary("r1", cbor.writeValueAsBytes(json.readTree(frame)));
+
+        RrwebEventEnvelope ev = item.getRrweb().getEvents().get(0);
+        assertEquals(5L, ev.getTs());
+        assertEquals(json.readTree("{\"type\":2,\"data\":{\"node\":{\"id\":1}}}"), json.readTree(ev.getPayloadJson()));
+    }
+
+    @Test
+    void decodesZlibWrappedCborFrame() throws IOException {
+        String frame = "{\"type\":\"console\",\"message\":\"hello\",\"seq\":3}";
+        IngestItem item = decoder.decodeBinary("r1", deflate(cbor.writeValueAsBytes(json.readTree(frame))));
+
+        assertEquals("hello", item.getConsole().getMessage());
+        assertEquals(3L, item.getConsole().getSeq());
+    }
+
+    @Test
+    void rejectsFramesInflatingPastTheLimit() throws IOException {
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 300_000; i++) big.append('x');
+        byte[] frame = deflate(cbor.writeValueAsBytes(json.createObjectNode().put("type", "console").put("message", big.toString())));
+        IngestFrameDecoder small = new IngestFrameDecoder(64 * 1024);
+
+        assertThrows(BoundedInputStream.LimitExceededException.class, () -> small.decodeBinary("r1", frame));
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream z = new DeflaterOutputStream(out)) {
+            z.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.recordroom.ingest;
+
+import com.example.recordroom.model.BreadcrumbEvent;
+import com.example.recordroom.model.ConsoleEvent;
+import com.example.recordroom.model.CreateRecordRequest;
+import com.example.recordroom.service.RecordroomService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * saveBatch and the pipeline's fallback when a resend slips past the dedup window and hits the
+ * (recordId, dedupSeq) index. Writes are synchronous here (async=false).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:recordroom-test;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.h2.console.enabled=false",
+        "recordroom.ingest.async=false",
+        "recordroom.rrweb.compact-enabled=false"
+})
+class IngestPipelineTest {
+
+    // past recordroom.ingest.dedup.window-size (4096): seq 1 is no longer in the window
+    private static final long FAR_SEQ = 10_000;
+
+    @Autowired
+    private RecordroomService service;
+
+    @Autowired
+    private IngestPipeline pipeline;
+
+    @Test
+    void saveBatchSkipsResendsInTheWindow() {
+        String recordId = newRecord();
+
+        assertEquals(2, service.saveBatch(Arrays.asList(console(recordId, 1), console(recordId, 2), console(recordId, 2))));
+        assertEquals(1, service.saveBatch(Arrays.asList(console(recordId, 1), console(recordId, 3))));
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), consoleSeqs(recordId));
+    }
+
+    @Test
+    void resendOlderThanTheWindowFailsTheWholeBatch() {
+        String recordId = recordWithOldAndFarSeqs();
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> service.saveBatch(Arrays.asList(console(recordId, 1), console(recordId, FAR_SEQ + 1))));
+
+        assertTrue(IngestPipeline.isDuplicate(e), e.toString());
+        assertEquals(Arrays.asList(1L, FAR_SEQ), consoleSeqs(recordId), "rolled back");
+    }
+
+    @Test
+    void pipelineStoresTheOtherEventsOfABatchWithAnOldResend() {
+        String recordId = recordWithOldAndFarSeqs();
+        IngestItem batch = IngestItem.batch(recordId, Arrays.asList(
+                console(recordId, 1),
+                console(recordId, FAR_SEQ + 1),
+                TestIngestItems.breadcrumb(recordId, 1, 2000)));
+        List<Boolean> completions = track(batch);
+
+        assertTrue(pipeline.submit(batch));
+
+        assertEquals(Collections.singletonList(true), completions);
+        assertEquals(Arrays.asList(1L, FAR_SEQ, FAR_SEQ + 1), consoleSeqs(recordId));
+        List<BreadcrumbEvent> breadcrumbs = service.listBreadcrumbs(recordId, new RecordroomService.Cursor(0, 0), 100, null);
+        assertEquals(1, breadcrumbs.size());
+    }
+
+    @Test
+    void pipelineSettlesASingleOldResendAsStored() {
+        String recordId = recordWithOldAndFarSeqs();
+        IngestItem resend = console(recordId, 1);
+        List<Boolean> completions = track(resend);
+
+        assertTrue(pipeline.submit(resend));
+
+        assertEquals(Collections.singletonList(true), completions);
+        assertEquals(Arrays.asList(1L, FAR_SEQ), consoleSeqs(recordId));
+    }
+
+    private String newRecord() {
+        String recordId = "pipeline-test-" + UUID.randomUUID();
+        service.createRecord(new CreateRecordRequest(), recordId, "session-" + recordId, 1000);
+        return recordId;
+    }
+
+    /** A record with seq 1 stored but already out of the dedup window. */
+    private String recordWithOldAndFarSeqs() {
+        String recordId = newRecord();
+        service.saveBatch(Collections.singletonList(console(recordId, 1)));
+        service.saveBatch(Collections.singletonList(console(recordId, FAR_SEQ)));
+        return recordId;
+    }
+
+    private static IngestItem console(String recordId, long seq) {
+        return TestIngestItems.console(recordId, seq, 1000 + seq);
+    }
+
+    private static List<Boolean> track(IngestItem item) {
+        List<Boolean> out = Collections.synchronizedList(new ArrayList<>());
+        item.setCompletion(out::add);
+        return out;
+    }
+
+    private List<Long> consoleSeqs(String recordId) {
+        List<Long> out = new ArrayList<>();
+        for (ConsoleEvent e : service.listConsole(recordId, new RecordroomService.Cursor(0, 0), 1000, null)) out.add(e.getSeq());
+        return out;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.recordroom.ingest;
+
+import com.example.recordroom.model.BulkIngestResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonIngestReaderTest {
+
+    private final List<IngestItem> taken = new ArrayList<>();
+    private int capacity = Integer.MAX_VALUE;
+
+    private final IngestPipeline pipeline = new IngestPipeline(null, null, false, 10, 1, 1, 1, 1, 0) {
+        @Override
+        public boolean submit(IngestItem item) {
+            if (taken.size() >= capacity) return false;
+            taken.add(item);
+            return true;
+        }
+    };
+
+    @Test
+    void readsEveryLine() throws IOException {
+        BulkIngestResponse res = reader(1 << 20).read("r1", body(lines(1, 3) + "\n\n{\"type\":\"nope\"}\nnot json\n"));
+
+        assertNull(res.getStopped());
+        assertEquals(5, res.getLines());
+        assertEquals(3, res.getAccepted());
+        assertEquals(2, res.getMalformed());
+        assertEquals(5, res.getProcessed());
+        assertEquals(3, taken.size());
+    }
+
+    @Test
+    void readsGzippedBody() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(lines(1, 4).getBytes(StandardCharsets.UTF_8));
+        }
+        BulkIngestResponse res = reader(1 << 20).read("r1", new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(4, res.getAccepted());
+        assertEquals(4L, taken.get(3).getConsole().getSeq());
+    }
+
+    @Test
+    void stopsAtTheFirstLineTheQueueDoesNotTake() throws IOException {
+        capacity = 2;
+        BulkIngestResponse res = reader(1 << 20).read("r1", body("garbage\n" + lines(1, 5)));
+
+        assertEquals(BulkIngestResponse.STOPPED_QUEUE_FULL, res.getStopped());
+        assertEquals(4, res.getLines());
+        assertEquals(2, res.getAccepted());
+        assertEquals(1, res.getDropped());
+        assertEquals(1, res.getMalformed());
+        assertEquals(3, res.getProcessed(), "the client resends from the 4th line");
+    }
+
+    @Test
+    void stopsWhereTheBodyPassesTheLimit() throws IOException {
+        String all = lines(1, 2000);
+        BulkIngestResponse res = reader(all.length() / 2).read("r1", body(all));
+
+        assertEquals(BulkIngestResponse.STOPPED_TOO_LARGE, res.getStopped());
+        assertTrue(res.getAccepted() > 0 && res.getAccepted() < 2000, "accepted " + res.getAccepted());
+        assertEquals(res.getAccepted(), res.getProcessed());
+        for (int i = 0; i < taken.size(); i++) {
+            assertEquals(i + 1L, taken.get(i).getConsole().getSeq(), "only leading lines are taken");
+        }
+    }
+
+    @Test
+    void limitAppliesToTheInflatedBody() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(lines(1, 2000).getBytes(StandardCharsets.UTF_8));
+        }
+        BulkIngestResponse res = reader(out.size() * 2L).read("r1", new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(BulkIngestResponse.STOPPED_TOO_LARGE, res.getStopped());
+    }
+
+    private NdjsonIngestReader reader(long maxBodyBytes) {
+        return new NdjsonIngestReader(new IngestFrameDecoder(1 << 20), pipeline, maxBodyBytes);
+    }
+
+    private static String lines(int fromSeq, int toSeq) {
+        StringBuilder sb = new StringBuilder();
+        for (int s = fromSeq; s <= toSeq; s++) {
+            sb.append("{\"type\":\"console\",\"level\":\"log\",\"message\":\"line ").append(s).append("\",\"seq\":").append(s).append("}\n");
+        }
+        return sb.toString();
+    }
+
+    private static ByteArrayInputStream body(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.recordroom.ingest;
+
+import com.example.recordroom.model.BreadcrumbEventIngestRequest;
+import com.example.recordroom.model.ConsoleEventIngestRequest;
+import com.example.recordroom.model.NetworkEventIngestRequest;
+
+/**
+ * Ingest item fixtures for tests outside this package.
+ */
+public final class TestIngestItems {
+
+    private TestIngestItems() {
+    }
+
+    public static IngestItem console(String recordId, long seq) {
+        return console(recordId, seq, 1_700_000_000_000L + seq);
+    }
+
+    public static IngestItem console(String recordId, long seq, long ts) {
+        ConsoleEventIngestRequest req = new ConsoleEventIngestRequest();
+        req.setType("console");
+        req.setLevel("log");
+        req.setMessage("message " + seq);
+        req.setTs(ts);
+        req.setSeq(seq);
+        return IngestItem.console(recordId, req);
+    }
+
+    public static IngestItem network(String recordId, long seq, long ts) {
+        NetworkEventIngestRequest req = new NetworkEventIngestRequest();
+        req.setType("network");
+        req.setClientRequestId(recordId + "-" + seq);
+        req.setMethod("GET");
+        req.setUrl("https://api.example.com/items/" + seq);
+        req.setStatus(200);
+        req.setStartedAtEpochMs(ts);
+        req.setDurationMs(20);
+        req.setSeq(seq);
+        return IngestItem.network(recordId, req);
+    }
+
+    public static IngestItem breadcrumb(String recordId, long seq, long ts) {
+        BreadcrumbEventIngestRequest req = new BreadcrumbEventIngestRequest();
+        req.setType("breadcrumb");
+        req.setName("click");
+        req.setMessage("button " + seq);
+        req.setTs(ts);
+        req.setSeq(seq);
+        return IngestItem.breadcrumb(recordId, req);
+    }
+
+    /** What the pipeline does once the item is written (true) or given up on (false). */
+    public static void complete(IngestItem item, boolean persisted) {
+        item.complete(persisted);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.recordroom.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleFingerprintTest {
+
+    private static final String STACK = "TypeError: Cannot read properties of undefined (reading 'id')\n"
+            + "    at render (https://app.example.com/static/js/main.3f9a1c.js?v=2:1:20456)\n"
+            + "    at https://app.example.com/static/js/vendor-9b8e7d6c.js:2:113\n";
+
+    @Test
+    void normalizesUrlsIdsAndNumbers() {
+        assertEquals("GET <url> failed with <n> after <n> ms",
+                ConsoleFingerprint.normalizeMessage("GET  https://api.example.com/items/42?page=3 failed with 500\tafter 1.5 ms"));
+        assertEquals("order <uuid> of user <hex> at <hex>",
+                ConsoleFingerprint.normalizeMessage("order 3f2a1b4c-9d8e-4f70-a1b2-c3d4e5f60718 of user 5f1e2d3c4b5a at 0x7ffe"));
+        assertEquals("deadbeef is a word", ConsoleFingerprint.normalizeMessage("deadbeef is a word"));
+        assertEquals("", ConsoleFingerprint.normalizeMessage(null));
+    }
+
+    @Test
+    void capsTheMessage() {
+        String text = String.join("", Collections.nCopies(100, "abcde "));
+
+        assertEquals(300, ConsoleFingerprint.normalizeMessage(text).length());
+    }
+
+    @Test
+    void stripsOriginQueryPositionAndBundleHashFromFrames() {
+        assertEquals(Arrays.asList("at render (/static/js/main.js)", "at /static/js/vendor.js"),
+                ConsoleFingerprint.normalizeFrames(STACK));
+        assertEquals(Collections.singletonList("render@/static/js/main.js"),
+                ConsoleFingerprint.normalizeFrames("render@https://app.example.com/static/js/main.3f9a1c.js:1:20456"));
+        assertTrue(ConsoleFingerprint.normalizeFrames(null).isEmpty());
+    }
+
+    @Test
+    void keepsTheFirstFiveFrames() {
+        StringBuilder stack = new StringBuilder("Error: boom\n");
+        for (int i = 0; i < 8; i++) stack.append("    at f").append(i).append(" (app.js:").append(i).append(":1)\n");
+
+        assertEquals(Arrays.asList("at f0 (app.js)", "at f1 (app.js)", "at f2 (app.js)", "at f3 (app.js)", "at f4 (app.js)"),
+                ConsoleFingerprint.normalizeFrames(stack.toString()));
+    }
+
+    @Test
+    void sameProblemAcrossDeploysAndOccurrencesHasOneFingerprint() {
+        String a = ConsoleFingerprint.of("error", "Request 812 failed: https://api.example.com/a?id=1", STACK);
+        String b = ConsoleFingerprint.of("ERROR", "Request 9 failed: https://api.example.com/b",
+                STACK.replace("main.3f9a1c.js?v=2:1:20456", "main.77aa01.js:1:20999").replace("app.example.com", "staging.example.com"));
+
+        assertEquals(a, b);
+        assertEquals(64, a.length());
+    }
+
+    @Test
+    void differentLevelMessageOrFramesGiveDifferentFingerprints() {
+        String base = ConsoleFingerprint.of("error", "Request failed", STACK);
+
+        assertNotEquals(base, ConsoleFingerprint.of("warn", "Request failed", STACK));
+        assertNotEquals(base, ConsoleFingerprint.of("error", "Request timed out", STACK));
+        assertNotEquals(base, ConsoleFingerprint.of("error", "Request failed", STACK.replace("render", "commit")));
+        assertNotEquals(base, ConsoleFingerprint.of("error", "Request failed", null));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.recordroom.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.example.recordroom.service.EventRollups.HOUR_MS;
+import static com.example.recordroom.service.EventRollups.MINUTE_MS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRollupsTest {
+
+    private static final long DAY = 1_700_006_400_000L; // a UTC midnight
+
+    @Test
+    void bucketStartRoundsDown() {
+        assertEquals(DAY, EventRollups.bucketStart(DAY + 59_999, MINUTE_MS));
+        assertEquals(DAY + HOUR_MS, EventRollups.bucketStart(DAY + HOUR_MS, HOUR_MS));
+        assertEquals(-MINUTE_MS, EventRollups.bucketStart(-1, MINUTE_MS));
+    }
+
+    @Test
+    void rangeInsideOneHourReadsMinutesOnly() {
+        List<long[]> ranges = EventRollups.ranges(at(10, 5) + 30_000, at(10, 40) + 10_000);
+
+        assertEquals(1, ranges.size());
+        assertRange(MINUTE_MS, at(10, 5), at(10, 40), ranges.get(0));
+    }
+
+    @Test
+    void rangeOverSeveralHoursReadsHoursAndEdgeMinutes() {
+        List<long[]> ranges = EventRollups.ranges(at(10, 5), at(13, 20) + 59_999);
+
+        assertEquals(3, ranges.size());
+        assertRange(HOUR_MS, at(11, 0), at(13, 0) - 1, ranges.get(0));
+        assertRange(MINUTE_MS, at(10, 5), at(11, 0) - 1, ranges.get(1));
+        assertRange(MINUTE_MS, at(13, 0), at(13, 20), ranges.get(2));
+    }
+
+    @Test
+    void hourAlignedRangeReadsHoursOnly() {
+        List<long[]> ranges = EventRollups.ranges(at(10, 0), at(12, 59) + 30_000);
+
+        assertEquals(1, ranges.size());
+        assertRange(HOUR_MS, at(10, 0), at(13, 0) - 1, ranges.get(0));
+    }
+
+    @Test
+    void rangeEndingOnAnHourBoundaryReadsThatMinute() {
+        List<long[]> ranges = EventRollups.ranges(at(9, 0), at(11, 0));
+
+        assertEquals(2, ranges.size());
+        assertRange(HOUR_MS, at(9, 0), at(11, 0) - 1, ranges.get(0));
+        assertRange(MINUTE_MS, at(11, 0), at(11, 0), ranges.get(1));
+    }
+
+    @Test
+    void openBounds() {
+        List<long[]> all = EventRollups.ranges(null, null);
+        assertEquals(1, all.size());
+        assertRange(HOUR_MS, Long.MIN_VALUE, Long.MAX_VALUE, all.get(0));
+
+        List<long[]> until = EventRollups.ranges(null, at(10, 30));
+        assertEquals(2, until.size());
+        assertRange(HOUR_MS, Long.MIN_VALUE, at(10, 0) - 1, until.get(0));
+        assertRange(MINUTE_MS, at(10, 0), at(10, 30), until.get(1));
+
+        List<long[]> since = EventRollups.ranges(at(10, 30), null);
+        assertEquals(2, since.size());
+        assertRange(HOUR_MS, at(11, 0), Long.MAX_VALUE, since.get(0));
+        assertRange(MINUTE_MS, at(10, 30), at(11, 0) - 1, since.get(1));
+    }
+
+    @Test
+    void emptyWhenFromIsAfterTo() {
+        assertTrue(EventRollups.ranges(at(10, 1), at(10, 0)).isEmpty());
+        assertEquals(1, EventRollups.ranges(at(10, 0) + 50_000, at(10, 0) + 10_000).size(), "same minute");
+    }
+
+    @Test
+    void everyMinuteOfTheRangeIsCoveredExactlyOnce() {
+        Random r = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            long from = DAY + (long) (r.nextDouble() * 2 * 24 * HOUR_MS);
+            long to = from + (long) (r.nextDouble() * (r.nextBoolean() ? 3 * HOUR_MS : 30 * HOUR_MS));
+            List<long[]> ranges = EventRollups.ranges(from, to);
+
+            for (long m = EventRollups.bucketStart(from, MINUTE_MS) - 2 * MINUTE_MS; m <= to + 2 * MINUTE_MS; m += MINUTE_MS) {
+                int covering = 0;
+                for (long[] range : ranges) {
+                    long bucket = EventRollups.bucketStart(m, range[0]);
+                    if (bucket >= range[1] && bucket <= range[2]) covering++;
+                }
+                boolean inside = m >= EventRollups.bucketStart(from, MINUTE_MS) && m <= to;
+                assertEquals(inside ? 1 : 0, covering, "minute " + m + " of [" + from + ", " + to + "]");
+            }
+        }
+    }
+
+    private static long at(int hour, int minute) {
+        return DAY + hour * HOUR_MS + minute * MINUTE_MS;
+    }
+
+    private static void assertRange(long bucketMs, long firstStart, long lastStart, long[] range) {
+        assertArrayEquals(new long[]{bucketMs, firstStart, lastStart}, range);
+    }
+}
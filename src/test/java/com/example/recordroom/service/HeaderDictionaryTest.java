@@ -0,0 +1,186 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.HeaderDictRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:recordroom-test;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.h2.console.enabled=false",
+        "recordroom.ingest.async=false",
+        "recordroom.rrweb.compact-enabled=false"
+})
+class HeaderDictionaryTest {
+
+    private static final int PAIR = 0, NAME = 1, LITERAL = 2;
+
+    @Autowired
+    private HeaderDictRepository dictRepo;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    // header names are unique per test: the dictionary table is shared by the whole context
+    private final String p = "x-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+
+    @Test
+    void roundTripsInOrder() {
+        HeaderDictionary dict = dictionary(64, 100, 100);
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(p + "content-type", "application/json; charset=utf-8");
+        headers.put(p + "empty", "");
+        headers.put(p + "ümlaut", "wért ✓");
+        headers.put(null, null);
+        headers.put(p + "accept", "*/*");
+        dict.intern(headers);
+
+        Map<String, String> back = dict.decode(dict.encode(headers));
+
+        Map<String, String> expected = new LinkedHashMap<>();
+        for (Map.Entry<String, String> kv : headers.entrySet()) {
+            expected.put(kv.getKey() == null ? "" : kv.getKey(), kv.getValue() == null ? "" : kv.getValue());
+        }
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(back.keySet()));
+        assertEquals(expected, back);
+    }
+
+    @Test
+    void emptyHeadersEncodeAsNull() {
+        HeaderDictionary dict = dictionary(64, 100, 100);
+
+        assertNull(dict.encode(null));
+        assertNull(dict.encode(new LinkedHashMap<>()));
+        assertTrue(dict.decode(null).isEmpty());
+        assertTrue(dict.decode(new byte[]{9, 1}).isEmpty(), "unknown version");
+    }
+
+    @Test
+    void encodeWritesUninternedEntriesLiterallyWithoutInserting() {
+        HeaderDictionary dict = dictionary(64, 100, 100);
+        Map<String, String> headers = headers(p + "accept", "text/html", p + "server", "nginx");
+        int entries = dictRepo.findAll().size();
+
+        byte[] data = dict.encode(headers);
+
+        assertEquals(Arrays.asList(LITERAL, LITERAL), tags(data));
+        assertEquals(entries, dictRepo.findAll().size());
+        assertEquals(headers, dict.decode(data));
+    }
+
+    @Test
+    void internedHeadersUsePairsOrNames() {
+        HeaderDictionary dict = dictionary(16, 100, 100);
+        Map<String, String> headers = headers(
+                p + "accept", "application/json",
+                "Date", "Tue, 17 Oct 2026 10:00:00 GMT",
+                p + "long", "0123456789abcdefXYZ");
+        byte[] literal = dict.encode(headers);
+
+        dict.intern(headers);
+        byte[] data = dict.encode(headers);
+
+        assertEquals(Arrays.asList(PAIR, NAME, NAME), tags(data), "volatile and long values keep only the name");
+        assertTrue(data.length < literal.length);
+        assertEquals(headers, dict.decode(data));
+    }
+
+    @Test
+    void capsFallBackToLiterals() {
+        HeaderDictionary dict = dictionary(64, 1, 0);
+        Map<String, String> headers = headers(p + "a", "1", p + "b", "2");
+
+        dict.intern(headers);
+
+        assertEquals(Arrays.asList(NAME, LITERAL), tags(dict.encode(headers)));
+    }
+
+    @Test
+    void otherInstanceDecodesAndReusesEntries() {
+        HeaderDictionary writer = dictionary(64, 100, 100);
+        Map<String, String> headers = headers(p + "cache-control", "no-cache", "Set-Cookie", "sid=1");
+        writer.intern(headers);
+        byte[] data = writer.encode(headers);
+
+        // not loaded: ids are looked up on first use
+        assertEquals(headers, dictionary(64, 100, 100).decode(data));
+
+        HeaderDictionary loaded = dictionary(64, 100, 100);
+        loaded.load();
+        int entries = dictRepo.findAll().size();
+        assertArrayEquals(data, loaded.encode(headers));
+        assertEquals(entries, dictRepo.findAll().size());
+    }
+
+    @Test
+    void concurrentInternOfTheSameEntryResolvesToOneId() {
+        Map<String, String> headers = headers(p + "x-frame-options", "DENY");
+        HeaderDictionary first = dictionary(64, 100, 100);
+        HeaderDictionary second = dictionary(64, 100, 100); // does not know first's entry
+
+        first.intern(headers);
+        second.intern(headers);
+
+        assertArrayEquals(first.encode(headers), second.encode(headers));
+        assertEquals(Arrays.asList(PAIR), tags(second.encode(headers)));
+    }
+
+    @Test
+    void truncatedDataDecodesAsFarAsItGoes() {
+        HeaderDictionary dict = dictionary(64, 100, 100);
+        Map<String, String> headers = headers(p + "first", "one", p + "second", "two");
+        byte[] data = dict.encode(headers);
+
+        Map<String, String> back = dict.decode(Arrays.copyOf(data, data.length - 2));
+
+        assertEquals(headers(p + "first", "one"), back);
+    }
+
+    private HeaderDictionary dictionary(int maxPairValueChars, int maxNames, int maxPairs) {
+        return new HeaderDictionary(dictRepo, txManager, maxPairValueChars, maxNames, maxPairs);
+    }
+
+    private static Map<String, String> headers(String... kv) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (int i = 0; i < kv.length; i += 2) out.put(kv[i], kv[i + 1]);
+        return out;
+    }
+
+    /** Entry tags (tag & 3) of encoded headers, per the format in HeaderDictionary's doc. */
+    private static List<Integer> tags(byte[] data) {
+        List<Integer> out = new ArrayList<>();
+        int[] pos = {1};
+        long count = varint(data, pos);
+        for (long i = 0; i < count; i++) {
+            int tag = (int) (varint(data, pos) & 3);
+            out.add(tag);
+            if (tag == LITERAL) skipString(data, pos);
+            if (tag != PAIR) skipString(data, pos);
+        }
+        return out;
+    }
+
+    private static long varint(byte[] data, int[] pos) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos[0]++];
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    private static void skipString(byte[] data, int[] pos) {
+        int len = (int) varint(data, pos);
+        pos[0] += len;
+    }
+}
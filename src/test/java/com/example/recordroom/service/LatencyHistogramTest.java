@@ -0,0 +1,142 @@
+package com.example.recordroom.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    private static final double[] QUANTILES = {0.01, 0.5, 0.9, 0.95, 0.99, 1.0};
+
+    @Test
+    void emptyHistogramReportsZeros() {
+        LatencyHistogram h = new LatencyHistogram(7);
+
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMin());
+        assertEquals(0, h.getMax());
+        assertEquals(0, h.getMean());
+        assertEquals(0, h.percentile(0.5));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram h = new LatencyHistogram(7);
+        for (long v = 0; v < 100; v++) h.record(v);
+        h.record(-5); // ignored
+
+        assertEquals(100, h.getCount());
+        assertEquals(0, h.percentile(0.01));
+        assertEquals(49, h.percentile(0.5));
+        assertEquals(98, h.percentile(0.99));
+        assertEquals(99, h.percentile(1.0));
+        assertEquals(49, h.getMean());
+    }
+
+    @Test
+    void percentilesStayWithinTheBucketError() {
+        int bits = 7;
+        LatencyHistogram h = new LatencyHistogram(bits);
+        long[] values = sample(new Random(42), 20_000);
+        for (long v : values) h.record(v);
+        Arrays.sort(values);
+
+        for (double q : QUANTILES) {
+            long exact = values[(int) Math.ceil(values.length * q) - 1];
+            long reported = h.percentile(q);
+            assertTrue(Math.abs(reported - exact) <= exact / (1L << bits) + 1,
+                    "p" + q + ": exact " + exact + ", reported " + reported);
+        }
+        assertEquals(values[0], h.getMin());
+        assertEquals(values[values.length - 1], h.getMax());
+    }
+
+    @Test
+    void roundTripsThroughEncode() {
+        LatencyHistogram h = new LatencyHistogram(5);
+        for (long v : sample(new Random(7), 5_000)) h.record(v);
+
+        byte[] data = h.encode();
+        LatencyHistogram back = LatencyHistogram.decode(data, 7);
+
+        assertEquals(h.getCount(), back.getCount());
+        assertEquals(h.getMin(), back.getMin());
+        assertEquals(h.getMax(), back.getMax());
+        assertEquals(h.getMean(), back.getMean());
+        for (double q : QUANTILES) assertEquals(h.percentile(q), back.percentile(q));
+        assertArrayEquals(data, back.encode());
+        assertTrue(data.length < 1024, "encoded " + data.length + " bytes");
+    }
+
+    @Test
+    void emptyHistogramRoundTrips() {
+        LatencyHistogram back = LatencyHistogram.decode(new LatencyHistogram(7).encode(), 3);
+
+        assertEquals(0, back.getCount());
+        back.record(10);
+        assertEquals(10, back.getMin());
+        assertEquals(10, back.getMax());
+    }
+
+    @Test
+    void unreadableDataDecodesEmpty() {
+        byte[] data = new LatencyHistogram(7).encode();
+        data[0] = 99; // unknown version
+
+        assertEquals(0, LatencyHistogram.decode(null, 7).getCount());
+        assertEquals(0, LatencyHistogram.decode(new byte[0], 7).getCount());
+        assertEquals(0, LatencyHistogram.decode(data, 7).getCount());
+
+        LatencyHistogram h = new LatencyHistogram(7);
+        for (long v = 1; v < 1000; v += 7) h.record(v);
+        byte[] full = h.encode();
+        assertEquals(0, LatencyHistogram.decode(Arrays.copyOf(full, full.length - 3), 7).getCount());
+    }
+
+    @Test
+    void mergeEqualsRecordingEverythingInOne() {
+        long[] values = sample(new Random(3), 10_000);
+        LatencyHistogram all = new LatencyHistogram(7);
+        LatencyHistogram left = new LatencyHistogram(7);
+        LatencyHistogram right = new LatencyHistogram(7);
+        for (int i = 0; i < values.length; i++) {
+            all.record(values[i]);
+            (i % 3 == 0 ? left : right).record(values[i]);
+        }
+
+        left.add(right);
+        left.add(null);
+        left.add(new LatencyHistogram(7));
+
+        assertArrayEquals(all.encode(), left.encode());
+    }
+
+    @Test
+    void mergesHistogramOfOtherPrecision() {
+        long[] values = sample(new Random(11), 10_000);
+        LatencyHistogram coarse = new LatencyHistogram(4);
+        LatencyHistogram fine = new LatencyHistogram(8);
+        for (long v : values) coarse.record(v);
+
+        fine.add(coarse);
+
+        assertEquals(coarse.getCount(), fine.getCount());
+        assertEquals(coarse.getMin(), fine.getMin());
+        assertEquals(coarse.getMax(), fine.getMax());
+        assertEquals(coarse.getMean(), fine.getMean());
+        for (double q : QUANTILES) {
+            long c = coarse.percentile(q);
+            assertTrue(Math.abs(fine.percentile(q) - c) <= c / (1L << 8) + 1, "p" + q);
+        }
+    }
+
+    /** Log-normal-ish request durations, 1 ms to a few minutes. */
+    private static long[] sample(Random r, int n) {
+        long[] out = new long[n];
+        for (int i = 0; i < n; i++) out[i] = Math.min(300_000, Math.round(Math.exp(4 + 1.5 * r.nextGaussian())));
+        return out;
+    }
+}
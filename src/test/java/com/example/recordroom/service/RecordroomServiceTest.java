@@ -0,0 +1,163 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.ingest.IngestItem;
+import com.example.recordroom.ingest.TestIngestItems;
+import com.example.recordroom.model.CreateRecordRequest;
+import com.example.recordroom.model.TimelineResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:recordroom-test;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.h2.console.enabled=false",
+        "recordroom.ingest.async=false",
+        "recordroom.rrweb.compact-enabled=false"
+})
+class RecordroomServiceTest {
+
+    private static final Set<String> ALL_KINDS = new HashSet<>(Arrays.asList("console", "network", "breadcrumb"));
+    private static final List<String> KIND_ORDER = Arrays.asList("console", "network", "breadcrumb");
+
+    @Autowired
+    private RecordroomService service;
+
+    @Test
+    void timelinePagesMergeKindsWithoutSkippingTies() {
+        String recordId = newRecord();
+        List<String> expected = saveTimelineEvents(recordId);
+
+        for (int limit : new int[]{1, 4, 7, 100}) {
+            List<String> seen = new ArrayList<>();
+            String after = null;
+            for (int page = 0; page < 200; page++) {
+                TimelineResponse res = timeline(recordId, after, limit, ALL_KINDS, null, null);
+                if (res.getItems().isEmpty()) break;
+                assertTrue(res.getItems().size() <= limit);
+                for (TimelineResponse.TimelineItem item : res.getItems()) seen.add(key(item));
+                after = res.getNextAfter();
+            }
+            assertEquals(expected, seen, "limit " + limit);
+        }
+    }
+
+    @Test
+    void timelineKeepsOnePositionPerKind() {
+        String recordId = newRecord();
+        service.saveBatch(Arrays.asList(
+                TestIngestItems.console(recordId, 5, 1000),
+                TestIngestItems.network(recordId, 5, 1000),
+                TestIngestItems.breadcrumb(recordId, 2, 1000)));
+
+        TimelineResponse first = timeline(recordId, null, 2, ALL_KINDS, null, null);
+        assertEquals(Arrays.asList("breadcrumb@1000#2", "console@1000#5"), keys(first));
+        assertEquals("c1000_5.n0_0.b1000_2", first.getNextAfter());
+
+        // a shared (ts, seq) position would be (1000, 5) and skip the network event tied with it
+        TimelineResponse rest = timeline(recordId, first.getNextAfter(), 10, ALL_KINDS, null, null);
+        assertEquals(Arrays.asList("network@1000#5"), keys(rest));
+        assertEquals("c1000_5.n1000_5.b1000_2", rest.getNextAfter());
+    }
+
+    @Test
+    void timelineFiltersKindsAndTimeRange() {
+        String recordId = newRecord();
+        List<String> all = saveTimelineEvents(recordId);
+
+        List<String> consoleAndBreadcrumbs = new ArrayList<>();
+        for (String k : all) if (!k.startsWith("network")) consoleAndBreadcrumbs.add(k);
+        assertEquals(consoleAndBreadcrumbs,
+                keys(timeline(recordId, null, 1000, new HashSet<>(Arrays.asList("console", "breadcrumb")), null, null)));
+
+        List<String> inRange = new ArrayList<>();
+        for (String k : all) {
+            long ts = Long.parseLong(k.substring(k.indexOf('@') + 1, k.indexOf('#')));
+            if (ts >= 1020 && ts <= 1040) inRange.add(k);
+        }
+        List<String> seen = new ArrayList<>();
+        String after = null;
+        for (int page = 0; page < 100; page++) {
+            TimelineResponse res = timeline(recordId, after, 3, ALL_KINDS, 1020L, 1040L);
+            if (res.getItems().isEmpty()) break;
+            seen.addAll(keys(res));
+            after = res.getNextAfter();
+        }
+        assertEquals(inRange, seen);
+    }
+
+    @Test
+    void timelineCursorParsesLegacyAndPerKindForms() {
+        RecordroomService.TimelineCursor legacy = RecordroomService.TimelineCursor.parse("1010_4");
+        assertEquals("c1010_4.n1010_4.b1010_4", legacy.toString());
+
+        RecordroomService.TimelineCursor perKind = RecordroomService.TimelineCursor.parse("c5_1.b7_2");
+        assertEquals(5, perKind.get(0).ts);
+        assertEquals(0, perKind.get(1).ts);
+        assertEquals(2, perKind.get(2).seq);
+        assertEquals("c5_1.n0_0.b7_2", perKind.toString());
+        assertEquals(perKind.toString(), RecordroomService.TimelineCursor.parse(perKind.toString()).toString());
+
+        assertEquals("c0_0.n0_0.b0_0", RecordroomService.TimelineCursor.parse(null).toString());
+        assertEquals("c0_0.n0_0.b0_0", RecordroomService.TimelineCursor.parse("garbage").toString());
+    }
+
+    private String newRecord() {
+        String recordId = "service-test-" + UUID.randomUUID();
+        service.createRecord(new CreateRecordRequest(), recordId, "session-" + recordId, 1000);
+        return recordId;
+    }
+
+    /** Events of all kinds with ts and seq ties across and within kinds; returns their keys in timeline order. */
+    private List<String> saveTimelineEvents(String recordId) {
+        List<IngestItem> items = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            items.add(TestIngestItems.console(recordId, i + 1, 1000 + (i / 3) * 5));
+            items.add(TestIngestItems.network(recordId, i + 1, 1000 + (i / 2) * 5));
+            if (i < 12) items.add(TestIngestItems.breadcrumb(recordId, i + 1, 1000 + i * 5));
+        }
+        service.saveBatch(items);
+
+        List<TimelineResponse.TimelineItem> expected = new ArrayList<>();
+        List<String> out = new ArrayList<>();
+        for (IngestItem it : items) {
+            switch (it.getKind()) {
+                case CONSOLE: expected.add(item("console", it.getConsole().getTs(), it.getConsole().getSeq())); break;
+                case NETWORK: expected.add(item("network", it.getNetwork().getStartedAtEpochMs(), it.getNetwork().getSeq())); break;
+                default: expected.add(item("breadcrumb", it.getBreadcrumb().getTs(), it.getBreadcrumb().getSeq()));
+            }
+        }
+        expected.sort(Comparator.comparingLong(TimelineResponse.TimelineItem::getTs)
+                .thenComparingLong(TimelineResponse.TimelineItem::getSeq)
+                .thenComparingInt(i -> KIND_ORDER.indexOf(i.getKind())));
+        for (TimelineResponse.TimelineItem i : expected) out.add(key(i));
+        return out;
+    }
+
+    private TimelineResponse timeline(String recordId, String after, int limit, Set<String> kinds, Long tsFrom, Long tsTo) {
+        return service.listTimeline(recordId, RecordroomService.TimelineCursor.parse(after), limit, kinds, null, null, tsFrom, tsTo);
+    }
+
+    private static TimelineResponse.TimelineItem item(String kind, long ts, long seq) {
+        return new TimelineResponse.TimelineItem(kind, null, ts, seq, null, null, null, null, null, 0, null);
+    }
+
+    private static String key(TimelineResponse.TimelineItem item) {
+        return item.getKind() + "@" + item.getTs() + "#" + item.getSeq();
+    }
+
+    private static List<String> keys(TimelineResponse res) {
+        List<String> out = new ArrayList<>();
+        for (TimelineResponse.TimelineItem item : res.getItems()) out.add(key(item));
+        return out;
+    }
+}
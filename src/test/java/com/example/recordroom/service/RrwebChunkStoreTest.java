@@ -0,0 +1,164 @@
+package com.example.recordroom.service;
+
+import com.example.recordroom.persistence.RrwebChunkEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:recordroom-test;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.h2.console.enabled=false",
+        "recordroom.ingest.async=false",
+        "recordroom.rrweb.compact-enabled=false"
+})
+class RrwebChunkStoreTest {
+
+    @Autowired
+    private RrwebChunkStore store;
+
+    @Test
+    void chunkRoundTripsEventsInReceivedOrder() {
+        String recordId = newRecordId();
+        List<RrwebChunkStore.Event> events = Arrays.asList(
+                event(1010, 3, "{\"type\":3,\"data\":{\"text\":\"h\\u00e9llo \\\"x\\\"\"}}"),
+                event(1000, 1, "{\"type\":4,\"data\":{\"width\":1280}}"),
+                event(1005, 2, null));
+
+        RrwebChunkEntity chunk = store.write(Collections.singletonList(new RrwebChunkStore.Run(recordId, events))).get(0);
+
+        assertEquals(RrwebChunkStore.ENCODING, chunk.getEncoding());
+        assertEquals(3, chunk.getEventCount());
+        assertEquals(1000, chunk.getMinTs());
+        assertEquals(1010, chunk.getMaxTs());
+        assertEquals(1, chunk.getMinSeq());
+        assertEquals(3, chunk.getMaxSeq());
+
+        List<RrwebChunkStore.Event> back = store.decode(chunk);
+        assertEquals(Arrays.asList(3L, 1L, 2L), seqs(back));
+        assertEquals(events.get(0).getPayloadJson(), back.get(0).getPayloadJson());
+        assertEquals("{}", back.get(2).getPayloadJson());
+    }
+
+    @Test
+    void repetitivePayloadsCompress() {
+        String recordId = newRecordId();
+        List<RrwebChunkStore.Event> events = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) events.add(event(1000 + i, i, incremental(i)));
+
+        RrwebChunkEntity chunk = store.write(Collections.singletonList(new RrwebChunkStore.Run(recordId, events))).get(0);
+
+        assertTrue(chunk.getData().length * 4 < chunk.getRawBytes(), chunk.getData().length + " of " + chunk.getRawBytes());
+    }
+
+    @Test
+    void readsOverlappingChunksInReplayOrderAcrossPages() {
+        String recordId = newRecordId();
+        store.write(Arrays.asList(
+                new RrwebChunkStore.Run(recordId, Arrays.asList(event(1000, 1, incremental(1)), event(1020, 4, incremental(4)))),
+                new RrwebChunkStore.Run(recordId, Arrays.asList(event(1010, 2, incremental(2)), event(1010, 3, incremental(3)))),
+                new RrwebChunkStore.Run(recordId, Collections.singletonList(event(1030, 5, incremental(5))))));
+
+        RrwebChunkStore.Page first = store.read(recordId, 0, 0, 3);
+        assertEquals(Arrays.asList(1L, 2L, 3L), seqs(first.getEvents()));
+        assertEquals("1010_3", first.getNextAfter());
+
+        RrwebChunkStore.Page second = store.read(recordId, 1010, 3, 3);
+        assertEquals(Arrays.asList(4L, 5L), seqs(second.getEvents()));
+        assertEquals("1030_5", second.getNextAfter());
+
+        RrwebChunkStore.Page end = store.read(recordId, 1030, 5, 3);
+        assertTrue(end.getEvents().isEmpty());
+        assertEquals("1030_5", end.getNextAfter());
+    }
+
+    @Test
+    void seekStartsAtTheMetaAndSnapshotInEffect() {
+        String recordId = newRecordId();
+        store.write(Arrays.asList(
+                new RrwebChunkStore.Run(recordId, Arrays.asList(
+                        event(1000, 1, meta()), event(1001, 2, snapshot()), event(1002, 3, incremental(3)), event(1003, 4, incremental(4)))),
+                new RrwebChunkStore.Run(recordId, Arrays.asList(
+                        event(5000, 10, meta()), event(5001, 11, snapshot()), event(5002, 12, incremental(12)))),
+                new RrwebChunkStore.Run(recordId, Arrays.asList(
+                        event(6000, 13, incremental(13)), event(6001, 14, incremental(14))))));
+
+        RrwebChunkStore.Page late = store.readAt(recordId, 6000, 3);
+        assertEquals(Arrays.asList(10L, 11L, 12L, 13L), seqs(late.getEvents()), "meta, then limit events from the snapshot");
+        assertEquals("6000_13", late.getNextAfter());
+
+        RrwebChunkStore.Page early = store.readAt(recordId, 4999, 10);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 10L, 11L, 12L, 13L, 14L), seqs(early.getEvents()));
+
+        RrwebChunkStore.Page beforeAny = store.readAt(recordId, 999, 2);
+        assertEquals(Arrays.asList(1L, 2L), seqs(beforeAny.getEvents()));
+    }
+
+    @Test
+    void seekWithoutAMetaStartsAtTheSnapshot() {
+        String recordId = newRecordId();
+        store.write(Collections.singletonList(new RrwebChunkStore.Run(recordId, Arrays.asList(
+                event(1000, 1, incremental(1)), event(2000, 2, snapshot()), event(2001, 3, incremental(3))))));
+
+        assertEquals(Arrays.asList(2L, 3L), seqs(store.readAt(recordId, 2500, 10).getEvents()));
+    }
+
+    @Test
+    void pageWritesStoredPayloadsVerbatim() throws IOException {
+        String recordId = newRecordId();
+        String payload = "{\"type\":3,  \"data\":{\"n\":1.50}}";
+        store.write(Collections.singletonList(new RrwebChunkStore.Run(recordId, Collections.singletonList(event(1000, 1, payload)))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        store.read(recordId, 0, 0, 10).writeJson(out);
+
+        assertEquals("{\"events\":[" + payload + "],\"nextAfter\":\"1000_1\"}", out.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    void readsTopLevelEventType() {
+        assertEquals(2, RrwebChunkStore.eventType("{\"type\":2,\"data\":{}}"));
+        assertEquals(4, RrwebChunkStore.eventType("{\"data\":{\"type\":9},\"type\":4}"));
+        assertEquals(-1, RrwebChunkStore.eventType("{\"type\":\"2\"}"));
+        assertEquals(-1, RrwebChunkStore.eventType("[2]"));
+        assertEquals(-1, RrwebChunkStore.eventType("not json"));
+        assertEquals(-1, RrwebChunkStore.eventType(null));
+    }
+
+    private static String newRecordId() {
+        return "chunk-test-" + UUID.randomUUID();
+    }
+
+    private static RrwebChunkStore.Event event(long ts, long seq, String payload) {
+        return new RrwebChunkStore.Event(ts, seq, payload);
+    }
+
+    private static String meta() {
+        return "{\"type\":4,\"data\":{\"href\":\"https://app.example.com/\",\"width\":1280,\"height\":720}}";
+    }
+
+    private static String snapshot() {
+        return "{\"type\":2,\"data\":{\"node\":{\"type\":0,\"childNodes\":[],\"id\":1}}}";
+    }
+
+    private static String incremental(long i) {
+        return "{\"type\":3,\"data\":{\"source\":0,\"attributes\":[{\"id\":" + (100 + i)
+                + ",\"attributes\":{\"class\":\"row row-" + i + " is-selected\"}}],\"removes\":[],\"adds\":[]}}";
+    }
+
+    private static List<Long> seqs(List<RrwebChunkStore.Event> events) {
+        List<Long> out = new ArrayList<>(events.size());
+        for (RrwebChunkStore.Event e : events) out.add(e.getSeq());
+        return out;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.recordroom.ws;
+
+import com.example.recordroom.ingest.IngestItem;
+import com.example.recordroom.ingest.IngestPipeline;
+import com.example.recordroom.ingest.TestIngestItems;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestAckTrackerTest {
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final List<String> sent = new ArrayList<>();
+    private boolean open = true;
+    private boolean backedUp;
+
+    private final IngestPipeline pipeline = new IngestPipeline(null, null, false, 10, 1, 1, 1, 1, 0) {
+        @Override
+        public boolean isBackedUp() {
+            return backedUp;
+        }
+    };
+    private final IngestAckTracker tracker = new IngestAckTracker(session(), pipeline, 8);
+
+    @Test
+    void helloGrantsTheWindow() throws IOException {
+        tracker.hello();
+
+        JsonNode ack = only();
+        assertEquals("ack", ack.get("type").asText());
+        assertEquals(0, ack.get("frames").asLong());
+        assertEquals(8, ack.get("credits").asInt());
+        assertEquals(0, ack.get("received").asLong());
+    }
+
+    @Test
+    void acksOnlyOnceEveryEarlierFrameIsSettled() throws IOException {
+        IngestItem first = submit(tracker.received(), 1);
+        IngestItem second = submit(tracker.received(), 2);
+
+        TestIngestItems.complete(second, true);
+        assertTrue(sent.isEmpty(), "frame 1 is still in flight");
+
+        TestIngestItems.complete(first, true);
+        JsonNode ack = only();
+        assertEquals(2, ack.get("frames").asLong());
+        assertEquals(2, ack.get("seq").asLong());
+        assertEquals(2, ack.get("received").asLong());
+    }
+
+    @Test
+    void failedFrameIsNackedBeforeTheAckAndKeepsItsSeqOut() throws IOException {
+        IngestItem ok = submit(tracker.received(), 5);
+        IngestItem failed = submit(tracker.received(), 9);
+
+        TestIngestItems.complete(failed, false);
+        TestIngestItems.complete(ok, true);
+
+        assertEquals(2, sent.size());
+        JsonNode nack = message(0);
+        assertEquals("nack", nack.get("type").asText());
+        assertEquals(2, nack.get("frame").asLong());
+        assertEquals("failed", nack.get("reason").asText());
+        assertFalse(nack.get("retry").asBoolean());
+        assertEquals(9, nack.get("seqs").get(0).asLong());
+
+        JsonNode ack = message(1);
+        assertEquals(2, ack.get("frames").asLong());
+        assertEquals(5, ack.get("seq").asLong(), "a failed frame's seq is not acknowledged");
+    }
+
+    @Test
+    void droppedFrameAsksForARetry() throws IOException {
+        IngestAckTracker.Frame f = tracker.received();
+        tracker.dropped(f);
+
+        JsonNode nack = message(0);
+        assertEquals("overloaded", nack.get("reason").asText());
+        assertTrue(nack.get("retry").asBoolean());
+        assertEquals(1, message(1).get("frames").asLong());
+    }
+
+    @Test
+    void malformedFrameIsNotRetried() throws IOException {
+        tracker.malformed(tracker.received());
+
+        JsonNode nack = message(0);
+        assertEquals("malformed", nack.get("reason").asText());
+        assertFalse(nack.get("retry").asBoolean());
+        assertEquals(0, nack.get("seqs").size());
+    }
+
+    @Test
+    void settlingTwiceSendsNothingMore() {
+        IngestAckTracker.Frame f = tracker.received();
+        IngestItem item = submit(f, 1);
+        TestIngestItems.complete(item, true);
+        tracker.dropped(f);
+
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void backedUpPipelineOnlyCoversFramesInFlight() throws IOException {
+        IngestItem first = submit(tracker.received(), 1);
+        submit(tracker.received(), 2);
+        submit(tracker.received(), 3);
+        backedUp = true;
+
+        TestIngestItems.complete(first, true);
+        assertEquals(2, only().get("credits").asInt());
+
+        sent.clear();
+        tracker.hello();
+        assertEquals(2, only().get("credits").asInt());
+    }
+
+    @Test
+    void backedUpPipelineStillGrantsOneCredit() throws IOException {
+        backedUp = true;
+        tracker.hello();
+
+        assertEquals(1, only().get("credits").asInt());
+    }
+
+    @Test
+    void closedSocketGetsNothing() {
+        open = false;
+        tracker.hello();
+        tracker.malformed(tracker.received());
+
+        assertTrue(sent.isEmpty());
+    }
+
+    private IngestItem submit(IngestAckTracker.Frame f, long seq) {
+        IngestItem item = TestIngestItems.console("r1", seq);
+        tracker.submitted(f, item);
+        return item;
+    }
+
+    private JsonNode only() throws IOException {
+        assertEquals(1, sent.size(), "messages: " + sent);
+        return message(0);
+    }
+
+    private JsonNode message(int i) throws IOException {
+        return om.readTree(sent.get(i));
+    }
+
+    private WebSocketSession session() {
+        return (WebSocketSession) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebSocketSession.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isOpen": return open;
+                        case "sendMessage": sent.add(((TextMessage) args[0]).getPayload()); return null;
+                        default: throw new UnsupportedOperationException(method.getName() + Arrays.toString(args));
+                    }
+                });
+    }
+}